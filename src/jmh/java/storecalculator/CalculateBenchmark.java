@@ -0,0 +1,57 @@
+package storecalculator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the arithmetic calculateValue delegates to, one row at a time and as a batch
+ * @author Yehyun Kim
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CalculateBenchmark {
+    private static final int SIZE = 1024;
+
+    @Param({"SMALL_INT", "LONG_DECIMAL", "NEAR_LIMIT"})
+    public InputDistribution distribution;
+
+    @Param({"PLUS", "MULTIPLY", "DIVIDE", "EXPONENT"})
+    public CalculatorEngine.Op op;
+
+    private double[] lhs, rhs, out;
+    private CalculatorEngine.Op[] ops;
+    private int index;
+
+    @Setup
+    public void setup(){
+        lhs = distribution.values(SIZE);
+        rhs = InputDistribution.SMALL_INT.values(SIZE); // never 0: divide does not throw
+        out = new double[SIZE];
+        ops = new CalculatorEngine.Op[SIZE];
+        Arrays.fill(ops, op);
+    }
+
+    @Benchmark
+    public double apply(){
+        int i = index++ & (SIZE - 1);
+        return CalculatorEngine.apply(op, lhs[i], rhs[i]);
+    }
+
+    /**
+     * Time for SIZE rows
+     */
+    @Benchmark
+    public double[] evaluateBatch(){
+        CalculatorEngine.evaluate(lhs, rhs, ops, out);
+        return out;
+    }
+}
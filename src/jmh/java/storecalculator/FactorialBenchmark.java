@@ -0,0 +1,27 @@
+package storecalculator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the factorial used by factorialButtonHandler
+ * @author Yehyun Kim
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FactorialBenchmark {
+    @Param({"3", "10", "15"})
+    public int n;
+
+    @Benchmark
+    public double factorial(){
+        return CalculatorEngine.factorial(n);
+    }
+}
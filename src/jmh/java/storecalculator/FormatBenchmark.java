@@ -0,0 +1,48 @@
+package storecalculator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of formatNumbersToString and FormatPrintString: runs on every display update
+ * @author Yehyun Kim
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FormatBenchmark {
+    private static final int SIZE = 1024;
+
+    @Param({"SMALL_INT", "LONG_DECIMAL", "NEAR_LIMIT"})
+    public InputDistribution distribution;
+
+    private double[] values;
+    private String[] strings;
+    private int index;
+
+    @Setup
+    public void setup(){
+        values = distribution.values(SIZE);
+        strings = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            strings[i] = String.valueOf(values[i]);
+        }
+    }
+
+    @Benchmark
+    public String formatNumbersToString(){
+        return CalculatorGUI.formatNumbersToString(values[index++ & (SIZE - 1)]);
+    }
+
+    @Benchmark
+    public String formatPrintString(){
+        return CalculatorGUI.FormatPrintString(strings[index++ & (SIZE - 1)]);
+    }
+}
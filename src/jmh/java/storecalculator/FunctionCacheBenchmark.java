@@ -0,0 +1,68 @@
+package storecalculator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of FunctionCache against calling Math directly, on a repeated working set of inputs
+ * @author Yehyun Kim
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FunctionCacheBenchmark {
+    private static final int SIZE = 1024;
+
+    @Param({"ln", "log", "sqrt", "pow"})
+    public String function;
+
+    /** Number of different inputs, more than the capacity means misses **/
+    @Param({"256", "8192"})
+    public int workingSet;
+
+    @Param({"CLOCK", "LRU"})
+    public FunctionCache.Eviction eviction;
+
+    private FunctionCache cache;
+    private double[] values;
+    private int index;
+
+    @Setup
+    public void setup(){
+        cache = new FunctionCache(4096, eviction);
+        double[] distinct = InputDistribution.LONG_DECIMAL.values(workingSet);
+        values = new double[SIZE * 8];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.abs(distinct[(i * 7919) % workingSet]) + 1;
+        }
+    }
+
+    @Benchmark
+    public double direct(){
+        double x = values[index++ & (values.length - 1)];
+        return switch (function) {
+            case "ln" -> Math.log(x);
+            case "log" -> Math.log10(x);
+            case "sqrt" -> Math.sqrt(x);
+            default -> Math.pow(x, 1.07);
+        };
+    }
+
+    @Benchmark
+    public double cached(){
+        double x = values[index++ & (values.length - 1)];
+        return switch (function) {
+            case "ln" -> cache.ln(x);
+            case "log" -> cache.log(x);
+            case "sqrt" -> cache.sqrt(x);
+            default -> cache.pow(x, 1.07);
+        };
+    }
+}
@@ -0,0 +1,36 @@
+package storecalculator;
+
+import java.util.Random;
+
+/**
+ * Input values used by the benchmarks. Same seed is used on every run so results can be compared.
+ * @author Yehyun Kim
+ */
+public enum InputDistribution {
+    /** Integers from 1 to 100 **/
+    SMALL_INT,
+    /** Values with long decimals (ex: 0.1234567891234) **/
+    LONG_DECIMAL,
+    /** Values close to the ±99999999999999 display limits **/
+    NEAR_LIMIT;
+
+    /** Display limit of the calculator screen **/
+    private static final double LIMIT = 99999999999999.0;
+
+    /**
+     * @param count number of values
+     * @return values of this distribution
+     */
+    public double[] values(int count){
+        Random random = new Random(42);
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = switch (this) {
+                case SMALL_INT -> 1 + random.nextInt(100);
+                case LONG_DECIMAL -> (random.nextDouble() - 0.5) * 1000;
+                case NEAR_LIMIT -> (random.nextBoolean() ? 1 : -1) * (LIMIT - random.nextInt(1000000));
+            };
+        }
+        return values;
+    }
+}
@@ -0,0 +1,123 @@
+package storecalculator;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs calculations that can take long (exact mode functions, big factorials, column runs) on worker threads so the
+ * window keeps responding. Submitting a calculation cancels the previous one: only the result of the newest button
+ * is shown. Cancel interrupts the worker thread, and the long loops (factorial products, ln and exp of exact mode)
+ * stop with CancellationException at their next multiplication, so cancelled work does not pile up on the pools.
+ * Submit and cancel from one thread (FX Application Thread).
+ * @author Yehyun Kim
+ */
+public final class AsyncEvaluator implements AutoCloseable {
+    /** Max number of worker threads: more calculations wait in the queue **/
+    private static final int WORKERS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private final ThreadPoolExecutor executor = newExecutor();
+    /** Calculation of the newest submit, null if none **/
+    private Future<?> current;
+    /** Incremented by every submit and cancel: results of older generations are stale **/
+    private long generation;
+
+    /**
+     * Cancel the running calculation and start a new one
+     * @param calculation calculation to run on a worker thread
+     * @param <T> type of the result
+     * @return result, completed exceptionally with the exception of the calculation or cancelled
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> calculation){
+        cancel();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        // FutureTask interrupts the worker thread only while it runs this calculation
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            try {
+                future.complete(calculation.get());
+            } catch (Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+        }, null) {
+            @Override
+            protected void done(){
+                if (isCancelled()) {
+                    future.cancel(false); // result is cancelled at once, the calculation stops at its next check
+                }
+            }
+        };
+        executor.execute(task);
+        current = task;
+        return future;
+    }
+
+    private static ThreadPoolExecutor newExecutor(){
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(WORKERS, WORKERS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, "calculator-worker");
+            thread.setDaemon(true); // never keeps the application running
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Run a calculation on a worker thread without cancelling or being cancelled by other calculations
+     * @param calculation calculation to run
+     * @param <T> type of the result
+     * @return result
+     */
+    public <T> CompletableFuture<T> runInBackground(Supplier<T> calculation){
+        return CompletableFuture.supplyAsync(calculation, executor);
+    }
+
+    /**
+     * Cancel the running calculation, if any. Called when a newer button is pressed.
+     */
+    public void cancel(){
+        generation++;
+        if (current != null) {
+            current.cancel(true);
+            current = null;
+        }
+    }
+
+    /**
+     * Stop a long calculation of a cancelled submit. Called between steps of loops that can take seconds.
+     * @throws CancellationException if the current thread is interrupted
+     */
+    static void checkCancelled(){
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Calculation cancelled");
+        }
+    }
+
+    /**
+     * @return generation of the newest submit or cancel
+     */
+    public long generation(){
+        return generation;
+    }
+
+    /**
+     * @param generation generation returned after a submit
+     * @return [true: no button was pressed after the submit] [false: result is stale]
+     */
+    public boolean isCurrent(long generation){
+        return this.generation == generation;
+    }
+
+    /**
+     * Stop worker threads
+     */
+    @Override
+    public void close(){
+        cancel();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,622 @@
+package storecalculator;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Calculates every line of a file without the GUI and writes one result per line, in the same order.
+ * Line formats:
+ * <ul>
+ *     <li>lhs,operator,rhs (ex: 12.5,x,3): calculated with the operator buttons (+, -, x, /, ^)</li>
+ *     <li>number or expression (ex: 2 + 3 x 4): calculated with ExpressionParser</li>
+ *     <li>with an operator chain, every line is a number the chain is applied to (column mode)</li>
+ *     <li>in complex or interval mode (see NumberMode): lhs,operator,rhs or function,value (ex: 1+2i,x,3i or ln,-1)
+ *     with values as on the screen, calculated with the engine of the mode. Commas of [lo,hi] do not split the line</li>
+ * </ul>
+ * The input is read in chunks of whole lines. Chunks are calculated on a thread pool and written in input order, with
+ * at most two chunks per thread in memory, so memory use does not depend on the size of the input. Numbers are parsed
+ * from the bytes of the chunk without creating strings. A line that cannot be calculated is written as
+ * "Error: message" and does not stop the batch: triples and numbers report errors as an ErrorCode without an
+ * exception, so a file with many invalid lines is calculated as fast as a valid one.
+ * @author Yehyun Kim
+ */
+public final class BatchProcessor {
+    /** Default size of a chunk in bytes, also the longest line **/
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+            1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    /** Expressions compiled by each worker thread **/
+    private static final ThreadLocal<ExpressionCache> EXPRESSION_CACHE = ThreadLocal.withInitial(ExpressionCache::new);
+    /** Formatter of each worker thread **/
+    private static final ThreadLocal<DisplayFormatter> DISPLAY_FORMATTER = ThreadLocal.withInitial(DisplayFormatter::new);
+
+    /** Chain applied to every line, null to calculate lines as triples or expressions **/
+    private final OperatorChain chain;
+    /** Number type of the lines, real numbers with a chain **/
+    private final NumberMode mode;
+    private final ColumnCalculator columnCalculator;
+    private final int threads;
+    private final int chunkSize;
+
+    /**
+     * @param chain chain applied to every line, null to calculate lines as triples or expressions
+     * @param threads number of worker threads
+     * @param chunkSize size of a chunk in bytes, also the longest line
+     */
+    public BatchProcessor(OperatorChain chain, int threads, int chunkSize){
+        this(chain, NumberMode.REAL, threads, chunkSize);
+    }
+
+    /**
+     * @param chain chain applied to every line, null to calculate lines as triples or expressions
+     * @param mode number type of the lines, NumberMode.REAL with a chain
+     * @param threads number of worker threads
+     * @param chunkSize size of a chunk in bytes, also the longest line
+     */
+    public BatchProcessor(OperatorChain chain, NumberMode mode, int threads, int chunkSize){
+        if (threads <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("Threads and chunk size must be positive");
+        } else if (chain != null && mode != NumberMode.REAL) {
+            throw new IllegalArgumentException("Chain is available for real numbers");
+        }
+        this.chain = chain;
+        this.mode = mode;
+        this.columnCalculator = chain == null ? null : new ColumnCalculator(chain, ForkJoinPool.commonPool(), true);
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Processor for triples and expressions on all cores
+     * @return processor
+     */
+    public static BatchProcessor forExpressions(){
+        return new BatchProcessor(null, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Processor that applies the chain to every line on all cores
+     * @param chain chain applied to every line
+     * @return processor
+     */
+    public static BatchProcessor forChain(OperatorChain chain){
+        return new BatchProcessor(chain, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Calculate every line of the input file and write results to the output file
+     * @param input file to read
+     * @param output file to write, replaced if it exists
+     * @return lines calculated and time taken
+     * @throws IOException if a file cannot be read or written, or a line is longer than the chunk size
+     */
+    public Report process(Path input, Path output) throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return process(in, out);
+        }
+    }
+
+    /**
+     * Calculate every line of the input and write results to the output. Channels are not closed.
+     * @param in input to read until the end
+     * @param out output to write to
+     * @return lines calculated and time taken
+     * @throws IOException if the input cannot be read or the output written, or a line is longer than the chunk size
+     */
+    public Report process(ReadableByteChannel in, WritableByteChannel out) throws IOException {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "batch-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+        int maxPending = threads * 2;
+        long lines = 0, errors = 0, bytes = 0;
+        try {
+            byte[] buffer = new byte[chunkSize];
+            int filled = 0;
+            boolean eof = false;
+            while (!eof) {
+                int read = in.read(ByteBuffer.wrap(buffer, filled, buffer.length - filled));
+                eof = read < 0;
+                if (read > 0) {
+                    filled += read;
+                    bytes += read;
+                }
+                if (!eof && filled < buffer.length) {
+                    continue; // read whole chunk before cutting
+                }
+                int cut = eof ? filled : lastLineEnd(buffer, filled);
+                if (cut == 0 && !eof) {
+                    throw new IOException("Line longer than " + chunkSize + " bytes");
+                }
+                if (cut > 0) {
+                    byte[] data = buffer;
+                    int length = cut;
+                    pending.add(executor.submit(() -> calculate(data, length)));
+                    buffer = new byte[chunkSize];
+                    System.arraycopy(data, cut, buffer, 0, filled - cut); // start of the next line
+                    filled -= cut;
+                }
+                while (pending.size() >= maxPending || (eof && !pending.isEmpty())) {
+                    Chunk chunk = await(pending.poll());
+                    write(out, chunk.output);
+                    lines += chunk.lines;
+                    errors += chunk.errors;
+                }
+            }
+        } finally {
+            for (Future<Chunk> future : pending) {
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+        }
+        return new Report(lines, errors, bytes, System.nanoTime() - start);
+    }
+
+    /**
+     * @return length of the complete lines in the buffer
+     */
+    private static int lastLineEnd(byte[] buffer, int filled){
+        for (int i = filled - 1; i >= 0; i--) {
+            if (buffer[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Batch interrupted");
+        } catch (ExecutionException exception) {
+            throw new IOException("Batch failed", exception.getCause());
+        }
+    }
+
+    private static void write(WritableByteChannel out, byte[] output) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(output);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Calculate every line of the chunk
+     * @param data bytes of the chunk
+     * @param length number of bytes, ends at the end of a line or the end of the input
+     * @return results of the chunk
+     */
+    Chunk calculate(byte[] data, int length){
+        if (chain != null) {
+            return calculateColumn(data, length);
+        }
+        return mode.arithmetic() == null ? calculateLines(data, length) : calculateLines(mode.arithmetic(), data, length);
+    }
+
+    private Chunk calculateLines(byte[] data, int length){
+        StringBuilder output = new StringBuilder(length + (length >> 1));
+        int lines = 0, errors = 0;
+        for (int start = 0; start < length; lines++) {
+            int end = lineEnd(data, start, length);
+            int from = trimStart(data, start, end);
+            int to = trimEnd(data, start, end);
+            try {
+                double value = calculateLine(data, from, to);
+                if (appendResult(output, value)) {
+                    if (ErrorCode.of(value) == ErrorCode.UNKNOWN_OPERATOR) {
+                        int comma1 = indexOf(data, ',', from, to);
+                        output.append(' ').append(operatorOf(data, comma1, indexOf(data, ',', comma1 + 1, to)));
+                    }
+                    errors++;
+                }
+            } catch (IllegalArgumentException exception) { // expression that cannot be parsed: the message tells where
+                output.append("Error: ").append(exception.getMessage());
+                errors++;
+            }
+            output.append('\n');
+            start = end + 1;
+        }
+        return new Chunk(output.toString().getBytes(StandardCharsets.UTF_8), lines, errors);
+    }
+
+    /**
+     * Calculate every line of the chunk in complex or interval mode. Values are objects of the mode, so lines are
+     * decoded to strings; the real number path above is not changed by it.
+     */
+    private static <T> Chunk calculateLines(NumberArithmetic<T> arithmetic, byte[] data, int length){
+        StringBuilder output = new StringBuilder(length + (length >> 1));
+        int lines = 0, errors = 0;
+        for (int start = 0; start < length; lines++) {
+            int end = lineEnd(data, start, length);
+            int from = trimStart(data, start, end);
+            String line = new String(data, from, trimEnd(data, start, end) - from, StandardCharsets.UTF_8);
+            if (appendLine(arithmetic, line, output)) {
+                errors++;
+            }
+            output.append('\n');
+            start = end + 1;
+        }
+        return new Chunk(output.toString().getBytes(StandardCharsets.UTF_8), lines, errors);
+    }
+
+    /**
+     * Calculate one line of complex or interval mode: lhs,operator,rhs, function,value or a value
+     * @return [true: an error was appended]
+     */
+    private static <T> boolean appendLine(NumberArithmetic<T> arithmetic, String line, StringBuilder output){
+        String[] fields = fieldsOf(line);
+        T value = null;
+        String unknown = null; // operator or function that is not one
+        ErrorCode error = null;
+        if (line.isEmpty()) {
+            error = ErrorCode.NO_VALUE;
+        } else if (fields.length == 1) {
+            value = arithmetic.parse(line);
+            error = value == null ? ErrorCode.NOT_NUMBER : null;
+        } else if (fields.length == 2) { // function,value
+            CalculatorEngine.UnaryOp op = findFunction(fields[0]);
+            T operand = arithmetic.parse(fields[1]);
+            if (op == null) {
+                unknown = fields[0];
+            } else if (operand == null) {
+                error = ErrorCode.NOT_NUMBER;
+            } else {
+                value = arithmetic.apply(op, operand);
+            }
+        } else if (fields.length == 3) {
+            T lhs = arithmetic.parse(fields[0]);
+            CalculatorEngine.Op op = OperatorChain.findOp(fields[1]);
+            T rhs = arithmetic.parse(fields[2]);
+            if (lhs == null) {
+                error = ErrorCode.NO_OPERANDS;
+            } else if (op == null) {
+                unknown = fields[1];
+            } else if (rhs == null) {
+                error = ErrorCode.NO_OPERANDS;
+            } else {
+                value = arithmetic.apply(op, lhs, rhs);
+            }
+        } else {
+            error = ErrorCode.NO_TRIPLE;
+        }
+        if (unknown != null) {
+            output.append("Error: ").append(ErrorCode.UNKNOWN_OPERATOR.getMessage()).append(' ').append(unknown);
+            return true;
+        }
+        if (value != null) {
+            error = arithmetic.error(value);
+        }
+        String text = error == null ? arithmetic.format(value) : null;
+        if (error == null && text == null) {
+            error = ErrorCode.VALUE_TOO_BIG;
+        }
+        if (error != null) {
+            output.append("Error: ").append(error.getMessage());
+            return true;
+        }
+        output.append(text);
+        return false;
+    }
+
+    /**
+     * @return fields of the line between commas, trimmed. Commas inside [ ] are part of the field
+     */
+    private static String[] fieldsOf(String line){
+        String[] fields = new String[4]; // more than 3 is an error
+        int count = 0, depth = 0, from = 0;
+        for (int i = 0; i <= line.length() && count < fields.length; i++) {
+            char c = i < line.length() ? line.charAt(i) : ',';
+            if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                depth--;
+            } else if (c == ',' && (depth <= 0 || i == line.length())) {
+                fields[count++] = line.substring(from, i).trim();
+                from = i + 1;
+            }
+        }
+        return Arrays.copyOf(fields, count);
+    }
+
+    /**
+     * @param name symbol (ex: √) or name (ex: root) of a function, any case
+     * @return function, null if there is none
+     */
+    private static CalculatorEngine.UnaryOp findFunction(String name){
+        for (CalculatorEngine.UnaryOp op : CalculatorEngine.UnaryOp.values()) {
+            if (op.getSymbol().equals(name) || op.name().equalsIgnoreCase(name)) {
+                return op;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parse every line to a number, apply the chain to all numbers at once, then write results
+     */
+    private Chunk calculateColumn(byte[] data, int length){
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (data[i] == '\n') {
+                count++;
+            }
+        }
+        if (length > 0 && data[length - 1] != '\n') {
+            count++; // last line of the input
+        }
+        double[] values = new double[count];
+        boolean[] valid = new boolean[count];
+        for (int line = 0, start = 0; start < length; line++) {
+            int end = lineEnd(data, start, length);
+            int from = trimStart(data, start, end);
+            int to = trimEnd(data, start, end);
+            values[line] = from == to ? ErrorCode.NO_VALUE.toNaN() : parseNumber(data, from, to);
+            valid[line] = !Double.isNaN(values[line]);
+            start = end + 1;
+        }
+        columnCalculator.apply(values);
+
+        StringBuilder output = new StringBuilder(length + (length >> 1));
+        int errors = 0;
+        for (int line = 0, start = 0; line < count; line++) {
+            int end = lineEnd(data, start, length);
+            if (!valid[line]) {
+                ErrorCode error = trimStart(data, start, end) == trimEnd(data, start, end) ? ErrorCode.NO_VALUE : ErrorCode.NOT_NUMBER;
+                output.append("Error: ").append(error.getMessage());
+                errors++;
+            } else if (appendResult(output, values[line])) {
+                errors++;
+            }
+            output.append('\n');
+            start = end + 1;
+        }
+        return new Chunk(output.toString().getBytes(StandardCharsets.UTF_8), count, errors);
+    }
+
+    /**
+     * Calculate one line: triple, number or expression
+     * @return calculated value, or error NaN of the triple or of the expression
+     * @throws IllegalArgumentException if the line is an expression that cannot be parsed
+     */
+    private static double calculateLine(byte[] data, int from, int to){
+        if (from == to) {
+            return ErrorCode.NO_VALUE.toNaN();
+        }
+        int comma1 = indexOf(data, ',', from, to);
+        if (comma1 >= 0) { // lhs,operator,rhs
+            int comma2 = indexOf(data, ',', comma1 + 1, to);
+            if (comma2 < 0 || indexOf(data, ',', comma2 + 1, to) >= 0) {
+                return ErrorCode.NO_TRIPLE.toNaN();
+            }
+            double lhs = parseNumber(data, trimStart(data, from, comma1), trimEnd(data, from, comma1));
+            CalculatorEngine.Op op = OperatorChain.findOp(operatorOf(data, comma1, comma2));
+            double rhs = parseNumber(data, trimStart(data, comma2 + 1, to), trimEnd(data, comma2 + 1, to));
+            if (Double.isNaN(lhs)) {
+                return ErrorCode.NO_OPERANDS.toNaN();
+            } else if (op == null) {
+                return ErrorCode.UNKNOWN_OPERATOR.toNaN();
+            } else if (Double.isNaN(rhs)) {
+                return ErrorCode.NO_OPERANDS.toNaN();
+            }
+            return CalculatorEngine.tryApply(op, lhs, rhs);
+        }
+        double value = parseNumber(data, from, to);
+        if (!Double.isNaN(value)) {
+            return value;
+        }
+        return EXPRESSION_CACHE.get().evaluate(new String(data, from, to - from, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return operator of a triple between its commas, trimmed
+     */
+    private static String operatorOf(byte[] data, int comma1, int comma2){
+        int from = trimStart(data, comma1 + 1, comma2);
+        return new String(data, from, trimEnd(data, comma1 + 1, comma2) - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parse number from bytes (ex: -12.5, 3e-4). Numbers with up to 15 significant digits and exponent within ±22 are
+     * calculated with one multiplication or division of exact doubles, which rounds the same as Double.parseDouble.
+     * Other numbers are parsed by Double.parseDouble.
+     * @param data bytes
+     * @param from first byte (inclusive)
+     * @param to last byte (exclusive)
+     * @return parsed number, NaN if the bytes are not a number
+     */
+    static double parseNumber(byte[] data, int from, int to){
+        int i = from;
+        boolean negative = false;
+        if (i < to && (data[i] == '-' || data[i] == '+')) {
+            negative = data[i++] == '-';
+        }
+        long mantissa = 0;
+        int digits = 0, exponent = 0;
+        boolean hasDigit = false, hasDecimal = false;
+        for (; i < to; i++) {
+            int c = data[i];
+            if (c >= '0' && c <= '9') {
+                hasDigit = true;
+                if (mantissa != 0 || c != '0') {
+                    digits++;
+                }
+                if (digits <= 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (hasDecimal) {
+                        exponent--;
+                    }
+                } else if (!hasDecimal) {
+                    exponent++; // digit does not fit in the mantissa
+                }
+            } else if (c == '.' && !hasDecimal) {
+                hasDecimal = true;
+            } else {
+                break;
+            }
+        }
+        if (!hasDigit) {
+            return Double.NaN;
+        }
+        if (i < to && (data[i] == 'e' || data[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (data[i] == '-' || data[i] == '+')) {
+                negativeExponent = data[i++] == '-';
+            }
+            if (i == to) {
+                return Double.NaN;
+            }
+            int value = 0;
+            for (; i < to && data[i] >= '0' && data[i] <= '9'; i++) {
+                value = Math.min(100000, value * 10 + (data[i] - '0'));
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (i != to) {
+            return Double.NaN;
+        }
+        if (digits <= 15 && exponent >= -22 && exponent <= 22) {
+            double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(data, from, to - from, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Append the value, or "Error: message" if it is an error NaN or does not fit on the screen
+     * @return [true: an error was appended]
+     */
+    private static boolean appendResult(StringBuilder output, double value){
+        ErrorCode error = ErrorCode.of(value);
+        if (error == null) {
+            error = DisplayFormatter.rangeError(value);
+        }
+        if (error == null) {
+            DISPLAY_FORMATTER.get().appendTo(output, value);
+            return false;
+        }
+        output.append("Error: ").append(error.getMessage());
+        return true;
+    }
+
+    private static int lineEnd(byte[] data, int from, int to){
+        int end = indexOf(data, '\n', from, to);
+        return end < 0 ? to : end;
+    }
+
+    private static int indexOf(byte[] data, char c, int from, int to){
+        for (int i = from; i < to; i++) {
+            if (data[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int trimStart(byte[] data, int from, int to){
+        while (from < to && (data[from] == ' ' || data[from] == '\t' || data[from] == '\r')) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(byte[] data, int from, int to){
+        while (to > from && (data[to - 1] == ' ' || data[to - 1] == '\t' || data[to - 1] == '\r')) {
+            to--;
+        }
+        return to;
+    }
+
+    /**
+     * Results of a chunk
+     */
+    static final class Chunk {
+        final byte[] output;
+        final int lines;
+        final int errors;
+
+        Chunk(byte[] output, int lines, int errors){
+            this.output = output;
+            this.lines = lines;
+            this.errors = errors;
+        }
+    }
+
+    /**
+     * Lines calculated and time taken
+     */
+    public static final class Report {
+        private final long lines;
+        private final long errors;
+        private final long bytes;
+        private final long nanos;
+
+        Report(long lines, long errors, long bytes, long nanos){
+            this.lines = lines;
+            this.errors = errors;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return number of lines calculated
+         */
+        public long getLines(){
+            return lines;
+        }
+
+        /**
+         * @return number of lines written as error
+         */
+        public long getErrors(){
+            return errors;
+        }
+
+        /**
+         * @return number of bytes read
+         */
+        public long getBytes(){
+            return bytes;
+        }
+
+        /**
+         * @return time taken in nanoseconds
+         */
+        public long getNanos(){
+            return nanos;
+        }
+
+        /**
+         * @return throughput in lines per second
+         */
+        public double linesPerSecond(){
+            return nanos == 0 ? Double.POSITIVE_INFINITY : lines * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%d lines (%d errors) in %.1f ms (%.1fM lines/s)", lines, errors, nanos / 1e6, linesPerSecond() / 1e6);
+        }
+    }
+}
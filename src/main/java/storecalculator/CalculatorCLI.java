@@ -0,0 +1,90 @@
+package storecalculator;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Calculator without the GUI: calculates every line of a file with BatchProcessor.
+ * <pre>
+ * java -cp target/classes storecalculator.CalculatorCLI [--chain "x 1.07 ^ 2 - 5"] [--convert lb kg] [--mode complex] [--threads n] input [output]
+ * </pre>
+ * "-" or no output file writes results to standard output, "-" as input reads standard input. --convert converts the
+ * values, after the chain if there is one, with the bundled units and the rate file (--rates, ~/.storecalculator/rates.csv
+ * by default). --mode complex or interval calculates the lines as complex numbers or intervals (see BatchProcessor).
+ * @author Yehyun Kim
+ */
+public final class CalculatorCLI {
+    private static final String USAGE = "Usage: CalculatorCLI [--chain \"x 1.07 ^ 2 - 5\"] [--convert from to] [--rates file] [--mode real|complex|interval] [--threads n] [--chunk bytes] input|- [output|-]";
+
+    private CalculatorCLI(){
+    }
+
+    /**
+     * @param args options, input file and output file
+     */
+    public static void main(String[] args){
+        OperatorChain chain = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int chunkSize = BatchProcessor.DEFAULT_CHUNK_SIZE;
+        String input = null, output = "-";
+        String convertFrom = null, convertTo = null;
+        Path rates = ConversionRates.DEFAULT_FILE;
+        NumberMode mode = NumberMode.REAL;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--chain" -> chain = OperatorChain.parse(value(args, ++i));
+                    case "--convert" -> {
+                        convertFrom = value(args, ++i);
+                        convertTo = value(args, ++i);
+                    }
+                    case "--rates" -> rates = Path.of(value(args, ++i));
+                    case "--mode" -> mode = NumberMode.of(value(args, ++i));
+                    case "--threads" -> threads = Integer.parseInt(value(args, ++i));
+                    case "--chunk" -> chunkSize = Integer.parseInt(value(args, ++i));
+                    default -> {
+                        if (input == null) {
+                            input = args[i];
+                        } else {
+                            output = args[i];
+                        }
+                    }
+                }
+            }
+            if (input == null) {
+                throw new IllegalArgumentException("Enter input file");
+            }
+            if (convertFrom != null) {
+                OperatorChain conversion = ConversionTable.read(rates).conversion(convertFrom, convertTo).toChain();
+                chain = chain == null ? conversion : chain.then(conversion);
+            }
+            BatchProcessor processor = new BatchProcessor(chain, mode, threads, chunkSize);
+            try (ReadableByteChannel in = input.equals("-") ? Channels.newChannel(System.in) : FileChannel.open(Path.of(input), StandardOpenOption.READ);
+                 WritableByteChannel out = output.equals("-") ? new FileOutputStream(FileDescriptor.out).getChannel()
+                         : FileChannel.open(Path.of(output), StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                System.err.println(processor.process(in, out));
+            }
+        } catch (IllegalArgumentException exception) { // includes NumberFormatException of the options
+            System.err.println(exception.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        } catch (IOException exception) {
+            System.err.println("Cannot calculate " + input + ": " + exception.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static String value(String[] args, int i){
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Enter value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+}
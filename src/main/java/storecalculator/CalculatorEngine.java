@@ -0,0 +1,226 @@
+package storecalculator;
+
+/**
+ * Calculator engine calculates value without any GUI component. Same operators (+, -, x, /, ^), ln, log, root, factorial,
+ * percentage and square as the calculator buttons.
+ * The tryApply methods return errors (ex: divide by 0) as an error NaN (see ErrorCode) instead of throwing, for batches
+ * with many invalid rows; apply throws IllegalArgumentException with the message of the code.
+ * Can be used from any thread and does not allocate per call.
+ * @author Yehyun Kim
+ */
+public final class CalculatorEngine {
+
+    /**
+     * Operators supported by the engine
+     */
+    public enum Op {
+        PLUS("+"), MINUS("-"), MULTIPLY("x"), DIVIDE("/"), EXPONENT("^");
+
+        /** Symbol of the operator **/
+        private final String symbol;
+
+        Op(String symbol){
+            this.symbol = symbol;
+        }
+
+        /**
+         * @return symbol of the operator
+         */
+        public String getSymbol(){
+            return symbol;
+        }
+    }
+
+    /**
+     * Functions with one operand supported by the engine
+     */
+    public enum UnaryOp {
+        LN("ln"), LOG("log"), ROOT("√"), FACTORIAL("!"), PERCENT("%"), SQUARE("²");
+
+        /** Symbol of the function **/
+        private final String symbol;
+
+        UnaryOp(String symbol){
+            this.symbol = symbol;
+        }
+
+        /**
+         * @return symbol of the function
+         */
+        public String getSymbol(){
+            return symbol;
+        }
+    }
+
+    /** Biggest value factorial can calculate **/
+    public static final int MAX_FACTORIAL = 15;
+
+    /**
+     * Results of ln, log, root and ^ kept by each platform thread, null when disabled. Enabled with
+     * -Dstorecalculator.cache.capacity=n (and -Dstorecalculator.cache.eviction=CLOCK or LRU): Math.log, log10 and sqrt
+     * are intrinsics on most JVMs, so the cache only pays off for Math.pow or slow platforms.
+     * Virtual threads (one per server request on Java 21+) get no cache: each would fill a new one and never hit it.
+     */
+    private static final ThreadLocal<FunctionCache> FUNCTION_CACHE = newFunctionCache();
+
+    private CalculatorEngine(){
+    }
+
+    private static ThreadLocal<FunctionCache> newFunctionCache(){
+        int capacity = Integer.getInteger("storecalculator.cache.capacity", 0);
+        if (capacity <= 0) {
+            return null;
+        }
+        FunctionCache.Eviction eviction = parseEviction(System.getProperty("storecalculator.cache.eviction", "CLOCK"));
+        // null is kept as the value of a virtual thread: checked once per thread
+        return ThreadLocal.withInitial(() -> isVirtual(Thread.currentThread()) ? null : new FunctionCache(capacity, eviction));
+    }
+
+    /**
+     * @param name CLOCK or LRU in any case
+     * @return eviction policy, CLOCK with a warning if the name is unknown: a mistyped property does not stop the calculator
+     */
+    static FunctionCache.Eviction parseEviction(String name){
+        try {
+            return FunctionCache.Eviction.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException exception) {
+            System.err.println("Unknown storecalculator.cache.eviction " + name + ": using CLOCK");
+            return FunctionCache.Eviction.CLOCK;
+        }
+    }
+
+    /**
+     * @return [true: thread is virtual]. Thread.isVirtual is found by reflection: it does not exist before Java 21
+     */
+    private static boolean isVirtual(Thread thread){
+        try {
+            return (boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (ReflectiveOperationException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * @return function cache of the current thread, null if the cache is disabled or the thread is virtual
+     */
+    public static FunctionCache functionCache(){
+        return FUNCTION_CACHE == null ? null : FUNCTION_CACHE.get();
+    }
+
+    /**
+     * Calculates value
+     * @param op operator
+     * @param num1 stored value
+     * @param num2 current value
+     * @return calculated value
+     * @throws IllegalArgumentException if the value cannot be calculated (ex: divide by 0)
+     */
+    public static double apply(Op op, double num1, double num2){
+        return ErrorCode.check(tryApply(op, num1, num2));
+    }
+
+    /**
+     * Calculates value without throwing
+     * @param op operator
+     * @param num1 stored value
+     * @param num2 current value
+     * @return calculated value, or error NaN of ErrorCode.DIVIDE_BY_ZERO
+     */
+    public static double tryApply(Op op, double num1, double num2){
+        return switch (op) {
+            case PLUS -> num1 + num2;
+            case MINUS -> num1 - num2;
+            case MULTIPLY -> num1 * num2;
+            case DIVIDE -> num2 == 0 ? ErrorCode.DIVIDE_BY_ZERO.toNaN() : num1 / num2;
+            default -> {
+                FunctionCache cache = functionCache();
+                yield cache == null ? Math.pow(num1, num2) : cache.pow(num1, num2);
+            }
+        };
+    }
+
+    /**
+     * Calculates value of function with one operand
+     * @param op function
+     * @param value current value
+     * @return calculated value
+     * @throws IllegalArgumentException if the value cannot be calculated (ex: factorial of 2.5)
+     */
+    public static double apply(UnaryOp op, double value){
+        return ErrorCode.check(tryApply(op, value));
+    }
+
+    /**
+     * Calculates value of function with one operand without throwing
+     * @param op function
+     * @param value current value
+     * @return calculated value, or error NaN (only factorial fails)
+     */
+    public static double tryApply(UnaryOp op, double value){
+        FunctionCache cache = functionCache();
+        return switch (op) {
+            case LN -> cache == null ? Math.log(value) : cache.ln(value);
+            case LOG -> cache == null ? Math.log10(value) : cache.log(value);
+            case ROOT -> cache == null ? Math.sqrt(value) : cache.sqrt(value);
+            case FACTORIAL -> tryFactorial(value);
+            case PERCENT -> value / 100;
+            case SQUARE -> value * value;
+        };
+    }
+
+    /**
+     * Calculates factorial
+     * @param value int value between 0 and MAX_FACTORIAL
+     * @return factorial of the value
+     * @throws IllegalArgumentException if the value is not an int or too big
+     */
+    public static double factorial(double value){
+        return ErrorCode.check(tryFactorial(value));
+    }
+
+    /**
+     * Calculates factorial without throwing
+     * @param value int value between 0 and MAX_FACTORIAL
+     * @return factorial of the value, or error NaN of ErrorCode.NOT_INT_FACTORIAL or VALUE_TOO_BIG
+     */
+    public static double tryFactorial(double value){
+        if (value != Math.rint(value) || value < 0) {
+            return ErrorCode.NOT_INT_FACTORIAL.toNaN();
+        }
+        if (value > MAX_FACTORIAL) {
+            return ErrorCode.VALUE_TOO_BIG.toNaN();
+        }
+        long toFactorial = 1;
+        for (int i = 1; i <= value; i++) {
+            toFactorial *= i;
+        }
+        return toFactorial;
+    }
+
+    /**
+     * Calculates every row: out[i] = lhs[i] ops[i] rhs[i].
+     * Rows that divide by 0 are set to the error NaN of ErrorCode.DIVIDE_BY_ZERO instead of stopping the whole batch.
+     * @param lhs stored values
+     * @param rhs current values
+     * @param ops operator of each row
+     * @param out array to write calculated values in
+     */
+    public static void evaluate(double[] lhs, double[] rhs, Op[] ops, double[] out){
+        int length = out.length;
+        if (lhs.length < length || rhs.length < length || ops.length < length) {
+            throw new IllegalArgumentException("Input arrays are shorter than output array");
+        }
+        FunctionCache cache = functionCache();
+        for (int i = 0; i < length; i++) {
+            double num1 = lhs[i];
+            double num2 = rhs[i];
+            switch (ops[i]) {
+                case PLUS -> out[i] = num1 + num2;
+                case MINUS -> out[i] = num1 - num2;
+                case MULTIPLY -> out[i] = num1 * num2;
+                case DIVIDE -> out[i] = num2 == 0 ? ErrorCode.DIVIDE_BY_ZERO.toNaN() : num1 / num2;
+                default -> out[i] = cache == null ? Math.pow(num1, num2) : cache.pow(num1, num2);
+            }
+        }
+    }
+}
@@ -0,0 +1,1120 @@
+package storecalculator;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.css.PseudoClass;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.Pane;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Calculator GUI calculates value base on user input. Auto store value and can retrieve the value anytime.
+ * Five operators (+, -, x, /, ^), log, ln, factorial, square, root, pi and percentage buttons are available.
+ * @author Yehyun Kim
+ */
+public class CalculatorGUI extends Application {
+    //Instance Variables for View Components and Model
+    /** State of the calculator: screen, stored values and what each button does **/
+    private final CalculatorSession session = new CalculatorSession();
+    /** Operator shown as pressed, null if none **/
+    private CalculatorEngine.Op highlightedOp;
+
+    /** Screen display **/
+    private Label screenLabel;
+    /** Buttons for calculator**/
+    private Button b0,b1,b2,b3,b4,b5,b6,b7,b8,b9,decimalButton,equalButton,divideButton, multiplyButton, plusButton,minusButton,percentButton,exponentButton,piButton,squareButton,rootButton,factorialButton,lnButton,logButton, deleteButton,acButton;
+    /** Labels for calculator**/
+    private Label storedValueLabel, errorLabel;
+    /** Five buttons to store value **/
+    private Button storedValueButton1,storedValueButton2, storedValueButton3,storedValueButton4,storedValueButton5;
+    /** Button of each session key, by key code **/
+    private Button[] keyButtons;
+    /** Persistent history of calculations, null if it cannot be opened **/
+    private HistoryLog historyLog;
+    /** Window with the whole history, created when first opened **/
+    private HistoryPanel historyPanel;
+    /** Button to open the history window **/
+    private Button historyButton;
+    /** Directory of the history files **/
+    private static final Path HISTORY_DIRECTORY = Path.of(System.getProperty("user.home"), ".storecalculator");
+    /** Button to change number type: double or exact with selected precision **/
+    private Button precisionButton;
+    /** Button to change number type of double mode: real, complex or interval **/
+    private Button modeButton;
+    /** Button to apply the last calculation to a column of values in a file **/
+    private Button columnButton;
+    /** Window to edit values of the last calculation, created when first opened **/
+    private ChainPanel chainPanel;
+    /** Button to open the chain window **/
+    private Button chainButton;
+    /** Button to open the conversion window **/
+    private Button convertButton;
+    /** Window to convert between units, created when first opened **/
+    private ConversionPanel conversionPanel;
+    /** Units and rates of the bundled table and the rate file, read when the conversion window is first opened **/
+    private ConversionRates conversionRates;
+    /** Button to open the stats window **/
+    private Button resultStatsButton;
+    /** Stats of all results in the history, null until calculated after the history is open **/
+    private ResultStats resultStats;
+    /** Window with the stats of the results, created when first opened **/
+    private ResultStatsPanel resultStatsPanel;
+    /** Main window **/
+    private Stage stage;
+    /** Root of the main window **/
+    private Pane root;
+    /** Counters and latencies over the calculator (F12), created when first shown **/
+    private StatsOverlay statsOverlay;
+
+    /** Styles of the windows, parsed once for all the nodes **/
+    static final String STYLESHEET = CalculatorGUI.class.getResource("calculator.css").toExternalForm();
+    /** State of the operator button waiting for its second value **/
+    private static final PseudoClass SELECTED = PseudoClass.getPseudoClass("selected");
+
+    /** Time from the process start to the first frame it should take, -Dstorecalculator.startup.budget in ms **/
+    private static final long STARTUP_BUDGET_MILLIS = Long.getLong("storecalculator.startup.budget", 1500);
+    /** [True: exit after the first frame and the history are ready, with status 1 if the first frame missed the budget]
+     * -Dstorecalculator.startup.exit=true for startup checks and the class list of the AppCDS archive **/
+    private static final boolean EXIT_AFTER_STARTUP = Boolean.getBoolean("storecalculator.startup.exit");
+    /** [True: the first frame came after the budget] **/
+    private boolean isStartupOverBudget;
+
+    /** Runs exact mode functions, big factorials and column runs off the FX Application Thread **/
+    private final AsyncEvaluator evaluator = new AsyncEvaluator();
+    /** Shows results of the worker threads, at most one Platform.runLater waiting **/
+    private final UiUpdater uiUpdater = new UiUpdater();
+    /** [True: a function runs on the worker thread and its result is not shown yet] **/
+    private boolean isFunctionPending;
+    /** Shown on the error label while a calculation runs on the worker thread **/
+    private static final String BUSY_TEXT = "Calculating...";
+    /** Calculations faster than this don't show BUSY_TEXT **/
+    private static final long BUSY_DELAY_MILLIS = 150;
+
+    /** Records the buttons while a macro is recorded (F9), null otherwise **/
+    private Macro.Recorder recorder;
+
+    /**
+     * Methods and private Event handlers
+     **/
+
+    /**
+     * @param columnIndex index of column
+     * @return x position of each button
+     */
+    private double getXPosition(double columnIndex){ //lineNum starts from 0
+        return (90 + (columnIndex * 55));
+    }
+
+    /**
+     * @param rowIndex index of row
+     * @return y position of each button
+     */
+    private double getYPosition(int rowIndex){ //rowNum starts form 0
+        return (199 + (rowIndex * 55));
+    }
+
+    /**
+     * Apply button to the session, record it if a macro is recorded, and show the new state
+     * @param key pressed button
+     */
+    private void press(CalculatorSession.Key key){
+        if (recorder != null) {
+            recorder.record(key);
+        }
+        session.press(key);
+        render();
+    }
+
+    /**
+     * Show the state of the session: screen, error label, disabled buttons, pressed operator and stored values.
+     * The store area is skipped until it is created after the first frame.
+     */
+    private void render(){
+        screenLabel.setText(session.getScreenText());
+        ErrorCode error = session.getError();
+        errorLabel.setText(error == null ? session.getErrorText() : error.getMessage());
+        for (int code = 0; code < keyButtons.length; code++) {
+            if (keyButtons[code] != null) {
+                keyButtons[code].setDisable(session.isDisabled(CalculatorSession.Key.of(code)));
+            }
+        }
+        CalculatorEngine.Op op = session.getHighlightedOp();
+        if (op != highlightedOp) {
+            if (highlightedOp != null) {
+                defaultButtonStyle(buttonOf(highlightedOp));
+            }
+            if (op != null) {
+                pressedButtonStyle(buttonOf(op));
+            }
+            highlightedOp = op;
+        }
+        if (precisionButton == null) {
+            return;
+        }
+        Button[] storedButtons = {storedValueButton1, storedValueButton2, storedValueButton3, storedValueButton4, storedValueButton5};
+        for (int i = 0; i < storedButtons.length; i++) {
+            storedButtons[i].setText(session.getStoredValue(i));
+        }
+        precisionButton.setText(session.getPrecision() == 0 ? "Double" : session.getPrecision() + " digits");
+        modeButton.setText(session.getNumberMode().getName());
+    }
+
+    /**
+     * @param op operator
+     * @return button of the operator
+     */
+    private Button buttonOf(CalculatorEngine.Op op){
+        return switch (op) {
+            case PLUS -> plusButton;
+            case MINUS -> minusButton;
+            case MULTIPLY -> multiplyButton;
+            case DIVIDE -> divideButton;
+            case EXPONENT -> exponentButton;
+        };
+    }
+
+    /**
+     * Style pressed button differently
+     * @param button selected button
+     */
+    private void pressedButtonStyle(Button button){
+        button.pseudoClassStateChanged(SELECTED, true);
+    }
+
+    /**
+     * Style unpressed button to default style
+     * @param button unpressed button
+     */
+    private void defaultButtonStyle(Button button){
+        button.pseudoClassStateChanged(SELECTED, false);
+    }
+
+    /**
+     * Add the finished calculation to the history
+     * @param expression calculation entered by user
+     * @param value result
+     */
+    private void storeValue(String expression, String value){
+        double number;
+        try {
+            number = Double.parseDouble(value);
+        } catch (NumberFormatException exception) {
+            number = Double.NaN;
+        }
+        historyLog.append(expression, value, number);
+        if (historyPanel != null) {
+            historyPanel.entryAdded();
+        }
+        if (resultStats != null) {
+            resultStats.add(number);
+            if (resultStatsPanel != null) {
+                resultStatsPanel.update(resultStats);
+            }
+        }
+    }
+
+    /**
+     * Show the five newest entries of the history on the stored value buttons
+     */
+    private void showNewestHistory(){
+        List<HistoryEntry> newest = historyLog.newest(CalculatorSession.STORED_VALUES);
+        String[] values = new String[newest.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = newest.get(i).getResult();
+        }
+        session.setStoredValues(values);
+    }
+
+    /**
+     * Format value to user friendly string and apply max and min value to display
+     * @param value entered or calculated value
+     * @return value to user friendly string
+     */
+    static String formatNumbersToString(double value){
+        return CalculatorSession.format(value);
+    }
+
+    /**
+     * Calculate on the worker thread and show the result on the screen. The result is dropped if another button is
+     * pressed before it is ready. Errors are shown on the error label like the other buttons do.
+     * @param calculation calculation of the value to user friendly string
+     */
+    private void calculateAsync(Supplier<String> calculation){
+        CompletableFuture<String> future = evaluator.submit(calculation);
+        long generation = evaluator.generation();
+        isFunctionPending = true;
+        future.whenComplete((result, error) -> uiUpdater.post("screen", () -> {
+            if (!evaluator.isCurrent(generation)) {
+                return; // a newer button was pressed: its result is the one to show
+            }
+            isFunctionPending = false;
+            if (error == null) {
+                session.functionCalculated(result);
+                if (session.getErrorText().equals(BUSY_TEXT)) {
+                    session.showError("");
+                }
+            } else {
+                session.functionFailed(error instanceof CompletionException ? error.getCause() : error);
+            }
+            render();
+        }));
+        // tell the user the calculation is running only if it takes long enough to notice
+        CompletableFuture.delayedExecutor(BUSY_DELAY_MILLIS, TimeUnit.MILLISECONDS).execute(() -> {
+            if (!future.isDone()) {
+                uiUpdater.post("busy", () -> {
+                    if (evaluator.isCurrent(generation) && !future.isDone()) {
+                        session.showError(BUSY_TEXT);
+                        render();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Cancel the calculation still running on the worker thread, because a newer button or value came first
+     */
+    private void cancelFunction(){
+        if (isFunctionPending && recorder != null) {
+            recorder.recordCancel(); // replay drops the result too
+        }
+        isFunctionPending = false;
+        evaluator.cancel();
+    }
+
+    /**
+     * Show a value of another window (history or chain) as the current value
+     * @param storedValue value to show
+     */
+    private void retrieve(String storedValue){
+        cancelFunction();
+        if (recorder != null) {
+            recorder.recordText(storedValue);
+        }
+        session.retrieve(storedValue);
+        render();
+    }
+
+    /**
+     * Start recording a macro on the cleared calculator, or stop and save it next to the history
+     */
+    private void toggleRecording(){
+        if (recorder == null) {
+            cancelFunction();
+            session.press(CalculatorSession.Key.AC);
+            render();
+            recorder = new Macro.Recorder(session);
+            stage.setTitle("Calculator - recording (F9 to stop)");
+            return;
+        }
+        Macro macro = recorder.finish(session);
+        recorder = null;
+        stage.setTitle("Calculator");
+        Path path = HISTORY_DIRECTORY.resolve("macro-" + System.currentTimeMillis() + ".keys");
+        try {
+            Files.createDirectories(HISTORY_DIRECTORY);
+            macro.write(path);
+            session.showError("Saved " + path.getFileName());
+        } catch (IOException exception) {
+            session.showError("Cannot save macro");
+        }
+        render();
+    }
+
+    /**
+     * 0- 10 & decimal ButtonHandlers
+     * @param e ActionEvent
+     */
+    private void digitButtonHandler(ActionEvent e){
+        String buttonText = ((Button) e.getSource()).getText();
+        switch (buttonText) {
+            case "0" -> press(CalculatorSession.Key.DIGIT_0);
+            case "1" -> press(CalculatorSession.Key.DIGIT_1);
+            case "2" -> press(CalculatorSession.Key.DIGIT_2);
+            case "3" -> press(CalculatorSession.Key.DIGIT_3);
+            case "4" -> press(CalculatorSession.Key.DIGIT_4);
+            case "5" -> press(CalculatorSession.Key.DIGIT_5);
+            case "6" -> press(CalculatorSession.Key.DIGIT_6);
+            case "7" -> press(CalculatorSession.Key.DIGIT_7);
+            case "8" -> press(CalculatorSession.Key.DIGIT_8);
+            case "9" -> press(CalculatorSession.Key.DIGIT_9);
+            case "." -> press(CalculatorSession.Key.DECIMAL);
+        }
+    }
+
+    /**
+     * Update screen display to appropriate value and catch error if needed
+     * @param e ActionEvent
+     */
+    private void equalButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.EQUAL);
+    }
+
+    /**
+     * Set up plus button
+     * @param e ActionEvent
+     */
+    private void plusButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.PLUS);
+    }
+
+    /**
+     * Set up minus button
+     * @param e ActionEvent
+     */
+    private void minusButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.MINUS);
+    }
+
+    /**
+     * Set up divide button
+     * @param e ActionEvent
+     */
+    private void divideButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.DIVIDE);
+    }
+
+    /**
+     * Set up multiply button
+     * @param e ActionEvent
+     */
+    private void multiplyButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.MULTIPLY);
+    }
+
+    /**
+     * Remove the latest value in screen display and update the screen
+     * @param e ActionEvent
+     */
+    private void deleteButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.DELETE);
+    }
+
+    /**
+     * Remove all the elements on the screen display
+     * @param e ActionEvent
+     */
+    private void acButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.AC);
+    }
+
+    /**
+     * Update current value in percentage (divide by 100)
+     * @param e ActionEvent
+     */
+    private void percentButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.PERCENT);
+    }
+
+    /**
+     * Update screen with ln of the current value
+     * @param e ActionEvent
+     */
+    private void lnButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.LN);
+    }
+
+    /**
+     * Update screen with log of the current value
+     * @param e ActionEvent
+     */
+    private void logButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.LOG);
+    }
+
+    /**
+     * Update screen with pi value(3.14...)
+     * @param e ActionEvent
+     */
+    private void piButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.PI);
+    }
+
+    /**
+     * Update screen with factorial of the current value
+     * @param e ActionEvent
+     */
+    private void factorialButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.FACTORIAL);
+    }
+
+    /**
+     * Update screen with root of the current value
+     * @param e ActionEvent
+     */
+    private void rootButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.ROOT);
+    }
+
+    /**
+     * Set up exponent value and disable other operator buttons for user to enter number value only
+     * @param e ActionEvent
+     */
+    private void exponentButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.EXPONENT);
+    }
+
+    /**
+     * Update screen with square of the current value
+     * @param e  ActionEvent
+     */
+    private void squareButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.SQUARE);
+    }
+
+    /**
+     * First stored value
+     * @param e ActionEvent
+     */
+    private void value1ButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.VALUE_1);
+    }
+
+    /**
+     * Second stored value
+     * @param e ActionEvent
+     */
+    private void value2ButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.VALUE_2);
+    }
+
+    /**
+     * Third stored value
+     * @param e ActionEvent
+     */
+    private void value3ButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.VALUE_3);
+    }
+
+    /**
+     * Fourth stored value
+     * @param e ActionEvent
+     */
+    private void value4ButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.VALUE_4);
+    }
+
+    /**
+     * Fifth stored value
+     * @param e ActionEvent
+     */
+    private void value5ButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.VALUE_5);
+    }
+
+    /**
+     * Change number type to the next mode (double, exact with 16, 34 or 100 digits) and reset the calculator
+     * @param e ActionEvent
+     */
+    private void precisionButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.PRECISION);
+    }
+
+    /**
+     * Change number type of double mode to the next one (real, complex, interval) and reset the calculator
+     * @param e ActionEvent
+     */
+    private void modeButtonHandler(ActionEvent e){
+        press(CalculatorSession.Key.NUMBER_MODE);
+    }
+
+    /**
+     * Apply the last calculation (ex: x 1.07 ^ 2 - 5) to every value of a file with one value per line, and write the
+     * results to a file next to it
+     * @param e ActionEvent
+     */
+    private void columnButtonHandler(ActionEvent e){
+        ChainCalculation lastCalculation = session.getLastCalculation();
+        if (lastCalculation == null) {
+            session.showError("Calculate with operators first");
+            render();
+            return;
+        }
+        runColumn(lastCalculation.toOperatorChain());
+    }
+
+    /**
+     * Apply the chain to every value of a file the user picks, on the worker thread, and write the results to a file
+     * next to it
+     * @param chain chain to apply
+     */
+    private void runColumn(OperatorChain chain){
+        if (columnButton.isDisabled()) {
+            return; // one column run at a time
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Column: " + chain);
+        File file = chooser.showOpenDialog(columnButton.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        Path input = file.toPath();
+        columnButton.setDisable(true);
+        session.showError(BUSY_TEXT);
+        render();
+        evaluator.runInBackground(() -> {
+            try {
+                return BatchProcessor.forChain(chain).process(input, input.resolveSibling(file.getName() + ".out"));
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }).whenComplete((report, error) -> uiUpdater.post("column", () -> {
+            columnButton.setDisable(false);
+            if (error == null) {
+                session.showError(String.format("%d rows, %d errors, %.1fM rows/s", report.getLines(), report.getErrors(), report.linesPerSecond() / 1e6));
+            } else {
+                session.showError("Cannot read or write column");
+            }
+            render();
+        }));
+    }
+
+    /**
+     * Open the window to edit values of the last calculation
+     * @param e ActionEvent
+     */
+    private void chainButtonHandler(ActionEvent e){
+        if (session.isExact()) {
+            session.showError("Chain is available in double mode");
+        } else if (session.getNumberMode() != NumberMode.REAL) {
+            session.showError("Chain is available for real numbers");
+        } else if (session.getLastCalculation() == null) {
+            session.showError("Calculate with operators first");
+        } else {
+            if (chainPanel == null) {
+                chainPanel = new ChainPanel(this::chainResultChanged);
+            }
+            chainPanel.show(session.getLastCalculation());
+        }
+        render();
+    }
+
+    /**
+     * Show the result of the edited calculation as the current value
+     * @param result result of the calculation
+     */
+    private void chainResultChanged(double result){
+        ErrorCode error = DisplayFormatter.rangeError(result);
+        if (error == null) {
+            retrieve(formatNumbersToString(result));
+            session.showError("");
+        } else {
+            session.showError(error);
+        }
+        render();
+    }
+
+    /**
+     * Open the conversion window, reading the rate file again
+     * @param e ActionEvent
+     */
+    private void convertButtonHandler(ActionEvent e){
+        if (conversionRates == null) {
+            ConversionTable table;
+            try {
+                table = ConversionTable.bundled();
+            } catch (IOException exception) {
+                session.showError("Cannot read units");
+                render();
+                return;
+            }
+            conversionRates = new ConversionRates(ConversionRates.DEFAULT_FILE, table);
+            conversionPanel = new ConversionPanel(this::convert, conversion -> runColumn(conversion.toChain()), this::reloadRates);
+        }
+        conversionPanel.show(conversionRates.current());
+        reloadRates();
+    }
+
+    /**
+     * Convert the value on the screen
+     * @param conversion picked conversion
+     */
+    private void convert(ConversionTable.Conversion conversion){
+        cancelFunction();
+        if (recorder != null) {
+            recorder.recordConversion(conversion);
+        }
+        session.convert(conversion);
+        render();
+    }
+
+    /**
+     * Read the rate file on the worker thread. The panel keeps converting with the current table until the new one
+     * is ready, and keeps it if the file cannot be read.
+     */
+    private void reloadRates(){
+        conversionPanel.showStatus("Reading " + conversionRates.getFile().getFileName() + "...");
+        evaluator.runInBackground(conversionRates::reload).whenComplete((table, error) -> uiUpdater.post("rates", () -> {
+            if (error == null) {
+                conversionPanel.setTable(table);
+                conversionPanel.showStatus(table.size() + " units");
+            } else {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                conversionPanel.showStatus(cause.getCause() == null ? cause.getMessage() : cause.getCause().getMessage());
+            }
+        }));
+    }
+
+    /**
+     * Open the window with the stats of all results
+     * @param e ActionEvent
+     */
+    private void resultStatsButtonHandler(ActionEvent e){
+        if (resultStats == null) {
+            session.showError(historyLog == null ? "History is not available" : "Calculating stats...");
+            render();
+            return;
+        }
+        if (resultStatsPanel == null) {
+            resultStatsPanel = new ResultStatsPanel(this::retrieve);
+        }
+        resultStatsPanel.show(resultStats);
+    }
+
+    /**
+     * Open the history window
+     * @param e ActionEvent
+     */
+    private void historyButtonHandler(ActionEvent e){
+        if (historyLog == null) {
+            session.showError("History is not available");
+            render();
+            return;
+        }
+        if (historyPanel == null) {
+            historyPanel = new HistoryPanel(historyLog, this::retrieve);
+        }
+        historyPanel.show();
+    }
+
+    /**
+     * @param stage The main stage
+     * @throws Exception
+     */
+    @Override
+    public void start(Stage stage) throws Exception {
+        this.stage = stage;
+        root = new Pane();
+        root.getStyleClass().add("calculator");
+        Scene scene = new Scene(root, 370, 600);
+        scene.getStylesheets().add(STYLESHEET);
+        stage.setTitle("Calculator"); // set the window title here
+        stage.setScene(scene);
+
+        // Create the GUI components of the first frame: screen and keypad. The store area is created after it.
+
+        errorLabel = new Label();
+        screenLabel = new Label();
+
+        b0 = new Button("0");
+        b1 = new Button("1");
+        b2 = new Button("2");
+        b3 = new Button("3");
+        b4 = new Button("4");
+        b5 = new Button("5");
+        b6 = new Button("6");
+        b7 = new Button("7");
+        b8 = new Button("8");
+        b9 = new Button("9");
+        decimalButton = new Button(".");
+        equalButton = new Button("=");
+        divideButton = new Button("➗");
+        multiplyButton = new Button("✖");
+        plusButton = new Button("+");
+        minusButton = new Button("-");
+        percentButton = new Button("%");
+        exponentButton = new Button("^");
+        piButton = new Button("\uD835\uDED1");
+        squareButton = new Button("x²");
+        rootButton = new Button("√");
+        factorialButton = new Button("n!");
+        lnButton = new Button("ln");
+        logButton = new Button("log");
+        deleteButton = new Button("⌫");
+        acButton = new Button("AC");
+
+        // Add components to the root
+        root.getChildren().addAll(screenLabel,b0,b1,b2,b3,b4,b5,b6,b7,b8,b9,decimalButton,equalButton,divideButton,multiplyButton,plusButton,minusButton,percentButton,exponentButton,piButton,squareButton,rootButton,factorialButton,lnButton,logButton,deleteButton,acButton,errorLabel);
+
+        // Configure the components (style classes of calculator.css, size, location)
+
+        //error label set up
+        errorLabel.getStyleClass().add("caption");
+        errorLabel.relocate(2,2);
+        errorLabel.setPrefWidth(370);
+        errorLabel.prefWidth(370);
+        errorLabel.setAlignment(Pos.CENTER);
+
+        //screen label set up
+        screenLabel.getStyleClass().add("screen");
+        screenLabel.setAlignment(Pos.CENTER_RIGHT);
+        screenLabel.relocate(10, 10);
+
+        //1st row
+        percentButton.getStyleClass().addAll("key", "key-function");
+        percentButton.relocate(getXPosition(0), getYPosition(0));
+        lnButton.getStyleClass().addAll("key", "key-function");
+        lnButton.relocate(getXPosition(1.5), getYPosition(0));
+        deleteButton.getStyleClass().addAll("key", "key-delete");
+        deleteButton.relocate(getXPosition(3), getYPosition(0));
+        acButton.getStyleClass().addAll("key", "key-delete");
+        acButton.relocate(getXPosition(4), getYPosition(0));
+
+        //2nd row
+        piButton.getStyleClass().addAll("key", "key-function");
+        piButton.relocate(getXPosition(0), getYPosition(1));
+        logButton.getStyleClass().addAll("key", "key-function");
+        logButton.relocate(getXPosition(1.5), getYPosition(1));
+        factorialButton.getStyleClass().addAll("key", "key-small");
+        factorialButton.relocate(getXPosition(3), getYPosition(1));
+        rootButton.getStyleClass().add("key");
+        rootButton.relocate(getXPosition(4), getYPosition(1));
+
+        //3rd row
+        b7.getStyleClass().addAll("key", "key-digit");
+        b7.relocate(getXPosition(0), getYPosition(2));
+        b8.getStyleClass().addAll("key", "key-digit");
+        b8.relocate(getXPosition(1), getYPosition(2));
+        b9.getStyleClass().addAll("key", "key-digit");
+        b9.relocate(getXPosition(2), getYPosition(2));
+        exponentButton.getStyleClass().add("key");
+        exponentButton.relocate(getXPosition(3), getYPosition(2));
+        squareButton.getStyleClass().addAll("key", "key-small");
+        squareButton.relocate(getXPosition(4), getYPosition(2));
+
+        //4th row
+        b4.getStyleClass().addAll("key", "key-digit");
+        b4.relocate(getXPosition(0), getYPosition(3));
+        b5.getStyleClass().addAll("key", "key-digit");
+        b5.relocate(getXPosition(1), getYPosition(3));
+        b6.getStyleClass().addAll("key", "key-digit");
+        b6.relocate(getXPosition(2), getYPosition(3));
+        multiplyButton.getStyleClass().addAll("key", "key-operator");
+        multiplyButton.relocate(getXPosition(3), getYPosition(3));
+        minusButton.getStyleClass().addAll("key", "key-operator");
+        minusButton.relocate(getXPosition(4), getYPosition(3));
+
+        //5th row
+        b1.getStyleClass().addAll("key", "key-digit");
+        b1.relocate(getXPosition(0), getYPosition(4));
+        b2.getStyleClass().addAll("key", "key-digit");
+        b2.relocate(getXPosition(1), getYPosition(4));
+        b3.getStyleClass().addAll("key", "key-digit");
+        b3.relocate(getXPosition(2), getYPosition(4));
+        divideButton.getStyleClass().addAll("key", "key-operator");
+        divideButton.relocate(getXPosition(3), getYPosition(4));
+        plusButton.getStyleClass().addAll("key", "key-operator");
+        plusButton.relocate(getXPosition(4), getYPosition(4));
+
+        //6th row
+        b0.getStyleClass().addAll("key", "key-digit", "key-wide");
+        b0.relocate(getXPosition(0), getYPosition(5));
+        equalButton.getStyleClass().addAll("key", "key-wide");
+        equalButton.relocate(getXPosition(3), getYPosition(5));
+        decimalButton.getStyleClass().addAll("key", "key-digit");
+        decimalButton.relocate(getXPosition(2), getYPosition(5));
+
+        //Functions that can take long run on the worker thread
+        session.setBackground(this::calculateAsync);
+
+        //Button of each key by CalculatorSession.Key code, disabled from the session. Store area keys are added later.
+        keyButtons = new Button[CalculatorSession.Key.count()];
+        Button[] keypad = {b0, b1, b2, b3, b4, b5, b6, b7, b8, b9, decimalButton, equalButton, plusButton, minusButton,
+                multiplyButton, divideButton, exponentButton, deleteButton, acButton, percentButton, lnButton, logButton,
+                piButton, factorialButton, rootButton, squareButton};
+        System.arraycopy(keypad, 0, keyButtons, 0, keypad.length);
+        render();
+
+        //Add Event Handlers and do final setup
+        //number & decimal button handlers
+        b0.setOnAction(timed("digit", this::digitButtonHandler));
+        b1.setOnAction(timed("digit", this::digitButtonHandler));
+        b2.setOnAction(timed("digit", this::digitButtonHandler));
+        b3.setOnAction(timed("digit", this::digitButtonHandler));
+        b4.setOnAction(timed("digit", this::digitButtonHandler));
+        b5.setOnAction(timed("digit", this::digitButtonHandler));
+        b6.setOnAction(timed("digit", this::digitButtonHandler));
+        b7.setOnAction(timed("digit", this::digitButtonHandler));
+        b8.setOnAction(timed("digit", this::digitButtonHandler));
+        b9.setOnAction(timed("digit", this::digitButtonHandler));
+        decimalButton.setOnAction(timed("digit", this::digitButtonHandler));
+
+        //delete & AC button handlers
+        deleteButton.setOnAction(timed("delete", this::deleteButtonHandler));
+        acButton.setOnAction(timed("ac", this::acButtonHandler));
+
+        //five operator button handlers (+,/,*,-,^)
+        plusButton.setOnAction(timed("plus", this::plusButtonHandler));
+        minusButton.setOnAction(timed("minus", this::minusButtonHandler));
+        multiplyButton.setOnAction(timed("multiply", this::multiplyButtonHandler));
+        divideButton.setOnAction(timed("divide", this::divideButtonHandler));
+        exponentButton.setOnAction(timed("exponent", this::exponentButtonHandler));
+
+        //equal button handler
+        equalButton.setOnAction(timed("equal", this::equalButtonHandler));
+
+        //Other operator button handlers
+        percentButton.setOnAction(timed("percent", this::percentButtonHandler));
+        lnButton.setOnAction(timed("ln", this::lnButtonHandler));
+        logButton.setOnAction(timed("log", this::logButtonHandler));
+        piButton.setOnAction(timed("pi", this::piButtonHandler));
+        factorialButton.setOnAction(timed("factorial", this::factorialButtonHandler));
+        rootButton.setOnAction(timed("root", this::rootButtonHandler));
+        squareButton.setOnAction(timed("square", this::squareButtonHandler));
+
+        //A newer button cancels the calculation still running on the worker thread
+        root.addEventFilter(ActionEvent.ACTION, e -> {
+            if (e.getTarget() != columnButton) {
+                cancelFunction();
+            }
+        });
+
+        //F12 shows counters and latencies of the instrumented operations, F9 starts and stops recording the buttons
+        scene.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.F12) {
+                toggleStats();
+            } else if (e.getCode() == KeyCode.F9) {
+                toggleRecording();
+            }
+        });
+
+        //The frame is on the screen at the pulse after the one that rendered it
+        new AnimationTimer() {
+            private int pulses;
+
+            @Override
+            public void handle(long now){
+                if (++pulses == 2) {
+                    stop();
+                    firstFrameShown();
+                }
+            }
+        }.start();
+
+        //Show the stage
+        stage.show();
+    }
+
+    /**
+     * Check the time from the process start to the first frame against the budget, then create what the first frame
+     * does not need: store area and history
+     */
+    private void firstFrameShown(){
+        long startupMillis = ProcessHandle.current().info().startInstant()
+                .map(start -> Duration.between(start, Instant.now()).toMillis()).orElse(0L);
+        Instrumentation.metric("startup").record(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(startupMillis));
+        isStartupOverBudget = startupMillis > STARTUP_BUDGET_MILLIS;
+        if (isStartupOverBudget || EXIT_AFTER_STARTUP) {
+            System.err.printf("First frame after %d ms (budget %d ms)%n", startupMillis, STARTUP_BUDGET_MILLIS);
+        }
+        createStoreArea();
+        render();
+        loadHistory();
+    }
+
+    /**
+     * Create the stored value buttons and the buttons under them
+     */
+    private void createStoreArea(){
+        storedValueLabel = new Label("Stored");
+        storedValueButton1 = new Button("-");
+        storedValueButton2 = new Button("-");
+        storedValueButton3 = new Button("-");
+        storedValueButton4 = new Button("-");
+        storedValueButton5 = new Button("-");
+        precisionButton = new Button("Double");
+        modeButton = new Button(NumberMode.REAL.getName());
+        historyButton = new Button("History");
+        columnButton = new Button("Column");
+        chainButton = new Button("Chain");
+        convertButton = new Button("Convert");
+        resultStatsButton = new Button("Stats");
+        root.getChildren().addAll(storedValueLabel, storedValueButton1, storedValueButton2, storedValueButton3, storedValueButton4, storedValueButton5, precisionButton, modeButton, historyButton, columnButton, chainButton, convertButton, resultStatsButton);
+
+        //Store area styling
+        storedValueLabel.getStyleClass().add("caption");
+        storedValueLabel.setPrefWidth(85);
+        storedValueLabel.relocate(3,200);
+        storedValueLabel.setAlignment(Pos.CENTER);
+
+        for (Button button : new Button[]{storedValueButton1, storedValueButton2, storedValueButton3, storedValueButton4, storedValueButton5, precisionButton, modeButton, historyButton, columnButton, chainButton, convertButton, resultStatsButton}) {
+            button.getStyleClass().add("key-store");
+        }
+        storedValueButton1.relocate(10, 250);
+        storedValueButton2.relocate(10, 300);
+        storedValueButton3.relocate(10, 350);
+        storedValueButton4.relocate(10, 400);
+        storedValueButton5.relocate(10, 450);
+        precisionButton.relocate(10, 500);
+        modeButton.relocate(10, 425);
+        historyButton.relocate(10, 525);
+        columnButton.relocate(10, 225);
+        chainButton.relocate(10, 475);
+        convertButton.relocate(10, 550);
+        resultStatsButton.relocate(10, 575);
+        errorLabel.toFront();
+
+        keyButtons[CalculatorSession.Key.VALUE_1.ordinal()] = storedValueButton1;
+        keyButtons[CalculatorSession.Key.VALUE_2.ordinal()] = storedValueButton2;
+        keyButtons[CalculatorSession.Key.VALUE_3.ordinal()] = storedValueButton3;
+        keyButtons[CalculatorSession.Key.VALUE_4.ordinal()] = storedValueButton4;
+        keyButtons[CalculatorSession.Key.VALUE_5.ordinal()] = storedValueButton5;
+        keyButtons[CalculatorSession.Key.PRECISION.ordinal()] = precisionButton;
+        keyButtons[CalculatorSession.Key.NUMBER_MODE.ordinal()] = modeButton;
+
+        storedValueButton1.setOnAction(timed("value1", this::value1ButtonHandler));
+        storedValueButton2.setOnAction(timed("value2", this::value2ButtonHandler));
+        storedValueButton3.setOnAction(timed("value3", this::value3ButtonHandler));
+        storedValueButton4.setOnAction(timed("value4", this::value4ButtonHandler));
+        storedValueButton5.setOnAction(timed("value5", this::value5ButtonHandler));
+        precisionButton.setOnAction(timed("precision", this::precisionButtonHandler));
+        modeButton.setOnAction(timed("mode", this::modeButtonHandler));
+        historyButton.setOnAction(timed("history", this::historyButtonHandler));
+        columnButton.setOnAction(timed("column", this::columnButtonHandler));
+        chainButton.setOnAction(timed("chain", this::chainButtonHandler));
+        convertButton.setOnAction(timed("convert", this::convertButtonHandler));
+        resultStatsButton.setOnAction(timed("stats", this::resultStatsButtonHandler));
+    }
+
+    /**
+     * Open the history on the worker thread: stored value buttons show the newest entries once it is open
+     */
+    private void loadHistory(){
+        evaluator.runInBackground(() -> {
+            try {
+                return new HistoryLog(HISTORY_DIRECTORY);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }).whenComplete((log, error) -> uiUpdater.post("history", () -> {
+            if (error == null) {
+                historyLog = log;
+                showNewestHistory();
+                session.setOnStore(this::storeValue);
+                loadResultStats();
+            } else {
+                session.showError("Cannot open history");
+            }
+            render();
+            if (EXIT_AFTER_STARTUP) {
+                Platform.exit();
+            }
+        }));
+    }
+
+    /**
+     * Calculate the stats of the history on the worker thread, in parallel parts. Results stored meanwhile are added
+     * once the stats are ready.
+     */
+    private void loadResultStats(){
+        evaluator.runInBackground(() -> ResultStats.of(historyLog, ForkJoinPool.commonPool()))
+                .whenComplete((stats, error) -> uiUpdater.post("stats", () -> {
+                    if (error != null) {
+                        session.showError("Cannot calculate stats");
+                        render();
+                        return;
+                    }
+                    long size = historyLog.size();
+                    for (long i = stats.getCount() + stats.getSkipped(); i < size; i++) {
+                        stats.add(historyLog.valueAt(i));
+                    }
+                    resultStats = stats;
+                }));
+    }
+
+    /**
+     * Show or hide the stats overlay, created when first shown
+     */
+    private void toggleStats(){
+        if (statsOverlay == null) {
+            statsOverlay = new StatsOverlay();
+            statsOverlay.getNode().relocate(5, 20);
+            root.getChildren().add(statsOverlay.getNode());
+        }
+        statsOverlay.toggle();
+    }
+
+    /**
+     * Close history and stop worker threads when the application exits
+     * @throws Exception
+     */
+    @Override
+    public void stop() throws Exception {
+        evaluator.close();
+        if (historyLog != null) {
+            historyLog.close();
+        }
+        if (EXIT_AFTER_STARTUP) {
+            System.exit(isStartupOverBudget ? 1 : 0);
+        }
+    }
+
+    /**
+     * Wrap button handler to record its calls. Returns the handler itself when instrumentation is disabled.
+     * @param name name of the handler
+     * @param handler handler to wrap
+     * @return handler that records its calls
+     */
+    private static EventHandler<ActionEvent> timed(String name, EventHandler<ActionEvent> handler){
+        if (!Instrumentation.ENABLED) {
+            return handler;
+        }
+        Metric metric = Instrumentation.metric("button " + name);
+        return event -> {
+            long start = System.nanoTime();
+            try {
+                handler.handle(event);
+                metric.record(start);
+            } catch (RuntimeException exception) {
+                metric.recordError(start);
+                throw exception;
+            }
+        };
+    }
+
+    /**
+     * Make no changes here.
+     *
+     * @param args unused
+     */
+    public static void main(String[] args) {
+        launch(args);
+    }
+
+    /**
+     * Remove digits after decimal if its all 0 (ex: 5.0 to 5)
+     * @param string number value in String
+     * @return string with applied format
+     */
+    public static String FormatPrintString(String string){
+        int end = string.length();
+        while (end > 0 && string.charAt(end - 1) == '0') {
+            end--;
+        }
+        if (end > 0 && string.charAt(end - 1) == '.') {
+            return string.substring(0, end - 1);
+        }
+        return string;
+    }
+}
@@ -0,0 +1,483 @@
+package storecalculator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Calculator as a local HTTP server, for other programs that cannot use the GUI. Each request runs on its own virtual
+ * thread when the JVM has them (Java 21+), on a cached thread pool otherwise.
+ * <ul>
+ *     <li>GET /calc?op=plus&amp;a=1&amp;b=2 calculates one operation: {"result":3.0} or {"error":"Cannot divide by 0"}</li>
+ *     <li>POST /batch with a JSON array (ex: [{"op":"x","a":2,"b":3},{"op":"ln","a":5}]) calculates every operation
+ *     and returns an array of results in the same order</li>
+ *     <li>POST /session?id=kiosk-1&amp;keys=1,plus,2,equal presses the buttons on the calculator of the session, created
+ *     by the first request: {"screen":"3","error":""}. GET /session?id=kiosk-1 shows it, DELETE /session?id=kiosk-1
+ *     ends it. Keys are the names of CalculatorSession.Key in any case, or a digit or '.'</li>
+ * </ul>
+ * Operators: + (plus), - (minus), x (multiply), / (divide), ^ (exponent), ln, log, √ (root), ! (factorial),
+ * % (percent) and ² (square).
+ * @author Yehyun Kim
+ */
+public final class CalculatorServer implements Closeable {
+    /** Default port **/
+    public static final int DEFAULT_PORT = 8080;
+    /** Biggest request body accepted by /batch **/
+    public static final int MAX_BODY = 1 << 20;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final SessionManager sessions;
+    private final boolean virtualThreads;
+
+    /**
+     * Create server on the address, with sessions evicted to the default directory. Call start to accept requests.
+     * @param address address to listen on, port 0 for any free port
+     * @throws IOException if the address cannot be bound
+     */
+    public CalculatorServer(InetSocketAddress address) throws IOException {
+        this(address, new SessionManager(SessionManager.DEFAULT_DIRECTORY, SessionManager.DEFAULT_IDLE_MILLIS));
+    }
+
+    /**
+     * Create server on the address. Call start to accept requests.
+     * @param address address to listen on, port 0 for any free port
+     * @param sessions calculators of /session, closed with the server
+     * @throws IOException if the address cannot be bound
+     */
+    public CalculatorServer(InetSocketAddress address, SessionManager sessions) throws IOException {
+        this.sessions = sessions;
+        ExecutorService virtual = newVirtualThreadExecutor();
+        virtualThreads = virtual != null;
+        executor = virtual != null ? virtual : Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "calculator-request");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext("/calc", this::handleCalc);
+        server.createContext("/batch", this::handleBatch);
+        server.createContext("/session", this::handleSession);
+    }
+
+    /**
+     * @return executor with one virtual thread per task, null if the JVM has no virtual threads
+     */
+    private static ExecutorService newVirtualThreadExecutor(){
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException exception) {
+            return null;
+        }
+    }
+
+    /**
+     * Start accepting requests
+     */
+    public void start(){
+        server.start();
+    }
+
+    /**
+     * @return port the server listens on
+     */
+    public int getPort(){
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return [true: requests run on virtual threads] [false: requests run on a thread pool]
+     */
+    public boolean isVirtualThreads(){
+        return virtualThreads;
+    }
+
+    /**
+     * Stop accepting requests and stop the threads, then write the sessions to disk
+     */
+    @Override
+    public void close(){
+        server.stop(0);
+        executor.shutdownNow();
+        sessions.close();
+    }
+
+    /**
+     * Calculates one operation
+     * @param op operator or function (symbol or name)
+     * @param a first value
+     * @param b second value, NaN for functions with one operand
+     * @return calculated value
+     * @throws IllegalArgumentException if the operation cannot be calculated
+     */
+    public static double calculate(String op, double a, double b){
+        double result = tryCalculate(op, a, b);
+        if (ErrorCode.of(result) == ErrorCode.UNKNOWN_OPERATOR) {
+            throw new IllegalArgumentException(messageOf(ErrorCode.UNKNOWN_OPERATOR, op));
+        }
+        return ErrorCode.check(result);
+    }
+
+    /**
+     * Calculate one operation without throwing, for batches with many invalid operations
+     * @param op operator or function (symbol or name)
+     * @param a first value
+     * @param b second value, NaN for functions with one operand
+     * @return calculated value, or error NaN (ex: of ErrorCode.DIVIDE_BY_ZERO or UNKNOWN_OPERATOR)
+     */
+    public static double tryCalculate(String op, double a, double b){
+        return switch (op) {
+            case "+", "plus" -> tryApply(CalculatorEngine.Op.PLUS, a, b);
+            case "-", "minus" -> tryApply(CalculatorEngine.Op.MINUS, a, b);
+            case "x", "*", "multiply" -> tryApply(CalculatorEngine.Op.MULTIPLY, a, b);
+            case "/", "divide" -> tryApply(CalculatorEngine.Op.DIVIDE, a, b);
+            case "^", "exponent" -> tryApply(CalculatorEngine.Op.EXPONENT, a, b);
+            case "ln" -> CalculatorEngine.tryApply(CalculatorEngine.UnaryOp.LN, a);
+            case "log" -> CalculatorEngine.tryApply(CalculatorEngine.UnaryOp.LOG, a);
+            case "√", "root" -> CalculatorEngine.tryApply(CalculatorEngine.UnaryOp.ROOT, a);
+            case "!", "factorial" -> CalculatorEngine.tryApply(CalculatorEngine.UnaryOp.FACTORIAL, a);
+            case "%", "percent" -> CalculatorEngine.tryApply(CalculatorEngine.UnaryOp.PERCENT, a);
+            case "²", "square" -> CalculatorEngine.tryApply(CalculatorEngine.UnaryOp.SQUARE, a);
+            default -> ErrorCode.UNKNOWN_OPERATOR.toNaN();
+        };
+    }
+
+    private static double tryApply(CalculatorEngine.Op op, double a, double b){
+        return Double.isNaN(b) ? ErrorCode.NO_SECOND_VALUE.toNaN() : CalculatorEngine.tryApply(op, a, b);
+    }
+
+    /**
+     * @return message of the error, with the operator if it is unknown
+     */
+    private static String messageOf(ErrorCode error, String op){
+        return error == ErrorCode.UNKNOWN_OPERATOR ? error.getMessage() + " " + op : error.getMessage();
+    }
+
+    private void handleCalc(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                send(exchange, 405, "{\"error\":\"Use GET\"}");
+                return;
+            }
+            StringBuilder response = new StringBuilder(48);
+            try {
+                Map<String, String> query = queryOf(exchange, "op", "a", "b");
+                String op = query.get("op");
+                double a = query.containsKey("a") ? Double.parseDouble(query.get("a")) : Double.NaN;
+                double b = query.containsKey("b") ? Double.parseDouble(query.get("b")) : Double.NaN;
+                if (op == null || Double.isNaN(a)) {
+                    throw ErrorCode.NO_OPERATION.exception();
+                }
+                appendResult(response, calculate(op, a, b));
+                send(exchange, 200, response.toString());
+            } catch (IllegalArgumentException exception) { // includes NumberFormatException
+                appendError(response, exception);
+                send(exchange, 400, response.toString());
+            }
+        }
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                send(exchange, 405, "{\"error\":\"Use POST\"}");
+                return;
+            }
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readNBytes(MAX_BODY + 1);
+            }
+            if (body.length > MAX_BODY) {
+                send(exchange, 413, "{\"error\":\"Request too big\"}");
+                return;
+            }
+            try {
+                send(exchange, 200, new BatchRequest(new String(body, StandardCharsets.UTF_8)).calculate());
+            } catch (IllegalArgumentException exception) {
+                StringBuilder response = new StringBuilder();
+                appendError(response, exception);
+                send(exchange, 400, response.toString());
+            }
+        }
+    }
+
+    private void handleSession(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("POST") && !method.equals("DELETE")) {
+                send(exchange, 405, "{\"error\":\"Use GET, POST or DELETE\"}");
+                return;
+            }
+            StringBuilder response = new StringBuilder(48);
+            try {
+                Map<String, String> query = queryOf(exchange, "id", "keys");
+                String id = query.get("id");
+                String keys = query.get("keys");
+                if (method.equals("DELETE")) {
+                    send(exchange, sessions.remove(id) ? 200 : 404, "{}");
+                    return;
+                }
+                if (keys != null && method.equals("GET")) {
+                    throw new IllegalArgumentException("Use POST to press keys");
+                }
+                CalculatorSession.Key[] pressed = keys == null || keys.isEmpty() ? new CalculatorSession.Key[0] : keysOf(keys);
+                sessions.apply(id, session -> {
+                    for (CalculatorSession.Key key : pressed) {
+                        session.press(key);
+                    }
+                    response.append("{\"screen\":");
+                    appendString(response, session.getScreenText());
+                    response.append(",\"error\":");
+                    appendString(response, session.getErrorText());
+                    return response.append('}');
+                });
+                send(exchange, 200, response.toString());
+            } catch (IllegalArgumentException exception) {
+                response.setLength(0);
+                appendError(response, exception);
+                send(exchange, 400, response.toString());
+            } catch (IOException exception) { // session file cannot be read or deleted
+                response.setLength(0);
+                appendError(response, exception);
+                send(exchange, 500, response.toString());
+            }
+        }
+    }
+
+    /**
+     * @param names names of the parameters the request accepts
+     * @return decoded value of each parameter of the query string, "" for a parameter without '='
+     * @throws IllegalArgumentException if a parameter is not one of the names
+     */
+    private static Map<String, String> queryOf(HttpExchange exchange, String... names){
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        for (String pair : query == null ? new String[0] : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            if (!List.of(names).contains(name)) {
+                throw new IllegalArgumentException("Unknown parameter " + name);
+            }
+            parameters.put(name, equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    /**
+     * @param keys keys separated by ',' (ex: 1,plus,2,equal)
+     * @return keys to press
+     */
+    private static CalculatorSession.Key[] keysOf(String keys){
+        String[] names = keys.split(",");
+        CalculatorSession.Key[] pressed = new CalculatorSession.Key[names.length];
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i].trim();
+            if (name.length() == 1 && name.charAt(0) >= '0' && name.charAt(0) <= '9') {
+                pressed[i] = CalculatorSession.Key.of(CalculatorSession.Key.DIGIT_0.ordinal() + name.charAt(0) - '0');
+            } else if (name.equals(".")) {
+                pressed[i] = CalculatorSession.Key.DECIMAL;
+            } else {
+                try {
+                    pressed[i] = CalculatorSession.Key.valueOf(name.toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException exception) {
+                    throw new IllegalArgumentException("Unknown key " + name);
+                }
+            }
+        }
+        return pressed;
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void appendResult(StringBuilder json, double value){
+        json.append("{\"result\":");
+        if (Double.isFinite(value)) {
+            json.append(value);
+        } else {
+            json.append('"').append(value).append('"'); // NaN and Infinity are not JSON numbers
+        }
+        json.append('}');
+    }
+
+    private static void appendError(StringBuilder json, Exception exception){
+        json.append("{\"error\":");
+        appendString(json, String.valueOf(exception.getMessage()));
+        json.append('}');
+    }
+
+    private static void appendString(StringBuilder json, String text){
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\');
+            }
+            json.append(c < ' ' ? ' ' : c);
+        }
+        json.append('"');
+    }
+
+    /**
+     * JSON array of operations: [{"op":"+","a":1,"b":2}, ...]. Reads only this format: objects with string and
+     * number values.
+     */
+    private static final class BatchRequest {
+        private final String json;
+        private int pos;
+
+        BatchRequest(String json){
+            this.json = json;
+        }
+
+        /**
+         * @return JSON array with the result or error of every operation
+         */
+        String calculate(){
+            StringBuilder response = new StringBuilder(json.length());
+            response.append('[');
+            expect('[');
+            if (peek() != ']') {
+                do {
+                    if (response.length() > 1) {
+                        response.append(',');
+                    }
+                    calculateObject(response);
+                } while (consume(','));
+            }
+            expect(']');
+            if (peek() != 0) {
+                throw error("end of input");
+            }
+            return response.append(']').toString();
+        }
+
+        private void calculateObject(StringBuilder response){
+            String op = null;
+            double a = Double.NaN, b = Double.NaN;
+            expect('{');
+            if (peek() != '}') {
+                do {
+                    String name = readString();
+                    expect(':');
+                    switch (name) {
+                        case "op" -> op = readString();
+                        case "a" -> a = readNumber();
+                        case "b" -> b = readNumber();
+                        default -> throw error("op, a or b");
+                    }
+                } while (consume(','));
+            }
+            expect('}');
+            // one bad operation does not fail the batch, and costs no exception
+            double result = op == null || Double.isNaN(a) ? ErrorCode.NO_OPERATION.toNaN() : tryCalculate(op, a, b);
+            ErrorCode error = ErrorCode.of(result);
+            if (error == null) {
+                appendResult(response, result);
+            } else {
+                response.append("{\"error\":");
+                appendString(response, messageOf(error, op));
+                response.append('}');
+            }
+        }
+
+        private String readString(){
+            expect('"');
+            int start = pos;
+            while (pos < json.length() && json.charAt(pos) != '"') {
+                if (json.charAt(pos) == '\\') {
+                    throw error("string without escapes");
+                }
+                pos++;
+            }
+            if (pos == json.length()) {
+                throw error("\"");
+            }
+            return json.substring(start, pos++);
+        }
+
+        private double readNumber(){
+            peek();
+            int start = pos;
+            while (pos < json.length() && "+-.0123456789eE".indexOf(json.charAt(pos)) >= 0) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("number");
+            }
+            return Double.parseDouble(json.substring(start, pos));
+        }
+
+        /**
+         * @return next character after white space, 0 at the end
+         */
+        private char peek(){
+            while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+                pos++;
+            }
+            return pos < json.length() ? json.charAt(pos) : 0;
+        }
+
+        private boolean consume(char c){
+            if (peek() == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c){
+            if (!consume(c)) {
+                throw error("'" + c + "'");
+            }
+        }
+
+        private IllegalArgumentException error(String expected){
+            return new IllegalArgumentException("Expected " + expected + " at position " + pos);
+        }
+    }
+
+    /**
+     * Turn on TCP_NODELAY for every HttpServer of the JVM, unless -Dsun.net.httpserver.nodelay is given. Headers and
+     * body are written separately: without it every response waits for the delayed ACK (~40 ms). The JDK reads the
+     * property once, so it is called by main, before the first server is created, not when the class is loaded.
+     */
+    static void useTcpNoDelay(){
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /**
+     * Start server on localhost
+     * @param args port (default 8080)
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        useTcpNoDelay();
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        CalculatorServer server = new CalculatorServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        server.start();
+        System.err.println("Calculator server on http://localhost:" + server.getPort() + (server.isVirtualThreads() ? " (virtual threads)" : ""));
+    }
+}
@@ -0,0 +1,1307 @@
+package storecalculator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * State of the calculator and what each button does to it, without JavaFX. What the screen shows is kept as a
+ * Display state with its value, so buttons don't compare or parse the screen text. The screen and the error label
+ * text are kept for the GUI, which shows them after every button, and for Macro, which replays recorded buttons on a
+ * new session to get the same screen.
+ * In double mode, failed calculations come back as an ErrorCode (see CalculatorEngine.tryApply), so a button that
+ * fails does not throw; exact mode still reports errors of PrecisionEngine with exceptions.
+ * Double mode calculates real numbers, or complex numbers or intervals (see NumberMode): the other number types keep
+ * their values in ModeValues, so the real number buttons calculate doubles as before.
+ * Not thread safe: use from one thread.
+ * @author Yehyun Kim
+ */
+public final class CalculatorSession {
+    /**
+     * Buttons that change the state. The order is the code of the button in macro files: add new buttons at the end.
+     */
+    public enum Key {
+        DIGIT_0, DIGIT_1, DIGIT_2, DIGIT_3, DIGIT_4, DIGIT_5, DIGIT_6, DIGIT_7, DIGIT_8, DIGIT_9, DECIMAL,
+        EQUAL, PLUS, MINUS, MULTIPLY, DIVIDE, EXPONENT, DELETE, AC,
+        PERCENT, LN, LOG, PI, FACTORIAL, ROOT, SQUARE,
+        VALUE_1, VALUE_2, VALUE_3, VALUE_4, VALUE_5, PRECISION, NUMBER_MODE;
+
+        private static final Key[] KEYS = values();
+
+        /**
+         * @param code code of the key in macro files
+         * @return key with the code
+         */
+        public static Key of(int code){
+            return KEYS[code];
+        }
+
+        /**
+         * @return number of keys
+         */
+        public static int count(){
+            return KEYS.length;
+        }
+    }
+
+    /**
+     * What the screen shows, which decides what the next digit does and where the current value comes from
+     */
+    private enum Display {
+        /** Nothing: the next digit starts a new value **/
+        EMPTY,
+        /** Value typed by the user, kept in the input buffer **/
+        ENTERING,
+        /** Result of an operator, function or pi: the next digit continues typing on it **/
+        CALCULATED,
+        /** Result of the equal button, also the newest stored value: the next digit starts a new value **/
+        RESULT,
+        /** Stored value, history row or chain window result: the next digit starts a new value **/
+        RECALLED,
+        /** Math Error, the error label tells why: the next digit starts a new value **/
+        ERROR
+    }
+
+    /** Format of writeTo. 1: first version, 2: code of the error, 3: number mode and its stored value,
+     * 4: value on the screen in number mode, 5: number of chain steps as int **/
+    private static final int SNAPSHOT_VERSION = 5;
+
+    /** Precision of each mode, 0 for double mode **/
+    private static final int[] PRECISION_MODES = {0, 16, 34, 100};
+    /** Number of stored values shown next to the keys **/
+    public static final int STORED_VALUES = 5;
+
+    /** Formatter for screen display, one per thread because it reuses its buffer **/
+    private static final ThreadLocal<DisplayFormatter> DISPLAY_FORMATTER = ThreadLocal.withInitial(DisplayFormatter::new);
+
+    /** Instrumentation of calculations by operator, functions by function and screen formatting **/
+    private static final Metric[] CALCULATE_METRICS = Instrumentation.metrics("calc ", CalculatorEngine.Op.values());
+    private static final Metric[] FUNCTION_METRICS = Instrumentation.metrics("func ", CalculatorEngine.UnaryOp.values());
+    private static final Metric FORMAT_METRIC = Instrumentation.metric("format");
+    private static final Metric CONVERT_METRIC = Instrumentation.metric("convert");
+
+    /** Number typed by user, parsed while it is typed **/
+    private final InputBuffer inputBuffer = new InputBuffer();
+    /** Store initial value **/
+    private double resultOnHold;
+    /** Store initial value in exact mode **/
+    private BigDecimal exactResultOnHold = BigDecimal.ZERO;
+    /** Engine for exact mode, null in double mode **/
+    private PrecisionEngine precisionEngine;
+    /** Engine for factorials too big for double, keeps calculated factorials **/
+    private final FactorialEngine factorialEngine;
+    /** Index of the selected mode in PRECISION_MODES **/
+    private int precisionModeIndex;
+    /** Number type of double mode **/
+    private NumberMode numberMode = NumberMode.REAL;
+    /** Values of complex or interval mode, null for real numbers and in exact mode **/
+    private ModeValues<?> modeValues;
+    /** Selected operator, null before the first one **/
+    private CalculatorEngine.Op selectedOp;
+    /** [True: operation button pressed] [False: not pressed] **/
+    private boolean isOperationButtonPressed;
+    /** [True: it is first value entered] [False: it is not first value entered] **/
+    private boolean isInit = true;
+
+    /** What the screen shows **/
+    private Display display = Display.EMPTY;
+    /** Value on the screen when it is not typed. Known when a double result is shown, otherwise parsed once **/
+    private double shownValue;
+    /** [True: shownValue is the value on the screen] **/
+    private boolean isShownValueKnown;
+    /** Value on the screen in exact mode when it is not typed, null until first needed **/
+    private BigDecimal exactShownValue;
+    /** Screen display and error label **/
+    private String screenText = "", errorText = "";
+    /** Error shown on the error label, null if there is none or the label shows a message without a code **/
+    private ErrorCode error;
+    /** Stored values, newest first. "-" for no value **/
+    private final String[] storedValues = new String[STORED_VALUES];
+    /** [True: delete button is disabled] **/
+    private boolean deleteDisabled;
+    /** [True: operator and function buttons are disabled, only a value can be entered] **/
+    private boolean functionsDisabled;
+
+    /** First value, operators and values of the current calculation, with the result after each step **/
+    private final ChainCalculation chain = new ChainCalculation();
+    /** Last finished calculation, null before the first one **/
+    private ChainCalculation lastCalculation;
+
+    /** Called with the expression and the result of every finished calculation, null if not needed **/
+    private BiConsumer<String, String> onStore;
+    /** Runs calculations that can take long, null to calculate them at once **/
+    private Consumer<Supplier<String>> background;
+
+    public CalculatorSession(){
+        this(new FactorialEngine());
+    }
+
+    /**
+     * @param factorialEngine engine for factorials too big for double, can be shared between sessions
+     */
+    public CalculatorSession(FactorialEngine factorialEngine){
+        this.factorialEngine = factorialEngine;
+        Arrays.fill(storedValues, "-");
+    }
+
+    /**
+     * Apply button to the state. Disabled buttons are ignored.
+     * @param key pressed button
+     */
+    public void press(Key key){
+        if (isDisabled(key)) {
+            return;
+        }
+        switch (key) {
+            case DIGIT_0, DIGIT_1, DIGIT_2, DIGIT_3, DIGIT_4, DIGIT_5, DIGIT_6, DIGIT_7, DIGIT_8, DIGIT_9 -> drawDigit((char) ('0' + key.ordinal()));
+            case DECIMAL -> drawDigit('.');
+            case EQUAL -> equal();
+            case PLUS -> selectedOperatorSetup(CalculatorEngine.Op.PLUS);
+            case MINUS -> selectedOperatorSetup(CalculatorEngine.Op.MINUS);
+            case MULTIPLY -> selectedOperatorSetup(CalculatorEngine.Op.MULTIPLY);
+            case DIVIDE -> selectedOperatorSetup(CalculatorEngine.Op.DIVIDE);
+            case EXPONENT -> {
+                setFunctionsDisabled(true); // only a value can follow the exponent
+                selectedOperatorSetup(CalculatorEngine.Op.EXPONENT);
+            }
+            case DELETE -> delete();
+            case AC -> clear();
+            case PERCENT -> function(CalculatorEngine.UnaryOp.PERCENT);
+            case LN -> function(CalculatorEngine.UnaryOp.LN);
+            case LOG -> function(CalculatorEngine.UnaryOp.LOG);
+            case PI -> pi();
+            case FACTORIAL -> intFunction(CalculatorEngine.UnaryOp.FACTORIAL, ErrorCode.NOT_INT_FACTORIAL);
+            case ROOT -> function(CalculatorEngine.UnaryOp.ROOT);
+            case SQUARE -> function(CalculatorEngine.UnaryOp.SQUARE);
+            case VALUE_1, VALUE_2, VALUE_3, VALUE_4, VALUE_5 -> retrieve(storedValues[key.ordinal() - Key.VALUE_1.ordinal()]);
+            case PRECISION -> nextPrecision();
+            case NUMBER_MODE -> nextNumberMode();
+        }
+    }
+
+    /**
+     * @param key button
+     * @return [true: button is disabled]
+     */
+    public boolean isDisabled(Key key){
+        return switch (key) {
+            case DELETE -> deleteDisabled;
+            case EXPONENT, PLUS, MINUS, DIVIDE, MULTIPLY, ROOT, FACTORIAL, PI, PERCENT, LN, LOG, SQUARE -> functionsDisabled;
+            default -> false;
+        };
+    }
+
+    /**
+     * Draw digit on the screen
+     * @param value digit or decimal to display on the screen
+     */
+    private void drawDigit(char value){
+        //if operation button is pressed, resets screen display
+        if (isOperationButtonPressed) {
+            isOperationButtonPressed = false;
+            display = Display.EMPTY;
+        }
+        switch (display) {
+            //if screen shows the result of equal, a recalled value or math error, resets screen display
+            case EMPTY, RESULT, RECALLED, ERROR -> {
+                screenText = "";
+                inputBuffer.clear();
+            }
+            //if screen shows a result, continue typing on it. A complex number or interval cannot be typed: start a new value
+            case CALCULATED -> {
+                if (modeValues == null || NumberMode.REAL.accepts(screenText)) {
+                    inputBuffer.load(screenText);
+                } else {
+                    screenText = "";
+                    inputBuffer.clear();
+                }
+            }
+            case ENTERING -> { }
+        }
+        display = Display.ENTERING;
+        //display digit if screen doesn't exceed the max length
+        if (inputBuffer.append(value)) {
+            screenText = inputBuffer.toString();
+        }
+        showError(""); //reset error label
+        setFunctionsDisabled(false); // enable delete and other buttons
+    }
+
+    /**
+     * Keep the current value as the first value of the operator, calculate if needed
+     * @param operator selected operator
+     */
+    private void selectedOperatorSetup(CalculatorEngine.Op operator){
+        try {
+            deleteDisabled = false;
+            ErrorCode error = valueError();
+            if (error != null) {
+                showMathError(error);
+                return;
+            }
+            // if the calculation is not the first calculation
+            if (resultOnHold != 0 && !isInit) {
+                error = showCalculation(false, selectedOp, Display.CALCULATED);
+            } else { //if entered value is the initial value, returns the same value: nothing to calculate
+                error = showCalculation(true, operator, Display.CALCULATED);
+            }
+            if (error != null) {
+                showMathError(error);
+                return;
+            }
+            selectedOp = operator;
+            isOperationButtonPressed = true;
+            showError("");
+            isInit = false;
+        } catch (IllegalArgumentException exception) { // exact mode
+            showMathError(exception.getMessage());
+        } finally {
+            inputBuffer.clear(); //clear typed input
+        }
+    }
+
+    /**
+     * Calculate the stored and current value, show and store the result
+     */
+    private void equal(){
+        try {
+            ErrorCode error = valueError();
+            if (error != null) {
+                showMathError(error);
+                return;
+            }
+            String expression = describeCalculation(screenText);
+            // process if user presses the button without pressing operation button and it's the first value
+            if (!isOperationButtonPressed && isInit) {
+                error = showCurrentValue();
+            } else { // process if there are values to be calculated
+                error = showCalculation(false, selectedOp, Display.RESULT);
+            }
+            if (error != null) {
+                showMathError(error);
+                return;
+            }
+            storeValue(expression, screenText);
+            if (chain.size() > 0) { //keep the calculation for the chain window and column mode
+                lastCalculation = chain.copy();
+            }
+            chain.reset(0);
+            isOperationButtonPressed = false;
+            inputBuffer.clear();    //clear typed input
+            isInit = true;          //set initial value to true for next calculation
+            resultOnHold = 0;
+            exactResultOnHold = BigDecimal.ZERO;
+            if (modeValues != null) {
+                modeValues.clearHeld();
+            }
+        } catch (NumberFormatException exception) { // exact mode: value on the screen is not a decimal (ex: NaN)
+            showMathError(ErrorCode.NOT_NUMBER);
+        } catch (IllegalArgumentException exception) { // exact mode
+            showMathError(exception.getMessage());
+        } catch (IndexOutOfBoundsException exception) {
+            // no change on the screen display
+        }
+    }
+
+    /**
+     * Remove the latest typed digit
+     */
+    private void delete(){
+        if (inputBuffer.deleteLast()) {
+            display = Display.ENTERING;
+            screenText = inputBuffer.toString();
+        } else {
+            showError("Nothing to delete");
+        }
+    }
+
+    /**
+     * Remove everything on the screen and start a new calculation
+     */
+    private void clear(){
+        inputBuffer.clear();
+        chain.reset(0);
+        resultOnHold = 0;
+        exactResultOnHold = BigDecimal.ZERO;
+        if (modeValues != null) {
+            modeValues.clearHeld();
+        }
+        isOperationButtonPressed = false;
+        display = Display.EMPTY;
+        screenText = "";
+        showError("");
+        deleteDisabled = true;
+        isInit = true;
+    }
+
+    /**
+     * Update screen with pi value(3.14...)
+     */
+    private void pi(){
+        isOperationButtonPressed = false;
+        show(Display.CALCULATED, Math.PI);
+    }
+
+    /**
+     * Change number type to the next mode (double, exact with 16, 34 or 100 digits) and start a new calculation
+     */
+    private void nextPrecision(){
+        setPrecisionModeIndex((precisionModeIndex + 1) % PRECISION_MODES.length);
+        clear();
+    }
+
+    /**
+     * Change double mode to the next number type (real, complex, interval) and start a new calculation
+     */
+    private void nextNumberMode(){
+        setNumberMode(numberMode.next());
+        clear();
+    }
+
+    /**
+     * Update screen with function of the current value
+     * @param op function
+     */
+    private void function(CalculatorEngine.UnaryOp op){
+        if (isOperationButtonPressed) {
+            showError(ErrorCode.OPERATOR_PRESSED);
+            return;
+        }
+        deleteDisabled = true;
+        ErrorCode error = valueError();
+        if (error == null) {
+            error = showFunctionOrError(op);
+        }
+        if (error != null) {
+            showError(error);
+        }
+    }
+
+    /**
+     * Update screen with function of the current value, only for int values
+     * @param op function
+     * @param notInt error when there is no value or it is not int
+     */
+    private void intFunction(CalculatorEngine.UnaryOp op, ErrorCode notInt){
+        if (isOperationButtonPressed) {
+            showError(ErrorCode.OPERATOR_PRESSED);
+            return;
+        }
+        deleteDisabled = true;
+        if (valueError() != null || !isIntValue()) { // only int value
+            showError(notInt);
+            display = Display.EMPTY;
+            screenText = "";
+            return;
+        }
+        ErrorCode error = showFunctionOrError(op);
+        if (error != null) {
+            showError(error);
+        }
+    }
+
+    /**
+     * @param op function
+     * @return why the function failed in double mode, null if it is shown or calculating. Errors of exact mode are
+     * shown on the error label as they are
+     */
+    private ErrorCode showFunctionOrError(CalculatorEngine.UnaryOp op){
+        try {
+            return showFunction(op);
+        } catch (IllegalArgumentException exception) { // exact mode
+            showError(exception.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Convert the current value (ex: kg to lb, EUR to USD) and show it like the result of a function. Ignored while
+     * only a value can be entered (after ^).
+     * @param conversion conversion of a rate table
+     */
+    public void convert(ConversionTable.Conversion conversion){
+        if (functionsDisabled) {
+            return;
+        }
+        long start = Instrumentation.start();
+        ErrorCode error = ErrorCode.OPERATOR_PRESSED;
+        if (!isOperationButtonPressed) {
+            deleteDisabled = true;
+            error = valueError();
+        }
+        if (error == null && modeValues != null) {
+            error = modeValues.convert(conversion.toChain());
+        } else if (error == null && precisionEngine == null) {
+            error = tryShow(Display.CALCULATED, conversion.apply(currentValue()));
+        } else if (error == null) {
+            try {
+                show(Display.CALCULATED, PrecisionEngine.format(conversion.apply(currentExactValue(), precisionEngine.getMathContext())));
+            } catch (IllegalArgumentException exception) {
+                CONVERT_METRIC.recordError(start);
+                showError(exception.getMessage());
+                return;
+            }
+        }
+        if (error != null) {
+            CONVERT_METRIC.recordError(start);
+            showError(error);
+            return;
+        }
+        CONVERT_METRIC.record(start);
+    }
+
+    /**
+     * Update screen with function of the current value. Functions in double mode take nanoseconds and are shown at
+     * once; exact mode functions and big factorials are given to the background runner if there is one.
+     * @param op function
+     * @return why the function failed in double mode, null if it is shown or calculating
+     * @throws IllegalArgumentException if the function fails in exact mode without a background runner
+     */
+    private ErrorCode showFunction(CalculatorEngine.UnaryOp op){
+        boolean isBigFactorial = precisionEngine == null && op == CalculatorEngine.UnaryOp.FACTORIAL
+                && currentRealValue() > CalculatorEngine.MAX_FACTORIAL; // too big for double
+        if (modeValues != null && !isBigFactorial) {
+            return modeValues.showFunction(op);
+        } else if (precisionEngine == null && !isBigFactorial) {
+            return tryShow(Display.CALCULATED, applyFunction(op, currentValue()));
+        }
+        Supplier<String> calculation = functionOf(op, isBigFactorial);
+        if (background == null) {
+            functionCalculated(calculation.get());
+        } else {
+            background.accept(calculation);
+        }
+        return null;
+    }
+
+    /**
+     * Apply function in double mode and record it
+     * @param op function
+     * @param value current value
+     * @return result, or error NaN. ErrorCode.NOT_REAL for ln, log and root of negative values
+     */
+    private static double applyFunction(CalculatorEngine.UnaryOp op, double value){
+        long start = Instrumentation.start();
+        double result = CalculatorEngine.tryApply(op, value);
+        if (Double.isNaN(result) && !Double.isNaN(value) && ErrorCode.of(result) == null) {
+            result = ErrorCode.NOT_REAL.toNaN(); // the result is complex
+        }
+        if (ErrorCode.of(result) == null) {
+            FUNCTION_METRICS[op.ordinal()].record(start);
+        } else {
+            FUNCTION_METRICS[op.ordinal()].recordError(start);
+        }
+        return result;
+    }
+
+    /**
+     * Read the current value and prepare the function on it in exact mode or on BigInteger. The current value is read
+     * now, so the calculation can run on another thread.
+     * @param op function
+     * @param isBigFactorial [true: factorial too big for double, calculated on BigInteger]
+     * @return calculation of the value to user friendly string
+     */
+    private Supplier<String> functionOf(CalculatorEngine.UnaryOp op, boolean isBigFactorial){
+        Supplier<String> calculation;
+        if (isBigFactorial) {
+            int value = (int) currentRealValue();
+            calculation = () -> FactorialEngine.format(factorialEngine.factorial(value));
+        } else {
+            PrecisionEngine engine = precisionEngine;
+            BigDecimal value = currentExactValue();
+            calculation = () -> PrecisionEngine.format(engine.apply(op, value));
+        }
+        Metric metric = FUNCTION_METRICS[op.ordinal()];
+        return () -> {
+            long start = Instrumentation.start();
+            try {
+                String result = calculation.get();
+                metric.record(start);
+                return result;
+            } catch (IllegalArgumentException exception) {
+                metric.recordError(start);
+                throw exception;
+            }
+        };
+    }
+
+    /**
+     * Show the result of a calculation given to the background runner
+     * @param result calculated value to user friendly string
+     */
+    public void functionCalculated(String result){
+        show(Display.CALCULATED, result);
+    }
+
+    /**
+     * Show the error of a calculation given to the background runner
+     * @param cause exception of the calculation
+     */
+    public void functionFailed(Throwable cause){
+        showError(cause instanceof IllegalArgumentException ? cause.getMessage() : "Math Error");
+    }
+
+    /**
+     * Show stored value as the current value. A value of another number type (ex: 1+2i for real numbers) is not shown
+     * @param storedValue value of selected store value button, history row or chain window
+     */
+    public void retrieve(String storedValue){
+        if (!storedValue.equals("-") && !numberMode.accepts(storedValue)) {
+            showError(ErrorCode.NOT_NUMBER);
+            return;
+        }
+        if (!storedValue.equals("-")) {
+            show(Display.RECALLED, storedValue); //updates screen display
+            isOperationButtonPressed = false;
+        }
+        if (selectedOp == CalculatorEngine.Op.EXPONENT) {
+            setFunctionsDisabled(false);
+        }
+    }
+
+    /**
+     * Show message on the error label
+     * @param message message, empty to clear the label
+     */
+    public void showError(String message){
+        error = null;
+        errorText = message;
+    }
+
+    /**
+     * Show the message of the error on the error label
+     * @param error why the button or calculation failed
+     */
+    public void showError(ErrorCode error){
+        this.error = error;
+        errorText = error.getMessage();
+    }
+
+    /**
+     * Describe the calculation the equal button is about to do (ex: 12 + 3)
+     * @param currentText current value on the screen
+     * @return calculation in text
+     */
+    private String describeCalculation(String currentText){
+        if (isOperationButtonPressed || isInit || selectedOp == null) {
+            return currentText;
+        }
+        String storedText;
+        if (modeValues != null) {
+            storedText = modeValues.heldText();
+        } else {
+            storedText = precisionEngine == null ? format(resultOnHold) : PrecisionEngine.format(exactResultOnHold);
+        }
+        return storedText + " " + selectedOp.getSymbol() + " " + currentText;
+    }
+
+    /**
+     * Add value to the stored values, newest first
+     * @param expression calculation entered by user
+     * @param value new value
+     */
+    private void storeValue(String expression, String value){
+        System.arraycopy(storedValues, 0, storedValues, 1, STORED_VALUES - 1);
+        storedValues[0] = value;
+        if (onStore != null) {
+            onStore.accept(expression, value);
+        }
+    }
+
+    /**
+     * Format value to user friendly string and apply max and min value to display
+     * @param value entered or calculated value
+     * @return value to user friendly string
+     */
+    public static String format(double value){
+        long start = Instrumentation.start();
+        try {
+            String text = DISPLAY_FORMATTER.get().format(value);
+            FORMAT_METRIC.record(start);
+            return text;
+        } catch (IllegalArgumentException exception) {
+            FORMAT_METRIC.recordError(start);
+            throw exception;
+        }
+    }
+
+    /**
+     * Show double value, rounded as formatted
+     * @param state what the value is
+     * @param value value to show
+     */
+    private void show(Display state, double value){
+        screenText = format(value);
+        shownValue = DISPLAY_FORMATTER.get().shownValue();
+        isShownValueKnown = true;
+        exactShownValue = null;
+        display = state;
+    }
+
+    /**
+     * Show double value unless it is an error NaN or does not fit on the screen
+     * @param state what the value is
+     * @param value value to show
+     * @return why the value is not shown, null if it is shown
+     */
+    private ErrorCode tryShow(Display state, double value){
+        ErrorCode error = ErrorCode.of(value);
+        if (error == null) {
+            error = DisplayFormatter.rangeError(value);
+        }
+        if (error == null) {
+            show(state, value);
+        }
+        return error;
+    }
+
+    /**
+     * Show value that comes as text (exact mode, background calculation or other windows), parsed when first needed
+     * @param state what the value is
+     * @param text value to show
+     */
+    private void show(Display state, String text){
+        screenText = text;
+        isShownValueKnown = false;
+        exactShownValue = null;
+        display = state;
+    }
+
+    /**
+     * Show Math Error on the screen
+     * @param message why, shown on the error label
+     */
+    private void showMathError(String message){
+        screenText = "Math Error";
+        showError(message);
+        display = Display.ERROR;
+    }
+
+    /**
+     * Show Math Error on the screen
+     * @param error why, shown on the error label
+     */
+    private void showMathError(ErrorCode error){
+        screenText = "Math Error";
+        showError(error);
+        display = Display.ERROR;
+    }
+
+    /**
+     * @return why there is no current value: ErrorCode.NO_VALUE or TOO_MANY_DECIMALS. null if there is one
+     */
+    private ErrorCode valueError(){
+        return switch (display) {
+            case ENTERING -> inputBuffer.error();
+            case EMPTY, ERROR -> ErrorCode.NO_VALUE;
+            case CALCULATED, RESULT, RECALLED -> null;
+        };
+    }
+
+    /**
+     * @return current value: typed input or the value on the screen, without parsing once known
+     * @throws NumberFormatException if there is no value: check valueError first
+     */
+    private double currentValue(){
+        return switch (display) {
+            case ENTERING -> inputBuffer.doubleValue();
+            case EMPTY, ERROR -> throw new NumberFormatException("Enter value");
+            case CALCULATED, RESULT, RECALLED -> {
+                if (!isShownValueKnown) {
+                    shownValue = Double.parseDouble(screenText);
+                    isShownValueKnown = true;
+                }
+                yield shownValue;
+            }
+        };
+    }
+
+    /**
+     * @return current value as a real number in any number type of double mode, NaN if it is not one (ex: 2i)
+     * @throws NumberFormatException if there is no value
+     */
+    private double currentRealValue(){
+        return modeValues == null ? currentValue() : modeValues.realValue();
+    }
+
+    /**
+     * @return current value in exact mode: typed input or the value on the screen, without parsing once known
+     * @throws NumberFormatException if there is no value
+     */
+    private BigDecimal currentExactValue(){
+        return switch (display) {
+            case ENTERING -> inputBuffer.decimalValue();
+            case EMPTY, ERROR -> throw new NumberFormatException("Enter value");
+            case CALCULATED, RESULT, RECALLED -> {
+                if (exactShownValue == null) {
+                    exactShownValue = new BigDecimal(screenText);
+                }
+                yield exactShownValue;
+            }
+        };
+    }
+
+    /**
+     * @return [true: current value is an int (ex: 12, not 12. or 12.5)]
+     * @throws NumberFormatException if there is no value
+     */
+    private boolean isIntValue(){
+        if (display == Display.ENTERING) {
+            return inputBuffer.isInt();
+        }
+        double value = currentRealValue(); // at most 14 characters: a fraction is never rounded away
+        return value == Math.rint(value) && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Show current value with the selected number type as the result of the equal button
+     * @return why the value is not shown (too big for the screen), null if it is shown
+     */
+    private ErrorCode showCurrentValue(){
+        if (modeValues != null) {
+            return modeValues.showCurrentValue();
+        } else if (precisionEngine == null) {
+            return tryShow(Display.RESULT, currentValue());
+        }
+        show(Display.RESULT, PrecisionEngine.format(currentExactValue()));
+        return null;
+    }
+
+    /**
+     * Calculates stored and current value with the selected number type and show it
+     * @param isCurrentFirst [true: current value is the first value] [false: stored value is the first value]
+     * @param op selected operator
+     * @param state what the result is
+     * @return why the result is not shown in double mode, null if it is shown
+     * @throws IllegalArgumentException if the calculation fails in exact mode
+     */
+    private ErrorCode showCalculation(boolean isCurrentFirst, CalculatorEngine.Op op, Display state){
+        if (modeValues != null) {
+            return modeValues.showCalculation(isCurrentFirst, op, state);
+        }
+        boolean isStep = !isCurrentFirst && isCalculationNeeded(op);
+        if (precisionEngine == null) {
+            double currentValue = currentValue();
+            double result = isCurrentFirst ? calculateValue(currentValue, resultOnHold, op)
+                    : calculateValue(resultOnHold, currentValue, op);
+            ErrorCode error = ErrorCode.of(result);
+            if (error != null) {
+                return error;
+            }
+            recordStep(isCurrentFirst, isStep, op, currentValue, result);
+            return tryShow(state, result);
+        }
+        BigDecimal currentValue = currentExactValue();
+        BigDecimal result = isCurrentFirst ? calculateExactValue(currentValue, exactResultOnHold, op)
+                : calculateExactValue(exactResultOnHold, currentValue, op);
+        recordStep(isCurrentFirst, isStep, op, currentValue.doubleValue(), result.doubleValue());
+        show(state, PrecisionEngine.format(result));
+        return null;
+    }
+
+    /**
+     * Add the calculated step to the chain of the current calculation
+     * @param isCurrentFirst [true: current value is the first value, a new chain starts]
+     * @param isStep [true: stored and current value were calculated with the operator]
+     * @param op selected operator
+     * @param currentValue current value
+     * @param result calculated value
+     */
+    private void recordStep(boolean isCurrentFirst, boolean isStep, CalculatorEngine.Op op, double currentValue, double result){
+        if (isCurrentFirst) {
+            chain.reset(result);
+        } else if (isStep) {
+            chain.append(op, currentValue);
+        }
+    }
+
+    /**
+     * Calculates value
+     * @param num1 stored value
+     * @param num2 current value
+     * @param op selected operator
+     * @return calculated value, or error NaN without changing the stored value. ErrorCode.NOT_REAL for non-integer
+     * powers of negative values
+     */
+    private double calculateValue(double num1, double num2, CalculatorEngine.Op op){
+        deleteDisabled = true; //disable delete button: only need AC button
+        double calculatedValue = num1;
+        if (isCalculationNeeded(op)) {
+            long start = Instrumentation.start();
+            calculatedValue = CalculatorEngine.tryApply(op, num1, num2);
+            if (op == CalculatorEngine.Op.EXPONENT && num1 < 0 && Double.isNaN(calculatedValue) && !Double.isNaN(num2)) {
+                calculatedValue = ErrorCode.NOT_REAL.toNaN(); // the result is complex
+            }
+            if (ErrorCode.of(calculatedValue) != null) {
+                CALCULATE_METRICS[op.ordinal()].recordError(start);
+                return calculatedValue;
+            }
+            CALCULATE_METRICS[op.ordinal()].record(start);
+        }
+        resultOnHold = calculatedValue;
+        return calculatedValue;
+    }
+
+    /**
+     * Calculates value in exact mode
+     * @param num1 stored value
+     * @param num2 current value
+     * @param op selected operator
+     * @return calculated value
+     */
+    private BigDecimal calculateExactValue(BigDecimal num1, BigDecimal num2, CalculatorEngine.Op op){
+        deleteDisabled = true; //disable delete button: only need AC button
+        BigDecimal calculatedValue = num1;
+        if (isCalculationNeeded(op)) {
+            long start = Instrumentation.start();
+            try {
+                calculatedValue = precisionEngine.apply(op, num1, num2);
+            } catch (IllegalArgumentException exception) {
+                CALCULATE_METRICS[op.ordinal()].recordError(start);
+                throw exception;
+            }
+            CALCULATE_METRICS[op.ordinal()].record(start);
+        }
+        exactResultOnHold = calculatedValue;
+        resultOnHold = calculatedValue.signum(); // only checked against 0
+        return calculatedValue;
+    }
+
+    /**
+     * @param op selected operator
+     * @return [true: calculate with the operator] [false: the first value is the result]
+     */
+    private boolean isCalculationNeeded(CalculatorEngine.Op op){
+        //process only if user entered number value(=current value)
+        if (isOperationButtonPressed) {
+            return false;
+        }
+        // if it's the first value entered, return the same value (plus and minus are calculated with 0)
+        return !isInit || op == CalculatorEngine.Op.PLUS || op == CalculatorEngine.Op.MINUS;
+    }
+
+    /**
+     * Disable or enable operator, function and delete buttons
+     * @param isDisable [true: disable] [false: enable]
+     */
+    private void setFunctionsDisabled(boolean isDisable){
+        functionsDisabled = isDisable;
+        deleteDisabled = isDisable;
+    }
+
+    /**
+     * @return text of the screen
+     */
+    public String getScreenText(){
+        return screenText;
+    }
+
+    /**
+     * @return text of the error label
+     */
+    public String getErrorText(){
+        return errorText;
+    }
+
+    /**
+     * @return error shown on the error label, null if there is none or the label shows a message without a code
+     */
+    public ErrorCode getError(){
+        return error;
+    }
+
+    /**
+     * @return operator waiting for its value, shown as pressed. null if none
+     */
+    public CalculatorEngine.Op getHighlightedOp(){
+        return isOperationButtonPressed ? selectedOp : null;
+    }
+
+    /**
+     * @param index 0 for the newest
+     * @return stored value, "-" for no value
+     */
+    public String getStoredValue(int index){
+        return storedValues[index];
+    }
+
+    /**
+     * Replace the stored values (ex: with the newest values of the history)
+     * @param values values, newest first. Missing values are "-"
+     */
+    public void setStoredValues(String... values){
+        for (int i = 0; i < STORED_VALUES; i++) {
+            storedValues[i] = i < values.length ? values[i] : "-";
+        }
+    }
+
+    /**
+     * @return precision of exact mode, 0 in double mode
+     */
+    public int getPrecision(){
+        return PRECISION_MODES[precisionModeIndex];
+    }
+
+    /**
+     * @return [true: exact mode] [false: double mode]
+     */
+    public boolean isExact(){
+        return precisionEngine != null;
+    }
+
+    /**
+     * @return number type of double mode, NumberMode.REAL in exact mode
+     */
+    public NumberMode getNumberMode(){
+        return numberMode;
+    }
+
+    /**
+     * Select number type of double mode. Complex numbers and intervals select double mode
+     * @param mode number type
+     */
+    void setNumberMode(NumberMode mode){
+        if (mode != NumberMode.REAL) {
+            setPrecisionModeIndex(0);
+        }
+        numberMode = mode;
+        modeValues = mode.arithmetic() == null ? null : new ModeValues<>(mode.arithmetic());
+    }
+
+    int getPrecisionModeIndex(){
+        return precisionModeIndex;
+    }
+
+    void setPrecisionModeIndex(int index){
+        precisionModeIndex = index;
+        int precision = PRECISION_MODES[index];
+        precisionEngine = precision == 0 ? null : new PrecisionEngine(new MathContext(precision), factorialEngine);
+        if (precisionEngine != null) { // exact mode calculates real numbers
+            numberMode = NumberMode.REAL;
+            modeValues = null;
+        }
+    }
+
+    CalculatorEngine.Op getSelectedOp(){
+        return selectedOp;
+    }
+
+    void setSelectedOp(CalculatorEngine.Op op){
+        selectedOp = op;
+    }
+
+    void setDisabled(boolean functionsDisabled, boolean deleteDisabled){
+        this.functionsDisabled = functionsDisabled;
+        this.deleteDisabled = deleteDisabled;
+    }
+
+    /**
+     * @return number of precision modes
+     */
+    static int precisionModes(){
+        return PRECISION_MODES.length;
+    }
+
+    /**
+     * @return last finished calculation, null before the first one
+     */
+    public ChainCalculation getLastCalculation(){
+        return lastCalculation;
+    }
+
+    /**
+     * @param onStore called with the expression and the result of every finished calculation, null if not needed
+     */
+    public void setOnStore(BiConsumer<String, String> onStore){
+        this.onStore = onStore;
+    }
+
+    /**
+     * Write the whole state, so readFrom continues the session where it stopped (ex: in another process). A function
+     * still calculating in the background is not written: call it after the result is shown. Callbacks are not written.
+     * @param out snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(SNAPSHOT_VERSION);
+        out.writeByte(precisionModeIndex);
+        out.writeByte(selectedOp == null ? -1 : selectedOp.ordinal());
+        out.writeByte(display.ordinal());
+        out.writeByte((isOperationButtonPressed ? 1 : 0) | (isInit ? 2 : 0) | (isShownValueKnown ? 4 : 0)
+                | (deleteDisabled ? 8 : 0) | (functionsDisabled ? 16 : 0)
+                | (exactShownValue != null ? 32 : 0) | (lastCalculation != null ? 64 : 0));
+        out.writeDouble(resultOnHold);
+        out.writeDouble(shownValue);
+        out.writeUTF(exactResultOnHold.toString());
+        if (exactShownValue != null) {
+            out.writeUTF(exactShownValue.toString());
+        }
+        out.writeUTF(inputBuffer.toString());
+        out.writeUTF(screenText);
+        out.writeUTF(errorText);
+        out.writeByte(error == null ? -1 : error.ordinal());
+        out.writeByte(numberMode.ordinal());
+        if (modeValues != null) {
+            out.writeUTF(modeValues.held.toString());
+            out.writeUTF(modeValues.shownText());
+        }
+        for (String value : storedValues) {
+            out.writeUTF(value);
+        }
+        chain.writeTo(out);
+        if (lastCalculation != null) {
+            lastCalculation.writeTo(out);
+        }
+    }
+
+    /**
+     * @param in snapshot written by writeTo
+     * @param factorialEngine engine for factorials too big for double, can be shared between sessions
+     * @return session in the written state, without callbacks
+     * @throws IOException if the snapshot cannot be read or is not a session
+     */
+    public static CalculatorSession readFrom(DataInput in, FactorialEngine factorialEngine) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version < 1 || version > SNAPSHOT_VERSION) {
+            throw new IOException("Unsupported session version " + version);
+        }
+        CalculatorSession session = new CalculatorSession(factorialEngine);
+        int precisionModeIndex = in.readUnsignedByte();
+        int op = in.readByte();
+        int display = in.readUnsignedByte();
+        if (precisionModeIndex >= PRECISION_MODES.length || op >= CalculatorEngine.Op.values().length
+                || display >= Display.values().length) {
+            throw new IOException("Not a session");
+        }
+        session.setPrecisionModeIndex(precisionModeIndex);
+        session.selectedOp = op < 0 ? null : CalculatorEngine.Op.values()[op];
+        session.display = Display.values()[display];
+        int flags = in.readUnsignedByte();
+        session.isOperationButtonPressed = (flags & 1) != 0;
+        session.isInit = (flags & 2) != 0;
+        session.isShownValueKnown = (flags & 4) != 0;
+        session.deleteDisabled = (flags & 8) != 0;
+        session.functionsDisabled = (flags & 16) != 0;
+        session.resultOnHold = in.readDouble();
+        session.shownValue = in.readDouble();
+        try {
+            session.exactResultOnHold = new BigDecimal(in.readUTF());
+            session.exactShownValue = (flags & 32) != 0 ? new BigDecimal(in.readUTF()) : null;
+        } catch (NumberFormatException exception) {
+            throw new IOException("Not a session");
+        }
+        session.inputBuffer.load(in.readUTF());
+        session.screenText = in.readUTF();
+        session.errorText = in.readUTF();
+        int error = version >= 2 ? in.readByte() : -1;
+        if (error >= ErrorCode.values().length) {
+            throw new IOException("Not a session");
+        }
+        session.error = error < 0 ? null : ErrorCode.values()[error];
+        if (version >= 3) {
+            int numberMode = in.readUnsignedByte();
+            if (numberMode >= NumberMode.values().length) {
+                throw new IOException("Not a session");
+            }
+            session.setNumberMode(NumberMode.values()[numberMode]);
+            if (session.modeValues != null && (!session.modeValues.readHeld(in.readUTF())
+                    || version >= 4 && !session.modeValues.readShown(in.readUTF()))) {
+                throw new IOException("Not a session");
+            }
+        }
+        for (int i = 0; i < STORED_VALUES; i++) {
+            session.storedValues[i] = in.readUTF();
+        }
+        session.chain.readSteps(in, version >= 5);
+        session.lastCalculation = (flags & 64) != 0 ? ChainCalculation.readFrom(in, version >= 5) : null;
+        return session;
+    }
+
+    /**
+     * @param background runs calculations that can take long and shows the result with functionCalculated or
+     *                   functionFailed. null to calculate them at once
+     */
+    public void setBackground(Consumer<Supplier<String>> background){
+        this.background = background;
+    }
+
+    /**
+     * Values of complex or interval mode, in the value type of the mode. The screen shows a value rounded, so the
+     * calculated value is kept with its text and used as long as the screen shows that text.
+     * @param <T> value type of the mode
+     */
+    private final class ModeValues<T> {
+        private final NumberArithmetic<T> arithmetic;
+        /** Store initial value, like exactResultOnHold **/
+        private T held;
+        /** Value on the screen, known while screenText is shownText: the same String, not only equal text **/
+        private T shown;
+        private String shownText;
+
+        ModeValues(NumberArithmetic<T> arithmetic){
+            this.arithmetic = arithmetic;
+            held = arithmetic.of(0);
+        }
+
+        /**
+         * @return current value: typed input or the value on the screen, null if the screen text is not a value
+         */
+        private T current(){
+            if (display == Display.ENTERING) {
+                return arithmetic.of(inputBuffer.decimalValue());
+            }
+            if (screenText != shownText) { // shown as text: recalled, or calculated in the background
+                shown = arithmetic.parse(screenText);
+                shownText = screenText;
+            }
+            return shown;
+        }
+
+        /**
+         * @return current value as a real number, NaN if it is not one
+         */
+        double realValue(){
+            T current = current();
+            return current == null ? Double.NaN : arithmetic.realValue(current);
+        }
+
+        /**
+         * Show value unless it carries an error or does not fit on the screen
+         * @param state what the value is
+         * @param value value to show
+         * @return why the value is not shown, null if it is shown
+         */
+        private ErrorCode tryShow(Display state, T value){
+            ErrorCode error = arithmetic.error(value);
+            if (error != null) {
+                return error;
+            }
+            String text = arithmetic.format(value);
+            if (text == null) {
+                return ErrorCode.VALUE_TOO_BIG;
+            }
+            show(state, text);
+            shown = value;
+            shownText = text;
+            return null;
+        }
+
+        /**
+         * Same as CalculatorSession.showCalculation
+         * @return why the result is not shown, null if it is shown
+         */
+        ErrorCode showCalculation(boolean isCurrentFirst, CalculatorEngine.Op op, Display state){
+            T current = current();
+            if (current == null) {
+                return ErrorCode.NOT_NUMBER;
+            }
+            deleteDisabled = true; //disable delete button: only need AC button
+            T result = isCurrentFirst ? current : held;
+            if (isCalculationNeeded(op)) {
+                long start = Instrumentation.start();
+                result = isCurrentFirst ? arithmetic.apply(op, current, held) : arithmetic.apply(op, held, current);
+                ErrorCode error = arithmetic.error(result);
+                if (error != null) {
+                    CALCULATE_METRICS[op.ordinal()].recordError(start);
+                    return error;
+                }
+                CALCULATE_METRICS[op.ordinal()].record(start);
+            }
+            held = result;
+            resultOnHold = arithmetic.realValue(result) == 0 ? 0 : 1; // only checked against 0
+            return tryShow(state, result);
+        }
+
+        /**
+         * @param op function
+         * @return why the result is not shown, null if it is shown
+         */
+        ErrorCode showFunction(CalculatorEngine.UnaryOp op){
+            T current = current();
+            if (current == null) {
+                return ErrorCode.NOT_NUMBER;
+            }
+            long start = Instrumentation.start();
+            T result = arithmetic.apply(op, current);
+            if (arithmetic.error(result) == null) {
+                FUNCTION_METRICS[op.ordinal()].record(start);
+            } else {
+                FUNCTION_METRICS[op.ordinal()].recordError(start);
+            }
+            return tryShow(Display.CALCULATED, result);
+        }
+
+        /**
+         * @return why the value is not shown, null if it is shown
+         */
+        ErrorCode showCurrentValue(){
+            T current = current();
+            return current == null ? ErrorCode.NOT_NUMBER : tryShow(Display.RESULT, current);
+        }
+
+        /**
+         * @param steps steps of the conversion (ex: x 0.45359237)
+         * @return why the value is not shown, null if it is shown
+         */
+        ErrorCode convert(OperatorChain steps){
+            T value = current();
+            if (value == null) {
+                return ErrorCode.NOT_NUMBER;
+            }
+            for (int i = 0; i < steps.size(); i++) {
+                value = arithmetic.apply(steps.opAt(i), value, arithmetic.of(steps.operandAt(i)));
+            }
+            return tryShow(Display.CALCULATED, value);
+        }
+
+        /**
+         * @return stored value as shown on the screen
+         */
+        String heldText(){
+            String text = arithmetic.format(held);
+            return text == null ? held.toString() : text;
+        }
+
+        void clearHeld(){
+            held = arithmetic.of(0);
+        }
+
+        /**
+         * @param text lossless text of the stored value, written by writeTo
+         * @return [false: text is not a value]
+         */
+        boolean readHeld(String text){
+            T value = arithmetic.parse(text);
+            if (value != null) {
+                held = value;
+            }
+            return value != null;
+        }
+
+        /**
+         * @return lossless text of the value on the screen, empty if only the screen text is known
+         */
+        String shownText(){
+            return shown != null && screenText == shownText ? shown.toString() : "";
+        }
+
+        /**
+         * @param text lossless text of the value on the screen written by writeTo, read after the screen text
+         * @return [false: text is not empty and not a value]
+         */
+        boolean readShown(String text){
+            if (text.isEmpty()) {
+                return true;
+            }
+            shown = arithmetic.parse(text);
+            shownText = screenText;
+            return shown != null;
+        }
+    }
+}
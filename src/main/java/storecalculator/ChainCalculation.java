@@ -0,0 +1,253 @@
+package storecalculator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Calculation entered with the operator buttons, kept as a list of steps (operator and value) after the first value,
+ * with the result after every step. Changing the value of a step calculates again only the steps after it, starting
+ * from the kept result before it, and stops as soon as a result is the same as before.
+ * Not thread safe.
+ * @author Yehyun Kim
+ */
+public final class ChainCalculation {
+    private CalculatorEngine.Op[] ops = new CalculatorEngine.Op[8];
+    private double[] operands = new double[8];
+    /** results[0] is the first value, results[i + 1] is the result after step i **/
+    private double[] results = new double[9];
+    /** Number of steps **/
+    private int size;
+    /** Number of steps calculated by the last change **/
+    private int lastCalculatedSteps;
+
+    /**
+     * Start new calculation
+     * @param first first value
+     */
+    public void reset(double first){
+        size = 0;
+        results[0] = first;
+        lastCalculatedSteps = 0;
+    }
+
+    /**
+     * Add step at the end. Only the new step is calculated.
+     * @param op operator
+     * @param operand value
+     * @return result after the step
+     */
+    public double append(CalculatorEngine.Op op, double operand){
+        double result = CalculatorEngine.apply(op, results[size], operand); // throws before the step is added
+        if (size == ops.length) {
+            grow();
+        }
+        ops[size] = op;
+        operands[size] = operand;
+        results[++size] = result;
+        lastCalculatedSteps = 1;
+        return result;
+    }
+
+    private void grow(){
+        ops = Arrays.copyOf(ops, ops.length * 2);
+        operands = Arrays.copyOf(operands, ops.length);
+        results = Arrays.copyOf(results, ops.length + 1);
+    }
+
+    /**
+     * Change the first value and calculate every step again
+     * @param value new first value
+     * @return result of the calculation
+     */
+    public double setFirst(double value){
+        results[0] = value;
+        return recalculateFrom(0);
+    }
+
+    /**
+     * Change the value of a step and calculate the steps from it
+     * @param step index of the step
+     * @param value new value
+     * @return result of the calculation
+     */
+    public double setOperand(int step, double value){
+        checkStep(step);
+        checkDivide(ops[step], value);
+        operands[step] = value;
+        return recalculateFrom(step);
+    }
+
+    /**
+     * Change the operator of a step and calculate the steps from it
+     * @param step index of the step
+     * @param op new operator
+     * @return result of the calculation
+     */
+    public double setOp(int step, CalculatorEngine.Op op){
+        checkStep(step);
+        checkDivide(op, operands[step]);
+        ops[step] = op;
+        return recalculateFrom(step);
+    }
+
+    /**
+     * Calculate steps from the step, using the kept result before it
+     */
+    private double recalculateFrom(int step){
+        lastCalculatedSteps = 0;
+        for (int i = step; i < size; i++) {
+            double result = CalculatorEngine.apply(ops[i], results[i], operands[i]);
+            lastCalculatedSteps++;
+            if (Double.compare(result, results[i + 1]) == 0) {
+                break; // same result as before: the rest of the steps don't change
+            }
+            results[i + 1] = result;
+        }
+        return results[size];
+    }
+
+    private void checkStep(int step){
+        if (step < 0 || step >= size) {
+            throw new IndexOutOfBoundsException("Step " + step + " of " + size);
+        }
+    }
+
+    private static void checkDivide(CalculatorEngine.Op op, double value){
+        if (op == CalculatorEngine.Op.DIVIDE && value == 0) { // checked before changing: the kept results stay valid
+            throw ErrorCode.DIVIDE_BY_ZERO.exception();
+        }
+    }
+
+    /**
+     * @return result of the calculation
+     */
+    public double result(){
+        return results[size];
+    }
+
+    /**
+     * @return first value
+     */
+    public double first(){
+        return results[0];
+    }
+
+    /**
+     * @param step index of the step
+     * @return result after the step
+     */
+    public double resultAt(int step){
+        checkStep(step);
+        return results[step + 1];
+    }
+
+    /**
+     * @param step index of the step
+     * @return operator of the step
+     */
+    public CalculatorEngine.Op opAt(int step){
+        checkStep(step);
+        return ops[step];
+    }
+
+    /**
+     * @param step index of the step
+     * @return value of the step
+     */
+    public double operandAt(int step){
+        checkStep(step);
+        return operands[step];
+    }
+
+    /**
+     * @return number of steps
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * @return number of steps calculated by the last change
+     */
+    public int getLastCalculatedSteps(){
+        return lastCalculatedSteps;
+    }
+
+    /**
+     * @return steps without the first value, for column mode
+     */
+    public OperatorChain toOperatorChain(){
+        return OperatorChain.of(Arrays.copyOf(ops, size), Arrays.copyOf(operands, size));
+    }
+
+    /**
+     * @return independent copy with the same steps and results, without room for more steps
+     */
+    public ChainCalculation copy(){
+        ChainCalculation copy = new ChainCalculation();
+        int capacity = Math.max(size, 1); // kept per session: no spare steps
+        copy.ops = Arrays.copyOf(ops, capacity);
+        copy.operands = Arrays.copyOf(operands, capacity);
+        copy.results = Arrays.copyOf(results, capacity + 1);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Write steps and results, so the calculation is read back without calculating again
+     * @param out session snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size); // chains have no length limit: one request can add 70000 steps
+        out.writeDouble(results[0]);
+        for (int i = 0; i < size; i++) {
+            out.writeByte(ops[i].ordinal());
+            out.writeDouble(operands[i]);
+            out.writeDouble(results[i + 1]);
+        }
+    }
+
+    /**
+     * @param in session snapshot written by writeTo
+     * @param isIntCount [false: count of steps is an unsigned short, as written before session snapshot version 5]
+     * @return calculation with the written steps and results
+     * @throws IOException if the snapshot cannot be read or is not a calculation
+     */
+    static ChainCalculation readFrom(DataInput in, boolean isIntCount) throws IOException {
+        ChainCalculation calculation = new ChainCalculation();
+        calculation.readSteps(in, isIntCount);
+        return calculation.copy();
+    }
+
+    /**
+     * Replace the steps and results with the ones written by writeTo
+     * @param in session snapshot
+     * @param isIntCount [false: count of steps is an unsigned short, as written before session snapshot version 5]
+     * @throws IOException if the snapshot cannot be read or is not a calculation
+     */
+    void readSteps(DataInput in, boolean isIntCount) throws IOException {
+        int steps = isIntCount ? in.readInt() : in.readUnsignedShort();
+        if (steps < 0) {
+            throw new IOException("Not a calculation");
+        }
+        CalculatorEngine.Op[] allOps = CalculatorEngine.Op.values();
+        results[0] = in.readDouble();
+        for (int i = 0; i < steps; i++) {
+            if (i == ops.length) { // grow while reading: a corrupt count ends with EOFException, not a huge array
+                grow();
+            }
+            int op = in.readUnsignedByte();
+            if (op >= allOps.length) {
+                throw new IOException("Unknown operator " + op);
+            }
+            ops[i] = allOps[op];
+            operands[i] = in.readDouble();
+            results[i + 1] = in.readDouble();
+        }
+        size = steps;
+        lastCalculatedSteps = 0;
+    }
+}
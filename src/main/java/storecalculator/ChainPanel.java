@@ -0,0 +1,110 @@
+package storecalculator;
+
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Stage;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Window that shows the steps of the last calculation with the result after each step. Editing a value calculates
+ * again only the steps after it (ChainCalculation) and updates their results.
+ * @author Yehyun Kim
+ */
+public final class ChainPanel {
+
+    private final Stage stage = new Stage();
+    private final GridPane grid = new GridPane();
+    /** Called with the result after a value is changed **/
+    private final DoubleConsumer onResult;
+    private ChainCalculation calculation;
+    private Label[] resultLabels = new Label[0];
+
+    /**
+     * @param onResult called with the result after a value is changed
+     */
+    public ChainPanel(DoubleConsumer onResult){
+        this.onResult = onResult;
+        grid.setHgap(8);
+        grid.setVgap(4);
+        grid.setPadding(new Insets(5));
+        grid.getStyleClass().add("panel");
+        ScrollPane scrollPane = new ScrollPane(grid);
+        scrollPane.setFitToWidth(true);
+        scrollPane.getStyleClass().add("panel");
+        stage.setTitle("Chain");
+        Scene scene = new Scene(scrollPane, 320, 400);
+        scene.getStylesheets().add(CalculatorGUI.STYLESHEET);
+        stage.setScene(scene);
+    }
+
+    /**
+     * Show the window with the steps of the calculation
+     * @param calculation calculation to show and edit
+     */
+    public void show(ChainCalculation calculation){
+        this.calculation = calculation;
+        grid.getChildren().clear();
+        resultLabels = new Label[calculation.size() + 1];
+        addRow(0, "", calculation.first(), -1);
+        for (int step = 0; step < calculation.size(); step++) {
+            addRow(step + 1, calculation.opAt(step).getSymbol(), calculation.operandAt(step), step);
+        }
+        stage.setTitle("Chain: " + calculation.size() + " steps");
+        stage.show();
+        stage.toFront();
+    }
+
+    /**
+     * @param row row of the grid
+     * @param symbol operator of the step, empty for the first value
+     * @param operand value of the step
+     * @param step index of the step, -1 for the first value
+     */
+    private void addRow(int row, String symbol, double operand, int step){
+        Label opLabel = new Label(symbol);
+        TextField field = new TextField(CalculatorGUI.formatNumbersToString(operand));
+        Label resultLabel = new Label();
+        opLabel.getStyleClass().add("panel-label");
+        field.getStyleClass().add("panel-field");
+        field.setPrefWidth(130);
+        resultLabel.getStyleClass().add("panel-label");
+        resultLabels[row] = resultLabel;
+        showResult(row);
+        field.setOnAction(e -> edit(step, field));
+        grid.addRow(row, opLabel, field, resultLabel);
+    }
+
+    private void edit(int step, TextField field){
+        double value;
+        try {
+            value = Double.parseDouble(field.getText());
+        } catch (NumberFormatException exception) {
+            stage.setTitle("Chain: enter number");
+            return;
+        }
+        double result;
+        try {
+            result = step < 0 ? calculation.setFirst(value) : calculation.setOperand(step, value);
+        } catch (IllegalArgumentException exception) {
+            stage.setTitle("Chain: " + exception.getMessage());
+            return;
+        }
+        int start = Math.max(step, 0); // row of step i is i + 1
+        for (int row = start + 1; row <= start + calculation.getLastCalculatedSteps(); row++) {
+            showResult(row); // only the calculated steps changed
+        }
+        stage.setTitle("Chain: calculated " + calculation.getLastCalculatedSteps() + " of " + calculation.size() + " steps");
+        onResult.accept(result);
+    }
+
+    private void showResult(int row){
+        double value = row == 0 ? calculation.first() : calculation.resultAt(row - 1);
+        ErrorCode error = DisplayFormatter.rangeError(value);
+        String text = error == null ? "= " + CalculatorGUI.formatNumbersToString(value) : error.getMessage();
+        resultLabels[row].setText(row == 0 ? "" : text);
+    }
+}
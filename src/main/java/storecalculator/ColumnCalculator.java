@@ -0,0 +1,280 @@
+package storecalculator;
+
+import java.nio.DoubleBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Column mode: applies an operator chain (ex: "x 1.07 ^ 2 - 5") to every row of a column of values, in double arrays
+ * or in buffers outside the heap. Rows are split between the threads of a fork-join pool. Each thread applies every
+ * step to a row before moving to the next row, with the Vector API when jdk.incubator.vector is available and one row
+ * at a time through the compiled chain otherwise. Thread safe.
+ * @author Yehyun Kim
+ */
+public final class ColumnCalculator {
+    /** Rows calculated by one task without splitting **/
+    public static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+    /** Rows copied from a buffer to an array at a time **/
+    private static final int BUFFER_BLOCK = 4096;
+    private static final boolean VECTOR_AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private final OperatorChain chain;
+    private final CalculatorEngine.Op[] ops;
+    private final double[] operands;
+    /** Steps of the chain as one handle, for rows calculated one at a time **/
+    private final CompiledChain compiled;
+    private final ForkJoinPool pool;
+    private final boolean vectorized;
+
+    /**
+     * Calculator on the common pool, with the Vector API if it is available
+     * @param chain steps to apply to each row
+     */
+    public ColumnCalculator(OperatorChain chain){
+        this(chain, ForkJoinPool.commonPool(), true);
+    }
+
+    /**
+     * @param chain steps to apply to each row
+     * @param pool pool to split rows between
+     * @param useVector [true: use the Vector API if it is available] [false: one row at a time]
+     */
+    public ColumnCalculator(OperatorChain chain, ForkJoinPool pool, boolean useVector){
+        this.chain = chain;
+        this.pool = pool;
+        this.vectorized = useVector && VECTOR_AVAILABLE;
+        ops = new CalculatorEngine.Op[chain.size()];
+        operands = new double[chain.size()];
+        for (int i = 0; i < ops.length; i++) {
+            ops[i] = chain.opAt(i);
+            operands[i] = chain.operandAt(i);
+        }
+        compiled = CompiledChain.of(chain);
+    }
+
+    /**
+     * @return [true: jdk.incubator.vector is available in this JVM]
+     */
+    public static boolean isVectorAvailable(){
+        return VECTOR_AVAILABLE;
+    }
+
+    /**
+     * @return steps applied to each row
+     */
+    public OperatorChain getChain(){
+        return chain;
+    }
+
+    /**
+     * @return [true: rows are calculated with the Vector API]
+     */
+    public boolean isVectorized(){
+        return vectorized;
+    }
+
+    /**
+     * Calculate every row and replace it with the result
+     * @param values values to calculate
+     * @return rows and time taken
+     */
+    public Report apply(double[] values){
+        return apply(values, values);
+    }
+
+    /**
+     * Calculate every row: out[i] = in[i] with every step applied
+     * @param in values to calculate
+     * @param out array to write calculated values in
+     * @return rows and time taken
+     */
+    public Report apply(double[] in, double[] out){
+        if (in.length < out.length) {
+            throw new IllegalArgumentException("Input array is shorter than output array");
+        }
+        long start = System.nanoTime();
+        run(new ArrayTask(in, out, 0, out.length), out.length);
+        return new Report(out.length, System.nanoTime() - start, vectorized);
+    }
+
+    /**
+     * Calculate every remaining row of the input buffer and write results to the output buffer. Positions of the buffers
+     * are not changed, so direct buffers (ex: a mapped file) can be calculated without copying the whole column to the
+     * heap.
+     * @param in values to calculate, from position to limit
+     * @param out buffer to write calculated values in, from position
+     * @return rows and time taken
+     */
+    public Report apply(DoubleBuffer in, DoubleBuffer out){
+        int rows = in.remaining();
+        if (out.remaining() < rows) {
+            throw new IllegalArgumentException("Output buffer is smaller than input buffer");
+        }
+        if (in.hasArray() && out.hasArray() && !out.isReadOnly()) {
+            int inOffset = in.arrayOffset() + in.position();
+            int outOffset = out.arrayOffset() + out.position();
+            if (inOffset == 0 && outOffset == 0) {
+                long start = System.nanoTime();
+                run(new ArrayTask(in.array(), out.array(), 0, rows), rows);
+                return new Report(rows, System.nanoTime() - start, vectorized);
+            }
+        }
+        long start = System.nanoTime();
+        run(new BufferTask(in.duplicate(), out.duplicate(), in.position(), out.position() - in.position(), in.position() + rows), rows);
+        return new Report(rows, System.nanoTime() - start, vectorized);
+    }
+
+    private void run(RecursiveAction task, int rows){
+        if (rows <= SEQUENTIAL_THRESHOLD) {
+            task.invoke(); // small column: not worth waking other threads
+        } else {
+            pool.invoke(task);
+        }
+    }
+
+    /**
+     * Apply every step to the rows of the arrays
+     */
+    private void applyRange(double[] in, double[] out, int from, int to){
+        if (vectorized) {
+            VectorKernel.apply(ops, operands, in, out, from, to);
+        } else {
+            compiled.apply(in, out, from, to);
+        }
+    }
+
+    /**
+     * Apply every step to the rows one row at a time, branching on the operator of each step
+     * @param ops operator of each step
+     * @param operands value of each step
+     * @param in values to calculate
+     * @param out array to write calculated values in
+     * @param from first row (inclusive)
+     * @param to last row (exclusive)
+     */
+    static void applyScalar(CalculatorEngine.Op[] ops, double[] operands, double[] in, double[] out, int from, int to){
+        for (int i = from; i < to; i++) {
+            double value = in[i];
+            for (int step = 0; step < ops.length; step++) {
+                double operand = operands[step];
+                value = switch (ops[step]) {
+                    case PLUS -> value + operand;
+                    case MINUS -> value - operand;
+                    case MULTIPLY -> value * operand;
+                    case DIVIDE -> value / operand; // chain never divides by 0
+                    default -> operand == 2 ? value * value : Math.pow(value, operand);
+                };
+            }
+            out[i] = value;
+        }
+    }
+
+    /**
+     * Rows of arrays, split in half until there are few enough rows for one thread
+     */
+    @SuppressWarnings("serial") // ForkJoinTask is Serializable, tasks are never serialized
+    private final class ArrayTask extends RecursiveAction {
+        private final double[] in, out;
+        private final int from, to;
+
+        ArrayTask(double[] in, double[] out, int from, int to){
+            this.in = in;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute(){
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                applyRange(in, out, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ArrayTask(in, out, from, middle), new ArrayTask(in, out, middle, to));
+        }
+    }
+
+    /**
+     * Rows of buffers. Each block of rows is copied to an array, calculated and copied to the output buffer.
+     */
+    @SuppressWarnings("serial")
+    private final class BufferTask extends RecursiveAction {
+        private final DoubleBuffer in, out;
+        /** Output index minus input index **/
+        private final int shift;
+        private final int from, to;
+
+        BufferTask(DoubleBuffer in, DoubleBuffer out, int from, int shift, int to){
+            this.in = in;
+            this.out = out;
+            this.from = from;
+            this.shift = shift;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute(){
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                double[] block = new double[Math.min(BUFFER_BLOCK, to - from)];
+                for (int i = from; i < to; i += block.length) {
+                    int length = Math.min(block.length, to - i);
+                    in.get(i, block, 0, length);
+                    applyRange(block, block, 0, length);
+                    out.put(i + shift, block, 0, length);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BufferTask(in, out, from, shift, middle), new BufferTask(in, out, middle, shift, to));
+        }
+    }
+
+    /**
+     * Rows calculated and time taken
+     */
+    public static final class Report {
+        private final long rows;
+        private final long nanos;
+        private final boolean vectorized;
+
+        Report(long rows, long nanos, boolean vectorized){
+            this.rows = rows;
+            this.nanos = nanos;
+            this.vectorized = vectorized;
+        }
+
+        /**
+         * @return number of rows calculated
+         */
+        public long getRows(){
+            return rows;
+        }
+
+        /**
+         * @return time taken in nanoseconds
+         */
+        public long getNanos(){
+            return nanos;
+        }
+
+        /**
+         * @return [true: rows were calculated with the Vector API]
+         */
+        public boolean isVectorized(){
+            return vectorized;
+        }
+
+        /**
+         * @return throughput in rows per second
+         */
+        public double rowsPerSecond(){
+            return nanos == 0 ? Double.POSITIVE_INFINITY : rows * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%d rows in %.1f ms (%.1fM rows/s%s)", rows, nanos / 1e6, rowsPerSecond() / 1e6, vectorized ? ", vector" : "");
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package storecalculator;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Operator chain compiled to one MethodHandle of type (double)double: every step is a handle of its operator with the
+ * value bound, and the steps are joined with filterReturnValue, so there is no branch on the operator type left.
+ * The JIT customizes the handle after it is called a few times and inlines every step into it, with the values as
+ * constants.
+ * Steps are folded only where the result stays the same bit for bit as OperatorChain.applyTo:
+ * - 0, x 1, / 1 and ^ 1 are dropped, / 2^n becomes x 2^-n, ^ 2 becomes x times x, and ^ 0 makes the chain a
+ * constant: 1 with the steps after it calculated once.
+ * Immutable and can be shared between threads.
+ * @author Yehyun Kim
+ */
+public final class CompiledChain {
+    private static final MethodHandle PLUS, MINUS, MULTIPLY, DIVIDE, POWER, SQUARE;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodType binary = MethodType.methodType(double.class, double.class, double.class);
+        try {
+            PLUS = lookup.findStatic(CompiledChain.class, "plus", binary);
+            MINUS = lookup.findStatic(CompiledChain.class, "minus", binary);
+            MULTIPLY = lookup.findStatic(CompiledChain.class, "multiply", binary);
+            DIVIDE = lookup.findStatic(CompiledChain.class, "divide", binary);
+            POWER = lookup.findStatic(Math.class, "pow", binary);
+            SQUARE = lookup.findStatic(CompiledChain.class, "square", MethodType.methodType(double.class, double.class));
+        } catch (ReflectiveOperationException exception) {
+            throw new ExceptionInInitializerError(exception);
+        }
+    }
+
+    private final OperatorChain source;
+    /** Steps left after folding **/
+    private final OperatorChain folded;
+    /** (double)double: every step applied **/
+    private final MethodHandle handle;
+
+    private CompiledChain(OperatorChain source, OperatorChain folded, MethodHandle handle){
+        this.source = source;
+        this.folded = folded;
+        this.handle = handle;
+    }
+
+    /**
+     * Fold the steps and join their handles
+     * @param chain chain to compile
+     * @return compiled chain
+     */
+    public static CompiledChain of(OperatorChain chain){
+        List<CalculatorEngine.Op> ops = new ArrayList<>();
+        List<Double> operands = new ArrayList<>();
+        boolean isConstant = false;
+        double constant = 0;
+        for (int i = 0; i < chain.size(); i++) {
+            CalculatorEngine.Op op = chain.opAt(i);
+            double operand = chain.operandAt(i);
+            if (isConstant) {
+                constant = CalculatorEngine.apply(op, constant, operand);
+            } else if (op == CalculatorEngine.Op.EXPONENT && operand == 0) {
+                isConstant = true; // x ^ 0 is 1 for every x, NaN included
+                constant = 1;
+            } else if (!isIdentity(op, operand)) {
+                if (op == CalculatorEngine.Op.DIVIDE && isPowerOfTwo(operand)) {
+                    op = CalculatorEngine.Op.MULTIPLY; // exact: x / 2^n and x x 2^-n round the same value
+                    operand = 1 / operand;
+                }
+                ops.add(op);
+                operands.add(operand);
+            }
+        }
+        OperatorChain folded = OperatorChain.empty();
+        MethodHandle handle = MethodHandles.identity(double.class);
+        if (isConstant) {
+            folded = folded.then(CalculatorEngine.Op.EXPONENT, 0).then(CalculatorEngine.Op.MULTIPLY, constant);
+            handle = MethodHandles.dropArguments(MethodHandles.constant(double.class, constant), 0, double.class);
+        } else {
+            for (int i = 0; i < ops.size(); i++) {
+                folded = folded.then(ops.get(i), operands.get(i));
+                handle = MethodHandles.filterReturnValue(handle, stepHandle(ops.get(i), operands.get(i)));
+            }
+        }
+        return new CompiledChain(chain, folded, handle);
+    }
+
+    /**
+     * @return [true: the step returns every value unchanged, -0 and NaN included]
+     */
+    private static boolean isIdentity(CalculatorEngine.Op op, double operand){
+        long bits = Double.doubleToRawLongBits(operand);
+        return switch (op) {
+            case PLUS -> bits == Long.MIN_VALUE; // x + (-0) is x, but -0 + (+0) is +0
+            case MINUS -> bits == 0; // x - (+0) is x
+            case MULTIPLY, DIVIDE, EXPONENT -> operand == 1;
+        };
+    }
+
+    /**
+     * @return [true: value is 2^n with n between -1022 and 1022, so its inverse is exact too]
+     */
+    private static boolean isPowerOfTwo(double value){
+        double magnitude = Math.abs(value);
+        return magnitude >= 0x1p-1022 && magnitude <= 0x1p1022 && (Double.doubleToRawLongBits(magnitude) & 0xFFFFFFFFFFFFFL) == 0;
+    }
+
+    private static MethodHandle stepHandle(CalculatorEngine.Op op, double operand){
+        if (op == CalculatorEngine.Op.EXPONENT && operand == 2) {
+            return SQUARE; // same as Math.pow(x, 2), which the JIT also turns into x times x
+        }
+        MethodHandle binary = switch (op) {
+            case PLUS -> PLUS;
+            case MINUS -> MINUS;
+            case MULTIPLY -> MULTIPLY;
+            case DIVIDE -> DIVIDE;
+            case EXPONENT -> POWER;
+        };
+        return MethodHandles.insertArguments(binary, 1, operand);
+    }
+
+    private static double plus(double value, double operand){
+        return value + operand;
+    }
+
+    private static double minus(double value, double operand){
+        return value - operand;
+    }
+
+    private static double multiply(double value, double operand){
+        return value * operand;
+    }
+
+    private static double divide(double value, double operand){
+        return value / operand; // chain never divides by 0
+    }
+
+    private static double square(double value){
+        return value * value;
+    }
+
+    /**
+     * @param value first value
+     * @return value with every step applied, same as the source chain
+     */
+    public double applyTo(double value){
+        try {
+            return (double) handle.invokeExact(value);
+        } catch (Throwable throwable) {
+            throw new IllegalStateException(throwable); // steps don't throw
+        }
+    }
+
+    /**
+     * Apply every step to the rows
+     * @param in values to calculate
+     * @param out array to write calculated values in
+     * @param from first row (inclusive)
+     * @param to last row (exclusive)
+     */
+    public void apply(double[] in, double[] out, int from, int to){
+        MethodHandle handle = this.handle;
+        try {
+            for (int i = from; i < to; i++) {
+                out[i] = (double) handle.invokeExact(in[i]);
+            }
+        } catch (Throwable throwable) {
+            throw new IllegalStateException(throwable);
+        }
+    }
+
+    /**
+     * @return source chain
+     */
+    public OperatorChain getSource(){
+        return source;
+    }
+
+    /**
+     * @return steps left after folding. A constant chain is "^ 0 x constant"
+     */
+    public OperatorChain getFolded(){
+        return folded;
+    }
+
+    /**
+     * @return (double)double handle of the chain
+     */
+    public MethodHandle getHandle(){
+        return handle;
+    }
+
+    @Override
+    public String toString(){
+        return folded.toString();
+    }
+}
@@ -0,0 +1,110 @@
+package storecalculator;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Expression compiled by ExpressionParser. Stores the expression as postfix code so it can be evaluated many times
+ * with new variable values without parsing again. Immutable and can be shared between threads.
+ * @author Yehyun Kim
+ */
+public final class CompiledExpression {
+    /** Push constant: next int is index of constant **/
+    static final int PUSH_CONST = 0;
+    /** Push variable: next int is index of variable **/
+    static final int LOAD_VAR = 1;
+    /** Apply binary operator: next int is ordinal of CalculatorEngine.Op **/
+    static final int BINARY = 2;
+    /** Apply function: next int is ordinal of CalculatorEngine.UnaryOp **/
+    static final int UNARY = 3;
+    /** Negate the top value **/
+    static final int NEGATE = 4;
+
+    private static final CalculatorEngine.Op[] BINARY_OPS = CalculatorEngine.Op.values();
+    private static final CalculatorEngine.UnaryOp[] UNARY_OPS = CalculatorEngine.UnaryOp.values();
+
+    /** Source expression **/
+    private final String source;
+    /** Postfix code **/
+    private final int[] code;
+    /** Constant values used by PUSH_CONST **/
+    private final double[] constants;
+    /** Variable names in slot order **/
+    private final String[] variables;
+    /** Max stack size needed to evaluate **/
+    private final int maxStack;
+
+    CompiledExpression(String source, int[] code, double[] constants, String[] variables, int maxStack){
+        this.source = source;
+        this.code = code;
+        this.constants = constants;
+        this.variables = variables;
+        this.maxStack = maxStack;
+    }
+
+    /**
+     * Evaluate expression
+     * @param values value of each variable, in the order of getVariableNames()
+     * @return calculated value, or error NaN (see ErrorCode) of the first operation that failed (ex: 1 / 0)
+     */
+    public double evaluate(double... values){
+        return evaluate(values, new double[maxStack]);
+    }
+
+    /**
+     * Evaluate expression with stack given by caller, so repeated evaluation does not allocate
+     * @param values value of each variable, in the order of getVariableNames()
+     * @param stack work array at least getMaxStack() long
+     * @return calculated value, or error NaN (see ErrorCode) of the first operation that failed (ex: 1 / 0)
+     */
+    public double evaluate(double[] values, double[] stack){
+        if (values.length < variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " values");
+        }
+        int top = -1;
+        int pc = 0;
+        while (pc < code.length) {
+            switch (code[pc++]) {
+                case PUSH_CONST -> stack[++top] = constants[code[pc++]];
+                case LOAD_VAR -> stack[++top] = values[code[pc++]];
+                case BINARY -> {
+                    double num2 = stack[top--];
+                    stack[top] = CalculatorEngine.tryApply(BINARY_OPS[code[pc++]], stack[top], num2);
+                }
+                case UNARY -> stack[top] = CalculatorEngine.tryApply(UNARY_OPS[code[pc++]], stack[top]);
+                case NEGATE -> stack[top] = -stack[top];
+                default -> throw new IllegalStateException("Unknown code " + code[pc - 1]);
+            }
+            if (ErrorCode.of(stack[top]) != null) { // later operations would lose the code
+                return stack[top];
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * @return variable names in the order evaluate() expects the values
+     */
+    public List<String> getVariableNames(){
+        return List.of(variables);
+    }
+
+    /**
+     * @return stack size evaluate(double[], double[]) needs
+     */
+    public int getMaxStack(){
+        return maxStack;
+    }
+
+    /**
+     * @return source expression
+     */
+    public String getSource(){
+        return source;
+    }
+
+    @Override
+    public String toString(){
+        return source + " " + Arrays.toString(code);
+    }
+}
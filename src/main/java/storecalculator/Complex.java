@@ -0,0 +1,130 @@
+package storecalculator;
+
+/**
+ * Complex number of complex mode: real and imaginary part as doubles. Text is a+bi (ex: 1.5-2i, 3i, -i); a number
+ * without i is real. A failed calculation carries the error NaN of its ErrorCode in both parts.
+ * Immutable.
+ * @author Yehyun Kim
+ */
+public final class Complex {
+    public static final Complex ZERO = new Complex(0, 0);
+    public static final Complex I = new Complex(0, 1);
+
+    private final double re, im;
+
+    private Complex(double re, double im){
+        this.re = re;
+        this.im = im;
+    }
+
+    /**
+     * @param re real part
+     * @param im imaginary part
+     * @return complex number
+     */
+    public static Complex of(double re, double im){
+        return new Complex(re, im);
+    }
+
+    /**
+     * @param value real number
+     * @return complex number without imaginary part
+     */
+    public static Complex real(double value){
+        return new Complex(value, 0);
+    }
+
+    /**
+     * @param error why the calculation failed
+     * @return complex number carrying the error
+     */
+    static Complex error(ErrorCode error){
+        return new Complex(error.toNaN(), error.toNaN());
+    }
+
+    /**
+     * @return real part
+     */
+    public double getReal(){
+        return re;
+    }
+
+    /**
+     * @return imaginary part
+     */
+    public double getImaginary(){
+        return im;
+    }
+
+    /**
+     * @return [true: imaginary part is 0]
+     */
+    public boolean isReal(){
+        return im == 0;
+    }
+
+    /**
+     * @return error carried by the number, null if there is none
+     */
+    public ErrorCode error(){
+        return ErrorCode.of(re);
+    }
+
+    /**
+     * Parse a+bi, bi or a real number. Parts are parsed by Double.parseDouble, so the text of toString gives the same
+     * number back.
+     * @param text text of the number (ex: -1.5+2i, 1.0E-5-3.0i, i)
+     * @return complex number, null if the text is not one
+     */
+    public static Complex parse(String text){
+        int end = text.length();
+        if (!text.endsWith("i")) {
+            return NumberMode.isNumber(text, 0, end) ? real(Double.parseDouble(text)) : null;
+        }
+        end--;
+        int split = 0; // sign between the parts, 0 if there is no real part
+        for (int i = end - 1; i > 0; i--) {
+            char c = text.charAt(i);
+            char before = text.charAt(i - 1);
+            if ((c == '+' || c == '-') && before != 'e' && before != 'E') {
+                split = i;
+                break;
+            }
+        }
+        if (split > 0 && !NumberMode.isNumber(text, 0, split)) {
+            return null;
+        }
+        double re = split > 0 ? Double.parseDouble(text.substring(0, split)) : 0;
+        double im;
+        if (end - split <= 1 && (end == split || text.charAt(split) == '+' || text.charAt(split) == '-')) {
+            im = end > split && text.charAt(split) == '-' ? -1 : 1; // i, +i, -i
+        } else if (NumberMode.isNumber(text, split, end)) {
+            im = Double.parseDouble(text.substring(split, end));
+        } else {
+            return null;
+        }
+        return new Complex(re, im);
+    }
+
+    @Override
+    public boolean equals(Object object){
+        return object instanceof Complex other && Double.compare(re, other.re) == 0 && Double.compare(im, other.im) == 0;
+    }
+
+    @Override
+    public int hashCode(){
+        return Double.hashCode(re) * 31 + Double.hashCode(im);
+    }
+
+    /**
+     * @return lossless text for parse (ex: 1.0-2.5i), the real part only if there is no imaginary part
+     */
+    @Override
+    public String toString(){
+        if (im == 0) {
+            return Double.toString(re);
+        }
+        String imText = Double.toString(im);
+        return Double.toString(re) + (imText.charAt(0) == '-' ? "" : "+") + imText + "i";
+    }
+}
@@ -0,0 +1,192 @@
+package storecalculator;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Operators and functions of complex mode. Each operator and function has its own kernel on the two parts as doubles,
+ * and real values take the same Math call as CalculatorEngine where the result is real (ex: ln of a positive value,
+ * root of 0 or more, integer powers), so a calculation without imaginary parts shows what double mode shows. ln, log
+ * and root of negative values, and powers of negative values, give the principal complex value (ex: √-4 = 2i).
+ * Can be used from any thread.
+ * @author Yehyun Kim
+ */
+public final class ComplexEngine implements NumberArithmetic<Complex> {
+    private static final double LN_10 = Math.log(10);
+    /** Biggest integer exponent calculated by multiplying, bigger ones with exp and ln **/
+    private static final double MAX_MULTIPLIED_EXPONENT = 1 << 30;
+    /** Formatter for the real numbers, one per thread because it reuses its buffer **/
+    private static final ThreadLocal<DisplayFormatter> DISPLAY_FORMATTER = ThreadLocal.withInitial(DisplayFormatter::new);
+
+    @Override
+    public Complex of(double value){
+        return Complex.real(value);
+    }
+
+    @Override
+    public Complex of(BigDecimal typed){
+        return Complex.real(typed.doubleValue());
+    }
+
+    @Override
+    public Complex parse(String text){
+        return Complex.parse(text);
+    }
+
+    @Override
+    public ErrorCode error(Complex value){
+        return value.error();
+    }
+
+    @Override
+    public double realValue(Complex value){
+        return value.isReal() ? value.getReal() : Double.NaN;
+    }
+
+    @Override
+    public Complex apply(CalculatorEngine.Op op, Complex num1, Complex num2){
+        return switch (op) {
+            case PLUS -> Complex.of(num1.getReal() + num2.getReal(), num1.getImaginary() + num2.getImaginary());
+            case MINUS -> Complex.of(num1.getReal() - num2.getReal(), num1.getImaginary() - num2.getImaginary());
+            case MULTIPLY -> multiply(num1, num2);
+            case DIVIDE -> divide(num1, num2);
+            case EXPONENT -> pow(num1, num2);
+        };
+    }
+
+    @Override
+    public Complex apply(CalculatorEngine.UnaryOp op, Complex value){
+        return switch (op) {
+            case LN -> ln(value);
+            case LOG -> log(value);
+            case ROOT -> root(value);
+            case FACTORIAL -> value.isReal() ? Complex.real(CalculatorEngine.tryFactorial(value.getReal()))
+                    : Complex.error(ErrorCode.NOT_INT_FACTORIAL);
+            case PERCENT -> Complex.of(value.getReal() / 100, value.getImaginary() / 100);
+            case SQUARE -> multiply(value, value);
+        };
+    }
+
+    private static Complex multiply(Complex num1, Complex num2){
+        double a = num1.getReal(), b = num1.getImaginary(), c = num2.getReal(), d = num2.getImaginary();
+        if (b == 0 && d == 0) {
+            return Complex.real(a * c); // no 0 x Infinity in the imaginary part
+        }
+        return Complex.of(a * c - b * d, a * d + b * c);
+    }
+
+    /**
+     * Smith's algorithm: divides by the bigger part of the divisor, so squares of the parts do not overflow
+     */
+    private static Complex divide(Complex num1, Complex num2){
+        double a = num1.getReal(), b = num1.getImaginary(), c = num2.getReal(), d = num2.getImaginary();
+        if (c == 0 && d == 0) {
+            return Complex.error(ErrorCode.DIVIDE_BY_ZERO);
+        } else if (d == 0) {
+            return Complex.of(a / c, b / c);
+        } else if (Math.abs(c) >= Math.abs(d)) {
+            double ratio = d / c;
+            double divisor = c + d * ratio;
+            return Complex.of((a + b * ratio) / divisor, (b - a * ratio) / divisor);
+        }
+        double ratio = c / d;
+        double divisor = c * ratio + d;
+        return Complex.of((a * ratio + b) / divisor, (b * ratio - a) / divisor);
+    }
+
+    private static Complex pow(Complex base, Complex exponent){
+        double n = exponent.getReal();
+        boolean isIntExponent = exponent.isReal() && n == Math.rint(n);
+        if (base.isReal() && exponent.isReal() && (isIntExponent || base.getReal() >= 0)) {
+            return Complex.real(Math.pow(base.getReal(), n)); // real result: same as double mode
+        }
+        if (isIntExponent && Math.abs(n) <= MAX_MULTIPLIED_EXPONENT) {
+            Complex result = Complex.real(1);
+            Complex square = base;
+            for (long bits = (long) Math.abs(n); bits != 0; bits >>= 1) {
+                if ((bits & 1) != 0) {
+                    result = multiply(result, square);
+                }
+                square = multiply(square, square);
+            }
+            return n < 0 ? divide(Complex.real(1), result) : result; // exact for small powers (ex: i ^ 2 = -1)
+        }
+        if (base.getReal() == 0 && base.getImaginary() == 0) {
+            return exponent.getReal() > 0 ? Complex.ZERO : Complex.of(Double.NaN, Double.NaN);
+        }
+        Complex power = multiply(exponent, ln(base)); // z ^ w = e ^ (w ln z)
+        double magnitude = Math.exp(power.getReal());
+        return Complex.of(magnitude * Math.cos(power.getImaginary()), magnitude * Math.sin(power.getImaginary()));
+    }
+
+    private static Complex ln(Complex value){
+        double re = value.getReal(), im = value.getImaginary();
+        if (im == 0 && re >= 0) {
+            return Complex.real(Math.log(re)); // ln 0 is -Infinity, as in double mode
+        }
+        return Complex.of(Math.log(Math.hypot(re, im)), Math.atan2(im, re));
+    }
+
+    private static Complex log(Complex value){
+        double re = value.getReal(), im = value.getImaginary();
+        if (im == 0 && re >= 0) {
+            return Complex.real(Math.log10(re));
+        }
+        return Complex.of(Math.log10(Math.hypot(re, im)), Math.atan2(im, re) / LN_10);
+    }
+
+    /**
+     * Principal square root: real part 0 or more
+     */
+    private static Complex root(Complex value){
+        double re = value.getReal(), im = value.getImaginary();
+        if (im == 0) {
+            return re >= 0 ? Complex.real(Math.sqrt(re)) : Complex.of(0, Math.sqrt(-re));
+        }
+        double t = Math.sqrt((Math.hypot(re, im) + Math.abs(re)) / 2);
+        return re >= 0 ? Complex.of(t, im / (2 * t)) : Complex.of(Math.abs(im) / (2 * t), Math.copySign(t, im));
+    }
+
+    /**
+     * Real numbers are formatted as in double mode. Otherwise both parts are rounded to the same number of digits after
+     * decimal, as many as fit (max DisplayFormatter.MAX_DECIMALS), and a part rounded to 0 is left out (ex: 1.5-2i, 3i)
+     */
+    @Override
+    public String format(Complex value){
+        double re = value.getReal(), im = value.getImaginary();
+        if (Double.isNaN(re) || Double.isNaN(im)) {
+            return "NaN";
+        } else if (im == 0) {
+            return DisplayFormatter.rangeError(re) == null ? DISPLAY_FORMATTER.get().format(re) : null;
+        } else if (Double.isInfinite(re) || Double.isInfinite(im)) {
+            return "Infinity"; // one point at infinity
+        } else if (Math.abs(re) > DisplayFormatter.MAX_VALUE || Math.abs(im) > DisplayFormatter.MAX_VALUE) {
+            return null;
+        }
+        BigDecimal exactRe = new BigDecimal(re), exactIm = new BigDecimal(im);
+        for (int decimals = DisplayFormatter.MAX_DECIMALS; decimals >= 0; decimals--) {
+            String reText = fixed(exactRe, decimals);
+            String imText = fixed(exactIm, decimals);
+            String text;
+            if (imText.equals("0")) {
+                text = reText;
+            } else if (reText.equals("0")) {
+                text = imText + "i";
+            } else {
+                text = reText + (imText.charAt(0) == '-' ? "" : "+") + imText + "i";
+            }
+            if (text.length() <= DisplayFormatter.MAX_LENGTH) {
+                return text;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return value rounded half up to the digits after decimal, without trailing zeros or -0
+     */
+    private static String fixed(BigDecimal value, int decimals){
+        BigDecimal rounded = value.setScale(decimals, RoundingMode.HALF_UP);
+        return rounded.signum() == 0 ? "0" : rounded.stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,123 @@
+package storecalculator;
+
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Stage;
+import java.util.function.Consumer;
+
+/**
+ * Window to pick two units of the rate table and convert the value on the screen, or a column of values in a file,
+ * from one to the other. Only units of the same dimension are offered to convert to.
+ * @author Yehyun Kim
+ */
+public final class ConversionPanel {
+
+    private final Stage stage = new Stage();
+    private final ComboBox<String> fromChoice = new ComboBox<>(), toChoice = new ComboBox<>();
+    private final Label statusLabel = new Label();
+    private ConversionTable table;
+
+    /**
+     * @param onConvert called with the picked conversion to apply to the value on the screen
+     * @param onColumn called with the picked conversion to apply to a column of values in a file
+     * @param onReload called to read the rate file again
+     */
+    public ConversionPanel(Consumer<ConversionTable.Conversion> onConvert, Consumer<ConversionTable.Conversion> onColumn, Runnable onReload){
+        Button convertButton = new Button("Convert");
+        Button columnButton = new Button("Column");
+        Button reloadButton = new Button("Reload");
+        fromChoice.setOnAction(e -> showUnitsLike());
+        convertButton.setOnAction(e -> pick(onConvert));
+        columnButton.setOnAction(e -> pick(onColumn));
+        reloadButton.setOnAction(e -> onReload.run());
+
+        GridPane grid = new GridPane();
+        grid.setHgap(8);
+        grid.setVgap(4);
+        grid.setPadding(new Insets(5));
+        grid.getStyleClass().add("panel");
+        fromChoice.getStyleClass().add("panel-choice");
+        toChoice.getStyleClass().add("panel-choice");
+        fromChoice.setPrefWidth(110);
+        toChoice.setPrefWidth(110);
+        for (Button button : new Button[]{convertButton, columnButton, reloadButton}) {
+            button.getStyleClass().add("panel-button");
+        }
+        Label fromLabel = new Label("From");
+        Label toLabel = new Label("To");
+        fromLabel.getStyleClass().add("panel-label");
+        toLabel.getStyleClass().add("panel-label");
+        statusLabel.getStyleClass().add("panel-label");
+        grid.addRow(0, fromLabel, fromChoice, convertButton);
+        grid.addRow(1, toLabel, toChoice, columnButton);
+        grid.addRow(2, new Label(), new Label(), reloadButton);
+        grid.add(statusLabel, 0, 3, 3, 1);
+
+        stage.setTitle("Convert");
+        Scene scene = new Scene(grid, 300, 140);
+        scene.getStylesheets().add(CalculatorGUI.STYLESHEET);
+        stage.setScene(scene);
+    }
+
+    /**
+     * Show the window with the units of the table
+     * @param table table of the units
+     */
+    public void show(ConversionTable table){
+        setTable(table);
+        stage.show();
+        stage.toFront();
+    }
+
+    /**
+     * Offer the units of a new table, keeping the picked units if they are still in it
+     * @param table table of the units
+     */
+    public void setTable(ConversionTable table){
+        this.table = table;
+        String from = fromChoice.getValue(), to = toChoice.getValue();
+        fromChoice.getItems().setAll(table.units());
+        fromChoice.setValue(from != null && fromChoice.getItems().contains(from) ? from : table.unitAt(0));
+        showUnitsLike();
+        if (to != null && toChoice.getItems().contains(to)) {
+            toChoice.setValue(to);
+        }
+    }
+
+    /**
+     * @param status result of the last conversion or reload
+     */
+    public void showStatus(String status){
+        statusLabel.setText(status);
+    }
+
+    /**
+     * Offer the units the picked unit can be converted to
+     */
+    private void showUnitsLike(){
+        String from = fromChoice.getValue();
+        if (from == null) {
+            return;
+        }
+        toChoice.getItems().setAll(table.unitsLike(table.indexOf(from)));
+        toChoice.setValue(toChoice.getItems().get(0));
+    }
+
+    private void pick(Consumer<ConversionTable.Conversion> action){
+        if (fromChoice.getValue() == null || toChoice.getValue() == null) {
+            showStatus("Pick two units");
+            return;
+        }
+        try {
+            ConversionTable.Conversion conversion = table.conversion(fromChoice.getValue(), toChoice.getValue());
+            showStatus(conversion.toString());
+            action.accept(conversion);
+        } catch (IllegalArgumentException exception) {
+            showStatus(exception.getMessage());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package storecalculator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Conversion table of the bundled units and the rate file, reloaded without stopping calculations: a reload reads the
+ * file into a new table and replaces the current table at once. Conversions and column runs that already took the
+ * old table or a Conversion of it finish with it.
+ * Thread safe.
+ * @author Yehyun Kim
+ */
+public final class ConversionRates {
+    /** Rate file next to the history **/
+    public static final Path DEFAULT_FILE = Path.of(System.getProperty("user.home"), ".storecalculator", "rates.csv");
+
+    private final Path file;
+    /** Newest table that was read without errors **/
+    private volatile ConversionTable table;
+
+    /**
+     * @param file rate file, read by reload
+     * @param table table until the first reload (ex: bundled units)
+     */
+    public ConversionRates(Path file, ConversionTable table){
+        this.file = file;
+        this.table = table;
+    }
+
+    /**
+     * @return newest table, never changes while it is used
+     */
+    public ConversionTable current(){
+        return table;
+    }
+
+    /**
+     * Read the rate file again and replace the current table. Blocks only the calling thread: run it on a worker thread.
+     * The current table is kept if the file cannot be read.
+     * @return new table
+     * @throws UncheckedIOException if the file cannot be read or a line is not "unit,dimension,factor[,offset]"
+     */
+    public ConversionTable reload(){
+        try {
+            ConversionTable newTable = ConversionTable.read(file);
+            table = newTable;
+            return newTable;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * @return rate file
+     */
+    public Path getFile(){
+        return file;
+    }
+}
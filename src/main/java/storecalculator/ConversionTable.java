@@ -0,0 +1,307 @@
+package storecalculator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Conversion between units (ex: kg to lb, C to F) and currencies, read from rate files with one unit per line:
+ * "unit,dimension,factor[,offset]", where the value in the base unit of the dimension is value x factor + offset.
+ * Scale and shift between every pair of units are calculated when the table is made and kept in double arrays, so a
+ * conversion is one multiply and one add, the same as the chain "x scale + shift" column mode applies.
+ * Units of different dimensions cannot be converted.
+ * Immutable.
+ * @author Yehyun Kim
+ */
+public final class ConversionTable {
+    /** Units bundled with the calculator **/
+    private static final String BUNDLED_UNITS = "units.csv";
+
+    /** Name and dimension of each unit, in the order of the files **/
+    private final String[] units, dimensions;
+    /** Index of each unit by lower case name **/
+    private final Map<String, Integer> indexes;
+    /** Factor and offset of each unit to the base unit of its dimension **/
+    private final double[] factors, offsets;
+    /** Unit i to unit j is value x scales[i * n + j] + shifts[i * n + j]. NaN between dimensions **/
+    private final double[] scales, shifts;
+
+    private ConversionTable(String[] units, String[] dimensions, double[] factors, double[] offsets){
+        int n = units.length;
+        this.units = units;
+        this.dimensions = dimensions;
+        this.factors = factors;
+        this.offsets = offsets;
+        indexes = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            indexes.put(units[i].toLowerCase(Locale.ROOT), i);
+        }
+        scales = new double[n * n];
+        shifts = new double[n * n];
+        for (int from = 0; from < n; from++) {
+            for (int to = 0; to < n; to++) {
+                boolean isSameDimension = dimensions[from].equals(dimensions[to]);
+                scales[from * n + to] = isSameDimension ? scale(factors[from], factors[to]) : Double.NaN;
+                shifts[from * n + to] = isSameDimension ? shift(offsets[from], factors[to], offsets[to]) : Double.NaN;
+            }
+        }
+    }
+
+    private static double scale(double fromFactor, double toFactor){
+        return fromFactor / toFactor;
+    }
+
+    private static double shift(double fromOffset, double toFactor, double toOffset){
+        return (fromOffset - toOffset) / toFactor;
+    }
+
+    /**
+     * @return table of the units bundled with the calculator
+     * @throws IOException if the bundled units cannot be read
+     */
+    public static ConversionTable bundled() throws IOException {
+        return read(null);
+    }
+
+    /**
+     * Read the bundled units and the rate file. A unit of the rate file replaces the bundled unit with the same name.
+     * @param file rate file, skipped if it does not exist. null for the bundled units only
+     * @return table of the units
+     * @throws IOException if a file cannot be read or a line is not "unit,dimension,factor[,offset]"
+     */
+    public static ConversionTable read(Path file) throws IOException {
+        Map<String, String[]> lines = new LinkedHashMap<>();
+        try (InputStream in = ConversionTable.class.getResourceAsStream(BUNDLED_UNITS)) {
+            if (in == null) {
+                throw new IOException("Missing " + BUNDLED_UNITS);
+            }
+            readLines(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), BUNDLED_UNITS, lines);
+        }
+        if (file != null && Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file)) {
+                readLines(reader, file.getFileName().toString(), lines);
+            }
+        }
+        int n = lines.size();
+        String[] units = new String[n], dimensions = new String[n];
+        double[] factors = new double[n], offsets = new double[n];
+        int i = 0;
+        for (String[] fields : lines.values()) {
+            units[i] = fields[0];
+            dimensions[i] = fields[1];
+            factors[i] = Double.parseDouble(fields[2]);
+            offsets[i] = fields.length > 3 ? Double.parseDouble(fields[3]) : 0;
+            i++;
+        }
+        return new ConversionTable(units, dimensions, factors, offsets);
+    }
+
+    /**
+     * Check and add the lines of a file, by lower case unit name
+     * @param reader file to read
+     * @param source name of the file for errors
+     * @param lines fields of each unit
+     */
+    private static void readLines(BufferedReader reader, String source, Map<String, String[]> lines) throws IOException {
+        String line;
+        for (int number = 1; (line = reader.readLine()) != null; number++) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s*,\\s*");
+            if (fields.length < 3 || fields.length > 4 || fields[0].isEmpty() || fields[1].isEmpty()) {
+                throw new IOException(source + " line " + number + ": enter unit,dimension,factor[,offset]");
+            }
+            try {
+                double factor = Double.parseDouble(fields[2]);
+                double offset = fields.length > 3 ? Double.parseDouble(fields[3]) : 0;
+                if (!(factor > 0) || Double.isInfinite(factor) || !Double.isFinite(offset)) {
+                    throw new NumberFormatException();
+                }
+            } catch (NumberFormatException exception) {
+                throw new IOException(source + " line " + number + ": factor must be a positive number and offset a number");
+            }
+            lines.put(fields[0].toLowerCase(Locale.ROOT), fields);
+        }
+    }
+
+    /**
+     * @param unit name of the unit, any case
+     * @return index of the unit
+     * @throws IllegalArgumentException if there is no such unit
+     */
+    public int indexOf(String unit){
+        Integer index = indexes.get(unit.toLowerCase(Locale.ROOT));
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown unit " + unit);
+        }
+        return index;
+    }
+
+    /**
+     * @return number of units
+     */
+    public int size(){
+        return units.length;
+    }
+
+    /**
+     * @param index index of the unit
+     * @return name of the unit
+     */
+    public String unitAt(int index){
+        return units[index];
+    }
+
+    /**
+     * @param index index of the unit
+     * @return dimension of the unit (ex: mass)
+     */
+    public String dimensionAt(int index){
+        return dimensions[index];
+    }
+
+    /**
+     * @param index index of the unit
+     * @return names of the units the unit can be converted to, including itself
+     */
+    public List<String> unitsLike(int index){
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < units.length; i++) {
+            if (dimensions[i].equals(dimensions[index])) {
+                names.add(units[i]);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * @return names of all units
+     */
+    public List<String> units(){
+        return List.of(units);
+    }
+
+    /**
+     * Convert value with the precomputed scale and shift
+     * @param value value in the first unit
+     * @param from index of the first unit
+     * @param to index of the unit to convert to
+     * @return value in the unit to convert to
+     * @throws IllegalArgumentException if the units are of different dimensions
+     */
+    public double convert(double value, int from, int to){
+        int pair = from * units.length + to;
+        double scale = scales[pair];
+        if (Double.isNaN(scale)) {
+            throw new IllegalArgumentException("Cannot convert " + units[from] + " to " + units[to]);
+        }
+        return value * scale + shifts[pair];
+    }
+
+    /**
+     * @param from name of the first unit
+     * @param to name of the unit to convert to
+     * @return conversion between the units, kept when the table is reloaded
+     * @throws IllegalArgumentException if a unit is unknown or the units are of different dimensions
+     */
+    public Conversion conversion(String from, String to){
+        int fromIndex = indexOf(from);
+        int toIndex = indexOf(to);
+        if (Double.isNaN(scales[fromIndex * units.length + toIndex])) {
+            throw new IllegalArgumentException("Cannot convert " + units[fromIndex] + " to " + units[toIndex]);
+        }
+        return new Conversion(units[fromIndex], units[toIndex], factors[fromIndex], offsets[fromIndex],
+                factors[toIndex], offsets[toIndex]);
+    }
+
+    /**
+     * Conversion from one unit to another, independent of the table it came from. Immutable.
+     */
+    public static final class Conversion {
+        private final String from, to;
+        /** Factor and offset of each unit to the base unit of the dimension **/
+        private final double fromFactor, fromOffset, toFactor, toOffset;
+        private final double scale, shift;
+
+        /**
+         * @param from name of the first unit
+         * @param to name of the unit to convert to
+         * @param fromFactor factor of the first unit to the base unit
+         * @param fromOffset offset of the first unit to the base unit
+         * @param toFactor factor of the unit to convert to
+         * @param toOffset offset of the unit to convert to
+         */
+        Conversion(String from, String to, double fromFactor, double fromOffset, double toFactor, double toOffset){
+            this.from = from;
+            this.to = to;
+            this.fromFactor = fromFactor;
+            this.fromOffset = fromOffset;
+            this.toFactor = toFactor;
+            this.toOffset = toOffset;
+            scale = scale(fromFactor, toFactor);
+            shift = shift(fromOffset, toFactor, toOffset);
+        }
+
+        /**
+         * @param value value in the first unit
+         * @return value in the unit to convert to, the same as the table and column mode calculate
+         */
+        public double apply(double value){
+            return value * scale + shift;
+        }
+
+        /**
+         * Convert through the base unit without binary rounding of the factors
+         * @param value value in the first unit
+         * @param mathContext precision of the result
+         * @return value in the unit to convert to
+         */
+        public BigDecimal apply(BigDecimal value, MathContext mathContext){
+            BigDecimal base = value.multiply(BigDecimal.valueOf(fromFactor)).add(BigDecimal.valueOf(fromOffset));
+            return base.subtract(BigDecimal.valueOf(toOffset)).divide(BigDecimal.valueOf(toFactor), mathContext);
+        }
+
+        /**
+         * @return chain of the conversion for column mode: "x scale", then "+ shift" if the units have offsets
+         */
+        public OperatorChain toChain(){
+            OperatorChain chain = OperatorChain.empty().then(CalculatorEngine.Op.MULTIPLY, scale);
+            return shift == 0 ? chain : chain.then(CalculatorEngine.Op.PLUS, shift);
+        }
+
+        double getFromFactor(){
+            return fromFactor;
+        }
+
+        double getFromOffset(){
+            return fromOffset;
+        }
+
+        double getToFactor(){
+            return toFactor;
+        }
+
+        double getToOffset(){
+            return toOffset;
+        }
+
+        @Override
+        public String toString(){
+            return from + " to " + to;
+        }
+    }
+}
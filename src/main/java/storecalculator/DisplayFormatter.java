@@ -0,0 +1,154 @@
+package storecalculator;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Format value to the string shown on the calculator screen without String.format or regex.
+ * Digits are written into a reusable char buffer: fixed notation, max 14 characters, rounded to max 9 digits after
+ * decimal and trailing zeros removed (ex: 5.0 to 5). Rounds half up the shortest decimal of the value, as
+ * String.format does (ex: 2499.2415416685 to 2499.241541669). Not thread safe: use one formatter per thread.
+ * @author Yehyun Kim
+ */
+public final class DisplayFormatter {
+    /** Max number of characters on the screen **/
+    public static final int MAX_LENGTH = 14;
+    /** Max number of digits after decimal **/
+    public static final int MAX_DECIMALS = 9;
+    /** Biggest value that fits on the screen **/
+    public static final double MAX_VALUE = 99999999999999.0;
+
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L,
+            100000000L, 1000000000L};
+
+    /** Characters are written from the end of the buffer **/
+    private final char[] buffer = new char[MAX_LENGTH + 2];
+    /** Value of the last formatted string **/
+    private double shownValue;
+
+    /**
+     * Check the value fits on the screen before formatting it, without an exception
+     * @param value entered or calculated value
+     * @return ErrorCode.VALUE_TOO_BIG or VALUE_TOO_SMALL, null if the value can be formatted (NaN and infinities can)
+     */
+    public static ErrorCode rangeError(double value){
+        if (value > MAX_VALUE && value != Double.POSITIVE_INFINITY) {
+            return ErrorCode.VALUE_TOO_BIG;
+        } else if (value < -MAX_VALUE && value != Double.NEGATIVE_INFINITY) {
+            return ErrorCode.VALUE_TOO_SMALL;
+        }
+        return null;
+    }
+
+    /**
+     * Format value to user friendly string
+     * @param value entered or calculated value
+     * @return value to user friendly string
+     * @throws IllegalArgumentException if the value does not fit on the screen (see rangeError)
+     */
+    public String format(double value){
+        int start = write(value);
+        return new String(buffer, start, buffer.length - start);
+    }
+
+    /**
+     * Append formatted value to builder without creating a String
+     * @param builder builder to append to
+     * @param value entered or calculated value
+     * @return builder
+     */
+    public StringBuilder appendTo(StringBuilder builder, double value){
+        int start = write(value);
+        return builder.append(buffer, start, buffer.length - start);
+    }
+
+    /**
+     * @return value of the last formatted string after rounding, the same as Double.parseDouble of the string
+     */
+    public double shownValue(){
+        return shownValue;
+    }
+
+    /**
+     * Write formatted value at the end of the buffer
+     * @param value entered or calculated value
+     * @return index of first character
+     */
+    private int write(double value){
+        shownValue = value;
+        if (Double.isNaN(value)) {
+            return writeText("NaN");
+        } else if (value == Double.POSITIVE_INFINITY) {
+            return writeText("Infinity");
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            return writeText("-Infinity");
+        } else if (value > MAX_VALUE) {           //throws meaningful message if value is too big
+            throw ErrorCode.VALUE_TOO_BIG.exception();
+        } else if (value < -MAX_VALUE) {          // throws meaningful message if value is too small
+            throw ErrorCode.VALUE_TOO_SMALL.exception();
+        }
+
+        boolean negative = value < 0;
+        double abs = Math.abs(value);
+        long intPart = (long) abs;
+        // digits after decimal: max 9, fewer if the string would be longer than 14 characters
+        int decimals = Math.max(0, Math.min(MAX_DECIMALS, MAX_LENGTH - 1 - digitCount(intPart) - (negative ? 1 : 0)));
+        double scaled = (abs - intPart) * POWERS_OF_TEN[decimals];
+        long fraction;
+        if (Math.abs(scaled - Math.floor(scaled) - 0.5) <= 2 * (Math.ulp(abs) * POWERS_OF_TEN[decimals] + Math.ulp(scaled))) {
+            // about half: the binary value can round the other way than its decimal digits. Rare, the only allocation
+            long digits = new BigDecimal(Double.toString(abs)).setScale(decimals, RoundingMode.HALF_UP).unscaledValue().longValue();
+            intPart = digits / POWERS_OF_TEN[decimals];
+            fraction = digits % POWERS_OF_TEN[decimals];
+        } else {
+            fraction = Math.round(scaled); // round half up
+            if (fraction == POWERS_OF_TEN[decimals]) {
+                intPart++;
+                fraction = 0;
+            }
+        }
+        // remove trailing zeros
+        while (decimals > 0 && fraction % 10 == 0) {
+            fraction /= 10;
+            decimals--;
+        }
+
+        int pos = buffer.length;
+        boolean isZero = intPart == 0 && decimals == 0;
+        // all digits and 10^decimals are exact doubles: one division rounds the same as Double.parseDouble
+        shownValue = (intPart * POWERS_OF_TEN[decimals] + fraction) / (double) POWERS_OF_TEN[decimals];
+        if (negative && !isZero) {
+            shownValue = -shownValue;
+        }
+        for (int i = 0; i < decimals; i++) {
+            buffer[--pos] = (char) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        if (decimals > 0) {
+            buffer[--pos] = '.';
+        }
+        do {
+            buffer[--pos] = (char) ('0' + intPart % 10);
+            intPart /= 10;
+        } while (intPart != 0);
+        if (negative && !isZero) {
+            buffer[--pos] = '-';
+        }
+        return pos;
+    }
+
+    private int writeText(String text){
+        int pos = buffer.length - text.length();
+        text.getChars(0, text.length(), buffer, pos);
+        return pos;
+    }
+
+    private static int digitCount(long value){
+        int count = 1;
+        while (value >= 10) {
+            value /= 10;
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,90 @@
+package storecalculator;
+
+/**
+ * Why a calculation failed, without an exception. Hot paths (the engine, the screen formatter, batch rows) return the
+ * code, or return a double that carries it: a quiet NaN whose payload is the code, so a failed row of a double array
+ * needs no other array and nothing is allocated. The GUI shows the message of the code on the error label.
+ * A NaN payload is kept when the value is copied; arithmetic on it gives an ordinary NaN on some processors, so check
+ * a result with of(double) before calculating with it.
+ * @author Yehyun Kim
+ */
+public enum ErrorCode {
+    DIVIDE_BY_ZERO("Cannot divide by 0"),
+    NOT_INT_FACTORIAL("Enter int value to use factorial function"),
+    NOT_INT("Enter int value"),
+    VALUE_TOO_BIG("Value too big"),
+    VALUE_TOO_SMALL("Value too small"),
+    NO_VALUE("Enter value"),
+    NOT_NUMBER("Enter number"),
+    TOO_MANY_DECIMALS("Too many decimals"),
+    OPERATOR_PRESSED("Operator button is pressed. Enter value."),
+    NO_TRIPLE("Enter lhs,operator,rhs"),
+    NO_OPERANDS("Enter number for lhs and rhs"),
+    NO_OPERATION("Enter op and a"),
+    NO_SECOND_VALUE("Enter value for b"),
+    UNKNOWN_OPERATOR("Unknown operator"),
+    NOT_REAL("Not a real number: use complex mode");
+
+    /** Bits of an error NaN without the code: quiet NaN with the next bit set, which arithmetic does not create **/
+    private static final long NAN_TAG = 0x7FFC_0000_0000_0000L;
+    private static final long CODE_MASK = 0xFFFFL;
+    private static final ErrorCode[] CODES = values();
+
+    /** Message shown on the error label **/
+    private final String message;
+    /** NaN carrying the code **/
+    private final double nan;
+
+    ErrorCode(String message){
+        this.message = message;
+        this.nan = Double.longBitsToDouble(NAN_TAG | ordinal());
+    }
+
+    /**
+     * @return message shown on the error label
+     */
+    public String getMessage(){
+        return message;
+    }
+
+    /**
+     * @return NaN carrying the code, returned as the result of a failed calculation
+     */
+    public double toNaN(){
+        return nan;
+    }
+
+    /**
+     * @param value result of a calculation
+     * @return code carried by the value, null if the value is not an error NaN (numbers, NaN of 0 / 0, infinities)
+     */
+    public static ErrorCode of(double value){
+        if (value == value) {
+            return null; // not NaN: the common case costs one compare
+        }
+        long bits = Double.doubleToRawLongBits(value) & Long.MAX_VALUE; // negation flips the sign bit only
+        long code = bits & CODE_MASK;
+        return (bits & ~CODE_MASK) == NAN_TAG && code < CODES.length ? CODES[(int) code] : null;
+    }
+
+    /**
+     * For callers that report errors with exceptions
+     * @param value result of a calculation
+     * @return value
+     * @throws IllegalArgumentException with the message of the code if the value is an error NaN
+     */
+    public static double check(double value){
+        ErrorCode error = of(value);
+        if (error != null) {
+            throw error.exception();
+        }
+        return value;
+    }
+
+    /**
+     * @return exception with the message, for callers that report errors with exceptions
+     */
+    public IllegalArgumentException exception(){
+        return new IllegalArgumentException(message);
+    }
+}
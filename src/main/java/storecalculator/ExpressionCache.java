@@ -0,0 +1,99 @@
+package storecalculator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of compiled expressions. Same expression string is parsed only once while it stays in the cache.
+ * Thread safe.
+ * @author Yehyun Kim
+ */
+public final class ExpressionCache {
+    /** Default number of compiled expressions to keep **/
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /** Max number of compiled expressions to keep **/
+    private final int capacity;
+    /** Compiled expressions in access order: eldest entry is least recently used **/
+    private final LinkedHashMap<String, CompiledExpression> cache;
+    /** Parser used on cache miss **/
+    private final ExpressionParser parser = new ExpressionParser();
+
+    private long hits, misses;
+
+    public ExpressionCache(){
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity max number of compiled expressions to keep
+     */
+    public ExpressionCache(int capacity){
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledExpression> eldest){
+                return size() > ExpressionCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Get compiled expression, parse only if it is not in the cache
+     * @param expression expression string
+     * @return compiled expression
+     */
+    public synchronized CompiledExpression compile(String expression){
+        CompiledExpression compiled = cache.get(expression);
+        if (compiled != null) {
+            hits++;
+            return compiled;
+        }
+        misses++;
+        compiled = parser.parse(expression);
+        cache.put(expression, compiled);
+        return compiled;
+    }
+
+    /**
+     * Compile (or get from cache) and evaluate expression
+     * @param expression expression string
+     * @param values value of each variable, in order of first appearance
+     * @return calculated value, or error NaN (see ErrorCode) of the first operation that failed
+     * @throws IllegalArgumentException if the expression cannot be parsed
+     */
+    public double evaluate(String expression, double... values){
+        return compile(expression).evaluate(values);
+    }
+
+    /**
+     * @return number of compiled expressions in the cache
+     */
+    public synchronized int size(){
+        return cache.size();
+    }
+
+    /**
+     * @return number of compile calls answered from the cache
+     */
+    public synchronized long getHits(){
+        return hits;
+    }
+
+    /**
+     * @return number of compile calls that needed parsing
+     */
+    public synchronized long getMisses(){
+        return misses;
+    }
+
+    /**
+     * Remove all compiled expressions
+     */
+    public synchronized void clear(){
+        cache.clear();
+    }
+}
@@ -0,0 +1,266 @@
+package storecalculator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Parse whole expression string to CompiledExpression with operator precedence.
+ * Supports numbers, π, variables ($name), parentheses, operators (+, -, x, /, ^), functions (ln, log, √)
+ * and postfix operators (! for factorial, % for percentage, ² for square).
+ * Precedence from lowest: + -, x /, unary minus, ^ (right to left), functions and postfix operators.
+ * Not thread safe: use one parser per thread, or ExpressionCache.
+ * @author Yehyun Kim
+ */
+public final class ExpressionParser {
+    /** Expression being parsed **/
+    private String source;
+    /** Current position in source **/
+    private int pos;
+    /** Postfix code being written **/
+    private int[] code = new int[32];
+    private int codeLength;
+    /** Constants being collected **/
+    private double[] constants = new double[8];
+    private int constantCount;
+    /** Variable names in slot order **/
+    private final ArrayList<String> variables = new ArrayList<>();
+    /** Current and max stack depth of the code **/
+    private int depth, maxDepth;
+
+    /**
+     * Parse expression
+     * @param expression expression string (ex: "2 + 3 x $price ^ 2")
+     * @return compiled expression
+     */
+    public CompiledExpression parse(String expression){
+        source = expression;
+        pos = 0;
+        codeLength = 0;
+        constantCount = 0;
+        variables.clear();
+        depth = 0;
+        maxDepth = 0;
+
+        parseSum();
+        skipSpaces();
+        if (pos < source.length()) {
+            throw error("Unexpected '" + source.charAt(pos) + "'");
+        }
+        return new CompiledExpression(expression, Arrays.copyOf(code, codeLength), Arrays.copyOf(constants, constantCount),
+                variables.toArray(new String[0]), maxDepth);
+    }
+
+    /**
+     * sum := product (('+' | '-') product)*
+     */
+    private void parseSum(){
+        parseProduct();
+        while (true) {
+            if (accept('+')) {
+                parseProduct();
+                emitBinary(CalculatorEngine.Op.PLUS);
+            } else if (accept('-')) {
+                parseProduct();
+                emitBinary(CalculatorEngine.Op.MINUS);
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * product := signed (('x' | '*' | '✖' | '/' | '÷' | '➗') signed)*
+     */
+    private void parseProduct(){
+        parseSigned();
+        while (true) {
+            if (accept('x') || accept('*') || accept('✖')) {
+                parseSigned();
+                emitBinary(CalculatorEngine.Op.MULTIPLY);
+            } else if (accept('/') || accept('÷') || accept('➗')) {
+                parseSigned();
+                emitBinary(CalculatorEngine.Op.DIVIDE);
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * signed := ('-' | '+') signed | power
+     */
+    private void parseSigned(){
+        if (accept('-')) {
+            parseSigned();
+            emit(CompiledExpression.NEGATE);
+        } else if (accept('+')) {
+            parseSigned();
+        } else {
+            parsePower();
+        }
+    }
+
+    /**
+     * power := postfix ('^' signed)?
+     */
+    private void parsePower(){
+        parsePostfix();
+        if (accept('^')) {
+            parseSigned(); // right to left: 2^3^2 = 2^9
+            emitBinary(CalculatorEngine.Op.EXPONENT);
+        }
+    }
+
+    /**
+     * postfix := primary ('!' | '%' | '²')*
+     */
+    private void parsePostfix(){
+        parsePrimary();
+        while (true) {
+            if (accept('!')) {
+                emitUnary(CalculatorEngine.UnaryOp.FACTORIAL);
+            } else if (accept('%')) {
+                emitUnary(CalculatorEngine.UnaryOp.PERCENT);
+            } else if (accept('²')) {
+                emitUnary(CalculatorEngine.UnaryOp.SQUARE);
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * primary := number | 'π' | 'pi' | '$' name | '(' sum ')' | ('ln' | 'log' | '√' | 'sqrt') postfix
+     */
+    private void parsePrimary(){
+        skipSpaces();
+        if (pos >= source.length()) {
+            throw error("Enter value");
+        }
+        char c = source.charAt(pos);
+        if (c == '(') {
+            pos++;
+            parseSum();
+            if (!accept(')')) {
+                throw error("Missing ')'");
+            }
+        } else if (Character.isDigit(c) || c == '.') {
+            parseNumber();
+        } else if (c == '$') {
+            parseVariable();
+        } else if (acceptWord("π") || acceptWord("pi")) {
+            emitConstant(Math.PI);
+        } else if (acceptWord("ln")) {
+            parsePostfix();
+            emitUnary(CalculatorEngine.UnaryOp.LN);
+        } else if (acceptWord("log")) {
+            parsePostfix();
+            emitUnary(CalculatorEngine.UnaryOp.LOG);
+        } else if (acceptWord("√") || acceptWord("sqrt")) {
+            parsePostfix();
+            emitUnary(CalculatorEngine.UnaryOp.ROOT);
+        } else {
+            throw error("Unexpected '" + c + "'");
+        }
+    }
+
+    private void parseNumber(){
+        int start = pos;
+        while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) {
+            pos++;
+        }
+        try {
+            emitConstant(Double.parseDouble(source.substring(start, pos)));
+        } catch (NumberFormatException exception) {
+            pos = start;
+            throw error("Too many decimals");
+        }
+    }
+
+    private void parseVariable(){
+        int start = ++pos;
+        while (pos < source.length() && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_')) {
+            pos++;
+        }
+        if (start == pos) {
+            throw error("Missing variable name");
+        }
+        String name = source.substring(start, pos);
+        int slot = variables.indexOf(name);
+        if (slot < 0) {
+            slot = variables.size();
+            variables.add(name);
+        }
+        emit(CompiledExpression.LOAD_VAR, slot);
+        push();
+    }
+
+    private void emitConstant(double value){
+        if (constantCount == constants.length) {
+            constants = Arrays.copyOf(constants, constantCount * 2);
+        }
+        constants[constantCount] = value;
+        emit(CompiledExpression.PUSH_CONST, constantCount++);
+        push();
+    }
+
+    private void emitBinary(CalculatorEngine.Op op){
+        emit(CompiledExpression.BINARY, op.ordinal());
+        depth--;
+    }
+
+    private void emitUnary(CalculatorEngine.UnaryOp op){
+        emit(CompiledExpression.UNARY, op.ordinal());
+    }
+
+    private void emit(int... ints){
+        if (codeLength + ints.length > code.length) {
+            code = Arrays.copyOf(code, code.length * 2);
+        }
+        for (int i : ints) {
+            code[codeLength++] = i;
+        }
+    }
+
+    private void push(){
+        maxDepth = Math.max(maxDepth, ++depth);
+    }
+
+    /**
+     * Skip spaces and consume c if it is the next char
+     * @param c expected char
+     * @return [true: consumed] [false: not the next char]
+     */
+    private boolean accept(char c){
+        skipSpaces();
+        if (pos < source.length() && source.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Consume word if it is next and not followed by another letter
+     * @param word expected word
+     * @return [true: consumed] [false: not the next word]
+     */
+    private boolean acceptWord(String word){
+        int end = pos + word.length();
+        if (source.startsWith(word, pos) && (end == source.length() || !Character.isLetter(source.charAt(end)))) {
+            pos = end;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipSpaces(){
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String message){
+        return new IllegalArgumentException(message + " at position " + pos);
+    }
+}
@@ -0,0 +1,203 @@
+package storecalculator;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Factorial of big int values on BigInteger. The product 1 x 2 x ... x n is split in halves recursively so both sides
+ * of every multiplication have similar size, and big ranges are calculated in parallel on the fork-join pool.
+ * Results are kept as checkpoints: n! is calculated from the nearest smaller checkpoint m! as m! x (m+1) x ... x n,
+ * or from a slightly bigger checkpoint as m! / ((n+1) x ... x m).
+ * A factorial stops with CancellationException when the thread that called it is interrupted (see AsyncEvaluator).
+ * Thread safe.
+ * @author Yehyun Kim
+ */
+public final class FactorialEngine {
+    /** Biggest value factorial can calculate **/
+    public static final int MAX_VALUE = 1_000_000;
+    /** Default number of checkpoints to keep **/
+    public static final int DEFAULT_CHECKPOINTS = 16;
+
+    /** Ranges shorter than this are multiplied in the current thread **/
+    private static final int PARALLEL_THRESHOLD = 4096;
+    /** Max number of values to divide a bigger checkpoint by **/
+    private static final int MAX_DIVIDE_STEPS = 256;
+    /** Smaller factorials are cheaper to calculate again than to keep **/
+    private static final int MIN_CHECKPOINT = 1000;
+    /** Values with more digits are shown by leading digits and exponent estimated from the bit length **/
+    private static final int MAX_EXACT_FORMAT_BITS = 100_000;
+    private static final double LOG10_2 = Math.log10(2);
+
+    /** Max number of checkpoints to keep **/
+    private final int maxCheckpoints;
+    /** Calculated factorials by n **/
+    private final TreeMap<Integer, BigInteger> checkpoints = new TreeMap<>();
+    private final ForkJoinPool pool;
+
+    public FactorialEngine(){
+        this(DEFAULT_CHECKPOINTS, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param maxCheckpoints max number of factorials to keep
+     * @param pool pool to calculate big ranges in parallel
+     */
+    public FactorialEngine(int maxCheckpoints, ForkJoinPool pool){
+        this.maxCheckpoints = maxCheckpoints;
+        this.pool = pool;
+    }
+
+    /**
+     * Calculates factorial
+     * @param n int value between 0 and MAX_VALUE
+     * @return n!
+     * @throws java.util.concurrent.CancellationException if the current thread is interrupted
+     */
+    public BigInteger factorial(int n){
+        if (n < 0) {
+            throw ErrorCode.NOT_INT_FACTORIAL.exception();
+        }
+        if (n > MAX_VALUE) {
+            throw ErrorCode.VALUE_TOO_BIG.exception();
+        }
+        Map.Entry<Integer, BigInteger> below, above;
+        synchronized (checkpoints) {
+            below = checkpoints.floorEntry(n);
+            above = checkpoints.ceilingEntry(n);
+        }
+        BigInteger result;
+        if (below != null && below.getKey() == n) {
+            return below.getValue();
+        } else if (above != null && above.getKey() - n <= MAX_DIVIDE_STEPS
+                && (below == null || above.getKey() - n < n - below.getKey())) {
+            // n! = m! / ((n+1) x ... x m): dividing by a small product is cheaper than multiplying up to n
+            result = above.getValue().divide(sequentialProduct(n + 1, above.getKey(), Thread.currentThread()::isInterrupted));
+        } else if (below != null) {
+            result = below.getValue().multiply(product(below.getKey() + 1, n));
+        } else {
+            result = n < 2 ? BigInteger.ONE : product(2, n);
+        }
+        if (n >= MIN_CHECKPOINT) {
+            synchronized (checkpoints) {
+                checkpoints.put(n, result);
+                if (checkpoints.size() > maxCheckpoints) {
+                    checkpoints.pollFirstEntry(); // smallest checkpoint is the cheapest to calculate again
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param from first value
+     * @param to last value
+     * @return from x (from + 1) x ... x to
+     */
+    private BigInteger product(int from, int to){
+        if (to - from < PARALLEL_THRESHOLD) {
+            return sequentialProduct(from, to, Thread.currentThread()::isInterrupted);
+        }
+        // not pool.invoke: it waits without interruption and hides the interrupt from the tasks until they end
+        AtomicBoolean cancelled = new AtomicBoolean();
+        ProductTask task = new ProductTask(from, to, cancelled::get);
+        pool.execute(task);
+        try {
+            return task.get();
+        } catch (InterruptedException exception) {
+            cancelled.set(true); // tasks stop at their next multiplication
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Calculation cancelled");
+        } catch (ExecutionException exception) {
+            throw exception.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(exception.getCause());
+        }
+    }
+
+    /**
+     * @param isCancelled checked between multiplications: the product stops with CancellationException once it is true
+     */
+    private static BigInteger sequentialProduct(int from, int to, BooleanSupplier isCancelled){
+        if (to - from < 16) {
+            BigInteger result = BigInteger.ONE;
+            long partial = 1;
+            for (long i = from; i <= to; i++) {
+                if (partial > Long.MAX_VALUE / i) { // multiply in long until it overflows
+                    result = result.multiply(BigInteger.valueOf(partial));
+                    partial = 1;
+                }
+                partial *= i;
+            }
+            return result.multiply(BigInteger.valueOf(partial));
+        }
+        checkCancelled(isCancelled);
+        int middle = (from + to) >>> 1;
+        return sequentialProduct(from, middle, isCancelled).multiply(sequentialProduct(middle + 1, to, isCancelled));
+    }
+
+    private static void checkCancelled(BooleanSupplier isCancelled){
+        if (isCancelled.getAsBoolean()) {
+            throw new CancellationException("Calculation cancelled");
+        }
+    }
+
+    /**
+     * Split product of a range to two tasks until it is small enough
+     */
+    @SuppressWarnings("serial") // ForkJoinTask is Serializable, tasks are never serialized
+    private static final class ProductTask extends RecursiveTask<BigInteger> {
+        private final int from, to;
+        /** Set when the thread that called factorial is interrupted: pool threads are not **/
+        private final BooleanSupplier isCancelled;
+
+        ProductTask(int from, int to, BooleanSupplier isCancelled){
+            this.from = from;
+            this.to = to;
+            this.isCancelled = isCancelled;
+        }
+
+        @Override
+        protected BigInteger compute(){
+            if (to - from < PARALLEL_THRESHOLD) {
+                return sequentialProduct(from, to, isCancelled);
+            }
+            int middle = (from + to) >>> 1;
+            ProductTask left = new ProductTask(from, middle, isCancelled);
+            left.fork();
+            BigInteger right = new ProductTask(middle + 1, to, isCancelled).compute();
+            BigInteger product = left.join();
+            checkCancelled(isCancelled);
+            return product.multiply(right);
+        }
+    }
+
+    /**
+     * Format value to fit on the screen: plain if it fits, otherwise leading digits and exponent (ex: 8.2639E+5565708)
+     * @param value calculated value
+     * @return value to user friendly string
+     */
+    public static String format(BigInteger value){
+        if (value.bitLength() <= MAX_EXACT_FORMAT_BITS) {
+            return PrecisionEngine.format(new BigDecimal(value));
+        }
+        // value = top x 2^shift: log10(value) = log10(top) + shift x log10(2)
+        int shift = value.bitLength() - 63;
+        double log10 = Math.log10(value.shiftRight(shift).longValue()) + shift * LOG10_2;
+        long exponent = (long) Math.floor(log10);
+        String exponentText = "E+" + exponent;
+        int mantissaDigits = Math.max(1, DisplayFormatter.MAX_LENGTH - exponentText.length() - 1);
+        double mantissa = Math.pow(10, log10 - exponent);
+        long leading = (long) (mantissa * Math.pow(10, mantissaDigits - 1)); // truncate: last digits are estimated
+        String digits = Long.toString(leading);
+        if (digits.length() == 1) {
+            return digits + exponentText;
+        }
+        return digits.charAt(0) + "." + digits.substring(1) + exponentText;
+    }
+}
@@ -0,0 +1,294 @@
+package storecalculator;
+
+/**
+ * Cache of ln, log, root and exponent results, keyed on the bits of the operands. Entries are kept in primitive arrays
+ * (no boxing) and found through an open addressing table of entry indexes with linear probing. When the cache is full,
+ * an entry is evicted with CLOCK (second chance) or LRU.
+ * Not thread safe: use one cache per thread.
+ * @author Yehyun Kim
+ */
+public final class FunctionCache {
+    /**
+     * Entry to evict when the cache is full
+     */
+    public enum Eviction {
+        /** Entries used since the hand last passed get a second chance **/
+        CLOCK,
+        /** Least recently used entry **/
+        LRU
+    }
+
+    private static final byte LN = 0, LOG = 1, ROOT = 2, POW = 3;
+
+    private final int capacity;
+    private final Eviction eviction;
+
+    /** Entries: function, bits of the operands, hash, result **/
+    private final byte[] functions;
+    private final long[] keys1, keys2;
+    private final int[] hashes;
+    private final double[] values;
+    private int size;
+
+    /** CLOCK: [true: used since the hand passed] **/
+    private final boolean[] referenced;
+    private int hand;
+
+    /** LRU: list from most to least recently used, by entry index. -1 is the end **/
+    private final int[] previous, next;
+    private int head = -1, tail = -1;
+
+    /** Open addressing table: entry index + 1, 0 for an empty slot. At most half full **/
+    private final int[] slots;
+    private final int mask;
+
+    private long hits, misses, evictions;
+
+    /**
+     * @param capacity max number of results to keep
+     * @param eviction entry to evict when the cache is full
+     */
+    public FunctionCache(int capacity, Eviction eviction){
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.eviction = eviction;
+        functions = new byte[capacity];
+        keys1 = new long[capacity];
+        keys2 = new long[capacity];
+        hashes = new int[capacity];
+        values = new double[capacity];
+        referenced = eviction == Eviction.CLOCK ? new boolean[capacity] : null;
+        previous = eviction == Eviction.LRU ? new int[capacity] : null;
+        next = eviction == Eviction.LRU ? new int[capacity] : null;
+        slots = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+        mask = slots.length - 1;
+    }
+
+    /**
+     * @param x value
+     * @return Math.log(x)
+     */
+    public double ln(double x){
+        return get(LN, x, 0);
+    }
+
+    /**
+     * @param x value
+     * @return Math.log10(x)
+     */
+    public double log(double x){
+        return get(LOG, x, 0);
+    }
+
+    /**
+     * @param x value
+     * @return Math.sqrt(x)
+     */
+    public double sqrt(double x){
+        return get(ROOT, x, 0);
+    }
+
+    /**
+     * @param x base
+     * @param y exponent
+     * @return Math.pow(x, y)
+     */
+    public double pow(double x, double y){
+        return get(POW, x, y);
+    }
+
+    private static double compute(byte function, double x, double y){
+        return switch (function) {
+            case LN -> Math.log(x);
+            case LOG -> Math.log10(x);
+            case ROOT -> Math.sqrt(x);
+            default -> Math.pow(x, y);
+        };
+    }
+
+    private double get(byte function, double x, double y){
+        long key1 = Double.doubleToRawLongBits(x);
+        long key2 = Double.doubleToRawLongBits(y);
+        int hash = hash(function, key1, key2);
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot] - 1;
+            if (entry < 0) {
+                break;
+            }
+            if (keys1[entry] == key1 && keys2[entry] == key2 && functions[entry] == function) {
+                hits++;
+                touch(entry);
+                return values[entry];
+            }
+        }
+        misses++;
+        double value = compute(function, x, y);
+        int entry;
+        if (size < capacity) {
+            entry = size++;
+        } else {
+            entry = victim();
+            removeSlot(slotOf(entry));
+            evictions++;
+        }
+        functions[entry] = function;
+        keys1[entry] = key1;
+        keys2[entry] = key2;
+        hashes[entry] = hash;
+        values[entry] = value;
+        int slot = hash & mask; // probe again: removing the victim can move entries
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = entry + 1;
+        if (eviction == Eviction.CLOCK) {
+            referenced[entry] = false; // used once: first to go
+        } else {
+            addFirst(entry);
+        }
+        return value;
+    }
+
+    private static int hash(byte function, long key1, long key2){
+        long h = key1 * 0x9E3779B97F4A7C15L + key2 * 0xC2B2AE3D27D4EB4FL + function;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * Mark entry as used
+     */
+    private void touch(int entry){
+        if (eviction == Eviction.CLOCK) {
+            referenced[entry] = true;
+        } else if (entry != head) {
+            unlink(entry);
+            addFirst(entry);
+        }
+    }
+
+    /**
+     * @return entry to evict, removed from the LRU list
+     */
+    private int victim(){
+        if (eviction == Eviction.LRU) {
+            int entry = tail;
+            unlink(entry);
+            return entry;
+        }
+        while (referenced[hand]) { // second chance: clear and move on
+            referenced[hand] = false;
+            hand = hand + 1 == capacity ? 0 : hand + 1;
+        }
+        int entry = hand;
+        hand = hand + 1 == capacity ? 0 : hand + 1;
+        return entry;
+    }
+
+    private int slotOf(int entry){
+        int slot = hashes[entry] & mask;
+        while (slots[slot] != entry + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empty the slot and move back the following entries that would not be found across the empty slot
+     */
+    private void removeSlot(int hole){
+        for (int slot = (hole + 1) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int home = hashes[slots[slot] - 1] & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) { // hole is between home and slot
+                slots[hole] = slots[slot];
+                hole = slot;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    private void addFirst(int entry){
+        previous[entry] = -1;
+        next[entry] = head;
+        if (head >= 0) {
+            previous[head] = entry;
+        }
+        head = entry;
+        if (tail < 0) {
+            tail = entry;
+        }
+    }
+
+    private void unlink(int entry){
+        int before = previous[entry], after = next[entry];
+        if (before >= 0) {
+            next[before] = after;
+        } else {
+            head = after;
+        }
+        if (after >= 0) {
+            previous[after] = before;
+        } else {
+            tail = before;
+        }
+    }
+
+    /**
+     * @return number of kept results
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * @return max number of results to keep
+     */
+    public int getCapacity(){
+        return capacity;
+    }
+
+    /**
+     * @return eviction policy
+     */
+    public Eviction getEviction(){
+        return eviction;
+    }
+
+    /**
+     * @return number of calls answered from the cache
+     */
+    public long getHits(){
+        return hits;
+    }
+
+    /**
+     * @return number of calls that were calculated
+     */
+    public long getMisses(){
+        return misses;
+    }
+
+    /**
+     * @return number of results removed to make room
+     */
+    public long getEvictions(){
+        return evictions;
+    }
+
+    /**
+     * @return hits divided by calls, 0 before the first call
+     */
+    public double hitRate(){
+        long calls = hits + misses;
+        return calls == 0 ? 0 : (double) hits / calls;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("%s cache %d/%d: %d hits, %d misses (%.1f%%), %d evictions", eviction, size, capacity, hits, misses, hitRate() * 100, evictions);
+    }
+}
@@ -0,0 +1,62 @@
+package storecalculator;
+
+/**
+ * One calculation stored in the history
+ * @author Yehyun Kim
+ */
+public final class HistoryEntry {
+    /** Calculation entered by user (ex: 12 + 3) **/
+    private final String expression;
+    /** Result as shown on the screen **/
+    private final String result;
+    /** Result as number, NaN if it is not a number **/
+    private final double value;
+    /** Time of the calculation in milliseconds since epoch **/
+    private final long timestamp;
+
+    /**
+     * @param expression calculation entered by user
+     * @param result result as shown on the screen
+     * @param value result as number
+     * @param timestamp time of the calculation in milliseconds since epoch
+     */
+    public HistoryEntry(String expression, String result, double value, long timestamp){
+        this.expression = expression;
+        this.result = result;
+        this.value = value;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return calculation entered by user
+     */
+    public String getExpression(){
+        return expression;
+    }
+
+    /**
+     * @return result as shown on the screen
+     */
+    public String getResult(){
+        return result;
+    }
+
+    /**
+     * @return result as number, NaN if it is not a number
+     */
+    public double getValue(){
+        return value;
+    }
+
+    /**
+     * @return time of the calculation in milliseconds since epoch
+     */
+    public long getTimestamp(){
+        return timestamp;
+    }
+
+    @Override
+    public String toString(){
+        return expression + " = " + result;
+    }
+}
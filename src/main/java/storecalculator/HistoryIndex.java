@@ -0,0 +1,317 @@
+package storecalculator;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Index of history entries sorted by value, to search by value range or by prefix of the result without reading every
+ * entry. Values and entry ids are kept in primitive arrays.
+ * Prefix search turns the prefix to value ranges (ex: "12" is [12, 13), [120, 130), ..., "1.2" is also
+ * [1.2E+k, 1.3E+k) for the exponents shown in scientific notation) and checks the result text of the entries in those
+ * ranges only. Results beyond double (ex: 8.2639E+5565708) are indexed as infinity. Entries that are not a number
+ * (NaN: complex and interval results) are kept apart and checked by text when no value range is given. Thread safe.
+ * @author Yehyun Kim
+ */
+public final class HistoryIndex {
+    private static final int[] NO_IDS = new int[0];
+    /** Start of scientific notation: one digit, decimals, exponent (ex: 1.2, 1.2E, 1.2E+2) **/
+    private static final Pattern SCIENTIFIC = Pattern.compile("([1-9](?:\\.[0-9]*)?)(E([+-][0-9]*)?)?");
+    /** Exponents of double: smaller and bigger results are 0 or infinity **/
+    private static final int MIN_EXPONENT = -324, MAX_EXPONENT = 308;
+    /** Plain text for smaller exponents: scientific notation is only used for bigger values (and for small ones) **/
+    private static final int MIN_SCIENTIFIC_EXPONENT = DisplayFormatter.MAX_LENGTH - 2;
+    /** Max rounding of a mantissa: at least MAX_LENGTH - 7 digits fit with the sign, '.' and "E-324" **/
+    private static final double MANTISSA_ROUNDING = 0.5 * Math.pow(10, -(DisplayFormatter.MAX_LENGTH - 8));
+
+    private final HistoryLog log;
+    /** Values sorted ascending **/
+    private double[] values;
+    /** Entry id of each value **/
+    private int[] ids;
+    private int size;
+    /** Ids of entries that are not a number, in id order **/
+    private int[] textIds = new int[16];
+    private int textSize;
+
+    /**
+     * Build index of all entries in the history
+     * @param log history to index
+     */
+    public HistoryIndex(HistoryLog log){
+        this.log = log;
+        int count = (int) log.size();
+        values = new double[Math.max(16, count)];
+        ids = new int[values.length];
+        for (int id = 0; id < count; id++) {
+            double value = log.valueAt(id);
+            if (Double.isNaN(value)) {
+                addText(id);
+            } else {
+                values[size] = value;
+                ids[size++] = id;
+            }
+        }
+        sort(values, ids, 0, size, new double[size], new int[size]);
+    }
+
+    /**
+     * Add new entry to the index
+     * @param id id of the entry in the history
+     * @param value value of the entry
+     */
+    public synchronized void add(int id, double value){
+        if (Double.isNaN(value)) {
+            addText(id);
+            return;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        int pos = upperBound(value);
+        System.arraycopy(values, pos, values, pos + 1, size - pos);
+        System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+        values[pos] = value;
+        ids[pos] = id;
+        size++;
+    }
+
+    private void addText(int id){
+        if (textSize == textIds.length) {
+            textIds = Arrays.copyOf(textIds, textSize * 2);
+        }
+        textIds[textSize++] = id;
+    }
+
+    /**
+     * @return number of indexed entries, those that are not a number included
+     */
+    public synchronized int size(){
+        return size + textSize;
+    }
+
+    /**
+     * Search entries
+     * @param prefix start of the result text, empty for any result
+     * @param min min value (inclusive)
+     * @param max max value (inclusive)
+     * @return ids of matching entries, newest first. Entries that are not a number only match without min and max
+     */
+    public synchronized int[] search(String prefix, double min, double max){
+        prefix = prefix.trim();
+        boolean isAnyValue = min == Double.NEGATIVE_INFINITY && max == Double.POSITIVE_INFINITY;
+        if (prefix.isEmpty()) {
+            int[] found = collect(min, max);
+            if (isAnyValue) {
+                found = Arrays.copyOf(found, found.length + textSize);
+                System.arraycopy(textIds, 0, found, found.length - textSize, textSize);
+            }
+            return newestFirst(found);
+        }
+        int[] candidates = NO_IDS;
+        int count = 0;
+        for (double[] range : prefixRanges(prefix)) { // ranges don't overlap: every entry is checked once
+            int[] found = collect(Math.max(min, range[0]), Math.min(max, range[1]));
+            for (int id : found) {
+                if (log.get(id).getResult().startsWith(prefix)) {
+                    if (count == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, Math.max(16, count * 2));
+                    }
+                    candidates[count++] = id;
+                }
+            }
+        }
+        for (int i = 0; isAnyValue && i < textSize; i++) {
+            if (log.get(textIds[i]).getResult().startsWith(prefix)) {
+                if (count == candidates.length) {
+                    candidates = Arrays.copyOf(candidates, Math.max(16, count * 2));
+                }
+                candidates[count++] = textIds[i];
+            }
+        }
+        return newestFirst(Arrays.copyOf(candidates, count));
+    }
+
+    /**
+     * @return ids of entries with min <= value <= max
+     */
+    private int[] collect(double min, double max){
+        if (min > max) {
+            return NO_IDS;
+        }
+        int from = lowerBound(min);
+        int to = upperBound(max);
+        return Arrays.copyOfRange(ids, from, Math.max(from, to));
+    }
+
+    /**
+     * Value ranges of numbers whose text starts with the prefix. Ranges are widened by the rounding of the screen display,
+     * so they can include numbers that don't match: callers check the text.
+     * @param prefix start of the result text
+     * @return ranges as {min, max}, sorted and not overlapping
+     */
+    static double[][] prefixRanges(String prefix){
+        boolean negative = prefix.startsWith("-");
+        String body = negative ? prefix.substring(1) : prefix;
+        if (body.isEmpty()) {
+            return new double[][]{negative ? new double[]{Double.NEGATIVE_INFINITY, 0} : new double[]{Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY}};
+        }
+        List<double[]> ranges = new ArrayList<>();
+        addPlainRanges(body, ranges);
+        addScientificRanges(body, ranges);
+        ranges.add(new double[]{Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY}); // "Infinity" and results beyond double
+        for (double[] range : ranges) {
+            if (negative) {
+                double low = range[0];
+                range[0] = -range[1];
+                range[1] = -low;
+            }
+        }
+        ranges.sort(Comparator.comparingDouble(range -> range[0]));
+        List<double[]> merged = new ArrayList<>();
+        for (double[] range : ranges) {
+            double[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range[0] <= last[1]) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged.toArray(new double[0][]);
+    }
+
+    /**
+     * Ranges of plain text (ex: "12" is [12, 13), [120, 130), [1200, 1300), ...), widened by the rounding
+     */
+    private static void addPlainRanges(String body, List<double[]> ranges){
+        if (!body.matches("[0-9]+(\\.[0-9]*)?") || (body.length() > 15)) {
+            return;
+        }
+        List<double[]> plain = new ArrayList<>();
+        int dot = body.indexOf('.');
+        if (dot >= 0) { // integer part is fixed: "3.1" is [3.1, 3.2)
+            BigDecimal low = new BigDecimal(dot == body.length() - 1 ? body.substring(0, dot) : body);
+            BigDecimal width = BigDecimal.ONE.movePointLeft(body.length() - dot - 1);
+            plain.add(new double[]{low.doubleValue(), low.add(width).doubleValue()});
+        } else if (body.length() > 1 && body.charAt(0) == '0') { // screen never shows leading zeros
+            return;
+        } else if (body.equals("0")) {
+            plain.add(new double[]{0, 1});
+        } else {
+            long digits = Long.parseLong(body);
+            int count = DisplayFormatter.MAX_LENGTH - body.length() + 1;
+            double scale = 1;
+            for (int k = 0; k < count; k++, scale *= 10) {
+                plain.add(new double[]{digits * scale, (digits + 1) * scale});
+            }
+        }
+        for (double[] range : plain) {
+            double slack = roundingOf(range[1]);
+            ranges.add(new double[]{range[0] - slack, range[1] + slack});
+        }
+    }
+
+    /**
+     * Ranges of scientific notation of exact mode (ex: "1.2" is [1.2E+k, 1.3E+k) for every k the screen shows in
+     * scientific notation, "1.2E-" only negative k), widened by the rounding of the mantissa
+     */
+    private static void addScientificRanges(String body, List<double[]> ranges){
+        Matcher matcher = SCIENTIFIC.matcher(body);
+        if (!matcher.matches() || matcher.group(1).length() > 15) {
+            return;
+        }
+        String mantissa = matcher.group(1).endsWith(".") ? matcher.group(1).substring(0, 1) : matcher.group(1);
+        BigDecimal low = new BigDecimal(mantissa).subtract(BigDecimal.valueOf(MANTISSA_ROUNDING));
+        BigDecimal high = new BigDecimal(mantissa).add(BigDecimal.ONE.movePointLeft(Math.max(0, mantissa.length() - 2)))
+                .add(BigDecimal.valueOf(MANTISSA_ROUNDING));
+        String exponent = matcher.group(3); // null: any exponent, else sign and start of the digits
+        for (int k = MIN_EXPONENT; k <= MAX_EXPONENT; k++) {
+            if (k >= 0 && k < MIN_SCIENTIFIC_EXPONENT || exponent != null && !(k < 0 ? "-" + -k : "+" + k).startsWith(exponent)) {
+                continue;
+            }
+            ranges.add(new double[]{low.scaleByPowerOfTen(k).doubleValue(), high.scaleByPowerOfTen(k).doubleValue()});
+        }
+    }
+
+    /**
+     * @return max rounding of the screen display for values up to the value
+     */
+    private static double roundingOf(double value){
+        int intDigits = Long.toString((long) Math.abs(value)).length();
+        int decimals = Math.max(0, Math.min(DisplayFormatter.MAX_DECIMALS, DisplayFormatter.MAX_LENGTH - 2 - intDigits));
+        return 0.5 * Math.pow(10, -decimals);
+    }
+
+    /**
+     * @return first position with values[pos] >= value
+     */
+    private int lowerBound(double value){
+        int low = 0, high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return first position with values[pos] > value
+     */
+    private int upperBound(double value){
+        int low = 0, high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int[] newestFirst(int[] found){
+        Arrays.sort(found);
+        for (int i = 0, j = found.length - 1; i < j; i++, j--) {
+            int id = found[i];
+            found[i] = found[j];
+            found[j] = id;
+        }
+        return found;
+    }
+
+    /**
+     * Merge sort values and ids together by value
+     */
+    private static void sort(double[] values, int[] ids, int from, int to, double[] valueBuffer, int[] idBuffer){
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sort(values, ids, from, middle, valueBuffer, idBuffer);
+        sort(values, ids, middle, to, valueBuffer, idBuffer);
+        if (values[middle - 1] <= values[middle]) {
+            return;
+        }
+        System.arraycopy(values, from, valueBuffer, from, to - from);
+        System.arraycopy(ids, from, idBuffer, from, to - from);
+        for (int i = from, left = from, right = middle; i < to; i++) {
+            if (right >= to || (left < middle && valueBuffer[left] <= valueBuffer[right])) {
+                values[i] = valueBuffer[left];
+                ids[i] = idBuffer[left++];
+            } else {
+                values[i] = valueBuffer[right];
+                ids[i] = idBuffer[right++];
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package storecalculator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Append-only calculation history in two memory-mapped files:
+ * history.log stores the entries one after another, history.idx stores the offset of each entry in history.log.
+ * Any entry (newest first or by index) is read in O(1) through the index, without reading the whole file.
+ * The entry count in the index header is written last, so an append cut by a crash is ignored on the next start.
+ * Thread safe.
+ * @author Yehyun Kim
+ */
+public final class HistoryLog implements Closeable {
+    /** Max bytes of expression and result kept per entry **/
+    public static final int MAX_EXPRESSION_BYTES = 1024;
+    public static final int MAX_RESULT_BYTES = 256;
+
+    private static final int MAGIC = 0x48495354; // "HIST"
+    private static final int VERSION = 1;
+    /** Index header: magic, version, entry count **/
+    private static final int HEADER_SIZE = 16;
+    private static final int COUNT_OFFSET = 8;
+    /** Entry: timestamp, value, expression length, result length, expression, result **/
+    private static final int ENTRY_HEADER_SIZE = 8 + 8 + 2 + 2;
+    private static final int DATA_SEGMENT_SIZE = 4 << 20;
+    private static final int INDEX_SEGMENT_SIZE = 1 << 20;
+
+    private final MappedFile data;
+    private final MappedFile index;
+    /** Number of entries **/
+    private long count;
+    /** Offset in history.log to write the next entry **/
+    private long dataEnd;
+
+    /**
+     * Open history in the directory, create it if it doesn't exist
+     * @param directory directory of history.log and history.idx
+     * @throws IOException if the files cannot be opened or are not history files
+     */
+    public HistoryLog(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        data = new MappedFile(directory.resolve("history.log"), DATA_SEGMENT_SIZE);
+        index = new MappedFile(directory.resolve("history.idx"), INDEX_SEGMENT_SIZE);
+        try {
+            MappedByteBuffer header = index.segment(0);
+            int magic = header.getInt(0);
+            if (magic == 0) { // new file
+                header.putInt(0, MAGIC);
+                header.putInt(4, VERSION);
+                header.putLong(COUNT_OFFSET, 0);
+            } else if (magic != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Not a history file: " + directory);
+            }
+            count = header.getLong(COUNT_OFFSET);
+            dataEnd = count == 0 ? 0 : endOf(offsetOf(count - 1));
+        } catch (IOException | RuntimeException exception) {
+            close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Add entry at the end of the history
+     * @param expression calculation entered by user
+     * @param result result as shown on the screen
+     * @param value result as number
+     * @return stored entry
+     */
+    public synchronized HistoryEntry append(String expression, String result, double value){
+        HistoryEntry entry = new HistoryEntry(expression, result, value, System.currentTimeMillis());
+        byte[] expressionBytes = truncate(expression, MAX_EXPRESSION_BYTES);
+        byte[] resultBytes = truncate(result, MAX_RESULT_BYTES);
+        int size = ENTRY_HEADER_SIZE + expressionBytes.length + resultBytes.length;
+        long offset = dataEnd;
+        if (offset % DATA_SEGMENT_SIZE + size > DATA_SEGMENT_SIZE) { // entries don't cross segments
+            offset = (offset / DATA_SEGMENT_SIZE + 1) * DATA_SEGMENT_SIZE;
+        }
+        try {
+            MappedByteBuffer segment = data.segment(offset);
+            int pos = (int) (offset % DATA_SEGMENT_SIZE);
+            segment.putLong(pos, entry.getTimestamp());
+            segment.putDouble(pos + 8, value);
+            segment.putShort(pos + 16, (short) expressionBytes.length);
+            segment.putShort(pos + 18, (short) resultBytes.length);
+            segment.put(pos + ENTRY_HEADER_SIZE, expressionBytes);
+            segment.put(pos + ENTRY_HEADER_SIZE + expressionBytes.length, resultBytes);
+
+            long indexPosition = HEADER_SIZE + count * 8;
+            index.segment(indexPosition).putLong((int) (indexPosition % INDEX_SEGMENT_SIZE), offset);
+            index.segment(0).putLong(COUNT_OFFSET, count + 1); // commit
+        } catch (IOException exception) {
+            throw new IllegalStateException("Cannot write history", exception);
+        }
+        count++;
+        dataEnd = offset + size;
+        return entry;
+    }
+
+    /**
+     * @param i index of entry, 0 is the oldest
+     * @return entry at the index
+     */
+    public synchronized HistoryEntry get(long i){
+        if (i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException("No history entry " + i);
+        }
+        try {
+            long offset = offsetOf(i);
+            MappedByteBuffer segment = data.segment(offset);
+            int pos = (int) (offset % DATA_SEGMENT_SIZE);
+            byte[] expressionBytes = new byte[segment.getShort(pos + 16)];
+            byte[] resultBytes = new byte[segment.getShort(pos + 18)];
+            segment.get(pos + ENTRY_HEADER_SIZE, expressionBytes);
+            segment.get(pos + ENTRY_HEADER_SIZE + expressionBytes.length, resultBytes);
+            return new HistoryEntry(new String(expressionBytes, StandardCharsets.UTF_8),
+                    new String(resultBytes, StandardCharsets.UTF_8), segment.getDouble(pos + 8), segment.getLong(pos));
+        } catch (IOException exception) {
+            throw new IllegalStateException("Cannot read history", exception);
+        }
+    }
+
+    /**
+     * Read only the value of entry, without reading the text
+     * @param i index of entry, 0 is the oldest
+     * @return value of entry at the index
+     */
+    public synchronized double valueAt(long i){
+        if (i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException("No history entry " + i);
+        }
+        try {
+            long offset = offsetOf(i);
+            return data.segment(offset).getDouble((int) (offset % DATA_SEGMENT_SIZE) + 8);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Cannot read history", exception);
+        }
+    }
+
+    /**
+     * Read only the values of a range of entries, without reading the text
+     * @param from index of the first entry, 0 is the oldest
+     * @param to index after the last entry
+     * @return values of the entries, oldest first
+     */
+    public synchronized double[] values(long from, long to){
+        if (from < 0 || to > count || from > to || to - from > Integer.MAX_VALUE - 8) {
+            throw new IndexOutOfBoundsException("No history entries " + from + " to " + to);
+        }
+        double[] values = new double[(int) (to - from)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = valueAt(from + i);
+        }
+        return values;
+    }
+
+    /**
+     * @param max max number of entries
+     * @return newest entries, newest first
+     */
+    public synchronized List<HistoryEntry> newest(int max){
+        List<HistoryEntry> entries = new ArrayList<>(max);
+        for (long i = count - 1; i >= 0 && entries.size() < max; i--) {
+            entries.add(get(i));
+        }
+        return entries;
+    }
+
+    /**
+     * @return number of entries
+     */
+    public synchronized long size(){
+        return count;
+    }
+
+    /**
+     * Write changes to the disk
+     */
+    public synchronized void flush(){
+        data.force();
+        index.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (data != null) {
+                data.close();
+            }
+        } finally {
+            if (index != null) {
+                index.close();
+            }
+        }
+    }
+
+    private long offsetOf(long i) throws IOException {
+        long indexPosition = HEADER_SIZE + i * 8;
+        return index.segment(indexPosition).getLong((int) (indexPosition % INDEX_SEGMENT_SIZE));
+    }
+
+    private long endOf(long offset) throws IOException {
+        MappedByteBuffer segment = data.segment(offset);
+        int pos = (int) (offset % DATA_SEGMENT_SIZE);
+        return offset + ENTRY_HEADER_SIZE + segment.getShort(pos + 16) + segment.getShort(pos + 18);
+    }
+
+    /**
+     * @return UTF-8 bytes of the text, cut before the first character that does not fit (ex: √ is 3 bytes)
+     */
+    private static byte[] truncate(String text, int maxBytes){
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= maxBytes) {
+            return bytes;
+        }
+        int end = maxBytes;
+        while (end > 0 && (bytes[end] & 0xC0) == 0x80) { // first byte cut off continues a character (10xxxxxx)
+            end--;
+        }
+        return Arrays.copyOf(bytes, end);
+    }
+
+    /**
+     * File mapped to memory in fixed size segments, mapped when first used
+     */
+    private static final class MappedFile implements Closeable {
+        private final FileChannel channel;
+        private final int segmentSize;
+        private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+        MappedFile(Path path, int segmentSize) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.segmentSize = segmentSize;
+        }
+
+        /**
+         * @param position position in the file
+         * @return segment that contains the position
+         */
+        MappedByteBuffer segment(long position) throws IOException {
+            int i = (int) (position / segmentSize);
+            while (segments.size() <= i) {
+                segments.add(null);
+            }
+            MappedByteBuffer segment = segments.get(i);
+            if (segment == null) {
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * segmentSize, segmentSize);
+                segments.set(i, segment);
+            }
+            return segment;
+        }
+
+        void force(){
+            for (MappedByteBuffer segment : segments) {
+                if (segment != null) {
+                    segment.force();
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            force();
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package storecalculator;
+
+import javafx.collections.ObservableListBase;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+import java.util.function.Consumer;
+
+/**
+ * Window that shows the whole history, newest first. ListView creates cells only for the visible rows and reuses them
+ * while scrolling, and the list reads entries from the history only when a row is shown, so millions of entries can
+ * be scrolled. Search by prefix of the result and by value range uses HistoryIndex.
+ * @author Yehyun Kim
+ */
+public final class HistoryPanel {
+    private final HistoryLog log;
+    /** Built on the first search **/
+    private HistoryIndex index;
+    private final Stage stage = new Stage();
+    private final ListView<HistoryEntry> listView = new ListView<>();
+    private final AllEntries allEntries = new AllEntries();
+    private final TextField prefixField = new TextField();
+    private final TextField minField = new TextField();
+    private final TextField maxField = new TextField();
+
+    /**
+     * @param log history to show
+     * @param onSelect called with the result of the clicked row
+     */
+    public HistoryPanel(HistoryLog log, Consumer<String> onSelect){
+        this.log = log;
+
+        prefixField.setPromptText("Result starts with");
+        minField.setPromptText("Min");
+        maxField.setPromptText("Max");
+        Button searchButton = new Button("Search");
+        Button clearButton = new Button("Clear");
+        for (TextField field : new TextField[]{prefixField, minField, maxField}) {
+            field.getStyleClass().add("panel-field");
+            field.setOnAction(e -> search());
+        }
+        searchButton.getStyleClass().add("panel-button");
+        clearButton.getStyleClass().add("panel-button");
+        searchButton.setOnAction(e -> search());
+        clearButton.setOnAction(e -> clear());
+        minField.setPrefWidth(80);
+        maxField.setPrefWidth(80);
+        HBox.setHgrow(prefixField, Priority.ALWAYS);
+
+        listView.setFixedCellSize(24); // fixed size: no need to measure rows to scroll
+        listView.getStyleClass().add("panel-list");
+        listView.setCellFactory(view -> {
+            ListCell<HistoryEntry> cell = new ListCell<>() {
+                @Override
+                protected void updateItem(HistoryEntry entry, boolean empty){
+                    super.updateItem(entry, empty);
+                    setText(empty || entry == null ? null : entry.toString());
+                }
+            };
+            // on the cell, not the list: clicks on the scrollbar or below the last row select nothing
+            cell.setOnMouseClicked(e -> {
+                if (!cell.isEmpty() && cell.getItem() != null) {
+                    onSelect.accept(cell.getItem().getResult());
+                }
+            });
+            return cell;
+        });
+        listView.setItems(allEntries);
+
+        HBox searchBox = new HBox(5, prefixField, minField, maxField, searchButton, clearButton);
+        VBox root = new VBox(5, searchBox, listView);
+        root.setPadding(new Insets(5));
+        root.getStyleClass().add("panel");
+        VBox.setVgrow(listView, Priority.ALWAYS);
+        stage.setTitle("History");
+        Scene scene = new Scene(root, 520, 550);
+        scene.getStylesheets().add(CalculatorGUI.STYLESHEET);
+        stage.setScene(scene);
+    }
+
+    /**
+     * Show the window
+     */
+    public void show(){
+        stage.show();
+        stage.toFront();
+    }
+
+    /**
+     * Update the list after a new entry is added to the history
+     */
+    public void entryAdded(){
+        long id = log.size() - 1;
+        if (index != null) {
+            index.add((int) id, log.valueAt(id));
+        }
+        allEntries.entryAdded();
+    }
+
+    private void search(){
+        double min, max;
+        try {
+            min = minField.getText().isBlank() ? Double.NEGATIVE_INFINITY : Double.parseDouble(minField.getText());
+            max = maxField.getText().isBlank() ? Double.POSITIVE_INFINITY : Double.parseDouble(maxField.getText());
+        } catch (NumberFormatException exception) {
+            stage.setTitle("History: enter number for min and max");
+            return;
+        }
+        if (prefixField.getText().isBlank() && minField.getText().isBlank() && maxField.getText().isBlank()) {
+            clear();
+            return;
+        }
+        if (index == null) {
+            index = new HistoryIndex(log);
+        }
+        int[] ids = index.search(prefixField.getText(), min, max);
+        stage.setTitle("History: " + ids.length + " found");
+        listView.setItems(new SearchResult(ids));
+    }
+
+    private void clear(){
+        prefixField.clear();
+        minField.clear();
+        maxField.clear();
+        stage.setTitle("History");
+        listView.setItems(allEntries);
+    }
+
+    /**
+     * All entries, newest first. Entries are read from the history when the row is shown.
+     */
+    private final class AllEntries extends ObservableListBase<HistoryEntry> {
+        @Override
+        public HistoryEntry get(int i){
+            return log.get(log.size() - 1 - i);
+        }
+
+        @Override
+        public int size(){
+            return (int) Math.min(Integer.MAX_VALUE, log.size());
+        }
+
+        void entryAdded(){
+            beginChange();
+            nextAdd(0, 1); // newest entry is the first row
+            endChange();
+        }
+    }
+
+    /**
+     * Entries found by search
+     */
+    private final class SearchResult extends ObservableListBase<HistoryEntry> {
+        private final int[] ids;
+
+        SearchResult(int[] ids){
+            this.ids = ids;
+        }
+
+        @Override
+        public HistoryEntry get(int i){
+            return log.get(ids[i]);
+        }
+
+        @Override
+        public int size(){
+            return ids.length;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package storecalculator;
+
+import java.math.BigDecimal;
+
+/**
+ * Number typed by user, stored in a fixed size char array. The number is parsed while digits are typed: digits are kept
+ * as a long mantissa with the number of digits after decimal, so the value is known without parsing the text.
+ * Max 13 characters, or 14 if it contains decimal, same as the screen.
+ * @author Yehyun Kim
+ */
+public final class InputBuffer {
+    /** Max length without decimal **/
+    public static final int MAX_LENGTH = 13;
+    /** Max length with decimal **/
+    public static final int MAX_DECIMAL_LENGTH = 14;
+
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+            1e13, 1e14, 1e15, 1e16};
+
+    private final char[] chars = new char[MAX_DECIMAL_LENGTH + 2];
+    private int length;
+    /** All digits as one number (ex: 12.5 is 125) **/
+    private long mantissa;
+    /** Number of digits after decimal **/
+    private int decimals;
+    /** Index of the decimal, -1 if there is no decimal **/
+    private int decimalIndex = -1;
+    /** Number of decimals: more than one is invalid **/
+    private int decimalCount;
+    private boolean negative;
+    /** [True: contains other characters than one '-', digits and one '.'] **/
+    private boolean invalid;
+
+    /**
+     * Add a digit or decimal at the end
+     * @param c '0' to '9' or '.'
+     * @return [true: added] [false: input is already at max length]
+     */
+    public boolean append(char c){
+        int maxLength = decimalCount > 0 ? MAX_DECIMAL_LENGTH : MAX_LENGTH; // if the value contains decimal, max length is 14. If not, 13
+        if (length >= maxLength) {
+            return false;
+        }
+        add(c);
+        return true;
+    }
+
+    /**
+     * Remove the last character
+     * @return [true: removed] [false: nothing to delete]
+     */
+    public boolean deleteLast(){
+        if (length == 0) {
+            return false;
+        }
+        char c = chars[--length];
+        if (c >= '0' && c <= '9' && decimalCount <= 1 && !invalid) {
+            mantissa /= 10; // undo mantissa * 10 + digit
+            if (decimalIndex >= 0) {
+                decimals--;
+            }
+        } else { // decimal, sign or invalid character: parse again
+            reparse();
+        }
+        return true;
+    }
+
+    /**
+     * Replace input with the text (ex: result on the screen the user continues typing on)
+     * @param text text on the screen
+     */
+    public void load(CharSequence text){
+        clear();
+        for (int i = 0; i < text.length() && length < chars.length; i++) {
+            add(text.charAt(i));
+        }
+        if (text.length() > chars.length) {
+            invalid = true;
+        }
+    }
+
+    /**
+     * Remove all characters
+     */
+    public void clear(){
+        length = 0;
+        mantissa = 0;
+        decimals = 0;
+        decimalIndex = -1;
+        decimalCount = 0;
+        negative = false;
+        invalid = false;
+    }
+
+    /**
+     * @return [true: nothing typed]
+     */
+    public boolean isEmpty(){
+        return length == 0;
+    }
+
+    /**
+     * @param text text to compare
+     * @return [true: input is the same as the text]
+     */
+    public boolean contentEquals(CharSequence text){
+        if (text.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chars[i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return [true: typed value is an int, without decimal (ex: 12, not 12. or 12.5)]
+     */
+    public boolean isInt(){
+        if (invalid || decimalCount > 0 || length == (negative ? 1 : 0)) {
+            return false;
+        }
+        long value = negative ? -mantissa : mantissa;
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return typed value
+     * @throws NumberFormatException if input is not a number
+     */
+    public double doubleValue(){
+        checkValid();
+        // mantissa and 10^decimals are exact doubles: one division rounds the same as Double.parseDouble
+        double value = mantissa / POWERS_OF_TEN[decimals];
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return typed value without rounding
+     * @throws NumberFormatException if input is not a number
+     */
+    public BigDecimal decimalValue(){
+        checkValid();
+        return BigDecimal.valueOf(negative ? -mantissa : mantissa, decimals);
+    }
+
+    @Override
+    public String toString(){
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * @return why the input is not a number: ErrorCode.TOO_MANY_DECIMALS or NO_VALUE. null if it is a number
+     */
+    public ErrorCode error(){
+        if (invalid || decimalCount > 1) {
+            return ErrorCode.TOO_MANY_DECIMALS;
+        }
+        if (length == 0 || length == (negative ? 1 : 0) + decimalCount) { // no digit
+            return ErrorCode.NO_VALUE;
+        }
+        return null;
+    }
+
+    private void checkValid(){
+        ErrorCode error = error();
+        if (error != null) {
+            throw new NumberFormatException(error.getMessage());
+        }
+    }
+
+    private void add(char c){
+        chars[length] = c;
+        if (c >= '0' && c <= '9') {
+            mantissa = mantissa * 10 + (c - '0');
+            if (decimalIndex >= 0) {
+                decimals++;
+            }
+        } else if (c == '.') {
+            if (decimalCount++ == 0) {
+                decimalIndex = length;
+            }
+        } else if (c == '-' && length == 0) {
+            negative = true;
+        } else {
+            invalid = true;
+        }
+        length++;
+    }
+
+    private void reparse(){
+        int oldLength = length;
+        length = 0;
+        mantissa = 0;
+        decimals = 0;
+        decimalIndex = -1;
+        decimalCount = 0;
+        negative = false;
+        invalid = false;
+        for (int i = 0; i < oldLength; i++) {
+            add(chars[i]);
+        }
+    }
+}
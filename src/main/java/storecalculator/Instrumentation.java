@@ -0,0 +1,94 @@
+package storecalculator;
+
+import jdk.jfr.EventType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Counters and latency histograms of the hot paths: calculations, functions, formatting and button handlers, also
+ * emitted as Flight Recorder events (OperationEvent) while a recording is running.
+ * Enabled with -Dstorecalculator.stats=true. The switch is a constant: when it is off, start() returns 0 without reading
+ * the clock and the JIT removes the recording code, so instrumentation can stay in production builds.
+ * <pre>
+ * long start = Instrumentation.start();
+ * ...
+ * METRIC.record(start);
+ * </pre>
+ * @author Yehyun Kim
+ */
+public final class Instrumentation {
+    /** [True: record metrics] Read once at startup **/
+    public static final boolean ENABLED = Boolean.getBoolean("storecalculator.stats");
+    /** Type of OperationEvent, to check if a recording wants the events **/
+    static final EventType EVENT_TYPE = ENABLED ? EventType.getEventType(OperationEvent.class) : null;
+
+    /** All metrics in order of creation. Only changed when a metric is created **/
+    private static final List<Metric> METRICS = new CopyOnWriteArrayList<>();
+
+    private Instrumentation(){
+    }
+
+    /**
+     * Get metric, created on the first call with the name. Metrics are kept (ex: in a static field), not looked up on
+     * every call.
+     * @param name name of the operation
+     * @return metric of the operation
+     */
+    public static synchronized Metric metric(String name){
+        for (Metric metric : METRICS) {
+            if (metric.getName().equals(name)) {
+                return metric;
+            }
+        }
+        Metric metric = new Metric(name);
+        METRICS.add(metric);
+        return metric;
+    }
+
+    /**
+     * Create one metric for each constant of the enum, indexed by ordinal
+     * @param prefix start of the names (ex: "calc ")
+     * @param constants constants of the enum
+     * @return metrics
+     */
+    public static Metric[] metrics(String prefix, Enum<?>[] constants){
+        Metric[] metrics = new Metric[constants.length];
+        for (Enum<?> constant : constants) {
+            metrics[constant.ordinal()] = metric(prefix + constant.name().toLowerCase());
+        }
+        return metrics;
+    }
+
+    /**
+     * @return start time of a call, 0 when disabled
+     */
+    public static long start(){
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @return metrics that were called at least once, most called first
+     */
+    public static List<Metric> calledMetrics(){
+        List<Metric> called = new ArrayList<>();
+        for (Metric metric : METRICS) {
+            if (metric.getCount() > 0) {
+                called.add(metric);
+            }
+        }
+        called.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+        return called;
+    }
+
+    /**
+     * @return table of the called metrics: count, errors, p50, p99 and max in microseconds
+     */
+    public static String report(){
+        StringBuilder report = new StringBuilder(String.format("%-16s %8s %6s %8s %8s %8s%n", "operation", "count", "errors", "p50 us", "p99 us", "max us"));
+        for (Metric metric : calledMetrics()) {
+            report.append(metric).append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+}
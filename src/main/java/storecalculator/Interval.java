@@ -0,0 +1,189 @@
+package storecalculator;
+
+import java.math.BigDecimal;
+
+/**
+ * Interval of interval mode: every real number from lo to hi, bounds as doubles. Calculations round the bounds
+ * outward, so the result contains the exact result for every value of the operands. A typed number is the smallest
+ * interval of doubles that contains it (ex: 0.1 is between the two doubles next to it), so rounding of the input is
+ * kept too. Text is [lo,hi] (∞ for Infinity), mid±radius (ex: 2.5±0.01) or a number. A failed calculation carries the error NaN of its
+ * ErrorCode in both bounds.
+ * Immutable.
+ * @author Yehyun Kim
+ */
+public final class Interval {
+    private final double lo, hi;
+
+    private Interval(double lo, double hi){
+        this.lo = lo;
+        this.hi = hi;
+    }
+
+    /**
+     * @param lo lower bound
+     * @param hi upper bound, not less than lo
+     * @return interval
+     */
+    public static Interval of(double lo, double hi){
+        return new Interval(lo, hi);
+    }
+
+    /**
+     * @param value double
+     * @return interval with only the value
+     */
+    public static Interval point(double value){
+        return new Interval(value, value);
+    }
+
+    /**
+     * @param value decimal number
+     * @return smallest interval of doubles that contains the number
+     */
+    public static Interval enclosing(BigDecimal value){
+        return new Interval(down(value), up(value));
+    }
+
+    /**
+     * @param error why the calculation failed
+     * @return interval carrying the error
+     */
+    static Interval error(ErrorCode error){
+        return new Interval(error.toNaN(), error.toNaN());
+    }
+
+    /**
+     * @return biggest double not greater than the value
+     */
+    static double down(BigDecimal value){
+        double rounded = value.doubleValue();
+        if (Double.isInfinite(rounded)) {
+            return rounded > 0 ? Double.MAX_VALUE : rounded;
+        }
+        return new BigDecimal(rounded).compareTo(value) > 0 ? Math.nextDown(rounded) : rounded;
+    }
+
+    /**
+     * @return smallest double not less than the value
+     */
+    static double up(BigDecimal value){
+        double rounded = value.doubleValue();
+        if (Double.isInfinite(rounded)) {
+            return rounded < 0 ? -Double.MAX_VALUE : rounded;
+        }
+        return new BigDecimal(rounded).compareTo(value) < 0 ? Math.nextUp(rounded) : rounded;
+    }
+
+    /**
+     * @return lower bound
+     */
+    public double getLow(){
+        return lo;
+    }
+
+    /**
+     * @return upper bound
+     */
+    public double getHigh(){
+        return hi;
+    }
+
+    /**
+     * @return [true: only one value]
+     */
+    public boolean isPoint(){
+        return lo == hi;
+    }
+
+    /**
+     * @param value value
+     * @return [true: value is in the interval, bounds included]
+     */
+    public boolean contains(double value){
+        return lo <= value && value <= hi;
+    }
+
+    /**
+     * @return error carried by the interval, null if there is none
+     */
+    public ErrorCode error(){
+        return ErrorCode.of(lo);
+    }
+
+    /**
+     * Parse [lo,hi], mid±radius or a number. Decimal bounds are rounded outward, so the interval contains the
+     * interval of the text.
+     * @param text text of the interval (ex: [1.5,2], 3.14±0.01, 0.1)
+     * @return interval, null if the text is not one
+     */
+    public static Interval parse(String text){
+        int length = text.length();
+        if (length > 2 && text.charAt(0) == '[' && text.charAt(length - 1) == ']') {
+            int comma = text.indexOf(',');
+            if (comma < 0) {
+                return null;
+            }
+            Interval lower = parseNumber(text, 1, comma);
+            Interval upper = parseNumber(text, comma + 1, length - 1);
+            return lower == null || upper == null || !(lower.lo <= upper.hi) ? null : new Interval(lower.lo, upper.hi);
+        }
+        int plusMinus = text.indexOf('±');
+        if (plusMinus < 0) {
+            return parseNumber(text, 0, length);
+        }
+        if (!isDecimal(text, 0, plusMinus) || !isDecimal(text, plusMinus + 1, length)) {
+            return null;
+        }
+        BigDecimal mid = new BigDecimal(text.substring(0, plusMinus));
+        BigDecimal radius = new BigDecimal(text.substring(plusMinus + 1));
+        return radius.signum() < 0 ? null : new Interval(down(mid.subtract(radius)), up(mid.add(radius)));
+    }
+
+    /**
+     * @return smallest interval of doubles that contains the number, null if the text is not a number
+     */
+    private static Interval parseNumber(String text, int from, int to){
+        if (text.startsWith("∞", to - 1) && to - from <= 2) { // bound of [lo,hi]: ∞, -∞ or +∞
+            boolean negative = to - from == 2 && text.charAt(from) == '-';
+            return to - from == 1 || negative || text.charAt(from) == '+' ? point(negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY) : null;
+        }
+        if (!NumberMode.isNumber(text, from, to)) {
+            return null;
+        }
+        String number = text.substring(from, to);
+        return isDecimal(text, from, to) ? enclosing(new BigDecimal(number)) : point(Double.parseDouble(number));
+    }
+
+    /**
+     * @return [true: decimal number for BigDecimal, not Infinity or NaN]
+     */
+    private static boolean isDecimal(String text, int from, int to){
+        if (!NumberMode.isNumber(text, from, to)) {
+            return false;
+        }
+        char first = text.charAt(text.charAt(from) == '-' || text.charAt(from) == '+' ? from + 1 : from);
+        return first != 'I' && first != 'N';
+    }
+
+    @Override
+    public boolean equals(Object object){
+        return object instanceof Interval other && Double.compare(lo, other.lo) == 0 && Double.compare(hi, other.hi) == 0;
+    }
+
+    @Override
+    public int hashCode(){
+        return Double.hashCode(lo) * 31 + Double.hashCode(hi);
+    }
+
+    /**
+     * @return lossless text for parse: [lo,hi] with the exact decimal value of each bound
+     */
+    @Override
+    public String toString(){
+        return "[" + exact(lo) + "," + exact(hi) + "]";
+    }
+
+    private static String exact(double value){
+        return Double.isFinite(value) ? new BigDecimal(value).toString() : Double.toString(value);
+    }
+}
@@ -0,0 +1,407 @@
+package storecalculator;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Operators and functions of interval mode, with each bound rounded outward. Java has no directed rounding, so each
+ * kernel rounds to nearest and then finds which side the exact value is on: the error of + and - with TwoSum, of x,
+ * / and root with a fused multiply-add, so a bound moves by one double only when the result was rounded, and exact
+ * results (ex: 2 + 3) stay points. ln, log and ^ are within 1 ulp (Math), so their bounds move by two doubles unless
+ * the result is known to be exact (ex: ln 1, log 100, 2 ^ 10).
+ * ln, log and root of intervals with negative values, and non-integer powers of them, are ErrorCode.NOT_REAL.
+ * Can be used from any thread.
+ * @author Yehyun Kim
+ */
+public final class IntervalEngine implements NumberArithmetic<Interval> {
+    /** Smallest product or quotient whose rounding error a fused multiply-add finds exactly: no underflow **/
+    private static final double MIN_EXACT_ERROR = 0x1p-969;
+    /** Biggest integer power calculated exactly by Math.pow when both values are integers **/
+    private static final double MAX_EXACT_POWER = 0x1p52;
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+            1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    /** Roundings of the radius of the screen text: the last one always contains the interval **/
+    private static final MathContext[] RADIUS_ROUNDINGS = {new MathContext(1, RoundingMode.DOWN),
+            new MathContext(2, RoundingMode.UP), new MathContext(1, RoundingMode.UP)};
+    /** Formatter for the middle of an interval, one per thread because it reuses its buffer **/
+    private static final ThreadLocal<DisplayFormatter> DISPLAY_FORMATTER = ThreadLocal.withInitial(DisplayFormatter::new);
+
+    @Override
+    public Interval of(double value){
+        return Interval.point(value);
+    }
+
+    @Override
+    public Interval of(BigDecimal typed){
+        return Interval.enclosing(typed);
+    }
+
+    @Override
+    public Interval parse(String text){
+        return Interval.parse(text);
+    }
+
+    @Override
+    public ErrorCode error(Interval value){
+        return value.error();
+    }
+
+    @Override
+    public double realValue(Interval value){
+        return value.isPoint() ? value.getLow() : Double.NaN;
+    }
+
+    @Override
+    public Interval apply(CalculatorEngine.Op op, Interval num1, Interval num2){
+        return switch (op) {
+            case PLUS -> Interval.of(addLower(num1.getLow(), num2.getLow()), addUpper(num1.getHigh(), num2.getHigh()));
+            case MINUS -> Interval.of(addLower(num1.getLow(), -num2.getHigh()), addUpper(num1.getHigh(), -num2.getLow()));
+            case MULTIPLY -> multiply(num1, num2);
+            case DIVIDE -> divide(num1, num2);
+            case EXPONENT -> pow(num1, num2);
+        };
+    }
+
+    @Override
+    public Interval apply(CalculatorEngine.UnaryOp op, Interval value){
+        double lo = value.getLow(), hi = value.getHigh();
+        return switch (op) {
+            case LN -> lo < 0 ? Interval.error(ErrorCode.NOT_REAL) : Interval.of(lnLower(lo), lnUpper(hi));
+            case LOG -> lo < 0 ? Interval.error(ErrorCode.NOT_REAL) : Interval.of(logLower(lo), logUpper(hi));
+            case ROOT -> lo < 0 ? Interval.error(ErrorCode.NOT_REAL) : Interval.of(rootLower(lo), rootUpper(hi));
+            case FACTORIAL -> value.isPoint() ? Interval.point(CalculatorEngine.tryFactorial(lo))
+                    : Interval.error(ErrorCode.NOT_INT_FACTORIAL);
+            case PERCENT -> Interval.of(divideLower(lo, 100), divideUpper(hi, 100));
+            case SQUARE -> integerPower(value, 2);
+        };
+    }
+
+    private static Interval multiply(Interval num1, Interval num2){
+        double a = num1.getLow(), b = num1.getHigh(), c = num2.getLow(), d = num2.getHigh();
+        double lo = Math.min(Math.min(multiplyLower(a, c), multiplyLower(a, d)), Math.min(multiplyLower(b, c), multiplyLower(b, d)));
+        double hi = Math.max(Math.max(multiplyUpper(a, c), multiplyUpper(a, d)), Math.max(multiplyUpper(b, c), multiplyUpper(b, d)));
+        return Interval.of(lo, hi);
+    }
+
+    private static Interval divide(Interval num1, Interval num2){
+        double a = num1.getLow(), b = num1.getHigh(), c = num2.getLow(), d = num2.getHigh();
+        if (num2.contains(0)) {
+            return Interval.error(ErrorCode.DIVIDE_BY_ZERO);
+        }
+        double lo = Math.min(Math.min(divideLower(a, c), divideLower(a, d)), Math.min(divideLower(b, c), divideLower(b, d)));
+        double hi = Math.max(Math.max(divideUpper(a, c), divideUpper(a, d)), Math.max(divideUpper(b, c), divideUpper(b, d)));
+        return Interval.of(lo, hi);
+    }
+
+    /**
+     * Integer powers of any base, other powers of bases 0 or more only. For x > 0, x ^ y = e ^ (y ln x) and y ln x is
+     * smallest and biggest at corners of the two intervals, so the bounds are among the four corner powers.
+     */
+    private static Interval pow(Interval base, Interval exponent){
+        double n = exponent.getLow();
+        if (exponent.isPoint() && n == Math.rint(n)) {
+            return integerPower(base, n);
+        } else if (base.getLow() < 0) {
+            return Interval.error(ErrorCode.NOT_REAL);
+        }
+        double a = base.getLow(), b = base.getHigh(), c = exponent.getLow(), d = exponent.getHigh();
+        double lo = Math.min(Math.min(powLower(a, c), powLower(a, d)), Math.min(powLower(b, c), powLower(b, d)));
+        double hi = Math.max(Math.max(powUpper(a, c), powUpper(a, d)), Math.max(powUpper(b, c), powUpper(b, d)));
+        return Interval.of(lo, hi);
+    }
+
+    /**
+     * x ^ n is monotonic where x does not change sign, so only an interval with 0 inside needs more than its bounds
+     */
+    private static Interval integerPower(Interval base, double n){
+        double lo = base.getLow(), hi = base.getHigh();
+        if (n == 0) {
+            return Interval.point(1);
+        }
+        boolean isEven = n % 2 == 0;
+        if (n > 0) {
+            if (!isEven || lo >= 0) {
+                return Interval.of(powLower(lo, n), powUpper(hi, n)); // increasing
+            } else if (hi <= 0) {
+                return Interval.of(powLower(hi, n), powUpper(lo, n)); // decreasing
+            }
+            return Interval.of(0, Math.max(powUpper(lo, n), powUpper(hi, n)));
+        }
+        if (lo > 0 || hi < 0) {
+            return Interval.of(Math.min(powLower(lo, n), powLower(hi, n)), Math.max(powUpper(lo, n), powUpper(hi, n)));
+        } else if (isEven) {
+            return Interval.of(Math.min(powLower(lo, n), powLower(hi, n)), Double.POSITIVE_INFINITY);
+        } else if (lo == 0) {
+            return Interval.of(powLower(hi, n), Double.POSITIVE_INFINITY);
+        } else if (hi == 0) {
+            return Interval.of(Double.NEGATIVE_INFINITY, powUpper(lo, n));
+        }
+        return Interval.of(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * @param result rounded result
+     * @param error exact result minus the rounded result, or its sign. NaN if it is not known
+     * @return biggest double not greater than the exact result
+     */
+    private static double lower(double result, double error){
+        return error >= 0 ? result : Math.nextDown(result);
+    }
+
+    /**
+     * @param result rounded result
+     * @param error exact result minus the rounded result, or its sign. NaN if it is not known
+     * @return smallest double not less than the exact result
+     */
+    private static double upper(double result, double error){
+        return error <= 0 ? result : Math.nextUp(result);
+    }
+
+    /**
+     * TwoSum: exact error of a + b, NaN if the sum overflows
+     */
+    private static double addError(double a, double b, double sum){
+        double rounded = sum - a;
+        return (a - (sum - rounded)) + (b - rounded);
+    }
+
+    private static double addLower(double a, double b){
+        double sum = a + b;
+        return lower(sum, addError(a, b, sum));
+    }
+
+    private static double addUpper(double a, double b){
+        double sum = a + b;
+        return upper(sum, addError(a, b, sum));
+    }
+
+    /**
+     * Exact error of a x b with a fused multiply-add, NaN if the product underflows or overflows. 0 x Infinity is 0
+     */
+    private static double multiplyError(double a, double b, double product){
+        return Math.abs(product) < MIN_EXACT_ERROR ? Double.NaN : Math.fma(a, b, -product);
+    }
+
+    private static double multiplyLower(double a, double b){
+        if (a == 0 || b == 0) {
+            return 0;
+        }
+        double product = a * b;
+        return lower(product, multiplyError(a, b, product));
+    }
+
+    private static double multiplyUpper(double a, double b){
+        if (a == 0 || b == 0) {
+            return 0;
+        }
+        double product = a * b;
+        return upper(product, multiplyError(a, b, product));
+    }
+
+    /**
+     * Sign of the error of a / b: a - q x b is exact, and the exact quotient is q + (a - q x b) / b
+     */
+    private static double divideError(double a, double b, double quotient){
+        if (Math.abs(quotient) < MIN_EXACT_ERROR) {
+            return Double.NaN;
+        }
+        return Math.signum(Math.fma(-quotient, b, a)) * Math.signum(b);
+    }
+
+    private static double divideLower(double a, double b){
+        if (a == 0) {
+            return 0;
+        }
+        double quotient = a / b;
+        return lower(quotient, divideError(a, b, quotient));
+    }
+
+    private static double divideUpper(double a, double b){
+        if (a == 0) {
+            return 0;
+        }
+        double quotient = a / b;
+        return upper(quotient, divideError(a, b, quotient));
+    }
+
+    /**
+     * Sign of the error of the root of x: x - r x r is exact
+     */
+    private static double rootError(double value, double root){
+        return value != 0 && value < MIN_EXACT_ERROR ? Double.NaN : Math.fma(-root, root, value);
+    }
+
+    private static double rootLower(double value){
+        double root = Math.sqrt(value);
+        return lower(root, rootError(value, root));
+    }
+
+    private static double rootUpper(double value){
+        double root = Math.sqrt(value);
+        return upper(root, rootError(value, root));
+    }
+
+    private static double lnLower(double value){
+        double ln = Math.log(value);
+        return value == 1 || value == 0 ? ln : lowerOfMath(ln);
+    }
+
+    private static double lnUpper(double value){
+        double ln = Math.log(value);
+        return value == 1 || value == 0 ? ln : upperOfMath(ln);
+    }
+
+    private static double logLower(double value){
+        double log = Math.log10(value);
+        return isExactLog(value, log) ? log : lowerOfMath(log);
+    }
+
+    private static double logUpper(double value){
+        double log = Math.log10(value);
+        return isExactLog(value, log) ? log : upperOfMath(log);
+    }
+
+    /**
+     * @return [true: log is exact: log of 0 or 10 ^ n (Math.log10 returns n)]
+     */
+    private static boolean isExactLog(double value, double log){
+        return value == 0 || log >= 0 && log < POWERS_OF_TEN.length && log == Math.rint(log) && POWERS_OF_TEN[(int) log] == value;
+    }
+
+    private static double powLower(double base, double exponent){
+        if (exponent == 2) {
+            return multiplyLower(base, base);
+        } else if (exponent == -1 && base != 0) {
+            return divideLower(1, base);
+        } else if (exponent == 0.5 && base >= 0) {
+            return rootLower(base);
+        }
+        double power = Math.pow(base, exponent);
+        return isExactPower(base, exponent, power) ? power : lowerOfMath(power);
+    }
+
+    private static double powUpper(double base, double exponent){
+        if (exponent == 2) {
+            return multiplyUpper(base, base);
+        } else if (exponent == -1 && base != 0) {
+            return divideUpper(1, base);
+        } else if (exponent == 0.5 && base >= 0) {
+            return rootUpper(base);
+        }
+        double power = Math.pow(base, exponent);
+        return isExactPower(base, exponent, power) ? power : upperOfMath(power);
+    }
+
+    /**
+     * @return [true: Math.pow returned the exact power: ^ 0, ^ 1, powers of 0 and Infinity, and integer powers of
+     * integers that are exact doubles]
+     */
+    private static boolean isExactPower(double base, double exponent, double power){
+        return exponent == 0 || exponent == 1 || base == 0 || Double.isInfinite(base)
+                || base == Math.rint(base) && exponent == Math.rint(exponent) && exponent > 0 && Math.abs(power) < MAX_EXACT_POWER;
+    }
+
+    /**
+     * @return lower bound of a Math function result within 1 ulp: two doubles down, as the double below a power of
+     * two is only half an ulp away
+     */
+    private static double lowerOfMath(double result){
+        return Math.nextDown(Math.nextDown(result));
+    }
+
+    /**
+     * @return upper bound of a Math function result within 1 ulp
+     */
+    private static double upperOfMath(double result){
+        return Math.nextUp(Math.nextUp(result));
+    }
+
+    /**
+     * The text always contains the interval. In order: a number whose own interval contains it (ex: 0.1), [lo,hi] when
+     * a bound is infinite (ex: [0,∞]), or middle±radius with the middle rounded to as many digits after decimal as fit and
+     * the radius rounded to one or two digits, whichever fits with the smallest radius (ex: 0.3333333±4E-8).
+     */
+    @Override
+    public String format(Interval value){
+        double lo = value.getLow(), hi = value.getHigh();
+        if (Double.isNaN(lo) || Double.isNaN(hi)) {
+            return "NaN";
+        } else if (lo == hi && Double.isInfinite(lo)) {
+            return lo > 0 ? "Infinity" : "-Infinity";
+        } else if (Double.isInfinite(lo) || Double.isInfinite(hi)) {
+            return formatBounds(lo, hi);
+        }
+        BigDecimal exactLo = new BigDecimal(lo), exactHi = new BigDecimal(hi);
+        BigDecimal mid = exactLo.add(exactHi).divide(BigDecimal.valueOf(2)); // exact: ends in 5 at most
+        if (mid.abs().compareTo(BigDecimal.valueOf(DisplayFormatter.MAX_VALUE)) > 0) {
+            return null;
+        }
+        String number = DISPLAY_FORMATTER.get().format(mid.doubleValue());
+        if (isShownBy(number, value)) {
+            return number;
+        }
+        String best = null;
+        BigDecimal bestRadius = null;
+        for (int decimals = DisplayFormatter.MAX_DECIMALS; decimals >= 0; decimals--) {
+            BigDecimal roundedMid = mid.setScale(decimals, RoundingMode.HALF_EVEN);
+            BigDecimal distance = exactHi.subtract(roundedMid).max(roundedMid.subtract(exactLo));
+            // the text is parsed outward, so a radius rounded down often still contains the interval (ex: 1±0.1)
+            for (MathContext rounding : RADIUS_ROUNDINGS) {
+                BigDecimal radius = distance.round(rounding);
+                String text = fixed(roundedMid) + "±" + radiusText(radius);
+                if ((bestRadius == null || radius.compareTo(bestRadius) < 0) && text.length() <= DisplayFormatter.MAX_LENGTH
+                        && isShownBy(text, value)) {
+                    best = text;
+                    bestRadius = radius;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return [true: the interval of the text contains the value]
+     */
+    private static boolean isShownBy(String text, Interval value){
+        Interval shown = Interval.parse(text);
+        return shown != null && shown.getLow() <= value.getLow() && value.getHigh() <= shown.getHigh();
+    }
+
+    /**
+     * @return [lo,hi] with finite bounds rounded outward to as many digits after decimal as fit, null if none fit
+     */
+    private static String formatBounds(double lo, double hi){
+        for (int decimals = DisplayFormatter.MAX_DECIMALS; decimals >= 0; decimals--) {
+            String text = "[" + boundText(lo, decimals, RoundingMode.FLOOR) + "," + boundText(hi, decimals, RoundingMode.CEILING) + "]";
+            if (text.length() <= DisplayFormatter.MAX_LENGTH) {
+                return text;
+            }
+        }
+        return null;
+    }
+
+    private static String boundText(double bound, int decimals, RoundingMode rounding){
+        if (Double.isInfinite(bound)) {
+            return bound > 0 ? "∞" : "-∞";
+        }
+        return fixed(new BigDecimal(bound).setScale(decimals, rounding));
+    }
+
+    /**
+     * @return value without trailing zeros or -0
+     */
+    private static String fixed(BigDecimal value){
+        return value.signum() == 0 ? "0" : value.stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * @return radius of one digit: plain (ex: 0.05), or with exponent if that is shorter (ex: 4E-8)
+     */
+    private static String radiusText(BigDecimal radius){
+        BigDecimal stripped = radius.stripTrailingZeros();
+        String plain = fixed(stripped);
+        String scientific = stripped.unscaledValue() + "E" + (-stripped.scale());
+        return scientific.length() < plain.length() ? scientific : plain;
+    }
+}
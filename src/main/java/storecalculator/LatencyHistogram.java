@@ -0,0 +1,125 @@
+package storecalculator;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with buckets of about 3% width, same idea as HdrHistogram: each power of two
+ * is split in 32 buckets, so the error of a percentile does not depend on the value. Recording does not lock or
+ * allocate. Thread safe.
+ * @author Yehyun Kim
+ */
+public final class LatencyHistogram {
+    /** Buckets per power of two: 2^5 **/
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Values up to 2^40 ns (about 18 minutes) have their own bucket, bigger values go in the last bucket **/
+    private static final int MAX_BITS = 40;
+    private static final int BUCKETS = (MAX_BITS - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param nanos latency in nanoseconds
+     */
+    public void record(long nanos){
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /**
+     * @return bucket of the value: values below 32 have their own bucket, then 32 buckets per power of two
+     */
+    static int bucketOf(long value){
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int bits = 63 - Long.numberOfLeadingZeros(value); // index of the highest bit, >= SUB_BUCKET_BITS
+        if (bits > MAX_BITS) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (value >>> (bits - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (bits - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return highest value that goes in the bucket
+     */
+    static long highestOf(int bucket){
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int bits = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        long width = 1L << (bits - SUB_BUCKET_BITS);
+        return ((SUB_BUCKETS + subBucket) << (bits - SUB_BUCKET_BITS)) + width - 1;
+    }
+
+    /**
+     * @param percentile percentile between 0 and 100 (ex: 99.9)
+     * @return latency in nanoseconds, highest value of the bucket the percentile is in. 0 if nothing is recorded
+     */
+    public long percentile(double percentile){
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * @return number of recorded values
+     */
+    public long getCount(){
+        return count.sum();
+    }
+
+    /**
+     * @return mean latency in nanoseconds
+     */
+    public double getMean(){
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @return highest recorded latency in nanoseconds
+     */
+    public long getMax(){
+        return max.get();
+    }
+
+    /**
+     * Remove all recorded values
+     */
+    public void reset(){
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+}
@@ -0,0 +1,237 @@
+package storecalculator;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Sends requests to the calculator server from many threads and reports latency percentiles.
+ * <pre>
+ * java -cp target/classes storecalculator.LoadGenerator [--url http://localhost:8080] [--threads 16] [--seconds 10] [--batch n] [--sessions n]
+ * </pre>
+ * Without --url, a server is started on a free local port, with sessions evicted to a temporary directory. With --batch,
+ * every request is a POST to /batch with n operations. With --sessions, every request presses keys on one of n
+ * sessions of /session ("a op b =" on whatever the session shows). Requests of the first seconds (warmup) are not counted.
+ * @author Yehyun Kim
+ */
+public final class LoadGenerator {
+    private static final String[] OPS = {"plus", "minus", "multiply", "divide", "exponent", "ln", "log", "root", "factorial", "percent", "square"};
+    private static final String[] SESSION_OPS = {"plus", "minus", "multiply", "divide"};
+    private static final String USAGE = "Usage: LoadGenerator [--url http://localhost:8080] [--threads n] [--seconds n] [--warmup n] [--batch n] [--sessions n]";
+
+    private LoadGenerator(){
+    }
+
+    /**
+     * @param args options
+     * @throws Exception if the server cannot be started or a thread is interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int threads = 16, seconds = 10, warmup = 2, batch = 0, sessions = 0;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--url" -> url = args[i + 1];
+                case "--threads" -> threads = Integer.parseInt(args[i + 1]);
+                case "--seconds" -> seconds = Integer.parseInt(args[i + 1]);
+                case "--warmup" -> warmup = Integer.parseInt(args[i + 1]);
+                case "--batch" -> batch = Integer.parseInt(args[i + 1]);
+                case "--sessions" -> sessions = Integer.parseInt(args[i + 1]);
+                default -> {
+                    System.err.println(USAGE);
+                    System.exit(2);
+                }
+            }
+        }
+        CalculatorServer server = null;
+        if (url == null) {
+            CalculatorServer.useTcpNoDelay();
+            server = new CalculatorServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                    new SessionManager(Files.createTempDirectory("storecalculator-sessions"), SessionManager.DEFAULT_IDLE_MILLIS));
+            server.start();
+            url = "http://localhost:" + server.getPort();
+            System.err.println("Started server on " + url + (server.isVirtualThreads() ? " (virtual threads)" : ""));
+        }
+        try {
+            System.out.println(run(url, threads, warmup, seconds, batch, sessions));
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    /**
+     * Send requests until the time is over
+     * @param url address of the server
+     * @param threads number of threads sending requests
+     * @param warmup seconds before latencies are recorded
+     * @param seconds seconds of recorded requests
+     * @param batch operations per request, 0 for single requests to /calc
+     * @param sessions number of sessions of /session to send the requests to, 0 for /calc or /batch
+     * @return latencies of the recorded requests
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public static Result run(String url, int threads, int warmup, int seconds, int batch, int sessions) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long start = System.nanoTime();
+        long recordFrom = start + warmup * 1_000_000_000L;
+        long end = recordFrom + seconds * 1_000_000_000L;
+        Worker[] workers = new Worker[threads];
+        Thread[] running = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(client, url, batch, sessions, new Random(42 + i), recordFrom, end);
+            running[i] = new Thread(workers[i], "load-" + i);
+            running[i].start();
+        }
+        int count = 0, errors = 0;
+        for (int i = 0; i < threads; i++) {
+            running[i].join();
+            count += workers[i].count;
+            errors += workers[i].errors;
+        }
+        long[] latencies = new long[count];
+        int pos = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, pos, worker.count);
+            pos += worker.count;
+        }
+        Arrays.sort(latencies);
+        return new Result(latencies, errors, seconds, sessions > 0 ? 4 : Math.max(1, batch));
+    }
+
+    /**
+     * Thread sending one request after another
+     */
+    private static final class Worker implements Runnable {
+        private final HttpClient client;
+        private final String url;
+        private final int batch;
+        private final int sessions;
+        private final Random random;
+        private final long recordFrom, end;
+        private long[] latencies = new long[1024];
+        private int count, errors;
+
+        Worker(HttpClient client, String url, int batch, int sessions, Random random, long recordFrom, long end){
+            this.client = client;
+            this.url = url;
+            this.batch = batch;
+            this.sessions = sessions;
+            this.random = random;
+            this.recordFrom = recordFrom;
+            this.end = end;
+        }
+
+        @Override
+        public void run(){
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                HttpRequest request = sessions > 0 ? HttpRequest.newBuilder(URI.create(url + "/session?" + nextSessionQuery())).POST(HttpRequest.BodyPublishers.noBody()).build()
+                        : batch == 0 ? HttpRequest.newBuilder(URI.create(url + "/calc?" + nextQuery())).GET().build()
+                        : HttpRequest.newBuilder(URI.create(url + "/batch")).POST(HttpRequest.BodyPublishers.ofString(nextBatch())).build();
+                boolean ok;
+                try {
+                    ok = client.send(request, HttpResponse.BodyHandlers.ofByteArray()).statusCode() < 500;
+                } catch (IOException exception) {
+                    ok = false;
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long latency = System.nanoTime() - now;
+                if (now < recordFrom) {
+                    continue;
+                }
+                if (!ok) {
+                    errors++;
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = latency;
+            }
+        }
+
+        private String nextQuery(){
+            String op = OPS[random.nextInt(OPS.length)];
+            return "op=" + op + "&a=" + (1 + random.nextInt(15)) + "&b=" + (1 + random.nextInt(100));
+        }
+
+        private String nextSessionQuery(){
+            return "id=s" + random.nextInt(sessions) + "&keys=" + (1 + random.nextInt(9)) + ","
+                    + SESSION_OPS[random.nextInt(SESSION_OPS.length)] + "," + (1 + random.nextInt(9)) + ",equal";
+        }
+
+        private String nextBatch(){
+            StringBuilder json = new StringBuilder(batch * 32).append('[');
+            for (int i = 0; i < batch; i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append("{\"op\":\"").append(OPS[random.nextInt(OPS.length)]).append("\",\"a\":").append(1 + random.nextInt(15))
+                        .append(",\"b\":").append(1 + random.nextInt(100)).append('}');
+            }
+            return json.append(']').toString();
+        }
+    }
+
+    /**
+     * Latencies of the recorded requests
+     */
+    public static final class Result {
+        /** Sorted latencies in nanoseconds **/
+        private final long[] latencies;
+        private final int errors;
+        private final int seconds;
+        private final int operationsPerRequest;
+
+        Result(long[] latencies, int errors, int seconds, int operationsPerRequest){
+            this.latencies = latencies;
+            this.errors = errors;
+            this.seconds = seconds;
+            this.operationsPerRequest = operationsPerRequest;
+        }
+
+        /**
+         * @param percentile percentile between 0 and 100 (ex: 99.9)
+         * @return latency in nanoseconds
+         */
+        public long percentile(double percentile){
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(latencies.length - 1, index))];
+        }
+
+        /**
+         * @return number of recorded requests
+         */
+        public int getRequests(){
+            return latencies.length;
+        }
+
+        /**
+         * @return number of requests that failed
+         */
+        public int getErrors(){
+            return errors;
+        }
+
+        @Override
+        public String toString(){
+            double perSecond = (double) latencies.length / seconds;
+            return String.format("%d requests (%d errors), %.0f requests/s, %.0f operations/s%np50 %.1f us, p99 %.1f us, p999 %.1f us, max %.1f us",
+                    latencies.length, errors, perSecond, perSecond * operationsPerRequest,
+                    percentile(50) / 1e3, percentile(99) / 1e3, percentile(99.9) / 1e3, percentile(100) / 1e3);
+        }
+    }
+}
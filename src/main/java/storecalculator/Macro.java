@@ -0,0 +1,428 @@
+package storecalculator;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Recorded buttons of a calculator session, replayed on a new CalculatorSession without the GUI to check that the
+ * screen ends the same. Each button is one byte (its CalculatorSession.Key code), so a million keystrokes take 1 MB.
+ * File: magic, version, start state (precision mode, selected operator, disabled buttons, number mode, stored values), events,
+ * screen and error label at the end. Events are key codes, CANCEL when the result of the previous function was dropped
+ * because a newer button came first, TEXT followed by a value put on the screen from the history or chain window, and
+ * CONVERT followed by the factors and offsets of a unit conversion, so the replay converts with the recorded rates.
+ * Immutable.
+ * @author Yehyun Kim
+ */
+public final class Macro {
+    private static final int MAGIC = 0x4B455953; // "KEYS"
+    /**
+     * 2: a digit after a recalled value starts a new value, as after the result of equal. 3: CONVERT events. 4: number
+     * mode at the start
+     */
+    private static final int VERSION = 4;
+    /** Oldest version the replay reads the same way **/
+    private static final int OLDEST_VERSION = 2;
+    /** Event codes after the key codes **/
+    static final byte CANCEL = (byte) 0xFE, TEXT = (byte) 0xFD, CONVERT = (byte) 0xFC;
+    /** Bytes after CONVERT: factor and offset of both units **/
+    private static final int CONVERT_LENGTH = 4 * Double.BYTES;
+
+    private final int precisionModeIndex;
+    private final NumberMode numberMode;
+    /** Selected operator at the start, null if none **/
+    private final CalculatorEngine.Op selectedOp;
+    private final boolean functionsDisabled, deleteDisabled;
+    private final String[] storedValues;
+    private final byte[] events;
+    /** Screen and error label at the end of the recording **/
+    private final String screenText, errorText;
+
+    private Macro(int precisionModeIndex, NumberMode numberMode, CalculatorEngine.Op selectedOp, boolean functionsDisabled,
+                  boolean deleteDisabled, String[] storedValues, byte[] events, String screenText, String errorText){
+        this.precisionModeIndex = precisionModeIndex;
+        this.numberMode = numberMode;
+        this.selectedOp = selectedOp;
+        this.functionsDisabled = functionsDisabled;
+        this.deleteDisabled = deleteDisabled;
+        this.storedValues = storedValues;
+        this.events = events;
+        this.screenText = screenText;
+        this.errorText = errorText;
+    }
+
+    /**
+     * Read macro file
+     * @param path file written by write
+     * @return macro
+     * @throws IOException if the file cannot be read or is not a macro file
+     */
+    public static Macro read(Path path) throws IOException {
+        // whole file in memory (1 MB per million keys): available() is then the exact number of bytes left
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a macro file: " + path);
+            }
+            int version = in.readInt();
+            if (version < OLDEST_VERSION || version > VERSION) {
+                throw new IOException("Macro file version " + version + " is not supported: " + path);
+            }
+            int precisionModeIndex = in.readUnsignedByte();
+            int op = in.readByte();
+            int disabled = in.readUnsignedByte();
+            int numberMode = version >= 4 ? in.readUnsignedByte() : 0;
+            String[] storedValues = new String[CalculatorSession.STORED_VALUES];
+            for (int i = 0; i < storedValues.length; i++) {
+                storedValues[i] = in.readUTF();
+            }
+            int eventBytes = in.readInt();
+            if (eventBytes < 0 || eventBytes > in.available()) { // corrupt or truncated: don't allocate what isn't there
+                throw new IOException("Not a macro file: " + path);
+            }
+            byte[] events = new byte[eventBytes];
+            in.readFully(events);
+            String screenText = in.readUTF();
+            String errorText = in.readUTF();
+            if (precisionModeIndex >= CalculatorSession.precisionModes() || op >= CalculatorEngine.Op.values().length
+                    || numberMode >= NumberMode.values().length || !isValid(events)) {
+                throw new IOException("Not a macro file: " + path);
+            }
+            return new Macro(precisionModeIndex, NumberMode.values()[numberMode], op < 0 ? null : CalculatorEngine.Op.values()[op],
+                    (disabled & 1) != 0, (disabled & 2) != 0, storedValues, events, screenText, errorText);
+        }
+    }
+
+    private static boolean isValid(byte[] events){
+        for (int i = 0; i < events.length; i++) {
+            if (events[i] == TEXT) {
+                if (i + 2 >= events.length) {
+                    return false;
+                }
+                i += 2 + textLength(events, i + 1);
+                if (i >= events.length) {
+                    return false;
+                }
+            } else if (events[i] == CONVERT) {
+                i += CONVERT_LENGTH;
+                if (i >= events.length) {
+                    return false;
+                }
+            } else if (events[i] != CANCEL && (events[i] < 0 || events[i] >= CalculatorSession.Key.count())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int textLength(byte[] events, int at){
+        return (events[at] & 0xFF) << 8 | events[at + 1] & 0xFF;
+    }
+
+    /**
+     * Write macro file
+     * @param path file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeByte(precisionModeIndex);
+            out.writeByte(selectedOp == null ? -1 : selectedOp.ordinal());
+            out.writeByte((functionsDisabled ? 1 : 0) | (deleteDisabled ? 2 : 0));
+            out.writeByte(numberMode.ordinal());
+            for (String value : storedValues) {
+                out.writeUTF(value);
+            }
+            out.writeInt(events.length);
+            out.write(events);
+            out.writeUTF(screenText);
+            out.writeUTF(errorText);
+        }
+    }
+
+    /**
+     * Replay the buttons on a new session. Functions the recording calculated in the background are calculated at
+     * once, and dropped where the recording dropped them.
+     * @return screen at the end and time of the replay
+     */
+    public Result replay(){
+        CalculatorSession session = new CalculatorSession();
+        session.setPrecisionModeIndex(precisionModeIndex);
+        session.setNumberMode(numberMode);
+        session.setSelectedOp(selectedOp);
+        session.setDisabled(functionsDisabled, deleteDisabled);
+        session.setStoredValues(storedValues);
+        Background background = new Background();
+        session.setBackground(background);
+        long start = System.nanoTime();
+        long keys = 0;
+        for (int i = 0; i < events.length; ) {
+            byte code = events[i++];
+            if (code == TEXT) {
+                int length = textLength(events, i);
+                session.retrieve(new String(events, i + 2, length, StandardCharsets.UTF_8));
+                i += 2 + length;
+            } else if (code == CONVERT) {
+                ByteBuffer factors = ByteBuffer.wrap(events, i, CONVERT_LENGTH);
+                session.convert(new ConversionTable.Conversion("", "", factors.getDouble(), factors.getDouble(),
+                        factors.getDouble(), factors.getDouble()));
+                i += CONVERT_LENGTH;
+            } else if (code != CANCEL) {
+                session.press(CalculatorSession.Key.of(code));
+                keys++;
+                if (background.calculation != null) {
+                    Supplier<String> calculation = background.calculation;
+                    background.calculation = null;
+                    if (i < events.length && events[i] == CANCEL) {
+                        i++; // a newer button came before the result
+                    } else {
+                        try {
+                            session.functionCalculated(calculation.get());
+                        } catch (RuntimeException exception) {
+                            session.functionFailed(exception);
+                        }
+                    }
+                }
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        return new Result(screenText, session.getScreenText(), session.getErrorText(), keys, nanos);
+    }
+
+    /**
+     * Keeps the calculation the session gives to the background, so the replay runs it before the next event
+     */
+    private static final class Background implements Consumer<Supplier<String>> {
+        private Supplier<String> calculation;
+
+        @Override
+        public void accept(Supplier<String> calculation){
+            this.calculation = calculation;
+        }
+    }
+
+    /**
+     * @return screen at the end of the recording
+     */
+    public String getScreenText(){
+        return screenText;
+    }
+
+    /**
+     * @return error label at the end of the recording
+     */
+    public String getErrorText(){
+        return errorText;
+    }
+
+    /**
+     * @return number of recorded events (keys, dropped results and values from other windows)
+     */
+    public int getEventCount(){
+        int count = 0;
+        for (int i = 0; i < events.length; i++) {
+            if (events[i] == TEXT) {
+                i += 2 + textLength(events, i + 1);
+            } else if (events[i] == CONVERT) {
+                i += CONVERT_LENGTH;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Records the buttons of a session. Start it on a cleared session: the state before the recording is not kept
+     * except the precision and number mode, selected operator, disabled buttons and stored values.
+     * Not thread safe.
+     */
+    public static final class Recorder {
+        private final int precisionModeIndex;
+        private final NumberMode numberMode;
+        private final CalculatorEngine.Op selectedOp;
+        private final boolean functionsDisabled, deleteDisabled;
+        private final String[] storedValues = new String[CalculatorSession.STORED_VALUES];
+        private byte[] events = new byte[256];
+        private int size;
+
+        /**
+         * @param session session to record, cleared with the AC button
+         */
+        public Recorder(CalculatorSession session){
+            precisionModeIndex = session.getPrecisionModeIndex();
+            numberMode = session.getNumberMode();
+            selectedOp = session.getSelectedOp();
+            functionsDisabled = session.isDisabled(CalculatorSession.Key.PLUS);
+            deleteDisabled = session.isDisabled(CalculatorSession.Key.DELETE);
+            for (int i = 0; i < storedValues.length; i++) {
+                storedValues[i] = session.getStoredValue(i);
+            }
+        }
+
+        /**
+         * @param key pressed button, recorded before the session applies it
+         */
+        public void record(CalculatorSession.Key key){
+            add((byte) key.ordinal());
+        }
+
+        /**
+         * Record that the result of the last function was dropped because a newer button came first
+         */
+        public void recordCancel(){
+            add(CANCEL);
+        }
+
+        /**
+         * @param text value put on the screen from the history or chain window
+         */
+        public void recordText(String text){
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            int length = Math.min(bytes.length, 0xFFFF);
+            add(TEXT);
+            add((byte) (length >>> 8));
+            add((byte) length);
+            for (int i = 0; i < length; i++) {
+                add(bytes[i]);
+            }
+        }
+
+        /**
+         * @param conversion unit conversion applied to the value on the screen
+         */
+        public void recordConversion(ConversionTable.Conversion conversion){
+            add(CONVERT);
+            for (double value : new double[]{conversion.getFromFactor(), conversion.getFromOffset(), conversion.getToFactor(), conversion.getToOffset()}) {
+                long bits = Double.doubleToLongBits(value);
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    add((byte) (bits >>> shift));
+                }
+            }
+        }
+
+        private void add(byte event){
+            if (size == events.length) {
+                events = Arrays.copyOf(events, size * 2);
+            }
+            events[size++] = event;
+        }
+
+        /**
+         * @param session recorded session, for the screen at the end
+         * @return macro of the recorded buttons
+         */
+        public Macro finish(CalculatorSession session){
+            return new Macro(precisionModeIndex, numberMode, selectedOp, functionsDisabled, deleteDisabled, storedValues.clone(),
+                    Arrays.copyOf(events, size), session.getScreenText(), session.getErrorText());
+        }
+    }
+
+    /**
+     * Screen at the end of a replay and time it took
+     */
+    public static final class Result {
+        /** Screen at the end of the recording **/
+        private final String recordedScreenText;
+        private final String screenText, errorText;
+        private final long keys;
+        private final long nanos;
+
+        private Result(String recordedScreenText, String screenText, String errorText, long keys, long nanos){
+            this.recordedScreenText = recordedScreenText;
+            this.screenText = screenText;
+            this.errorText = errorText;
+            this.keys = keys;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return screen at the end of the replay
+         */
+        public String getScreenText(){
+            return screenText;
+        }
+
+        /**
+         * @return error label at the end of the replay
+         */
+        public String getErrorText(){
+            return errorText;
+        }
+
+        /**
+         * @return [true: replay ends with the recorded screen]
+         */
+        public boolean isMatch(){
+            return screenText.equals(recordedScreenText);
+        }
+
+        /**
+         * @return number of replayed keys
+         */
+        public long getKeys(){
+            return keys;
+        }
+
+        /**
+         * @return time of the replay in nanoseconds
+         */
+        public long getNanos(){
+            return nanos;
+        }
+
+        /**
+         * @return replayed keys per second
+         */
+        public double keysPerSecond(){
+            return nanos == 0 ? 0 : keys * 1e9 / nanos;
+        }
+    }
+
+    /**
+     * Replay a macro file and check the screen at the end: Macro file.keys [--repeat n]
+     * @param args macro file, and number of replays to measure keys per second
+     */
+    public static void main(String[] args){
+        if (args.length != 1 && (args.length != 3 || !args[1].equals("--repeat"))) {
+            System.err.println("Usage: Macro file.keys [--repeat n]");
+            System.exit(2);
+        }
+        Macro macro;
+        int repeat;
+        try {
+            macro = read(Path.of(args[0]));
+            repeat = args.length == 3 ? Integer.parseInt(args[2]) : 1;
+        } catch (IOException | NumberFormatException exception) {
+            System.err.println(exception.getMessage());
+            System.exit(2);
+            return;
+        }
+        Result result = null;
+        long keys = 0, nanos = 0;
+        for (int i = 0; i < repeat; i++) {
+            result = macro.replay();
+            keys += result.getKeys();
+            nanos += result.getNanos();
+        }
+        System.out.printf("%d keys x %d in %.1f ms: %.2fM keys/s%n", result == null ? 0 : result.getKeys(), repeat,
+                nanos / 1e6, nanos == 0 ? 0 : keys * 1e3 / nanos);
+        System.out.println("recorded: " + macro.screenText + (macro.errorText.isEmpty() ? "" : " (" + macro.errorText + ")"));
+        if (result != null) {
+            System.out.println("replayed: " + result.screenText + (result.errorText.isEmpty() ? "" : " (" + result.errorText + ")"));
+            if (!result.isMatch()) {
+                System.out.println("MISMATCH");
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package storecalculator;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Number of calls, errors and latency of one instrumented operation. Recording does nothing when instrumentation is
+ * disabled. Thread safe.
+ * @author Yehyun Kim
+ */
+public final class Metric {
+    private final String name;
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    Metric(String name){
+        this.name = name;
+    }
+
+    /**
+     * Record a call that started at the time
+     * @param startNanos value of Instrumentation.start() when the call started
+     */
+    public void record(long startNanos){
+        if (!Instrumentation.ENABLED) {
+            return;
+        }
+        long nanos = System.nanoTime() - startNanos;
+        histogram.record(nanos);
+        if (Instrumentation.EVENT_TYPE.isEnabled()) {
+            OperationEvent event = new OperationEvent();
+            event.operation = name;
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Record a call that started at the time and failed
+     * @param startNanos value of Instrumentation.start() when the call started
+     */
+    public void recordError(long startNanos){
+        if (!Instrumentation.ENABLED) {
+            return;
+        }
+        errors.increment();
+        record(startNanos);
+    }
+
+    /**
+     * @return name of the operation
+     */
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * @return number of calls
+     */
+    public long getCount(){
+        return histogram.getCount();
+    }
+
+    /**
+     * @return number of failed calls
+     */
+    public long getErrors(){
+        return errors.sum();
+    }
+
+    /**
+     * @return latencies of the calls
+     */
+    public LatencyHistogram getHistogram(){
+        return histogram;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("%-16s %8d %6d %8.1f %8.1f %8.1f", name, getCount(), getErrors(),
+                histogram.percentile(50) / 1e3, histogram.percentile(99) / 1e3, histogram.getMax() / 1e3);
+    }
+}
@@ -0,0 +1,66 @@
+package storecalculator;
+
+import java.math.BigDecimal;
+
+/**
+ * Values, operators and functions of a number type other than real numbers (see NumberMode). Like double mode,
+ * failed calculations do not throw: the value carries the error NaN of an ErrorCode, found with error.
+ * Implementations can be used from any thread.
+ * @param <T> value type, immutable
+ * @author Yehyun Kim
+ */
+public interface NumberArithmetic<T> {
+    /**
+     * @param value real number
+     * @return value of the number
+     */
+    T of(double value);
+
+    /**
+     * @param typed number typed with the digit buttons or read from a file
+     * @return value of the number
+     */
+    T of(BigDecimal typed);
+
+    /**
+     * @param text screen text, lossless text of toString, or a real number
+     * @return value of the text, null if it is not a value of this type
+     */
+    T parse(String text);
+
+    /**
+     * Format value to the text shown on the calculator screen, at most DisplayFormatter.MAX_LENGTH characters
+     * @param value value without error
+     * @return value to user friendly string, null if it does not fit on the screen
+     */
+    String format(T value);
+
+    /**
+     * Calculates value
+     * @param op operator
+     * @param num1 stored value
+     * @param num2 current value
+     * @return calculated value, carrying an error if it failed
+     */
+    T apply(CalculatorEngine.Op op, T num1, T num2);
+
+    /**
+     * Calculates value of function with one operand
+     * @param op function
+     * @param value current value
+     * @return calculated value, carrying an error if it failed
+     */
+    T apply(CalculatorEngine.UnaryOp op, T value);
+
+    /**
+     * @param value calculated value
+     * @return error carried by the value, null if there is none
+     */
+    ErrorCode error(T value);
+
+    /**
+     * @param value value
+     * @return value as a real number, NaN if it is not exactly one (ex: 2i, [1, 2])
+     */
+    double realValue(T value);
+}
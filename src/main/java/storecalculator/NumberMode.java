@@ -0,0 +1,114 @@
+package storecalculator;
+
+/**
+ * Number type of double mode: real numbers on CalculatorEngine, or complex numbers and intervals with their own value
+ * type and engine. The real mode has no arithmetic object: it calculates doubles directly, so the other modes add no
+ * branch or allocation to it.
+ * @author Yehyun Kim
+ */
+public enum NumberMode {
+    REAL("Real", null),
+    COMPLEX("Complex", new ComplexEngine()),
+    INTERVAL("Interval", new IntervalEngine());
+
+    private static final NumberMode[] MODES = values();
+
+    /** Name shown on the mode button **/
+    private final String name;
+    /** Values, operators and functions of the mode, null for real numbers **/
+    private final NumberArithmetic<?> arithmetic;
+
+    NumberMode(String name, NumberArithmetic<?> arithmetic){
+        this.name = name;
+        this.arithmetic = arithmetic;
+    }
+
+    /**
+     * @return name shown on the mode button
+     */
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * @return values, operators and functions of the mode, null for real numbers (see CalculatorEngine)
+     */
+    public NumberArithmetic<?> arithmetic(){
+        return arithmetic;
+    }
+
+    /**
+     * @return mode after this one, real after the last
+     */
+    public NumberMode next(){
+        return MODES[(ordinal() + 1) % MODES.length];
+    }
+
+    /**
+     * @param name name of the mode, any case (ex: complex)
+     * @return mode with the name
+     * @throws IllegalArgumentException if there is no mode with the name
+     */
+    public static NumberMode of(String name){
+        for (NumberMode mode : MODES) {
+            if (mode.name.equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown mode: " + name);
+    }
+
+    /**
+     * @param text value on the screen, a stored value or a history row
+     * @return [true: text is a value of the mode (ex: 1+2i is not a real number)]
+     */
+    public boolean accepts(String text){
+        return arithmetic == null ? isNumber(text, 0, text.length()) : arithmetic.parse(text) != null;
+    }
+
+    /**
+     * Check text before Double.parseDouble, so text that is not a number is found without an exception
+     * @param text text
+     * @param from first character (inclusive)
+     * @param to last character (exclusive)
+     * @return [true: decimal number with optional sign and exponent (ex: -1.5E-3), Infinity or NaN]
+     */
+    static boolean isNumber(String text, int from, int to){
+        int i = from;
+        if (i < to && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            i++;
+        }
+        if (text.startsWith("Infinity", i)) {
+            return i + 8 == to;
+        } else if (text.startsWith("NaN", from)) {
+            return from + 3 == to;
+        }
+        boolean hasDigit = false, hasDecimal = false;
+        for (; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hasDigit = true;
+            } else if (c == '.' && !hasDecimal) {
+                hasDecimal = true;
+            } else {
+                break;
+            }
+        }
+        if (!hasDigit) {
+            return false;
+        }
+        if (i < to && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            if (i < to && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                i++;
+            }
+            if (i == to) {
+                return false;
+            }
+            while (i < to && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+                i++;
+            }
+        }
+        return i == to;
+    }
+}
@@ -0,0 +1,27 @@
+package storecalculator;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one instrumented operation (ex: calculate +, format, equal button).
+ * Enable with java -XX:StartFlightRecording -Dstorecalculator.stats=true
+ * @author Yehyun Kim
+ */
+@Name("storecalculator.Operation")
+@Label("Calculator Operation")
+@Category("StoreCalculator")
+@Description("Operation of the calculator and the time it took")
+@StackTrace(false)
+final class OperationEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long nanos;
+}
@@ -0,0 +1,158 @@
+package storecalculator;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Operators and values applied one after another from left to right, same as pressing the operator buttons
+ * (ex: "x 1.07 ^ 2 - 5" on 10 is ((10 x 1.07) ^ 2) - 5). Immutable.
+ * @author Yehyun Kim
+ */
+public final class OperatorChain {
+    private static final OperatorChain EMPTY = new OperatorChain(new CalculatorEngine.Op[0], new double[0]);
+
+    /** Operator of each step **/
+    private final CalculatorEngine.Op[] ops;
+    /** Value of each step **/
+    private final double[] operands;
+
+    private OperatorChain(CalculatorEngine.Op[] ops, double[] operands){
+        this.ops = ops;
+        this.operands = operands;
+    }
+
+    /**
+     * @return chain without steps
+     */
+    public static OperatorChain empty(){
+        return EMPTY;
+    }
+
+    /**
+     * @param ops operator of each step, not copied
+     * @param operands value of each step, not copied
+     * @return chain with the steps
+     */
+    static OperatorChain of(CalculatorEngine.Op[] ops, double[] operands){
+        return new OperatorChain(ops, operands);
+    }
+
+    /**
+     * Parse chain (ex: "x 1.07 ^ 2 - 5"). Operators: +, -, x (or *), / and ^.
+     * @param text operator and value of each step separated by spaces
+     * @return parsed chain
+     */
+    public static OperatorChain parse(String text){
+        String[] tokens = text.trim().isEmpty() ? new String[0] : text.trim().split("\\s+");
+        if (tokens.length % 2 != 0) {
+            throw new IllegalArgumentException("Enter operator and value for each step");
+        }
+        OperatorChain chain = EMPTY;
+        for (int i = 0; i < tokens.length; i += 2) {
+            chain = chain.then(opOf(tokens[i]), Double.parseDouble(tokens[i + 1]));
+        }
+        return chain;
+    }
+
+    /**
+     * @param symbol symbol of operator
+     * @return operator
+     */
+    public static CalculatorEngine.Op opOf(String symbol){
+        CalculatorEngine.Op op = findOp(symbol);
+        if (op == null) {
+            throw new IllegalArgumentException(ErrorCode.UNKNOWN_OPERATOR.getMessage() + " " + symbol);
+        }
+        return op;
+    }
+
+    /**
+     * @param symbol symbol of operator
+     * @return operator, null if the symbol is not an operator
+     */
+    public static CalculatorEngine.Op findOp(String symbol){
+        return switch (symbol) {
+            case "+" -> CalculatorEngine.Op.PLUS;
+            case "-" -> CalculatorEngine.Op.MINUS;
+            case "x", "*", "✖" -> CalculatorEngine.Op.MULTIPLY;
+            case "/", "÷", "➗" -> CalculatorEngine.Op.DIVIDE;
+            case "^" -> CalculatorEngine.Op.EXPONENT;
+            default -> null;
+        };
+    }
+
+    /**
+     * @param op operator
+     * @param operand value
+     * @return new chain with the step added at the end
+     */
+    public OperatorChain then(CalculatorEngine.Op op, double operand){
+        if (op == CalculatorEngine.Op.DIVIDE && operand == 0) {
+            throw ErrorCode.DIVIDE_BY_ZERO.exception();
+        }
+        CalculatorEngine.Op[] newOps = Arrays.copyOf(ops, ops.length + 1);
+        double[] newOperands = Arrays.copyOf(operands, operands.length + 1);
+        newOps[ops.length] = op;
+        newOperands[operands.length] = operand;
+        return new OperatorChain(newOps, newOperands);
+    }
+
+    /**
+     * @param next steps to apply after this chain (ex: a unit conversion)
+     * @return new chain with the steps of next added at the end
+     */
+    public OperatorChain then(OperatorChain next){
+        CalculatorEngine.Op[] newOps = Arrays.copyOf(ops, ops.length + next.ops.length);
+        double[] newOperands = Arrays.copyOf(operands, operands.length + next.operands.length);
+        System.arraycopy(next.ops, 0, newOps, ops.length, next.ops.length);
+        System.arraycopy(next.operands, 0, newOperands, operands.length, next.operands.length);
+        return new OperatorChain(newOps, newOperands);
+    }
+
+    /**
+     * Apply every step to the value
+     * @param value first value
+     * @return calculated value
+     */
+    public double applyTo(double value){
+        for (int i = 0; i < ops.length; i++) {
+            value = CalculatorEngine.apply(ops[i], value, operands[i]);
+        }
+        return value;
+    }
+
+    /**
+     * @return number of steps
+     */
+    public int size(){
+        return ops.length;
+    }
+
+    /**
+     * @param i index of step
+     * @return operator of the step
+     */
+    public CalculatorEngine.Op opAt(int i){
+        return ops[i];
+    }
+
+    /**
+     * @param i index of step
+     * @return value of the step
+     */
+    public double operandAt(int i){
+        return operands[i];
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < ops.length; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(ops[i].getSymbol()).append(' ').append(BigDecimal.valueOf(operands[i]).stripTrailingZeros().toPlainString());
+        }
+        return text.toString();
+    }
+}
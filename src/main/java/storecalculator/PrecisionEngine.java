@@ -0,0 +1,319 @@
+package storecalculator;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Calculator engine on BigDecimal with a user selected MathContext: no binary rounding error (0.1 + 0.2 = 0.3) and no
+ * "Value too big" limit. ln, log and root are calculated to the full precision of the MathContext.
+ * If operands are small integers and the result is exact, it is calculated on long/double without BigDecimal.
+ * ln, log, exp and factorial stop with CancellationException when the current thread is interrupted (see AsyncEvaluator).
+ * Immutable and thread safe.
+ * @author Yehyun Kim
+ */
+public final class PrecisionEngine {
+    /** Biggest integer that is exact both as long and as double (10^15 < 2^53) **/
+    private static final long MAX_EXACT = 999_999_999_999_999L;
+
+    /** Precision and rounding of every result **/
+    private final MathContext mathContext;
+    /** Precision with guard digits for intermediate values of ln and exp **/
+    private final MathContext workContext;
+    /** ln(10) in work precision **/
+    private final BigDecimal ln10;
+    /** Engine for big factorials **/
+    private final FactorialEngine factorialEngine;
+
+    /**
+     * @param mathContext precision and rounding of every result
+     */
+    public PrecisionEngine(MathContext mathContext){
+        this(mathContext, new FactorialEngine());
+    }
+
+    /**
+     * @param mathContext precision and rounding of every result
+     * @param factorialEngine engine for big factorials, can be shared to reuse its checkpoints
+     */
+    public PrecisionEngine(MathContext mathContext, FactorialEngine factorialEngine){
+        if (mathContext.getPrecision() == 0) {
+            throw new IllegalArgumentException("Precision must be limited");
+        }
+        this.mathContext = mathContext;
+        this.factorialEngine = factorialEngine;
+        this.workContext = new MathContext(mathContext.getPrecision() + 10, RoundingMode.HALF_EVEN);
+        this.ln10 = lnReduced(BigDecimal.TEN.sqrt(workContext).sqrt(workContext).sqrt(workContext))
+                .multiply(BigDecimal.valueOf(8), workContext);
+    }
+
+    /**
+     * @return precision and rounding of every result
+     */
+    public MathContext getMathContext(){
+        return mathContext;
+    }
+
+    /**
+     * Calculates value
+     * @param op operator
+     * @param num1 stored value
+     * @param num2 current value
+     * @return calculated value
+     */
+    public BigDecimal apply(CalculatorEngine.Op op, BigDecimal num1, BigDecimal num2){
+        long a = exactLong(num1);
+        long b = exactLong(num2);
+        if (a != Long.MIN_VALUE && b != Long.MIN_VALUE) { // both small integers: try exact fast path
+            double fast = fastApply(op, a, b);
+            if (!Double.isNaN(fast)) {
+                return BigDecimal.valueOf((long) fast).round(mathContext);
+            }
+        }
+        return switch (op) {
+            case PLUS -> num1.add(num2, mathContext);
+            case MINUS -> num1.subtract(num2, mathContext);
+            case MULTIPLY -> num1.multiply(num2, mathContext);
+            case DIVIDE -> {
+                if (num2.signum() == 0) { //if the value need to be divided by 0, throw exception
+                    throw ErrorCode.DIVIDE_BY_ZERO.exception();
+                }
+                yield num1.divide(num2, mathContext);
+            }
+            case EXPONENT -> {
+                try {
+                    yield pow(num1, num2);
+                } catch (ArithmeticException exception) { // exponent of the result does not fit in BigDecimal
+                    throw ErrorCode.VALUE_TOO_BIG.exception();
+                }
+            }
+        };
+    }
+
+    /**
+     * Calculates value of function with one operand
+     * @param op function
+     * @param value current value
+     * @return calculated value
+     */
+    public BigDecimal apply(CalculatorEngine.UnaryOp op, BigDecimal value){
+        return switch (op) {
+            case LN -> ln(value).round(mathContext);
+            case LOG -> log(value);
+            case ROOT -> root(value);
+            case FACTORIAL -> factorial(value);
+            case PERCENT -> value.movePointLeft(2);
+            case SQUARE -> apply(CalculatorEngine.Op.MULTIPLY, value, value);
+        };
+    }
+
+    /**
+     * Result on long arithmetic if it is exact
+     * @return result, NaN if it is not exact or not small enough
+     */
+    private static double fastApply(CalculatorEngine.Op op, long a, long b){
+        switch (op) {
+            case PLUS:
+                return a + b;  // |a + b| < 2^53: exact
+            case MINUS:
+                return a - b;
+            case MULTIPLY:
+                if (Math.abs(a) < (1L << 26) && Math.abs(b) < (1L << 26)) {
+                    return (double) a * b;
+                }
+                return Double.NaN;
+            case DIVIDE:
+                if (b != 0 && a % b == 0) {
+                    return a / b;
+                }
+                return Double.NaN;
+            default:
+                if (b < 0 || b > 64) {
+                    return Double.NaN;
+                }
+                long result = 1;
+                try {
+                    for (int i = 0; i < b; i++) {
+                        result = Math.multiplyExact(result, a); // |result| and |a| up to 10^15: the product can overflow
+                        if (result > MAX_EXACT || result < -MAX_EXACT) { // not Math.abs: negative for Long.MIN_VALUE
+                            return Double.NaN;
+                        }
+                    }
+                } catch (ArithmeticException exception) {
+                    return Double.NaN;
+                }
+                return result;
+        }
+    }
+
+    private BigDecimal pow(BigDecimal base, BigDecimal exponent){
+        if (isInteger(exponent) && exponent.abs().compareTo(BigDecimal.valueOf(999_999_999)) <= 0) {
+            if (base.signum() == 0 && exponent.signum() < 0) {
+                throw ErrorCode.DIVIDE_BY_ZERO.exception();
+            }
+            return base.pow(exponent.intValueExact(), mathContext);
+        }
+        if (base.signum() < 0) {
+            throw new IllegalArgumentException("Enter int exponent for negative value");
+        }
+        if (base.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        return exp(exponent.multiply(ln(base), workContext)).round(mathContext);
+    }
+
+    private BigDecimal log(BigDecimal value){
+        long exact = exactLong(value);
+        if (exact > 0) { // exact power of ten: log is the number of zeros
+            int zeros = 0;
+            while (exact % 10 == 0) {
+                exact /= 10;
+                zeros++;
+            }
+            if (exact == 1) {
+                return BigDecimal.valueOf(zeros);
+            }
+        }
+        return ln(value).divide(ln10, mathContext);
+    }
+
+    private BigDecimal root(BigDecimal value){
+        if (value.signum() < 0) {
+            throw new IllegalArgumentException("Enter positive value");
+        }
+        long exact = exactLong(value);
+        if (exact >= 0) {  // perfect square below 2^53: Math.sqrt is exact
+            long root = (long) Math.sqrt(exact);
+            if (root * root == exact) {
+                return BigDecimal.valueOf(root);
+            }
+        }
+        return value.sqrt(mathContext);
+    }
+
+    private BigDecimal factorial(BigDecimal value){
+        if (!isInteger(value) || value.signum() < 0) {
+            throw ErrorCode.NOT_INT_FACTORIAL.exception();
+        }
+        if (value.compareTo(BigDecimal.valueOf(FactorialEngine.MAX_VALUE)) > 0) {
+            throw ErrorCode.VALUE_TOO_BIG.exception();
+        }
+        return new BigDecimal(factorialEngine.factorial(value.intValueExact())).round(mathContext);
+    }
+
+    /**
+     * Natural logarithm in work precision
+     * @param value positive value
+     * @return ln of the value
+     */
+    private BigDecimal ln(BigDecimal value){
+        if (value.signum() <= 0) {
+            throw new IllegalArgumentException("Enter positive value");
+        }
+        if (value.compareTo(BigDecimal.ONE) == 0) {
+            return BigDecimal.ZERO;
+        }
+        // value = m * 10^k with 1 <= m < 10
+        int k = value.precision() - value.scale() - 1;
+        BigDecimal m = value.movePointLeft(k);
+        // ln(m) = 2^s * ln(m^(1/2^s)) where m^(1/2^s) is close to 1
+        int s = 0;
+        BigDecimal limit = new BigDecimal("1.1");
+        while (m.compareTo(limit) > 0) {
+            AsyncEvaluator.checkCancelled();
+            m = m.sqrt(workContext);
+            s++;
+        }
+        BigDecimal lnM = lnReduced(m).multiply(BigDecimal.valueOf(1L << s), workContext);
+        return lnM.add(ln10.multiply(BigDecimal.valueOf(k), workContext), workContext);
+    }
+
+    /**
+     * ln(m) = 2 * atanh((m - 1) / (m + 1)) for m close to 1
+     */
+    private BigDecimal lnReduced(BigDecimal m){
+        BigDecimal z = m.subtract(BigDecimal.ONE).divide(m.add(BigDecimal.ONE), workContext);
+        BigDecimal z2 = z.multiply(z, workContext);
+        BigDecimal term = z;
+        BigDecimal sum = z;
+        BigDecimal epsilon = BigDecimal.ONE.movePointLeft(workContext.getPrecision() + 2);
+        for (int n = 3; term.abs().compareTo(epsilon) > 0; n += 2) {
+            AsyncEvaluator.checkCancelled();
+            term = term.multiply(z2, workContext);
+            sum = sum.add(term.divide(BigDecimal.valueOf(n), workContext), workContext);
+        }
+        return sum.multiply(BigDecimal.valueOf(2), workContext);
+    }
+
+    /**
+     * e^x in work precision: Taylor series of x / 2^s, then squared s times
+     */
+    private BigDecimal exp(BigDecimal x){
+        if (x.compareTo(BigDecimal.valueOf(999_999_999)) > 0) {
+            throw ErrorCode.VALUE_TOO_BIG.exception();
+        }
+        int s = 0;
+        BigDecimal r = x;
+        while (r.abs().compareTo(new BigDecimal("0.01")) > 0) {
+            r = r.divide(BigDecimal.valueOf(2), workContext);
+            s++;
+        }
+        BigDecimal term = BigDecimal.ONE;
+        BigDecimal sum = BigDecimal.ONE;
+        BigDecimal epsilon = BigDecimal.ONE.movePointLeft(workContext.getPrecision() + 2);
+        for (int n = 1; term.abs().compareTo(epsilon) > 0; n++) {
+            AsyncEvaluator.checkCancelled();
+            term = term.multiply(r, workContext).divide(BigDecimal.valueOf(n), workContext);
+            sum = sum.add(term, workContext);
+        }
+        for (int i = 0; i < s; i++) {
+            AsyncEvaluator.checkCancelled();
+            sum = sum.multiply(sum, workContext);
+        }
+        return sum;
+    }
+
+    /**
+     * Format value to user friendly string that fits on the screen: plain if it fits, otherwise rounded or in
+     * scientific notation (ex: 1.23456789E+20)
+     * @param value calculated value
+     * @return value to user friendly string
+     */
+    public static String format(BigDecimal value){
+        BigDecimal stripped = value.stripTrailingZeros();
+        // plain string has at least max(precision, |scale|) characters: don't build millions of zeros for a big exponent
+        if (Math.max(stripped.precision(), Math.abs((long) stripped.scale())) <= DisplayFormatter.MAX_LENGTH) {
+            String plain = stripped.toPlainString();
+            if (plain.length() <= DisplayFormatter.MAX_LENGTH) {
+                return plain;
+            }
+        }
+        int sign = stripped.signum() < 0 ? 1 : 0;
+        int intDigits = stripped.precision() - stripped.scale();
+        if (intDigits > 0 && intDigits < DisplayFormatter.MAX_LENGTH - sign) { // round digits after decimal to fit
+            return stripped.setScale(DisplayFormatter.MAX_LENGTH - 1 - sign - intDigits, RoundingMode.HALF_UP)
+                    .stripTrailingZeros().toPlainString();
+        }
+        for (int digits = DisplayFormatter.MAX_LENGTH; digits > 1; digits--) {
+            String scientific = stripped.round(new MathContext(digits, RoundingMode.HALF_UP)).stripTrailingZeros().toString();
+            if (scientific.length() <= DisplayFormatter.MAX_LENGTH) {
+                return scientific;
+            }
+        }
+        return stripped.round(new MathContext(1, RoundingMode.HALF_UP)).toString();
+    }
+
+    /**
+     * @return value as long if it is an integer that is exact as long and double, Long.MIN_VALUE if not
+     */
+    private static long exactLong(BigDecimal value){
+        if (value.scale() > 0 || value.precision() - value.scale() > 15) {
+            return Long.MIN_VALUE;
+        }
+        return value.longValue();
+    }
+
+    private static boolean isInteger(BigDecimal value){
+        return value.signum() == 0 || value.scale() <= 0 || value.stripTrailingZeros().scale() <= 0;
+    }
+}
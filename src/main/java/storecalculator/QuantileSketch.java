@@ -0,0 +1,150 @@
+package storecalculator;
+
+/**
+ * Approximate quantiles of a stream of values with relative error, same idea as DDSketch: a value x goes in bucket
+ * ceil(log(|x|) / log(gamma)), one set of buckets for positive and one for negative values, so every quantile is within
+ * 1% of a value of the stream whatever the range of the values. Two sketches merge by adding their counts, so a sketch
+ * merged from parts is the same as a sketch of all values, as long as no buckets were merged.
+ * Buckets are a long array around the used indexes. Past MAX_BUCKETS buckets, the buckets of the smallest magnitudes are
+ * merged, so only quantiles among the values closest to 0 lose accuracy.
+ * Not thread safe.
+ * @author Yehyun Kim
+ */
+public final class QuantileSketch {
+    /** Max relative error of a quantile **/
+    public static final double RELATIVE_ACCURACY = 0.01;
+    /** Max buckets per sign: 1% buckets cover about 140 powers of ten. Only the range of the values is allocated **/
+    private static final int MAX_BUCKETS = 1 << 14;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private final Buckets positive = new Buckets(), negative = new Buckets();
+    /** Values smaller than Double.MIN_NORMAL in magnitude **/
+    private long zeroCount;
+
+    /**
+     * @param value finite value
+     */
+    public void add(double value){
+        if (value >= Double.MIN_NORMAL) {
+            positive.add(indexOf(value), 1);
+        } else if (value <= -Double.MIN_NORMAL) {
+            negative.add(indexOf(-value), 1);
+        } else {
+            zeroCount++;
+        }
+    }
+
+    /**
+     * Add the counts of the other sketch to this one
+     * @param other sketch to merge, not changed
+     */
+    public void merge(QuantileSketch other){
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+    }
+
+    /**
+     * @return number of values
+     */
+    public long getCount(){
+        return positive.total + negative.total + zeroCount;
+    }
+
+    /**
+     * @param quantile quantile between 0 and 1 (ex: 0.99)
+     * @return value within RELATIVE_ACCURACY of the value at the quantile, NaN if there is no value
+     */
+    public double quantile(double quantile){
+        long count = getCount();
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (Math.max(0, Math.min(1, quantile)) * (count - 1)); // index of the value in sorted order
+        if (rank < negative.total) {
+            return -valueOf(negative.indexAtRank(negative.total - 1 - rank)); // most negative first
+        }
+        rank -= negative.total;
+        if (rank < zeroCount) {
+            return 0;
+        }
+        return valueOf(positive.indexAtRank(rank - zeroCount));
+    }
+
+    private static int indexOf(double magnitude){
+        return (int) Math.ceil(Math.log(magnitude) / LOG_GAMMA);
+    }
+
+    /**
+     * @return value of the bucket: within RELATIVE_ACCURACY of every value in it
+     */
+    private static double valueOf(int index){
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    /**
+     * Counts of consecutive bucket indexes, from offset
+     */
+    private static final class Buckets {
+        private long[] counts = new long[0];
+        /** Bucket index of counts[0] **/
+        private int offset;
+        private long total;
+
+        void add(int index, long count){
+            if (counts.length == 0) {
+                counts = new long[64];
+                offset = index - counts.length / 2;
+            }
+            if (index < offset && counts.length < MAX_BUCKETS) {
+                grow(index, offset + counts.length - 1, true);
+            } else if (index >= offset + counts.length) {
+                grow(offset, index, false);
+            }
+            counts[Math.max(index, offset) - offset] += count; // below the merged buckets: smallest bucket
+            total += count;
+        }
+
+        /**
+         * Make room for the indexes from lowest to highest, with spare buckets on the side that grows. Past
+         * MAX_BUCKETS, the lowest buckets are merged into the smallest one kept.
+         */
+        private void grow(int lowest, int highest, boolean isDown){
+            int span = highest - lowest + 1;
+            int length = Math.min(MAX_BUCKETS, Math.max(span, counts.length * 2));
+            int newOffset = isDown || span > length ? highest - length + 1 : lowest;
+            long[] newCounts = new long[length];
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    newCounts[Math.max(offset + i, newOffset) - newOffset] += counts[i];
+                }
+            }
+            counts = newCounts;
+            offset = newOffset;
+        }
+
+        void merge(Buckets other){
+            for (int i = 0; i < other.counts.length; i++) {
+                if (other.counts[i] != 0) {
+                    add(other.offset + i, other.counts[i]);
+                }
+            }
+        }
+
+        /**
+         * @param rank index of the value among the values of the buckets, smallest magnitude first
+         * @return bucket index of the value
+         */
+        int indexAtRank(long rank){
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen > rank) {
+                    return offset + i;
+                }
+            }
+            return offset + counts.length - 1;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package storecalculator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Count, sum, mean, variance, min, max and approximate percentiles of results, updated in O(1) as each result is
+ * stored. Mean and variance use Welford's update, the sum is compensated (Neumaier), and two stats merge exactly
+ * (Chan et al.), so the stats of a big history are calculated in parallel parts and merged.
+ * Results that are not finite (NaN, Infinity) are counted as skipped only.
+ * Not thread safe.
+ * @author Yehyun Kim
+ */
+public final class ResultStats {
+    /** Values per part below which the parts are not split further **/
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    private long count, skipped;
+    /** Sum is sum + compensation: compensation keeps the low bits lost by the additions **/
+    private double sum, compensation;
+    /** Mean and sum of squared differences from the mean **/
+    private double mean, m2;
+    private double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+    private final QuantileSketch sketch = new QuantileSketch();
+
+    /**
+     * @param value result to add
+     */
+    public void add(double value){
+        if (!Double.isFinite(value)) {
+            skipped++;
+            return;
+        }
+        count++;
+        addToSum(value);
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sketch.add(value);
+    }
+
+    private void addToSum(double value){
+        double total = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - total) + value;
+        } else {
+            compensation += (value - total) + sum;
+        }
+        sum = total;
+    }
+
+    /**
+     * Add the results of the other stats to these
+     * @param other stats to merge, not changed
+     */
+    public void merge(ResultStats other){
+        skipped += other.skipped;
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+        addToSum(other.sum);
+        compensation += other.compensation;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sketch.merge(other.sketch);
+    }
+
+    /**
+     * Calculate the stats of the values, in parallel parts on the pool if there are many
+     * @param values results
+     * @param pool pool to calculate the parts on
+     * @return stats of the values
+     */
+    public static ResultStats of(double[] values, ForkJoinPool pool){
+        if (values.length <= PARALLEL_THRESHOLD) {
+            return sequential(values, 0, values.length);
+        }
+        return pool.invoke(new StatsTask(values, 0, values.length));
+    }
+
+    /**
+     * Calculate the stats of every result of the history
+     * @param log history
+     * @param pool pool to calculate the parts on
+     * @return stats of the results
+     */
+    public static ResultStats of(HistoryLog log, ForkJoinPool pool){
+        return of(log.values(0, log.size()), pool);
+    }
+
+    private static ResultStats sequential(double[] values, int from, int to){
+        ResultStats stats = new ResultStats();
+        for (int i = from; i < to; i++) {
+            stats.add(values[i]);
+        }
+        return stats;
+    }
+
+    /**
+     * Split the values in two tasks until they are small enough, then merge the stats of the parts
+     */
+    @SuppressWarnings("serial") // ForkJoinTask is Serializable, tasks are never serialized
+    private static final class StatsTask extends RecursiveTask<ResultStats> {
+        private final double[] values;
+        private final int from, to;
+
+        StatsTask(double[] values, int from, int to){
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ResultStats compute(){
+            if (to - from <= PARALLEL_THRESHOLD) {
+                return sequential(values, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            StatsTask left = new StatsTask(values, from, middle);
+            left.fork();
+            ResultStats right = new StatsTask(values, middle, to).compute();
+            ResultStats stats = left.join();
+            stats.merge(right);
+            return stats;
+        }
+    }
+
+    /**
+     * @return number of finite results
+     */
+    public long getCount(){
+        return count;
+    }
+
+    /**
+     * @return number of results that are not finite
+     */
+    public long getSkipped(){
+        return skipped;
+    }
+
+    /**
+     * @return sum of the results
+     */
+    public double getSum(){
+        return sum + compensation;
+    }
+
+    /**
+     * @return mean of the results, NaN if there is none
+     */
+    public double getMean(){
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * @return sample variance of the results (divided by n - 1), NaN if there are less than 2
+     */
+    public double getVariance(){
+        return count < 2 ? Double.NaN : m2 / (count - 1);
+    }
+
+    /**
+     * @return sample standard deviation of the results, NaN if there are less than 2
+     */
+    public double getStandardDeviation(){
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * @return smallest result, NaN if there is none
+     */
+    public double getMin(){
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * @return biggest result, NaN if there is none
+     */
+    public double getMax(){
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * @param percentile percentile between 0 and 100 (ex: 99)
+     * @return result at the percentile within 1%, NaN if there is none
+     */
+    public double percentile(double percentile){
+        return count == 0 ? Double.NaN : Math.max(min, Math.min(max, sketch.quantile(percentile / 100)));
+    }
+}
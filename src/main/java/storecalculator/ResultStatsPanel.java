@@ -0,0 +1,76 @@
+package storecalculator;
+
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Stage;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Window with the stats of all results in the history: count, sum, mean, standard deviation, min, max and percentiles.
+ * Each value is a button that puts the value on the screen, like a stored value.
+ * @author Yehyun Kim
+ */
+public final class ResultStatsPanel {
+    private static final String[] NAMES = {"Count", "Sum", "Mean", "Std dev", "Min", "Max", "p50", "p90", "p99"};
+    private static final List<ToDoubleFunction<ResultStats>> VALUES = List.of(stats -> stats.getCount(),
+            ResultStats::getSum, ResultStats::getMean, ResultStats::getStandardDeviation, ResultStats::getMin,
+            ResultStats::getMax, stats -> stats.percentile(50), stats -> stats.percentile(90), stats -> stats.percentile(99));
+
+    private final Stage stage = new Stage();
+    private final Button[] valueButtons = new Button[NAMES.length];
+
+    /**
+     * @param onSelect called with the clicked value
+     */
+    public ResultStatsPanel(Consumer<String> onSelect){
+        GridPane grid = new GridPane();
+        grid.setHgap(8);
+        grid.setVgap(4);
+        grid.setPadding(new Insets(5));
+        grid.getStyleClass().add("panel");
+        for (int i = 0; i < NAMES.length; i++) {
+            Label nameLabel = new Label(NAMES[i]);
+            nameLabel.getStyleClass().add("panel-label");
+            Button valueButton = new Button();
+            valueButton.getStyleClass().add("panel-button");
+            valueButton.setPrefWidth(160);
+            valueButton.setOnAction(e -> onSelect.accept(valueButton.getText()));
+            valueButtons[i] = valueButton;
+            grid.addRow(i, nameLabel, valueButton);
+        }
+        stage.setTitle("Stats");
+        Scene scene = new Scene(grid, 250, 290);
+        scene.getStylesheets().add(CalculatorGUI.STYLESHEET);
+        stage.setScene(scene);
+    }
+
+    /**
+     * Show the window with the stats
+     * @param stats stats of the results
+     */
+    public void show(ResultStats stats){
+        update(stats);
+        stage.show();
+        stage.toFront();
+    }
+
+    /**
+     * Show the stats after a result is added
+     * @param stats stats of the results
+     */
+    public void update(ResultStats stats){
+        for (int i = 0; i < NAMES.length; i++) {
+            double value = VALUES.get(i).applyAsDouble(stats);
+            // too big for the screen: shown as no value
+            String text = Double.isNaN(value) || DisplayFormatter.rangeError(value) != null ? "-" : CalculatorGUI.formatNumbersToString(value);
+            valueButtons[i].setText(text);
+            valueButtons[i].setDisable(text.equals("-"));
+        }
+        stage.setTitle("Stats: " + stats.getCount() + " results" + (stats.getSkipped() > 0 ? ", " + stats.getSkipped() + " skipped" : ""));
+    }
+}
@@ -0,0 +1,239 @@
+package storecalculator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Many independent calculators in one JVM (ex: one per kiosk), each a CalculatorSession found by its id.
+ * Sessions are kept in a ConcurrentHashMap, so requests of different sessions never wait for each other, and requests
+ * of the same session run one at a time on the session. Sessions idle longer than the idle time are written to one
+ * small file each in the directory and dropped from memory; the next request of the session reads it back.
+ * Thread safe.
+ * @author Yehyun Kim
+ */
+public final class SessionManager implements Closeable {
+    /** Directory of the evicted sessions **/
+    public static final Path DEFAULT_DIRECTORY = Path.of(System.getProperty("user.home"), ".storecalculator", "sessions");
+    /** Time without requests before a session is written to disk, -Dstorecalculator.session.idle in ms **/
+    public static final long DEFAULT_IDLE_MILLIS = Long.getLong("storecalculator.session.idle", 300_000);
+    /** Ids are file names: letters, digits, '-' and '_' **/
+    private static final Pattern ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private static final Metric LOAD_METRIC = Instrumentation.metric("session load");
+    private static final Metric EVICT_METRIC = Instrumentation.metric("session evict");
+
+    private final ConcurrentHashMap<String, Entry> sessions = new ConcurrentHashMap<>();
+    private final Path directory;
+    private final long idleNanos;
+    /** Shared by all sessions: calculated factorials are reused **/
+    private final FactorialEngine factorialEngine = new FactorialEngine();
+    /** Evicts idle sessions a few times per idle time **/
+    private final ScheduledExecutorService evicter;
+
+    /**
+     * Session in memory with the time of its last request. Requests and eviction lock the entry.
+     */
+    private static final class Entry {
+        private final CalculatorSession session;
+        private volatile long lastAccess = System.nanoTime();
+        /** [True: written to disk and removed from the map, the next request reads it again] **/
+        private boolean evicted;
+
+        Entry(CalculatorSession session){
+            this.session = session;
+        }
+    }
+
+    /**
+     * @param directory directory of the evicted sessions, created when the first session is evicted
+     * @param idleMillis time without requests before a session is written to disk
+     */
+    public SessionManager(Path directory, long idleMillis){
+        if (idleMillis <= 0) {
+            throw new IllegalArgumentException("Idle time must be positive");
+        }
+        this.directory = directory;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        evicter = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "session-evicter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, idleMillis / 4);
+        evicter.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Run the action on the session, alone: other requests of the session wait. A new session is created if the id is
+     * not known.
+     * @param id id of the session (ex: kiosk-12)
+     * @param action what to do with the session (ex: press buttons and read the screen)
+     * @param <T> result of the action
+     * @return result of the action
+     * @throws IllegalArgumentException if the id is not 1 to 64 letters, digits, '-' or '_'
+     * @throws IOException if the evicted session cannot be read
+     */
+    public <T> T apply(String id, Function<CalculatorSession, T> action) throws IOException {
+        checkId(id);
+        while (true) {
+            Entry entry;
+            try {
+                // the file is read while the bin of the id is locked, so a request cannot read it while it is written
+                entry = sessions.computeIfAbsent(id, this::load);
+            } catch (UncheckedIOException exception) {
+                throw exception.getCause();
+            }
+            synchronized (entry) {
+                if (!entry.evicted) {
+                    entry.lastAccess = System.nanoTime();
+                    return action.apply(entry.session);
+                }
+            } // evicted while waiting: read it again
+        }
+    }
+
+    /**
+     * End the session: drop it from memory and disk
+     * @param id id of the session
+     * @return [true: the session existed]
+     * @throws IOException if the file of the session cannot be deleted
+     */
+    public boolean remove(String id) throws IOException {
+        checkId(id);
+        Entry entry = sessions.get(id);
+        if (entry == null) {
+            return Files.deleteIfExists(fileOf(id));
+        }
+        synchronized (entry) {
+            Files.deleteIfExists(fileOf(id)); // before the entry is removed, so waiting requests start a new session
+            entry.evicted = true;
+            sessions.remove(id, entry);
+            return true;
+        }
+    }
+
+    /**
+     * Write the sessions idle longer than the idle time to disk and drop them from memory. A session that cannot be
+     * written stays in memory.
+     * @return number of evicted sessions
+     */
+    public int evictIdle(){
+        long now = System.nanoTime();
+        int count = 0;
+        for (String id : sessions.keySet()) {
+            Entry entry = sessions.get(id);
+            if (entry != null && now - entry.lastAccess >= idleNanos && evict(id, entry, now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param id id of the session
+     * @param entry session in memory
+     * @param now time of the eviction, Long.MIN_VALUE to evict even if not idle
+     * @return [true: written and dropped]
+     */
+    private boolean evict(String id, Entry entry, long now){
+        synchronized (entry) {
+            if (entry.evicted || now != Long.MIN_VALUE && now - entry.lastAccess < idleNanos) {
+                return false; // used since the check
+            }
+            long start = Instrumentation.start();
+            try {
+                write(id, entry.session);
+            } catch (IOException exception) {
+                EVICT_METRIC.recordError(start);
+                return false;
+            }
+            entry.evicted = true;
+            sessions.remove(id, entry);
+            EVICT_METRIC.record(start);
+            return true;
+        }
+    }
+
+    /**
+     * @return number of sessions in memory
+     */
+    public int size(){
+        return sessions.size();
+    }
+
+    /**
+     * @return directory of the evicted sessions
+     */
+    public Path getDirectory(){
+        return directory;
+    }
+
+    /**
+     * Stop evicting and write every session to disk. Call after the requests stopped.
+     */
+    @Override
+    public void close(){
+        evicter.shutdownNow();
+        for (String id : sessions.keySet()) {
+            Entry entry = sessions.get(id);
+            if (entry != null) {
+                evict(id, entry, Long.MIN_VALUE);
+            }
+        }
+    }
+
+    private Entry load(String id){
+        long start = Instrumentation.start();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(fileOf(id)), 512))) {
+            Entry entry = new Entry(CalculatorSession.readFrom(in, factorialEngine));
+            LOAD_METRIC.record(start);
+            return entry;
+        } catch (NoSuchFileException exception) {
+            return new Entry(new CalculatorSession(factorialEngine));
+        } catch (IOException exception) {
+            LOAD_METRIC.recordError(start);
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Write the session to a temporary file and move it over the old one, so a crash keeps the last complete session
+     */
+    private void write(String id, CalculatorSession session) throws IOException {
+        Path file = fileOf(id);
+        Files.createDirectories(file.getParent());
+        Path temporary = file.resolveSibling(id + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 512))) {
+            session.writeTo(out);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return file of the session, in one of 256 subdirectories so no directory gets too many files
+     */
+    private Path fileOf(String id){
+        return directory.resolve(String.format("%02x", id.hashCode() & 0xFF)).resolve(id + ".session");
+    }
+
+    private static void checkId(String id){
+        if (id == null || !ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Session id must be 1 to 64 letters, digits, - or _");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package storecalculator;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.scene.control.Label;
+import javafx.util.Duration;
+
+/**
+ * Label over the calculator with the table of Instrumentation, updated every second while it is shown.
+ * Mouse clicks go through it to the buttons.
+ * @author Yehyun Kim
+ */
+public final class StatsOverlay {
+    private final Label label = new Label();
+    private final Timeline refresh = new Timeline(new KeyFrame(Duration.seconds(1), e -> update()));
+
+    public StatsOverlay(){
+        label.getStyleClass().add("stats-overlay");
+        label.setMouseTransparent(true);
+        label.setVisible(false);
+        refresh.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    /**
+     * @return label to add to the scene
+     */
+    public Label getNode(){
+        return label;
+    }
+
+    /**
+     * Show or hide the overlay
+     */
+    public void toggle(){
+        boolean show = !label.isVisible();
+        label.setVisible(show);
+        if (show) {
+            update();
+            label.toFront();
+            refresh.play();
+        } else {
+            refresh.stop();
+        }
+    }
+
+    private void update(){
+        String text = Instrumentation.ENABLED ? Instrumentation.report() : "Start with -Dstorecalculator.stats=true to record stats";
+        FunctionCache cache = CalculatorEngine.functionCache();
+        label.setText(cache == null ? text : text + cache);
+    }
+}
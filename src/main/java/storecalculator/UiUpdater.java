@@ -0,0 +1,42 @@
+package storecalculator;
+
+import javafx.application.Platform;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies updates posted by worker threads on the FX Application Thread. Only the newest update of each key is kept,
+ * and all pending updates are applied by one Platform.runLater, so at most one is waiting at a time however often
+ * workers post.
+ * Thread safe.
+ * @author Yehyun Kim
+ */
+public final class UiUpdater {
+    /** Newest update of each key, not applied yet **/
+    private final Map<String, Runnable> pending = new ConcurrentHashMap<>();
+    /** [true: a Platform.runLater is waiting to apply the pending updates] **/
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Apply the update on the FX Application Thread, replacing the pending update of the same key
+     * @param key what the update changes (ex: screen)
+     * @param update update to run on the FX Application Thread
+     */
+    public void post(String key, Runnable update){
+        pending.put(key, update);
+        if (scheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::flush);
+        }
+    }
+
+    private void flush(){
+        scheduled.set(false); // updates posted from now on schedule a new flush if this one misses them
+        for (String key : pending.keySet()) {
+            Runnable update = pending.remove(key);
+            if (update != null) {
+                update.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package storecalculator;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Operator chain on arrays with the Vector API: each step is applied to a whole vector of rows at once, and all steps
+ * are applied before the vector is written back. Uses the incubator module jdk.incubator.vector, so the class is only
+ * loaded when the module is present (java --add-modules jdk.incubator.vector).
+ * ^ (other than ^ 2) uses Math.pow lane by lane: VectorOperators.POW may differ from it in the last place, and a row
+ * gives the same bits wherever it is in the column and with or without the module.
+ * @author Yehyun Kim
+ */
+final class VectorKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorKernel(){
+    }
+
+    /**
+     * Apply every step of the chain to the rows
+     * @param ops operator of each step
+     * @param operands value of each step
+     * @param in values to calculate
+     * @param out array to write calculated values in
+     * @param from first row (inclusive)
+     * @param to last row (exclusive)
+     */
+    static void apply(CalculatorEngine.Op[] ops, double[] operands, double[] in, double[] out, int from, int to){
+        int bound = from + SPECIES.loopBound(to - from);
+        double[] lanes = new double[SPECIES.length()];
+        int i = from;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, in, i);
+            for (int step = 0; step < ops.length; step++) {
+                double operand = operands[step];
+                v = switch (ops[step]) {
+                    case PLUS -> v.add(operand);
+                    case MINUS -> v.sub(operand);
+                    case MULTIPLY -> v.mul(operand);
+                    case DIVIDE -> v.div(operand);
+                    default -> operand == 2 ? v.mul(v) : pow(v, operand, lanes);
+                };
+            }
+            v.intoArray(out, i);
+        }
+        ColumnCalculator.applyScalar(ops, operands, in, out, i, to); // rows that don't fill a vector
+    }
+
+    /**
+     * @param lanes work array of one vector
+     * @return every lane to the power of the operand, with Math.pow as ColumnCalculator.applyScalar
+     */
+    private static DoubleVector pow(DoubleVector v, double operand, double[] lanes){
+        v.intoArray(lanes, 0);
+        for (int lane = 0; lane < lanes.length; lane++) {
+            lanes[lane] = Math.pow(lanes[lane], operand);
+        }
+        return DoubleVector.fromArray(SPECIES, lanes, 0);
+    }
+}
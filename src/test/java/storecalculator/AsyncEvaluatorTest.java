@@ -0,0 +1,84 @@
+package storecalculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cancelled calculations stop on the worker thread instead of running to the end
+ * @author Yehyun Kim
+ */
+class AsyncEvaluatorTest {
+    /** 1000000! takes seconds: a cancelled one must end well before **/
+    private static final long STOP_SECONDS = 3;
+
+    @Test
+    void cancelStopsFactorial() throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try (AsyncEvaluator evaluator = new AsyncEvaluator()) {
+            FactorialEngine engine = new FactorialEngine(FactorialEngine.DEFAULT_CHECKPOINTS, pool);
+            assertStops(evaluator, () -> engine.factorial(FactorialEngine.MAX_VALUE).bitLength());
+            assertTrue(pool.awaitQuiescence(STOP_SECONDS, TimeUnit.SECONDS), "products still running on the pool");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void exactFunctionsStopOnInterruptedThread(){
+        PrecisionEngine engine = new PrecisionEngine(new MathContext(40));
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> engine.apply(CalculatorEngine.UnaryOp.LN, new BigDecimal("7")));
+            assertThrows(CancellationException.class, () -> engine.apply(CalculatorEngine.Op.EXPONENT, new BigDecimal("2"), new BigDecimal("0.5")));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void newerSubmitCancelsTheOlder() throws Exception {
+        try (AsyncEvaluator evaluator = new AsyncEvaluator()) {
+            CompletableFuture<Integer> older = evaluator.submit(() -> new FactorialEngine().factorial(FactorialEngine.MAX_VALUE).bitLength());
+            CompletableFuture<String> newer = evaluator.submit(() -> "3");
+            assertTrue(older.isCancelled());
+            assertEquals("3", newer.get(STOP_SECONDS, TimeUnit.SECONDS));
+        }
+    }
+
+    private static void assertStops(AsyncEvaluator evaluator, Supplier<Integer> calculation) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch ended = new CountDownLatch(1);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CompletableFuture<Integer> future = evaluator.submit(() -> {
+            started.countDown();
+            try {
+                return calculation.get();
+            } catch (RuntimeException exception) {
+                error.set(exception);
+                throw exception;
+            } finally {
+                ended.countDown();
+            }
+        });
+        assertTrue(started.await(STOP_SECONDS, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        evaluator.cancel();
+        assertTrue(future.isCancelled());
+        assertTrue(ended.await(STOP_SECONDS, TimeUnit.SECONDS), "cancelled calculation still running");
+        assertInstanceOf(CancellationException.class, error.get());
+    }
+}
@@ -0,0 +1,83 @@
+package storecalculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Batch output, error rows included, in every mode and for any number of threads and chunk size
+ * @author Yehyun Kim
+ */
+class BatchProcessorTest {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final WritableByteChannel output = Channels.newChannel(bytes);
+
+    @Test
+    void errorRowsDoNotStopTheBatch() throws IOException {
+        String input = "12.5,x,3\n1,/,0\n1,?,2\nabc\n\n2 + 3 x 4\n1e400\n1,+\n1,+,abc\n5\n2 +\n";
+        String expected = "37.5\nError: Cannot divide by 0\nError: Unknown operator ?\nError: Unexpected 'a' at position 0\n"
+                + "Error: Enter value\n14\nInfinity\nError: Enter lhs,operator,rhs\nError: Enter number for lhs and rhs\n5\n"
+                + "Error: Enter value at position 3\n";
+        BatchProcessor.Report report = new BatchProcessor(null, 1, BatchProcessor.DEFAULT_CHUNK_SIZE).process(in(input), output);
+        assertEquals(expected, text());
+        assertEquals(11, report.getLines());
+        assertEquals(7, report.getErrors());
+    }
+
+    @Test
+    void expressionErrorsAreCodes() throws IOException {
+        assertEquals(ErrorCode.DIVIDE_BY_ZERO, ErrorCode.of(new ExpressionParser().parse("1 / 0 + 2").evaluate()));
+        assertEquals(ErrorCode.NOT_INT_FACTORIAL, ErrorCode.of(new ExpressionParser().parse("-(2.5 !)").evaluate()));
+        new BatchProcessor(null, 1, 64).process(in("1 / 0\n2.5 !\n2 x (3 +\n"), output);
+        assertEquals("Error: Cannot divide by 0\nError: " + ErrorCode.NOT_INT_FACTORIAL.getMessage()
+                + "\nError: Enter value at position 8\n", text());
+    }
+
+    @Test
+    void chainIsAppliedToEveryLine() throws IOException {
+        new BatchProcessor(OperatorChain.parse("x 2 + 1"), 2, 64).process(in("1\n2.5\n-3\nabc\n"), output);
+        assertEquals("3\n6\n-5\nError: Enter number\n", text());
+    }
+
+    @Test
+    void modesCalculateTheirOwnValues() throws IOException {
+        new BatchProcessor(null, NumberMode.COMPLEX, 1, 64).process(in("1+2i,x,3-i\nln,-1\n√,-4\n2,/,0\n"), output);
+        assertEquals("5+5i\n3.141592654i\n2i\nError: Cannot divide by 0\n", text());
+        bytes.reset();
+        new BatchProcessor(null, NumberMode.INTERVAL, 1, 64).process(in("[1,2],x,[-1,3]\n1,/,3\nln,-1\n"), output);
+        assertEquals("2±4\n0.3333333±4E-8\nError: " + ErrorCode.NOT_REAL.getMessage() + "\n", text());
+    }
+
+    @Test
+    void outputIsInInputOrder() throws IOException {
+        Random random = new Random(24);
+        String[] ops = {"+", "-", "x", "/", "^", "?"};
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            input.append(random.nextInt(200) - 100).append(',').append(ops[random.nextInt(ops.length)]).append(',')
+                    .append(random.nextInt(10)).append('\n');
+        }
+        new BatchProcessor(null, 1, BatchProcessor.DEFAULT_CHUNK_SIZE).process(in(input.toString()), output);
+        String expected = text();
+        bytes.reset();
+        new BatchProcessor(null, 4, 256).process(in(input.toString()), output);
+        assertEquals(expected, text());
+    }
+
+    private static ReadableByteChannel in(String text){
+        return Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String text(){
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+}
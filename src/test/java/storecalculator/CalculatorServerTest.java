@@ -0,0 +1,108 @@
+package storecalculator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Server on localhost: results and errors of every endpoint
+ * @author Yehyun Kim
+ */
+class CalculatorServerTest {
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private CalculatorServer server;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void start() throws IOException {
+        CalculatorServer.useTcpNoDelay();
+        server = new CalculatorServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                new SessionManager(directory, 60_000));
+        server.start();
+    }
+
+    @AfterEach
+    void close(){
+        server.close();
+    }
+
+    @Test
+    void calcReturnsResultOrError() throws Exception {
+        assertResponse(200, "{\"result\":3.0}", get("/calc?op=plus&a=1&b=2"));
+        assertResponse(200, "{\"result\":2.0}", get("/calc?op=%E2%88%9A&a=4"));
+        assertResponse(200, "{\"result\":\"Infinity\"}", get("/calc?op=%5E&a=10&b=400"));
+        assertResponse(400, "{\"error\":\"Cannot divide by 0\"}", get("/calc?op=divide&a=1&b=0"));
+        assertResponse(400, "{\"error\":\"Unknown operator mod\"}", get("/calc?op=mod&a=1&b=2"));
+        assertResponse(400, "{\"error\":\"" + ErrorCode.NO_OPERATION.getMessage() + "\"}", get("/calc?op=plus"));
+        assertResponse(400, "{\"error\":\"Unknown parameter c\"}", get("/calc?op=plus&a=1&c=2"));
+        assertEquals(400, get("/calc?op=plus&a=one&b=2").statusCode());
+    }
+
+    @Test
+    void batchKeepsGoingAfterABadItem() throws Exception {
+        assertResponse(200, "[{\"result\":6.0},{\"error\":\"Cannot divide by 0\"},{\"error\":\"Unknown operator ?\"},"
+                + "{\"error\":\"" + ErrorCode.NO_SECOND_VALUE.getMessage() + "\"},{\"result\":120.0}]",
+                post("/batch", "[{\"op\":\"x\",\"a\":2,\"b\":3}, {\"op\":\"/\",\"a\":1,\"b\":0}, {\"op\":\"?\",\"a\":1,\"b\":2},"
+                        + " {\"op\":\"+\",\"a\":1}, {\"op\":\"!\",\"a\":5}]"));
+        assertResponse(200, "[]", post("/batch", " [ ] "));
+        assertResponse(400, "{\"error\":\"Expected ']' at position 23\"}", post("/batch", "[{\"op\":\"x\",\"a\":2,\"b\":3}"));
+        assertResponse(400, "{\"error\":\"Expected op, a or b at position 6\"}", post("/batch", "[{\"c\":1}]"));
+    }
+
+    @Test
+    void batchRejectsTooBigBody() throws Exception {
+        assertResponse(413, "{\"error\":\"Request too big\"}", post("/batch", " ".repeat(CalculatorServer.MAX_BODY + 1)));
+    }
+
+    @Test
+    void wrongMethodIs405() throws Exception {
+        assertEquals(405, post("/calc?op=plus&a=1&b=2", "").statusCode());
+        assertEquals(405, get("/batch").statusCode());
+        assertEquals(405, send(HttpRequest.newBuilder(uri("/session?id=a")).PUT(HttpRequest.BodyPublishers.noBody())).statusCode());
+    }
+
+    @Test
+    void sessionKeepsItsScreen() throws Exception {
+        assertResponse(200, "{\"screen\":\"3\",\"error\":\"\"}", post("/session?id=kiosk-1&keys=1,plus,2,equal", ""));
+        assertResponse(200, "{\"screen\":\"3\",\"error\":\"\"}", get("/session?id=kiosk-1"));
+        assertResponse(400, "{\"error\":\"Use POST to press keys\"}", get("/session?id=kiosk-1&keys=1"));
+        assertResponse(400, "{\"error\":\"Unknown key mod\"}", post("/session?id=kiosk-1&keys=mod", ""));
+        assertEquals(200, send(HttpRequest.newBuilder(uri("/session?id=kiosk-1")).DELETE()).statusCode());
+        assertEquals(404, send(HttpRequest.newBuilder(uri("/session?id=kiosk-1")).DELETE()).statusCode());
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri(path)).GET());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path){
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+
+    private static void assertResponse(int status, String body, HttpResponse<String> response){
+        assertEquals(body, response.body());
+        assertEquals(status, response.statusCode());
+    }
+}
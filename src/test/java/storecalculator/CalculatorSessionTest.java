@@ -0,0 +1,120 @@
+package storecalculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Session snapshots: a session read back from its snapshot shows the same screen for every following button
+ * @author Yehyun Kim
+ */
+class CalculatorSessionTest {
+    private final FactorialEngine factorialEngine = new FactorialEngine();
+
+    @Test
+    void snapshotContinuesTheSession() throws IOException {
+        Random random = new Random(21);
+        for (int sequence = 0; sequence < 3_000; sequence++) {
+            CalculatorSession session = new CalculatorSession(factorialEngine);
+            StringBuilder pressed = new StringBuilder();
+            int snapshotAt = random.nextInt(30);
+            for (int i = 0; i < snapshotAt; i++) {
+                pressRandomKey(session, random, pressed);
+            }
+            CalculatorSession restored = CalculatorSession.readFrom(read(write(session)), factorialEngine);
+            assertSameScreen(session, restored, pressed);
+            for (int i = 0; i < 20; i++) {
+                CalculatorSession.Key key = pressRandomKey(session, random, pressed);
+                restored.press(key);
+                assertSameScreen(session, restored, pressed);
+            }
+        }
+    }
+
+    @Test
+    void snapshotKeepsTheNumberMode() throws IOException {
+        for (NumberMode mode : NumberMode.values()) {
+            CalculatorSession session = new CalculatorSession(factorialEngine);
+            session.setNumberMode(mode);
+            for (CalculatorSession.Key key : new CalculatorSession.Key[]{CalculatorSession.Key.DIGIT_2, CalculatorSession.Key.ROOT,
+                    CalculatorSession.Key.PLUS, CalculatorSession.Key.DIGIT_1}) {
+                session.press(key);
+            }
+            CalculatorSession restored = CalculatorSession.readFrom(read(write(session)), factorialEngine);
+            assertEquals(mode, restored.getNumberMode());
+            session.press(CalculatorSession.Key.EQUAL);
+            restored.press(CalculatorSession.Key.EQUAL);
+            assertEquals(session.getScreenText(), restored.getScreenText(), mode.getName());
+        }
+    }
+
+    @Test
+    void snapshotKeepsLongChains() throws IOException {
+        int steps = 70_000; // more than an unsigned short
+        CalculatorSession session = new CalculatorSession(factorialEngine);
+        session.press(CalculatorSession.Key.DIGIT_1);
+        for (int i = 0; i < steps; i++) {
+            session.press(CalculatorSession.Key.PLUS);
+            session.press(CalculatorSession.Key.DIGIT_1);
+        }
+        session.press(CalculatorSession.Key.EQUAL);
+        CalculatorSession restored = CalculatorSession.readFrom(read(write(session)), factorialEngine);
+        assertEquals("70001", restored.getScreenText());
+        assertEquals(steps, restored.getLastCalculation().size());
+        assertEquals(steps + 1, restored.getLastCalculation().result());
+        for (CalculatorSession.Key key : new CalculatorSession.Key[]{CalculatorSession.Key.PLUS, CalculatorSession.Key.DIGIT_2,
+                CalculatorSession.Key.EQUAL}) {
+            session.press(key);
+            restored.press(key);
+            assertEquals(session.getScreenText(), restored.getScreenText());
+        }
+    }
+
+    /**
+     * Press a random button, except those that take long in exact mode (factorial and power of big values)
+     * @return pressed button
+     */
+    static CalculatorSession.Key pressRandomKey(CalculatorSession session, Random random, StringBuilder pressed){
+        while (true) {
+            CalculatorSession.Key key = CalculatorSession.Key.of(random.nextInt(CalculatorSession.Key.count()));
+            if (key == CalculatorSession.Key.PRECISION && random.nextInt(4) != 0 || session.isExact()
+                    && (key == CalculatorSession.Key.FACTORIAL || key == CalculatorSession.Key.EXPONENT)) {
+                continue;
+            }
+            if (key == CalculatorSession.Key.FACTORIAL) {
+                try {
+                    if (Math.abs(Double.parseDouble(session.getScreenText())) > 200) {
+                        continue;
+                    }
+                } catch (NumberFormatException exception) {
+                    // not a number: factorial shows an error
+                }
+            }
+            session.press(key);
+            pressed.append(key).append(' ');
+            return key;
+        }
+    }
+
+    private static void assertSameScreen(CalculatorSession expected, CalculatorSession actual, CharSequence pressed){
+        assertEquals(expected.getScreenText(), actual.getScreenText(), pressed::toString);
+        assertEquals(expected.getErrorText(), actual.getErrorText(), pressed::toString);
+    }
+
+    static byte[] write(CalculatorSession session) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        session.writeTo(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    static DataInputStream read(byte[] snapshot){
+        return new DataInputStream(new ByteArrayInputStream(snapshot));
+    }
+}
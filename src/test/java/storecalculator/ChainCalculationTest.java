@@ -0,0 +1,102 @@
+package storecalculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Changing a step calculates again from the step and stops early, with the same results as calculating from the start
+ * @author Yehyun Kim
+ */
+class ChainCalculationTest {
+    private static final CalculatorEngine.Op[] OPS = CalculatorEngine.Op.values();
+    /** Small values, with 0 and 1 so results repeat (x 0, ^ 0, x 1) and the calculation stops early **/
+    private static final double[] OPERANDS = {0, 1, 2, 3, 0.5, -1, 10, 0.1};
+
+    @Test
+    void editsMatchFullRecalculation(){
+        Random random = new Random(13);
+        int earlyStops = 0;
+        for (int sequence = 0; sequence < 2_000; sequence++) {
+            ChainCalculation chain = new ChainCalculation();
+            chain.reset(operand(random));
+            int steps = 1 + random.nextInt(30);
+            for (int i = 0; i < steps; i++) {
+                CalculatorEngine.Op op = OPS[random.nextInt(OPS.length)];
+                double operand = operand(random);
+                chain.append(op, op == CalculatorEngine.Op.DIVIDE && operand == 0 ? 4 : operand);
+            }
+            for (int edit = 0; edit < 20; edit++) {
+                int step = random.nextInt(steps);
+                switch (random.nextInt(3)) {
+                    case 0 -> chain.setFirst(operand(random));
+                    case 1 -> {
+                        double operand = operand(random);
+                        if (chain.opAt(step) == CalculatorEngine.Op.DIVIDE && operand == 0) {
+                            assertRejected(chain, () -> chain.setOperand(step, 0));
+                            continue;
+                        }
+                        chain.setOperand(step, operand);
+                    }
+                    default -> {
+                        CalculatorEngine.Op op = OPS[random.nextInt(OPS.length)];
+                        if (op == CalculatorEngine.Op.DIVIDE && chain.operandAt(step) == 0) {
+                            assertRejected(chain, () -> chain.setOp(step, CalculatorEngine.Op.DIVIDE));
+                            continue;
+                        }
+                        chain.setOp(step, op);
+                    }
+                }
+                assertSameAsFromStart(chain);
+                if (chain.getLastCalculatedSteps() < steps - step) {
+                    earlyStops++;
+                }
+            }
+        }
+        assertTrue(earlyStops > 1_000, "calculation never stopped early");
+    }
+
+    @Test
+    void earlierEditMakesLaterDivideGetZero(){
+        ChainCalculation chain = new ChainCalculation(); // 5 - 3 / 2 x 7
+        chain.reset(5);
+        chain.append(CalculatorEngine.Op.MINUS, 3);
+        chain.append(CalculatorEngine.Op.DIVIDE, 2);
+        chain.append(CalculatorEngine.Op.MULTIPLY, 7);
+        assertEquals(7, chain.result());
+        assertEquals(0, chain.setOperand(0, 5)); // 5 - 5 / 2 x 7
+        assertSameAsFromStart(chain);
+        assertRejected(chain, () -> chain.setOperand(1, 0));
+        chain.setOp(1, CalculatorEngine.Op.PLUS);
+        chain.setOperand(1, 0); // 5 - 5 + 0 x 7
+        assertRejected(chain, () -> chain.setOp(1, CalculatorEngine.Op.DIVIDE));
+        assertEquals(-7, chain.setFirst(4)); // 4 - 5 + 0 x 7
+        assertSameAsFromStart(chain);
+    }
+
+    private static double operand(Random random){
+        return OPERANDS[random.nextInt(OPERANDS.length)];
+    }
+
+    /**
+     * A change that divides by 0 throws and keeps the steps and results
+     */
+    private static void assertRejected(ChainCalculation chain, Runnable change){
+        double result = chain.result();
+        assertThrows(IllegalArgumentException.class, change::run);
+        assertEquals(Double.doubleToRawLongBits(result), Double.doubleToRawLongBits(chain.result()));
+        assertSameAsFromStart(chain);
+    }
+
+    private static void assertSameAsFromStart(ChainCalculation chain){
+        double value = chain.first();
+        for (int i = 0; i < chain.size(); i++) {
+            value = CalculatorEngine.apply(chain.opAt(i), value, chain.operandAt(i));
+            assertEquals(Double.doubleToRawLongBits(value), Double.doubleToRawLongBits(chain.resultAt(i)), "step " + i);
+        }
+    }
+}
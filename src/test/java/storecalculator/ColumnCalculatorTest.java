@@ -0,0 +1,35 @@
+package storecalculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Every row of a column gives the bits of OperatorChain.applyTo, with and without the Vector API and wherever the row
+ * is (full vectors or the rows after them)
+ * @author Yehyun Kim
+ */
+class ColumnCalculatorTest {
+    /** Not a multiple of any vector length: the last rows are calculated one at a time **/
+    private static final int ROWS = 100_003;
+
+    @Test
+    void powerRowsMatchApplyTo(){
+        double[] in = new Random(10).doubles(ROWS, 0, 1e3).toArray();
+        for (String text : new String[]{"^ 0.5", "x 1.07 ^ 3 - 5", "^ 1.07", "+ 1 ^ -1.5 x 2", "^ 2 / 3", "- 500 ^ 3"}) {
+            OperatorChain chain = OperatorChain.parse(text);
+            for (boolean useVector : new boolean[]{true, false}) {
+                double[] out = new double[ROWS];
+                new ColumnCalculator(chain, ForkJoinPool.commonPool(), useVector).apply(in, out);
+                for (int i = 0; i < ROWS; i++) {
+                    int row = i;
+                    assertEquals(Double.doubleToRawLongBits(chain.applyTo(in[i])), Double.doubleToRawLongBits(out[i]),
+                            () -> text + " on " + in[row] + (useVector ? " with vectors" : ""));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package storecalculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compiled chains give the same result bit for bit as OperatorChain.applyTo
+ * @author Yehyun Kim
+ */
+class CompiledChainTest {
+    /** Operands that folding treats specially, and ordinary ones **/
+    private static final double[] OPERANDS = {0, -0.0, 1, -1, 2, 0.5, 0.25, 1024, 3, 0.1, 1.07, -7.5, 1e300, 1e-300,
+            Double.MIN_VALUE, 0x1p-1022, 0x1p1023, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+    private static final double[] VALUES = {0, -0.0, 1, -1, 2, 0.1, -3.5, 1e308, -1e-308, Double.MIN_VALUE,
+            Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+    @Test
+    void compiledChainMatchesApplyTo(){
+        Random random = new Random(23);
+        for (int i = 0; i < 20_000; i++) {
+            OperatorChain steps = OperatorChain.empty();
+            int count = random.nextInt(8);
+            for (int step = 0; step < count; step++) {
+                CalculatorEngine.Op op = CalculatorEngine.Op.values()[random.nextInt(CalculatorEngine.Op.values().length)];
+                double operand = random.nextInt(3) == 0 ? random.nextGaussian() * 10 : OPERANDS[random.nextInt(OPERANDS.length)];
+                if (op == CalculatorEngine.Op.DIVIDE && operand == 0) {
+                    continue;
+                }
+                steps = steps.then(op, operand);
+            }
+            OperatorChain chain = steps;
+            CompiledChain compiled = CompiledChain.of(chain);
+            for (int j = 0; j < 50; j++) {
+                double value = random.nextBoolean() ? random.nextGaussian() * 100 : VALUES[random.nextInt(VALUES.length)];
+                double expected = chain.applyTo(value);
+                double actual = compiled.applyTo(value);
+                if (!(Double.isNaN(expected) && Double.isNaN(actual))) { // payload of NaN is not kept by arithmetic
+                    assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual),
+                            () -> chain + " on " + value + " compiled as " + compiled);
+                }
+            }
+        }
+    }
+
+    @Test
+    void rowsMatchApplyTo(){
+        OperatorChain chain = OperatorChain.parse("x 1.07 ^ 2 - 5 / 4 + -0");
+        CompiledChain compiled = CompiledChain.of(chain);
+        double[] in = new Random(24).doubles(1_000, -1e6, 1e6).toArray();
+        double[] out = new double[in.length];
+        compiled.apply(in, out, 0, in.length);
+        for (int i = 0; i < in.length; i++) {
+            assertEquals(Double.doubleToRawLongBits(chain.applyTo(in[i])), Double.doubleToRawLongBits(out[i]));
+        }
+        assertEquals("x 1.07 ^ 2 - 5 x 0.25", compiled.toString());
+    }
+
+    @Test
+    void powerOfZeroIsConstant(){
+        CompiledChain compiled = CompiledChain.of(OperatorChain.parse("+ 3 ^ 0 x 5 - 1"));
+        assertEquals(4, compiled.applyTo(Double.NaN));
+        assertEquals(4, compiled.applyTo(Double.POSITIVE_INFINITY));
+    }
+}
@@ -0,0 +1,94 @@
+package storecalculator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Conversion tables: affine units, dimensions, rate files and reload
+ * @author Yehyun Kim
+ */
+class ConversionTableTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void temperaturesHaveOffsets() throws IOException {
+        ConversionTable table = ConversionTable.bundled();
+        assertEquals(212, convert(table, 100, "C", "F"), 1e-9);
+        assertEquals(-40, convert(table, -40, "C", "F"), 1e-9);
+        assertEquals(37, convert(table, 98.6, "F", "c"), 1e-9);
+        assertEquals(-273.15, convert(table, 0, "K", "C"), 1e-9);
+        assertEquals(new BigDecimal("212.0000"), table.conversion("C", "F").apply(new BigDecimal("100"), new MathContext(7)));
+    }
+
+    @Test
+    void dimensionsCannotBeMixed() throws IOException {
+        ConversionTable table = ConversionTable.bundled();
+        assertThrows(IllegalArgumentException.class, () -> convert(table, 1, "kg", "m"));
+        assertThrows(IllegalArgumentException.class, () -> table.conversion("C", "USD"));
+        assertThrows(IllegalArgumentException.class, () -> table.conversion("kg", "stone"));
+    }
+
+    @Test
+    void rateFileReplacesBundledUnits() throws IOException {
+        ConversionTable bundled = ConversionTable.bundled();
+        Path file = directory.resolve("rates.csv");
+        Files.writeString(file, "# test rates\nLB, mass, 0.5\nEUR,currency,1.08\n");
+        ConversionTable table = ConversionTable.read(file);
+        assertEquals(bundled.size() + 1, table.size());
+        assertEquals(0.5, convert(table, 1, "lb", "kg"));
+        assertEquals(1.08, convert(table, 1, "eur", "USD"), 1e-12);
+        assertEquals(bundled.indexOf("lb"), table.indexOf("lb")); // replaced in place
+        assertEquals(1000, convert(table, 1, "kg", "g"));
+    }
+
+    @Test
+    void malformedRatesKeepThePreviousTable() throws IOException {
+        Path file = directory.resolve("rates.csv");
+        Files.writeString(file, "EUR,currency,1.08\n");
+        ConversionRates rates = new ConversionRates(file, ConversionTable.bundled());
+        ConversionTable table = rates.reload();
+        assertSame(table, rates.current());
+        for (String line : new String[]{"EUR,currency", "EUR,currency,-1", "EUR,currency,abc", "EUR,,1", "EUR,currency,1,2,3"}) {
+            Files.writeString(file, "GBP,currency,1.27\n" + line + "\n");
+            UncheckedIOException exception = assertThrows(UncheckedIOException.class, rates::reload, line);
+            assertEquals("rates.csv line 2", exception.getCause().getMessage().substring(0, 16));
+            assertSame(table, rates.current());
+        }
+    }
+
+    @Test
+    void conversionMatchesItsChain() throws IOException {
+        ConversionTable table = ConversionTable.bundled();
+        Random random = new Random(20);
+        for (int from = 0; from < table.size(); from++) {
+            for (String to : table.unitsLike(from)) {
+                ConversionTable.Conversion conversion = table.conversion(table.unitAt(from), to);
+                OperatorChain chain = conversion.toChain();
+                for (int i = 0; i < 100; i++) {
+                    double value = random.nextGaussian() * 1000;
+                    double expected = conversion.apply(value);
+                    assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(chain.applyTo(value)), conversion::toString);
+                    assertEquals(Double.doubleToRawLongBits(expected),
+                            Double.doubleToRawLongBits(table.convert(value, from, table.indexOf(to))), conversion::toString);
+                }
+            }
+        }
+    }
+
+    private static double convert(ConversionTable table, double value, String from, String to){
+        return table.convert(value, table.indexOf(from), table.indexOf(to));
+    }
+}
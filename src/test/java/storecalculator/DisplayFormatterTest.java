@@ -0,0 +1,118 @@
+package storecalculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Screen text against the formatting it replaced: String.valueOf, String.format("%.9f") for long strings and a regex
+ * that removes ".0*". Where the old text was within the limits (14 characters, 9 decimals, no E notation) the text is
+ * the same; elsewhere it is the value rounded to the decimals that fit.
+ * @author Yehyun Kim
+ */
+class DisplayFormatterTest {
+    private final DisplayFormatter formatter = new DisplayFormatter();
+
+    @Test
+    void sameTextAsBeforeWithinTheLimits(){
+        Random random = new Random(4);
+        int compared = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            double value = randomValue(random);
+            String text = formatter.format(value);
+            assertEquals(Double.doubleToRawLongBits(Double.parseDouble(text)), Double.doubleToRawLongBits(formatter.shownValue()), text);
+            assertTrue(text.length() <= DisplayFormatter.MAX_LENGTH + (value < 0 ? 1 : 0), text); // -99999999999999 is 15
+            String before = withoutTrailingZeros(formatBefore(value));
+            int dot = before.indexOf('.');
+            if (before.indexOf('E') < 0 && before.length() <= DisplayFormatter.MAX_LENGTH
+                    && (dot < 0 || before.length() - dot - 1 <= DisplayFormatter.MAX_DECIMALS)) {
+                assertEquals(before, text, () -> "value " + value);
+                compared++;
+            } else { // E notation, more than 9 decimals and long integer parts: fixed notation rounded to what fits
+                int decimals = text.indexOf('.') < 0 ? 0 : text.length() - text.indexOf('.') - 1;
+                int maxDecimals = Math.max(0, Math.min(DisplayFormatter.MAX_DECIMALS, DisplayFormatter.MAX_LENGTH - 1
+                        - String.valueOf((long) Math.abs(value)).length() - (value < 0 ? 1 : 0)));
+                assertTrue(decimals <= maxDecimals, text);
+                double halfUnit = 0.5 * Math.pow(10, -maxDecimals);
+                assertTrue(Math.abs(Double.parseDouble(text) - value) <= halfUnit + Math.ulp(value), () -> text + " for " + value);
+            }
+        }
+        assertTrue(compared > 500_000, "too few values compared: " + compared);
+    }
+
+    @Test
+    void valuesOutOfRange(){
+        assertEquals("99999999999999", formatter.format(DisplayFormatter.MAX_VALUE));
+        assertEquals("-99999999999999", formatter.format(-DisplayFormatter.MAX_VALUE));
+        assertEquals(ErrorCode.VALUE_TOO_BIG.getMessage(), assertThrows(IllegalArgumentException.class,
+                () -> formatter.format(Math.nextUp(DisplayFormatter.MAX_VALUE))).getMessage());
+        assertEquals(ErrorCode.VALUE_TOO_SMALL.getMessage(), assertThrows(IllegalArgumentException.class,
+                () -> formatter.format(-1e20)).getMessage());
+        assertEquals(ErrorCode.VALUE_TOO_BIG, DisplayFormatter.rangeError(1e15));
+        assertNull(DisplayFormatter.rangeError(Double.POSITIVE_INFINITY));
+        assertEquals("Infinity", formatter.format(Double.POSITIVE_INFINITY));
+        assertEquals("-Infinity", formatter.format(Double.NEGATIVE_INFINITY));
+        assertEquals("NaN", formatter.format(Double.NaN));
+    }
+
+    @Test
+    void roundingAndZeros(){
+        assertEquals("0.3", formatter.format(0.1 + 0.2));
+        assertEquals("5", formatter.format(5.0));
+        assertEquals("0", formatter.format(-0.0));
+        assertEquals("0", formatter.format(-1e-12));
+        assertEquals("1", formatter.format(0.9999999999));
+        assertEquals("0.000000001", formatter.format(1e-9));
+        assertEquals("3.141592654", formatter.format(Math.PI));
+        assertEquals("2499.241541669", formatter.format(2499.2415416685)); // binary value is a little below the half
+        assertEquals("12345678.12346", formatter.format(12345678.123456789));
+        assertEquals(12345678.12346, formatter.shownValue());
+        assertEquals("x = 2.5", formatter.appendTo(new StringBuilder("x = "), 2.5).toString());
+    }
+
+    /**
+     * Values of every length: few decimals (prices), long fractions and integers, from 1E-12 to 1E14
+     */
+    private static double randomValue(Random random){
+        double sign = random.nextBoolean() ? 1 : -1;
+        return switch (random.nextInt(4)) {
+            case 0 -> sign * random.nextInt(1_000_000) / 100.0;
+            case 1 -> sign * (double) (random.nextLong() % 100_000_000_000_000L);
+            case 2 -> sign * random.nextDouble() * Math.pow(10, random.nextInt(10) - 3);
+            default -> sign * random.nextDouble() * Math.pow(10, random.nextInt(27) - 12);
+        };
+    }
+
+    /**
+     * Screen text of the first version of the calculator
+     */
+    private static String formatBefore(double value){
+        String text = String.valueOf(value);
+        if (text.length() > 14) {
+            text = String.format(Locale.ROOT, "%.9f", value);
+        }
+        return text.replaceAll("\\.0*$", "");
+    }
+
+    /**
+     * The first version removed ".0*" only: "0.300000000" stayed. Zeros after the last digit are now removed too, and
+     * small negative values rounded to 0 show "0", not "-0".
+     */
+    private static String withoutTrailingZeros(String text){
+        if (text.indexOf('.') < 0 || text.indexOf('E') >= 0) {
+            return text.equals("-0") ? "0" : text;
+        }
+        int end = text.length();
+        while (text.charAt(end - 1) == '0') {
+            end--;
+        }
+        String stripped = text.substring(0, text.charAt(end - 1) == '.' ? end - 1 : end);
+        return stripped.equals("-0") ? "0" : stripped;
+    }
+}
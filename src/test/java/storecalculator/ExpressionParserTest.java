@@ -0,0 +1,129 @@
+package storecalculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Expressions: precedence, operators, variables, syntax errors and the cache of compiled expressions
+ * @author Yehyun Kim
+ */
+class ExpressionParserTest {
+    private final ExpressionParser parser = new ExpressionParser();
+
+    @Test
+    void operatorPrecedence(){
+        assertValue(14, "2 + 3 x 4");
+        assertValue(20, "(2 + 3) x 4");
+        assertValue(1, "8 / 4 / 2");
+        assertValue(5, "10 - 3 - 2");
+        assertValue(-1, "2 - 3");
+        assertValue(50, "2 + 3 x 4 ^ 2");
+        assertValue(6, "2 * 3");
+        assertValue(4, "8 ÷ 2");
+        assertValue(4, "8 ➗ 2");
+        assertValue(6, "2 ✖ 3");
+    }
+
+    @Test
+    void powerIsRightToLeft(){
+        assertValue(512, "2 ^ 3 ^ 2");
+        assertValue(64, "(2 ^ 3) ^ 2");
+        assertValue(0.5, "2 ^ -1");
+        assertValue(Math.pow(2, 0.5), "2^0.5");
+    }
+
+    @Test
+    void unaryMinusIsBelowPower(){
+        assertValue(-4, "-2 ^ 2");
+        assertValue(4, "(-2) ^ 2");
+        assertValue(-6, "2 x -3");
+        assertValue(3, "--3");
+        assertValue(3, "+3");
+        assertValue(-4, "-2²");
+        assertValue(1, "3 + -2");
+    }
+
+    @Test
+    void postfixAndFunctions(){
+        assertValue(6, "3!");
+        assertValue(720, "3!!");
+        assertValue(0.5, "50%");
+        assertValue(9, "3²");
+        assertValue(81, "3²²");
+        assertValue(5, "√16 + 1");
+        assertValue(4, "√4²");
+        assertValue(3, "sqrt 9");
+        assertValue(2, "log 100");
+        assertValue(1, "ln(2.718281828459045)");
+        assertValue(Math.PI, "π");
+        assertValue(2 * Math.PI, "2 x pi");
+        assertValue(Math.log(Math.PI), "ln π");
+    }
+
+    @Test
+    void errorsAreCodes(){
+        assertEquals(ErrorCode.DIVIDE_BY_ZERO, ErrorCode.of(parser.parse("1 / (2 - 2)").evaluate()));
+        assertEquals(ErrorCode.NOT_INT_FACTORIAL, ErrorCode.of(parser.parse("2.5! + 1").evaluate()));
+        assertEquals(ErrorCode.VALUE_TOO_BIG, ErrorCode.of(parser.parse("16!").evaluate()));
+    }
+
+    @Test
+    void variablesInOrderOfFirstUse(){
+        CompiledExpression expression = parser.parse("$price x $count + $price");
+        assertEquals(List.of("price", "count"), expression.getVariableNames());
+        assertEquals(8, expression.evaluate(2, 3));
+        assertEquals(33, expression.evaluate(3, 10));
+        double[] stack = new double[expression.getMaxStack()];
+        assertEquals(8, expression.evaluate(new double[]{2, 3}, stack));
+        assertThrows(IllegalArgumentException.class, () -> expression.evaluate(2));
+        assertEquals(List.of("tax_rate1"), parser.parse("$tax_rate1 x 2").getVariableNames());
+    }
+
+    @Test
+    void syntaxErrorsTellThePosition(){
+        assertError("Enter value at position 3", "2 +");
+        assertError("Enter value at position 0", "");
+        assertError("Missing ')' at position 6", "(1 + 2");
+        assertError("Too many decimals at position 0", "1.2.3");
+        assertError("Missing variable name at position 1", "$");
+        assertError("Unexpected '#' at position 2", "2 # 3");
+        assertError("Unexpected 'l' at position 0", "lnx");
+        assertError("Unexpected ')' at position 1", "2)");
+        assertError("Unexpected 'π' at position 1", "2π");
+    }
+
+    @Test
+    void cacheEvictsLeastRecentlyUsed(){
+        ExpressionCache cache = new ExpressionCache(2);
+        CompiledExpression a = cache.compile("1 + 1");
+        cache.compile("2 + 2");
+        assertSame(a, cache.compile("1 + 1")); // "2 + 2" is now the least recently used
+        cache.compile("3 + 3");
+        assertEquals(2, cache.size());
+        assertSame(a, cache.compile("1 + 1"));
+        cache.compile("2 + 2"); // parsed again, "3 + 3" evicted
+        assertEquals(2, cache.getHits());
+        assertEquals(4, cache.getMisses());
+        cache.compile("3 + 3");
+        assertEquals(5, cache.getMisses());
+        assertNotSame(a, cache.compile("1 + 1")); // evicted by "3 + 3"
+        assertThrows(IllegalArgumentException.class, () -> cache.compile("2 +"));
+        assertEquals(2, cache.size());
+        assertEquals(10, cache.evaluate("$a x $b", 2, 5));
+        assertThrows(IllegalArgumentException.class, () -> new ExpressionCache(0));
+    }
+
+    private void assertValue(double expected, String expression){
+        assertEquals(expected, parser.parse(expression).evaluate(), 1e-12, expression);
+    }
+
+    private void assertError(String message, String expression){
+        assertEquals(message, assertThrows(IllegalArgumentException.class, () -> parser.parse(expression)).getMessage());
+    }
+}
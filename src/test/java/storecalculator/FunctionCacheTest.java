@@ -0,0 +1,98 @@
+package storecalculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Function cache against Math and, for LRU, against a LinkedHashMap in access order
+ * @author Yehyun Kim
+ */
+class FunctionCacheTest {
+    private static final int CAPACITY = 64;
+
+    @Test
+    void lruMatchesLinkedHashMap(){
+        FunctionCache cache = new FunctionCache(CAPACITY, FunctionCache.Eviction.LRU);
+        Map<List<Long>, Double> model = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Long>, Double> eldest){
+                return size() > CAPACITY;
+            }
+        };
+        Random random = new Random(15);
+        long hits = 0;
+        for (int i = 0; i < 200_000; i++) {
+            int function = random.nextInt(4);
+            double x = random.nextInt(CAPACITY * 2) / 4.0;
+            double y = function == 3 ? random.nextInt(4) / 2.0 : 0;
+            List<Long> key = List.of((long) function, Double.doubleToRawLongBits(x), Double.doubleToRawLongBits(y));
+            if (model.get(key) != null) {
+                hits++;
+            } else {
+                model.put(key, expected(function, x, y));
+            }
+            assertEquals(Double.doubleToRawLongBits(model.get(key)), Double.doubleToRawLongBits(get(cache, function, x, y)));
+            assertEquals(hits, cache.getHits());
+            assertEquals(model.size(), cache.size());
+        }
+        assertEquals(cache.getMisses() - CAPACITY, cache.getEvictions());
+    }
+
+    @Test
+    void clockReturnsTheSameResults(){
+        FunctionCache cache = new FunctionCache(CAPACITY, FunctionCache.Eviction.CLOCK);
+        Random random = new Random(16);
+        for (int i = 0; i < 200_000; i++) {
+            int function = random.nextInt(4);
+            double x = random.nextGaussian() * (random.nextBoolean() ? 1 : 1e6);
+            if (random.nextBoolean()) {
+                x = Math.rint(x); // repeated keys
+            }
+            double y = function == 3 ? random.nextInt(9) / 2.0 - 2 : 0;
+            assertEquals(Double.doubleToRawLongBits(expected(function, x, y)), Double.doubleToRawLongBits(get(cache, function, x, y)));
+            assertTrue(cache.size() <= CAPACITY);
+        }
+        assertEquals(200_000, cache.getHits() + cache.getMisses());
+        assertEquals(cache.getMisses() - CAPACITY, cache.getEvictions());
+    }
+
+    @Test
+    void keysAreBitsNotValues(){
+        FunctionCache cache = new FunctionCache(4, FunctionCache.Eviction.CLOCK);
+        assertEquals(Double.NEGATIVE_INFINITY, cache.ln(0.0));
+        assertEquals(Double.doubleToRawLongBits(Math.log(-0.0)), Double.doubleToRawLongBits(cache.ln(-0.0)));
+        assertEquals(Double.doubleToRawLongBits(Math.sqrt(-0.0)), Double.doubleToRawLongBits(cache.sqrt(-0.0)));
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void unknownEvictionFallsBackToClock(){
+        assertEquals(FunctionCache.Eviction.LRU, CalculatorEngine.parseEviction("lru"));
+        assertEquals(FunctionCache.Eviction.CLOCK, CalculatorEngine.parseEviction("LFU"));
+    }
+
+    private static double get(FunctionCache cache, int function, double x, double y){
+        return switch (function) {
+            case 0 -> cache.ln(x);
+            case 1 -> cache.log(x);
+            case 2 -> cache.sqrt(x);
+            default -> cache.pow(x, y);
+        };
+    }
+
+    private static double expected(int function, double x, double y){
+        return switch (function) {
+            case 0 -> Math.log(x);
+            case 1 -> Math.log10(x);
+            case 2 -> Math.sqrt(x);
+            default -> Math.pow(x, y);
+        };
+    }
+}
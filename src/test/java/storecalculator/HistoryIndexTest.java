@@ -0,0 +1,70 @@
+package storecalculator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Prefix and value search against a scan of every entry
+ * @author Yehyun Kim
+ */
+class HistoryIndexTest {
+    private static final String[] RESULTS = {"12", "1.5", "120", "1.23456789E+20", "1.2E-7", "-1.99999999E+300", "8.2639E+5565708",
+            "Infinity", "-Infinity", "1+2i", "1.5±0.1", "-3-4i", "0", "0.000012", "2E+15", "12345678901234", "-12.5"};
+    private static final String[] PREFIXES = {"1", "1.", "1.2", "1.23", "1.2E", "1.2E+", "1.2E+2", "1.2E-", "-1", "-1.9", "8",
+            "8.2639E+5", "I", "Inf", "-I", "1+", "1.5±", "-3", "0", "0.0000", "2E", "12", "123456789", "-", "E", "x"};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void prefixFindsEveryNotation() throws IOException {
+        try (HistoryLog log = new HistoryLog(directory)) {
+            Random random = new Random(8);
+            String[] results = new String[RESULTS.length * 20];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = RESULTS[random.nextInt(RESULTS.length)];
+                log.append("x", results[i], valueOf(results[i]));
+            }
+            HistoryIndex index = new HistoryIndex(log);
+            for (String result : RESULTS) { // entries added after the index is built
+                log.append("x", result, valueOf(result));
+                index.add((int) log.size() - 1, valueOf(result));
+            }
+            for (String prefix : PREFIXES) {
+                assertArrayEquals(scan(log, prefix, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY),
+                        index.search(prefix, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY), prefix);
+                assertArrayEquals(scan(log, prefix, 0, 1e30), index.search(prefix, 0, 1e30), prefix);
+            }
+        }
+    }
+
+    /**
+     * Value of the history, as the window stores it: not a number for complex and interval results
+     */
+    private static double valueOf(String result){
+        try {
+            return Double.parseDouble(result);
+        } catch (NumberFormatException exception) {
+            return Double.NaN;
+        }
+    }
+
+    private static int[] scan(HistoryLog log, String prefix, double min, double max){
+        boolean isAnyValue = min == Double.NEGATIVE_INFINITY && max == Double.POSITIVE_INFINITY;
+        int[] ids = IntStream.range(0, (int) log.size()).filter(id -> {
+            double value = log.valueAt(id);
+            return log.get(id).getResult().startsWith(prefix) && (Double.isNaN(value) ? isAnyValue : min <= value && value <= max);
+        }).toArray();
+        int[] newestFirst = new int[ids.length];
+        Arrays.setAll(newestFirst, i -> ids[ids.length - 1 - i]);
+        return newestFirst;
+    }
+}
@@ -0,0 +1,97 @@
+package storecalculator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * History entries read back after reopening, across segments of both files, and long texts cut between characters
+ * @author Yehyun Kim
+ */
+class HistoryLogTest {
+    /** More than one 1 MB segment of history.idx (8 bytes per entry) **/
+    private static final int SMALL_ENTRIES = 140_000;
+    /** Entries of max size: with the small ones, more than one 4 MB segment of history.log **/
+    private static final int BIG_ENTRIES = 1_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void entriesSurviveReopenAcrossSegments() throws IOException {
+        try (HistoryLog log = new HistoryLog(directory)) {
+            for (int i = 0; i < SMALL_ENTRIES + BIG_ENTRIES; i++) {
+                log.append(expressionOf(i), resultOf(i), i);
+            }
+            assertEntries(log, SMALL_ENTRIES + BIG_ENTRIES);
+        }
+        assertTrue(Files.size(directory.resolve("history.log")) > 4 << 20);
+        assertTrue(Files.size(directory.resolve("history.idx")) > 1 << 20);
+        try (HistoryLog log = new HistoryLog(directory)) {
+            assertEntries(log, SMALL_ENTRIES + BIG_ENTRIES);
+            for (int i = SMALL_ENTRIES + BIG_ENTRIES; i < SMALL_ENTRIES + 2 * BIG_ENTRIES; i++) { // appended after the last one
+                log.append(expressionOf(i), resultOf(i), i);
+            }
+        }
+        try (HistoryLog log = new HistoryLog(directory)) {
+            assertEntries(log, SMALL_ENTRIES + 2 * BIG_ENTRIES);
+            assertEquals(SMALL_ENTRIES + 2 * BIG_ENTRIES - 1, log.newest(1).get(0).getValue());
+            assertArrayEquals(new double[]{5, 6, 7}, log.values(5, 8));
+            assertThrows(IndexOutOfBoundsException.class, () -> log.get(SMALL_ENTRIES + 2 * BIG_ENTRIES));
+        }
+    }
+
+    @Test
+    void longTextIsCutBetweenCharacters() throws IOException {
+        try (HistoryLog log = new HistoryLog(directory)) {
+            for (int shift = 0; shift < 3; shift++) { // cut at every byte of the 3 byte √
+                log.append("1".repeat(shift) + "√".repeat(HistoryLog.MAX_EXPRESSION_BYTES), "±π".repeat(HistoryLog.MAX_RESULT_BYTES), 1);
+            }
+        }
+        try (HistoryLog log = new HistoryLog(directory)) {
+            for (int shift = 0; shift < 3; shift++) {
+                HistoryEntry entry = log.get(shift);
+                String expression = entry.getExpression();
+                assertEquals("1".repeat(shift) + "√".repeat((HistoryLog.MAX_EXPRESSION_BYTES - shift) / 3), expression);
+                assertTrue(expression.getBytes(StandardCharsets.UTF_8).length > HistoryLog.MAX_EXPRESSION_BYTES - 3);
+                assertEquals("±π".repeat(HistoryLog.MAX_RESULT_BYTES / 4), entry.getResult());
+            }
+        }
+    }
+
+    @Test
+    void otherFilesAreNotHistory() throws IOException {
+        Files.write(directory.resolve("history.idx"), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> new HistoryLog(directory));
+    }
+
+    private static String expressionOf(int i){
+        return i < SMALL_ENTRIES ? i + " + 1" : i + " x " + "9".repeat(HistoryLog.MAX_EXPRESSION_BYTES);
+    }
+
+    private static String resultOf(int i){
+        return i < SMALL_ENTRIES ? String.valueOf(i + 1) : "√" + i + "0".repeat(HistoryLog.MAX_RESULT_BYTES);
+    }
+
+    private static void assertEntries(HistoryLog log, int count){
+        assertEquals(count, log.size());
+        for (int i = 0; i < count; i++) {
+            HistoryEntry entry = log.get(i);
+            assertEquals(i, entry.getValue());
+            assertEquals(i, log.valueAt(i));
+            String expression = expressionOf(i);
+            String result = resultOf(i);
+            assertEquals(expression.substring(0, Math.min(expression.length(), HistoryLog.MAX_EXPRESSION_BYTES)), entry.getExpression());
+            assertEquals(result.substring(0, Math.min(result.length(), HistoryLog.MAX_RESULT_BYTES - 2)), entry.getResult());
+        }
+    }
+}
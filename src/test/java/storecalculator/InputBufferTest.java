@@ -0,0 +1,124 @@
+package storecalculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Value parsed while typing against Double.parseDouble of the typed text
+ * @author Yehyun Kim
+ */
+class InputBufferTest {
+    private static final String KEYS = "0123456789.";
+    /** Texts the screen can hand over to continue typing on **/
+    private static final String[] LOADED = {"", "-", "12.5", "-0.75", "3", "-", "1.2.3", "Infinity", "NaN", "-12345678901234",
+            "0.000000001", "99999999999999", "-.5", "1234567890123456"};
+
+    @Test
+    void valueMatchesParseDouble(){
+        Random random = new Random(9);
+        InputBuffer buffer = new InputBuffer();
+        StringBuilder typed = new StringBuilder();
+        for (int i = 0; i < 1_000_000; i++) {
+            int action = random.nextInt(20);
+            if (action < 14) {
+                char c = KEYS.charAt(random.nextInt(KEYS.length()));
+                int maxLength = typed.indexOf(".") >= 0 ? InputBuffer.MAX_DECIMAL_LENGTH : InputBuffer.MAX_LENGTH;
+                boolean fits = typed.length() < maxLength;
+                assertEquals(fits, buffer.append(c));
+                if (fits) {
+                    typed.append(c);
+                }
+            } else if (action < 18) {
+                assertEquals(typed.length() > 0, buffer.deleteLast());
+                if (typed.length() > 0) {
+                    typed.setLength(typed.length() - 1);
+                }
+            } else if (action < 19) {
+                String text = LOADED[random.nextInt(LOADED.length)];
+                buffer.load(text);
+                typed.setLength(0);
+                typed.append(text);
+            } else {
+                buffer.clear();
+                typed.setLength(0);
+            }
+            assertSameValue(typed.toString(), buffer);
+        }
+    }
+
+    @Test
+    void lengthLimits(){
+        InputBuffer buffer = new InputBuffer();
+        for (int i = 0; i < InputBuffer.MAX_LENGTH; i++) {
+            assertTrue(buffer.append('9'));
+        }
+        assertFalse(buffer.append('9'));
+        assertFalse(buffer.append('.')); // the decimal does not fit either: 13 characters is the limit without it
+        buffer.deleteLast();
+        assertTrue(buffer.append('.'));
+        assertTrue(buffer.append('5'));
+        assertFalse(buffer.append('5')); // 14 characters with the decimal
+        assertSameValue("999999999999.5", buffer);
+
+        buffer.load("-1234567890.12345"); // 17 characters: more than the buffer keeps
+        assertEquals(ErrorCode.TOO_MANY_DECIMALS, buffer.error());
+        assertThrows(NumberFormatException.class, buffer::doubleValue);
+        buffer.load("-123456789.12345"); // 16 characters: all kept
+        assertNull(buffer.error());
+        assertEquals(-123456789.12345, buffer.doubleValue());
+        assertFalse(buffer.append('1'));
+        assertTrue(buffer.deleteLast());
+        assertSameValue("-123456789.1234", buffer);
+    }
+
+    @Test
+    void deleteUndoesEveryKey(){
+        InputBuffer buffer = new InputBuffer();
+        buffer.load("1.2.");
+        assertEquals(ErrorCode.TOO_MANY_DECIMALS, buffer.error());
+        buffer.deleteLast(); // parsed again without the second decimal
+        assertSameValue("1.2", buffer);
+        buffer.deleteLast();
+        buffer.deleteLast();
+        assertSameValue("1", buffer);
+        assertTrue(buffer.isInt());
+        buffer.load("-.");
+        assertEquals(ErrorCode.NO_VALUE, buffer.error());
+        buffer.deleteLast();
+        assertEquals(ErrorCode.NO_VALUE, buffer.error());
+        buffer.deleteLast();
+        assertTrue(buffer.isEmpty());
+        assertFalse(buffer.deleteLast());
+    }
+
+    /**
+     * Buffer shows the text, and its value is the value of the text or the same error
+     */
+    private static void assertSameValue(String typed, InputBuffer buffer){
+        assertEquals(typed, buffer.toString());
+        assertTrue(buffer.contentEquals(typed));
+        assertEquals(typed.isEmpty(), buffer.isEmpty());
+        boolean isNumber = typed.matches("-?[0-9]*\\.?[0-9]*") && typed.matches(".*[0-9].*");
+        if (isNumber) {
+            double expected = Double.parseDouble(typed);
+            assertNull(buffer.error(), typed);
+            assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(buffer.doubleValue()), typed);
+            assertEquals(0, new BigDecimal(typed.endsWith(".") ? typed + "0" : typed).compareTo(buffer.decimalValue()), typed);
+            boolean isInt = typed.matches("-?[0-9]+") && expected >= Integer.MIN_VALUE && expected <= Integer.MAX_VALUE;
+            assertEquals(isInt, buffer.isInt(), typed);
+        } else {
+            assertThrows(NumberFormatException.class, buffer::doubleValue, typed);
+            assertEquals(typed.chars().filter(c -> c == '.').count() > 1 || !typed.matches("-?[0-9.]*")
+                    ? ErrorCode.TOO_MANY_DECIMALS : ErrorCode.NO_VALUE, buffer.error(), typed);
+            assertFalse(buffer.isInt(), typed);
+        }
+    }
+}
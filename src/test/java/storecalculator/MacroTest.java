@@ -0,0 +1,71 @@
+package storecalculator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recorded macros written to a file and replayed on a new session
+ * @author Yehyun Kim
+ */
+class MacroTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayEndsWithTheRecordedScreen() throws IOException {
+        Random random = new Random(17);
+        for (int sequence = 0; sequence < 500; sequence++) {
+            CalculatorSession session = new CalculatorSession();
+            session.setStoredValues("1.5", "-2", "0", "", "1000000");
+            Macro.Recorder recorder = new Macro.Recorder(session);
+            StringBuilder pressed = new StringBuilder();
+            int events = 1 + random.nextInt(40);
+            for (int i = 0; i < events; i++) {
+                if (random.nextInt(20) == 0) {
+                    String text = String.valueOf(random.nextInt(1000) / 10.0);
+                    recorder.recordText(text);
+                    session.retrieve(text);
+                    pressed.append('"').append(text).append("\" ");
+                } else {
+                    recorder.record(CalculatorSessionTest.pressRandomKey(session, random, pressed));
+                }
+            }
+            Path file = directory.resolve("macro-" + sequence + ".keys");
+            recorder.finish(session).write(file);
+            Macro macro = Macro.read(file);
+            assertEquals(events, macro.getEventCount());
+            Macro.Result result = macro.replay();
+            assertTrue(result.isMatch(), () -> pressed + ": " + macro.getScreenText() + " replayed as " + result.getScreenText());
+            assertEquals(session.getErrorText(), result.getErrorText(), pressed::toString);
+        }
+    }
+
+    @Test
+    void corruptEventCountIsNotAMacro() throws IOException {
+        for (int count : new int[]{-1, Integer.MAX_VALUE, 3}) {
+            Path file = directory.resolve("corrupt.keys");
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+                out.writeInt(0x4B455953); // magic
+                out.writeInt(4);
+                out.write(new byte[]{0, -1, 0, 0}); // precision mode, no operator, no disabled buttons, real numbers
+                for (int i = 0; i < CalculatorSession.STORED_VALUES; i++) {
+                    out.writeUTF("");
+                }
+                out.writeInt(count);
+                out.write(new byte[]{1, 2}); // 2 event bytes, no screen text
+            }
+            IOException exception = assertThrows(IOException.class, () -> Macro.read(file));
+            assertTrue(exception.getMessage().startsWith("Not a macro file"), exception::toString);
+        }
+    }
+}
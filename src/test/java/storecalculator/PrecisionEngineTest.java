@@ -0,0 +1,100 @@
+package storecalculator;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Results of the long fast path and the BigDecimal path against exact BigDecimal arithmetic
+ * @author Yehyun Kim
+ */
+class PrecisionEngineTest {
+    private static final MathContext CONTEXT = new MathContext(34, RoundingMode.HALF_EVEN);
+    private final PrecisionEngine engine = new PrecisionEngine(CONTEXT);
+
+    @Test
+    void fastPathMatchesExactArithmetic(){
+        Random random = new Random(5);
+        for (int i = 0; i < 200_000; i++) {
+            CalculatorEngine.Op op = CalculatorEngine.Op.values()[random.nextInt(CalculatorEngine.Op.values().length)];
+            long a = smallInteger(random);
+            long b = op == CalculatorEngine.Op.EXPONENT ? random.nextInt(11) : smallInteger(random);
+            if (op == CalculatorEngine.Op.DIVIDE && b == 0
+                    || op == CalculatorEngine.Op.EXPONENT && BigDecimal.valueOf(a).pow((int) b).precision() > CONTEXT.getPrecision()) {
+                continue; // pow with a MathContext is only within 2 ulps
+            }
+            assertSame(expected(op, BigDecimal.valueOf(a), BigDecimal.valueOf(b)), engine.apply(op, BigDecimal.valueOf(a), BigDecimal.valueOf(b)),
+                    a + " " + op + " " + b);
+        }
+    }
+
+    @Test
+    void slowPathMatchesExactArithmetic(){
+        Random random = new Random(6);
+        for (int i = 0; i < 50_000; i++) {
+            CalculatorEngine.Op op = CalculatorEngine.Op.values()[random.nextInt(CalculatorEngine.Op.values().length)];
+            BigDecimal a = BigDecimal.valueOf(random.nextLong() % 100_000_000, random.nextInt(8));
+            BigDecimal b = op == CalculatorEngine.Op.EXPONENT ? BigDecimal.valueOf(random.nextInt(4)) : BigDecimal.valueOf(random.nextLong() % 100_000_000, random.nextInt(8));
+            if (op == CalculatorEngine.Op.DIVIDE && b.signum() == 0) {
+                continue;
+            }
+            assertSame(expected(op, a, b), engine.apply(op, a, b), a + " " + op + " " + b);
+        }
+    }
+
+    @Test
+    void decimalsHaveNoBinaryError(){
+        assertSame(new BigDecimal("0.3"), engine.apply(CalculatorEngine.Op.PLUS, new BigDecimal("0.1"), new BigDecimal("0.2")), "0.1 + 0.2");
+        assertSame(new BigDecimal("3"), engine.apply(CalculatorEngine.UnaryOp.LOG, new BigDecimal("1000")), "log 1000");
+        assertSame(new BigDecimal("1.414213562373095048801688724209698"), engine.apply(CalculatorEngine.UnaryOp.ROOT, new BigDecimal("2")), "root 2");
+        assertSame(new BigDecimal("2.302585092994045684017991454684364"), engine.apply(CalculatorEngine.UnaryOp.LN, BigDecimal.TEN), "ln 10");
+    }
+
+    @Test
+    void powerThatOverflowsLongIsNotOnFastPath(){
+        for (long[] power : new long[][]{{4294967296L, 2}, {2097152, 3}, {-2097152, 3}, {-8, 21}, {1L << 40, 1}}) {
+            BigDecimal base = BigDecimal.valueOf(power[0]);
+            BigDecimal exponent = BigDecimal.valueOf(power[1]);
+            assertSame(base.pow((int) power[1]), engine.apply(CalculatorEngine.Op.EXPONENT, base, exponent), power[0] + " ^ " + power[1]);
+        }
+    }
+
+    @Test
+    void divideByZeroFails(){
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> engine.apply(CalculatorEngine.Op.DIVIDE, BigDecimal.ONE, BigDecimal.ZERO));
+        assertEquals(ErrorCode.DIVIDE_BY_ZERO.getMessage(), exception.getMessage());
+    }
+
+    /**
+     * @return integer around the limits of the fast path: 2^26 for x, 10^15 for + and -
+     */
+    private static long smallInteger(Random random){
+        return switch (random.nextInt(4)) {
+            case 0 -> random.nextInt(201) - 100;
+            case 1 -> random.nextLong() % (1L << 27);
+            case 2 -> random.nextLong() % 1_000_000_000_000_000L;
+            default -> random.nextLong() % 1_000_000_000L;
+        };
+    }
+
+    private static BigDecimal expected(CalculatorEngine.Op op, BigDecimal a, BigDecimal b){
+        return switch (op) {
+            case PLUS -> a.add(b).round(CONTEXT);
+            case MINUS -> a.subtract(b).round(CONTEXT);
+            case MULTIPLY -> a.multiply(b).round(CONTEXT);
+            case DIVIDE -> a.divide(b, CONTEXT);
+            case EXPONENT -> a.pow(b.intValueExact()).round(CONTEXT);
+        };
+    }
+
+    private static void assertSame(BigDecimal expected, BigDecimal actual, String calculation){
+        assertEquals(0, expected.compareTo(actual), () -> calculation + ": expected " + expected + " but was " + actual);
+    }
+}
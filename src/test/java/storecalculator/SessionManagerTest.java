@@ -0,0 +1,118 @@
+package storecalculator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sessions evicted to disk when idle, read back by their next request, and one request at a time per session
+ * @author Yehyun Kim
+ */
+class SessionManagerTest {
+    /** Short idle time: the evicter runs every quarter of it **/
+    private static final long IDLE_MILLIS = 40;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void idleSessionIsEvictedAndReadBack() throws Exception {
+        try (SessionManager sessions = new SessionManager(directory, IDLE_MILLIS)) {
+            String screen = sessions.apply("kiosk-1", session -> press(session, CalculatorSession.Key.DIGIT_1, CalculatorSession.Key.PLUS,
+                    CalculatorSession.Key.DIGIT_2, CalculatorSession.Key.ROOT));
+            assertEquals(1, sessions.size());
+            awaitEvicted(sessions);
+            assertEquals(1, sessionFiles().size());
+            assertEquals(screen, sessions.apply("kiosk-1", CalculatorSession::getScreenText));
+            assertEquals(1, sessions.size());
+            assertEquals("2.414213562", sessions.apply("kiosk-1", session -> press(session, CalculatorSession.Key.EQUAL)));
+        }
+    }
+
+    @Test
+    void removeDeletesTheFile() throws Exception {
+        try (SessionManager sessions = new SessionManager(directory, IDLE_MILLIS)) {
+            sessions.apply("kiosk-2", session -> press(session, CalculatorSession.Key.DIGIT_7));
+            awaitEvicted(sessions);
+            assertEquals(1, sessionFiles().size());
+            assertTrue(sessions.remove("kiosk-2"));
+            assertEquals(0, sessionFiles().size());
+            assertFalse(sessions.remove("kiosk-2"));
+            sessions.apply("kiosk-2", session -> press(session, CalculatorSession.Key.DIGIT_7)); // in memory only
+            assertTrue(sessions.remove("kiosk-2"));
+            assertEquals(0, sessions.size());
+            assertEquals("", sessions.apply("kiosk-2", CalculatorSession::getScreenText));
+        }
+    }
+
+    @Test
+    void requestsOfOneSessionRunOneAtATime() throws Exception {
+        int threads = 8, requests = 300;
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        // idle time of 1 ms: the session is evicted and read back between requests
+        try (SessionManager sessions = new SessionManager(directory, 1)) {
+            sessions.apply("kiosk-3", session -> press(session, CalculatorSession.Key.DIGIT_0));
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < requests; i++) {
+                        sessions.apply("kiosk-3", session -> {
+                            if (running.incrementAndGet() != 1) {
+                                overlaps.incrementAndGet();
+                            }
+                            press(session, CalculatorSession.Key.PLUS, CalculatorSession.Key.DIGIT_1, CalculatorSession.Key.EQUAL);
+                            running.decrementAndGet();
+                            return null;
+                        });
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertEquals(0, overlaps.get());
+            assertEquals(String.valueOf(threads * requests), sessions.apply("kiosk-3", CalculatorSession::getScreenText));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String press(CalculatorSession session, CalculatorSession.Key... keys){
+        for (CalculatorSession.Key key : keys) {
+            session.press(key);
+        }
+        return session.getScreenText();
+    }
+
+    private static void awaitEvicted(SessionManager sessions) throws InterruptedException {
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sessions.size() > 0 && System.nanoTime() < end) {
+            Thread.sleep(IDLE_MILLIS / 4);
+        }
+        assertEquals(0, sessions.size());
+    }
+
+    private List<Path> sessionFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(file -> file.toString().endsWith(".session")).toList();
+        }
+    }
+}